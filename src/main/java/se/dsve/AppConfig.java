@@ -12,6 +12,59 @@ public class AppConfig {
     private static final String DB_SERVER = dotenv.get("DB_SERVER");
     private static final String DB_PORT = dotenv.get("DB_PORT");
     private static final String DB_DATABASE = dotenv.get("DB_DATABASE");
+    private static final int DB_POOL_MIN_SIZE = getInt("DB_POOL_MIN_SIZE", 2);
+    private static final int DB_POOL_MAX_SIZE = getInt("DB_POOL_MAX_SIZE", 10);
+    private static final long DB_POOL_IDLE_TIMEOUT_MS = getLong("DB_POOL_IDLE_TIMEOUT_MS", 300_000);
+    private static final long DB_POOL_BORROW_TIMEOUT_MS = getLong("DB_POOL_BORROW_TIMEOUT_MS", 5_000);
+    private static final int DB_STATEMENT_CACHE_SIZE = getInt("DB_STATEMENT_CACHE_SIZE", 32);
+    private static final int DB_BATCH_CHUNK_SIZE = getInt("DB_BATCH_CHUNK_SIZE", 1_000);
+    private static final String DB_CATALOG_MODE = dotenv.get("DB_CATALOG_MODE", "persistent");
+    private static final long DB_CATALOG_TTL_HOURS = getLong("DB_CATALOG_TTL_HOURS", 168);
+    private static final boolean DB_WRITE_BEHIND_ENABLED = Boolean.parseBoolean(dotenv.get("DB_WRITE_BEHIND_ENABLED", "false").trim());
+    private static final int DB_WRITE_BEHIND_QUEUE_CAPACITY = getInt("DB_WRITE_BEHIND_QUEUE_CAPACITY", 1_000);
+    private static final int DB_WRITE_BEHIND_BATCH_SIZE = getInt("DB_WRITE_BEHIND_BATCH_SIZE", 100);
+    private static final long DB_WRITE_BEHIND_FLUSH_MS = getLong("DB_WRITE_BEHIND_FLUSH_MS", 200);
+    private static final boolean DB_INVERTED_INDEX_ENABLED = Boolean.parseBoolean(dotenv.get("DB_INVERTED_INDEX_ENABLED", "false").trim());
+    private static final boolean DB_TITLE_INDEX_ENABLED = Boolean.parseBoolean(dotenv.get("DB_TITLE_INDEX_ENABLED", "false").trim());
+    private static final String OMDB_BASE_URL = dotenv.get("OMDB_BASE_URL", "http://www.omdbapi.com");
+    private static final long OMDB_CONNECT_TIMEOUT_MS = getLong("OMDB_CONNECT_TIMEOUT_MS", 2_000);
+    private static final long OMDB_REQUEST_TIMEOUT_MS = getLong("OMDB_REQUEST_TIMEOUT_MS", 5_000);
+    private static final int OMDB_MAX_CONCURRENCY = getInt("OMDB_MAX_CONCURRENCY", 8);
+    private static final int OMDB_REQUESTS_PER_SECOND = getInt("OMDB_REQUESTS_PER_SECOND", 10);
+    private static final long OMDB_DAILY_QUOTA = getLong("OMDB_DAILY_QUOTA", 1_000);
+    private static final int OMDB_CACHE_MAX_SIZE = getInt("OMDB_CACHE_MAX_SIZE", 10_000);
+    private static final long OMDB_CACHE_TTL_MINUTES = getLong("OMDB_CACHE_TTL_MINUTES", 60);
+    private static final long OMDB_CACHE_NEGATIVE_TTL_SECONDS = getLong("OMDB_CACHE_NEGATIVE_TTL_SECONDS", 300);
+    private static final int OMDB_SEARCH_PREFETCH_PAGES = getIntAtLeast("OMDB_SEARCH_PREFETCH_PAGES", 2, 1);
+    private static final int OMDB_RETRY_MAX_ATTEMPTS = getInt("OMDB_RETRY_MAX_ATTEMPTS", 3);
+    private static final long OMDB_RETRY_INITIAL_BACKOFF_MS = getLong("OMDB_RETRY_INITIAL_BACKOFF_MS", 100);
+    private static final long OMDB_RETRY_MAX_BACKOFF_MS = getLong("OMDB_RETRY_MAX_BACKOFF_MS", 2_000);
+    private static final int OMDB_BREAKER_FAILURE_THRESHOLD = getInt("OMDB_BREAKER_FAILURE_THRESHOLD", 5);
+    private static final long OMDB_BREAKER_OPEN_MS = getLong("OMDB_BREAKER_OPEN_MS", 30_000);
+    private static final boolean OMDB_HEDGING_ENABLED = Boolean.parseBoolean(dotenv.get("OMDB_HEDGING_ENABLED", "false").trim());
+    private static final long OMDB_HEDGE_MIN_DELAY_MS = getLong("OMDB_HEDGE_MIN_DELAY_MS", 50);
+    private static final long LOOKUP_BUDGET_MS = getLong("LOOKUP_BUDGET_MS", 10_000);
+    private static final String LOOKUP_STRATEGY = dotenv.get("LOOKUP_STRATEGY", "sequential");
+    private static final long LOOKUP_SPECULATION_DELAY_MS = getLong("LOOKUP_SPECULATION_DELAY_MS", 50);
+    private static final int LOOKUP_FUZZY_MAX_DISTANCE = getInt("LOOKUP_FUZZY_MAX_DISTANCE", 2);
+
+    private static int getInt(String key, int defaultValue) {
+        String value = dotenv.get(key);
+        return value == null || value.isBlank() ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    private static int getIntAtLeast(String key, int defaultValue, int min) {
+        int value = getInt(key, defaultValue);
+        if (value < min) {
+            throw new IllegalArgumentException(key + " must be at least " + min + ", was " + value);
+        }
+        return value;
+    }
+
+    private static long getLong(String key, long defaultValue) {
+        String value = dotenv.get(key);
+        return value == null || value.isBlank() ? defaultValue : Long.parseLong(value.trim());
+    }
 
     public static String getOmdbApiKey() {
         return OMDB_API_KEY;
@@ -40,4 +93,144 @@ public class AppConfig {
     public static String getDbDatabase() {
         return DB_DATABASE;
     }
+
+    public static int getDbPoolMinSize() {
+        return DB_POOL_MIN_SIZE;
+    }
+
+    public static int getDbPoolMaxSize() {
+        return DB_POOL_MAX_SIZE;
+    }
+
+    public static long getDbPoolIdleTimeoutMillis() {
+        return DB_POOL_IDLE_TIMEOUT_MS;
+    }
+
+    public static long getDbPoolBorrowTimeoutMillis() {
+        return DB_POOL_BORROW_TIMEOUT_MS;
+    }
+
+    public static int getDbStatementCacheSize() {
+        return DB_STATEMENT_CACHE_SIZE;
+    }
+
+    public static int getDbBatchChunkSize() {
+        return DB_BATCH_CHUNK_SIZE;
+    }
+
+    public static String getDbCatalogMode() {
+        return DB_CATALOG_MODE;
+    }
+
+    public static long getDbCatalogTtlHours() {
+        return DB_CATALOG_TTL_HOURS;
+    }
+
+    public static boolean isDbWriteBehindEnabled() {
+        return DB_WRITE_BEHIND_ENABLED;
+    }
+
+    public static int getDbWriteBehindQueueCapacity() {
+        return DB_WRITE_BEHIND_QUEUE_CAPACITY;
+    }
+
+    public static int getDbWriteBehindBatchSize() {
+        return DB_WRITE_BEHIND_BATCH_SIZE;
+    }
+
+    public static long getDbWriteBehindFlushMillis() {
+        return DB_WRITE_BEHIND_FLUSH_MS;
+    }
+
+    public static boolean isDbInvertedIndexEnabled() {
+        return DB_INVERTED_INDEX_ENABLED;
+    }
+
+    public static boolean isDbTitleIndexEnabled() {
+        return DB_TITLE_INDEX_ENABLED;
+    }
+
+    public static String getOmdbBaseUrl() {
+        return OMDB_BASE_URL;
+    }
+
+    public static long getOmdbConnectTimeoutMillis() {
+        return OMDB_CONNECT_TIMEOUT_MS;
+    }
+
+    public static long getOmdbRequestTimeoutMillis() {
+        return OMDB_REQUEST_TIMEOUT_MS;
+    }
+
+    public static int getOmdbMaxConcurrency() {
+        return OMDB_MAX_CONCURRENCY;
+    }
+
+    public static int getOmdbRequestsPerSecond() {
+        return OMDB_REQUESTS_PER_SECOND;
+    }
+
+    public static long getOmdbDailyQuota() {
+        return OMDB_DAILY_QUOTA;
+    }
+
+    public static int getOmdbCacheMaxSize() {
+        return OMDB_CACHE_MAX_SIZE;
+    }
+
+    public static long getOmdbCacheTtlMinutes() {
+        return OMDB_CACHE_TTL_MINUTES;
+    }
+
+    public static long getOmdbCacheNegativeTtlSeconds() {
+        return OMDB_CACHE_NEGATIVE_TTL_SECONDS;
+    }
+
+    public static int getOmdbSearchPrefetchPages() {
+        return OMDB_SEARCH_PREFETCH_PAGES;
+    }
+
+    public static int getOmdbRetryMaxAttempts() {
+        return OMDB_RETRY_MAX_ATTEMPTS;
+    }
+
+    public static long getOmdbRetryInitialBackoffMillis() {
+        return OMDB_RETRY_INITIAL_BACKOFF_MS;
+    }
+
+    public static long getOmdbRetryMaxBackoffMillis() {
+        return OMDB_RETRY_MAX_BACKOFF_MS;
+    }
+
+    public static int getOmdbBreakerFailureThreshold() {
+        return OMDB_BREAKER_FAILURE_THRESHOLD;
+    }
+
+    public static long getOmdbBreakerOpenMillis() {
+        return OMDB_BREAKER_OPEN_MS;
+    }
+
+    public static boolean isOmdbHedgingEnabled() {
+        return OMDB_HEDGING_ENABLED;
+    }
+
+    public static long getOmdbHedgeMinDelayMillis() {
+        return OMDB_HEDGE_MIN_DELAY_MS;
+    }
+
+    public static long getLookupBudgetMillis() {
+        return LOOKUP_BUDGET_MS;
+    }
+
+    public static String getLookupStrategy() {
+        return LOOKUP_STRATEGY;
+    }
+
+    public static long getLookupSpeculationDelayMillis() {
+        return LOOKUP_SPECULATION_DELAY_MS;
+    }
+
+    public static int getLookupFuzzyMaxDistance() {
+        return LOOKUP_FUZZY_MAX_DISTANCE;
+    }
 }
@@ -1,19 +1,26 @@
 package se.dsve;
 
+import se.dsve.pool.ConnectionPool;
+import se.dsve.pool.ConnectionPoolConfig;
+
 import java.sql.*;
 
-public class Database {
+public class Database implements AutoCloseable {
     // Skapa URL till databasen
     private static final String DB_DATABASE = AppConfig.getDbDatabase();
     private static final String DB_DRIVER = AppConfig.getDbDriver();
     private static final String DB_SERVER = AppConfig.getDbServer();
     private static final String DB_PORT = AppConfig.getDbPort();
     private static final String DB_URL = DB_DRIVER + "://" + DB_SERVER + ":" + DB_PORT + "/";
-    private static final String JDBC_URL = DB_URL + DB_DATABASE + "?useSSL=false&allowPublicKeyRetrieval=true";
+    private static final String JDBC_URL = DB_URL + DB_DATABASE + "?useSSL=false&allowPublicKeyRetrieval=true"
+            + "&useServerPrepStmts=true&rewriteBatchedStatements=true";
 
     private final String jdbcUsername = AppConfig.getDbUser();
     private final String jdbcPassword = AppConfig.getDbPassword();
 
+    // Pool med återanvändbara anslutningar som delas av alla DAO-anrop
+    private final ConnectionPool connectionPool;
+
     // SQL query for creating the database
     private static final String CREATE_DATABASE_SQL = "CREATE DATABASE IF NOT EXISTS " + AppConfig.getDbDatabase();
 
@@ -23,8 +30,12 @@ public class Database {
      * <p>This constructor initializes the Database object by calling the {@code initializeDatabase()} method,
      * which creates the necessary database schema. It ensures that the database is properly configured and
      * ready for use.
+     *
+     * <p>Connections handed out by {@code getConnection()} come from a bounded connection pool configured
+     * through the DB_POOL_* settings in the .env file.
      */
     public Database() {
+        connectionPool = new ConnectionPool(JDBC_URL, jdbcUsername, jdbcPassword, ConnectionPoolConfig.fromAppConfig());
         initializeDatabase();
     }
 
@@ -36,12 +47,29 @@ public class Database {
      * test database schema. It ensures that the test database is properly configured and ready for
      * use upon instantiation of the Database object.
      *
+     * <p>Pooled connections returned by {@code getConnection()} are opened against the provided URL.
+     *
      * @param DB_URL the URL of the test database to connect to.
      * @param DB_DATABASE the name of the test database schema to create.
      * @param jdbcUsername the username used for authentication.
      * @param jdbcPassword the password used for authentication.
      */
     public Database(String DB_URL, String DB_DATABASE, String jdbcUsername, String jdbcPassword) {
+        this(DB_URL, DB_DATABASE, jdbcUsername, jdbcPassword, ConnectionPoolConfig.fromAppConfig());
+    }
+
+    /**
+     * Constructs a new Database object for the provided URL with a custom connection pool configuration.
+     *
+     * @param DB_URL the URL of the database to connect to.
+     * @param DB_DATABASE the name of the database schema to create.
+     * @param jdbcUsername the username used for authentication.
+     * @param jdbcPassword the password used for authentication.
+     * @param poolConfig the sizing and timeout settings of the connection pool.
+     */
+    public Database(String DB_URL, String DB_DATABASE, String jdbcUsername, String jdbcPassword,
+                    ConnectionPoolConfig poolConfig) {
+        connectionPool = new ConnectionPool(DB_URL, jdbcUsername, jdbcPassword, poolConfig);
         initializeDatabase(DB_URL, DB_DATABASE, jdbcUsername, jdbcPassword);
     }
 
@@ -125,30 +153,24 @@ public class Database {
     }
 
     /**
-     * Establishes a connection to the database using the JDBC driver.
+     * Borrows a connection to the database from the connection pool.
      *
-     * <p>This method initializes a connection to the database using the JDBC driver,
-     * specified by the database URL, JDBC username, and password provided during
-     * class instantiation. It returns the established Connection object.
+     * <p>This method hands out a pooled connection to the database specified during class
+     * instantiation. An idle connection is reused when one is available, otherwise a new one is
+     * opened as long as the pool is below its maximum size. Closing the returned connection hands
+     * it back to the pool instead of closing the physical connection.
      *
-     * <p>If an SQL exception occurs during the connection,
-     * details about the exception are printed to the standard error stream.
+     * <p>If no connection can be borrowed the exception is thrown to the caller, so that a caller
+     * in a {@code try (Connection c = ...)} block handles it like any other SQL error instead of
+     * getting a null connection.
      *
-     * @return a Connection object representing the established database connection,
-     *         or null if the connection could not be established.
+     * @return a Connection object representing the borrowed database connection.
+     * @throws java.sql.SQLTimeoutException if no connection became available within the borrow timeout.
+     * @throws SQLException if the pool is closed or a new connection could not be opened.
      */
-    public Connection getConnection() {
-        // Deklarerar objekt för anslutning
-        Connection connection = null;
-
-        // Försöker skapa anslutning till databas
-        try {
-            connection = DriverManager.getConnection(JDBC_URL, jdbcUsername, jdbcPassword);
-        } catch (SQLException e) {
-            // Skriver ut felmeddelande till användare
-            printSQLException(e);
-        }
-        return connection;
+    public Connection getConnection() throws SQLException {
+        // Lånar en anslutning från poolen
+        return connectionPool.getConnection();
     }
 
     /**
@@ -181,4 +203,21 @@ public class Database {
         }
         return connection;
     }
+
+    /**
+     * Returns the connection pool backing {@code getConnection()}, for example to read its counters.
+     *
+     * @return the ConnectionPool of this database.
+     */
+    public ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    /**
+     * Closes the connection pool and every idle connection in it.
+     */
+    @Override
+    public void close() {
+        connectionPool.close();
+    }
 }
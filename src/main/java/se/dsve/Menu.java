@@ -1,18 +1,35 @@
 package se.dsve;
 
 import se.dsve.api.ApiService;
+import se.dsve.api.CachingApiService;
+import se.dsve.api.SearchHit;
 import se.dsve.classes.Movie;
+import se.dsve.dao.CatalogMode;
 import se.dsve.dao.MoviesDAO;
+import se.dsve.dao.Page;
+import se.dsve.dao.WriteBehindConfig;
+import se.dsve.dao.WriteBehindMoviesDAO;
+import se.dsve.helpers.Deadline;
 import se.dsve.helpers.InputHelper;
+import se.dsve.services.LookupResult;
+import se.dsve.services.TitleLookupService;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 public class Menu {
+    private Database database;
     private MoviesDAO moviesDAO;
-    private ApiService apiService = new ApiService();
+    private ApiService apiService = new CachingApiService();
+    private TitleLookupService titleLookupService;
     private static InputHelper inputHelper = new InputHelper();
-    private static final int EXIT = 5;
+    private static final int EXIT = 6;
+    private static final int PAGE_SIZE = 10;
+    private static final Duration LOOKUP_BUDGET = Duration.ofMillis(AppConfig.getLookupBudgetMillis());
 
     /**
      * Constructs a new Menu object and initializes the application menu.
@@ -28,8 +45,12 @@ public class Menu {
      */
     public Menu() throws IOException {
         // Skapa en Database-instans och skicka den till MoviesDAO
-        Database database = new Database();
-        moviesDAO = new MoviesDAO(database);
+        database = new Database();
+        // Med write-behind sparas nya filmer i bakgrunden så att användaren inte väntar på databasen
+        moviesDAO = AppConfig.isDbWriteBehindEnabled()
+                ? new WriteBehindMoviesDAO(database, CatalogMode.fromAppConfig(), WriteBehindConfig.fromAppConfig())
+                : new MoviesDAO(database);
+        titleLookupService = new TitleLookupService(moviesDAO, apiService);
 
         showMenu(); // Kör showMenu-metoden
     }
@@ -62,8 +83,17 @@ public class Menu {
                 case 4:
                     searchByDirector();
                     break;
+                case 5:
+                    searchOmdb();
+                    break;
                 case EXIT:
                     inputHelper.close();
+                    titleLookupService.close();
+                    // Skriver köade filmer innan databasen stängs
+                    if (moviesDAO instanceof WriteBehindMoviesDAO writeBehindDAO) {
+                        writeBehindDAO.close();
+                    }
+                    database.close();
                     System.out.println("Exiting..");
                     run = false;
                     break;
@@ -82,7 +112,8 @@ public class Menu {
                 2. Search movie by year only in database!
                 3. Search movie by actor only in database!
                 4. Search movie by director only in database!
-                5. Exit
+                5. Search titles in OMDB
+                6. Exit
                 ------------------
                 Enter your choice:\s""";
 
@@ -93,35 +124,26 @@ public class Menu {
         // Hämtar titel på film från användare och initierar movie-objekt
         String s = "Type the name of the movie title: ";
         String title = inputHelper.promptUserAndGetString(s);
-        Movie movie;
-
-        // Försöker hämta filmen från databas
-        try {
-            movie = moviesDAO.findMovieInDatabaseByTitle(title).get(0);
-            movie.printMovie();
-        }
 
-        // Om filmen inte finns kastar anropet ett undantag och filmen hämtas från OMDB API
-        catch (IndexOutOfBoundsException e) {
-            movie = getMovieFromApi(title);
+        // Hämtar filmen från databas, eller från OMDB API om den inte finns där, inom tidsbudgeten
+        LookupResult result = titleLookupService.lookup(title, Deadline.after(LOOKUP_BUDGET));
 
-            // Om filmen finns i OMDB API läggs den till i databas och skrivs ut till användare
-            if (movie != null) {
-                moviesDAO.addMovieToDatabase(movie);
-                movie.printMovie();
-            }
-            // Om filmen varken finns i databas eller OMDB API meddelas användaren detta
-            else {
+        switch (result.getStatus()) {
+            // Om filmen finns skrivs den ut till användare
+            case FOUND, PARTIAL -> result.getMovie().printMovie();
+            case TIMED_OUT -> System.out.println("The search took too long and was cancelled, try again later");
+            case ERROR -> System.out.println("The OMDB API could not be reached, try again later.");
+            // Om filmen varken finns i databas eller OMDB API meddelas användaren detta, med liknande titlar
+            default -> {
                 System.out.println("The movie you were looking for could not be found");
+                List<String> suggestions = titleLookupService.suggestTitles(title);
+                if (!suggestions.isEmpty()) {
+                    System.out.println("Did you mean: " + String.join(", ", suggestions) + "?");
+                }
             }
         }
     }
 
-    private Movie getMovieFromApi(String title) {
-        // Hämtar filmen från API:et
-        return apiService.getDataByTitle(title);
-    }
-
     private static boolean notInDatabase(Movie movie) {
         // Initierar MoviesDAO med Databas
         MoviesDAO moviesDAO = new MoviesDAO(new Database());
@@ -133,43 +155,72 @@ public class Menu {
     private void searchByYear() {
         String s = "Type the year of the movie: ";
         int year = inputHelper.promptUserAndGetInt(s);
-        List<Movie> movieListByActor = moviesDAO.findMovieInDatabaseByYear(year);
 
-        if (movieListByActor.isEmpty()) {
-            System.out.println("No movies could be found in the database for the specified release year");
-        } else {
-            for (Movie movie : movieListByActor) {
-                movie.printMovie();
-            }
-        }
+        printMoviesPageByPage(token -> moviesDAO.findMovieInDatabaseByYear(year, PAGE_SIZE, token),
+                "No movies could be found in the database for the specified release year");
     }
 
     private void searchByActor() {
-        String s = "Type the name of an actor: ";
+        String s = "Type the full name of an actor: ";
         String actor = inputHelper.promptUserAndGetString(s);
-        List<Movie> movieListByActor = moviesDAO.findMovieInDatabaseByActor("%"+actor+"%");
-
-        if (movieListByActor.isEmpty()) {
-            System.out.println("No movies starring this actor could be found in the database");
-        } else {
-            for (Movie movie : movieListByActor) {
-                movie.printMovie();
-            }
-        }
 
+        printMoviesPageByPage(token -> moviesDAO.findMovieInDatabaseByActor(actor, PAGE_SIZE, token),
+                "No movies starring this actor could be found in the database");
     }
 
     private void searchByDirector() {
         String s = "Type the name of a director: ";
-        String actor = inputHelper.promptUserAndGetString(s);
-        List<Movie> movieListByActor = moviesDAO.findMovieInDatabaseByDirector(actor);
+        String director = inputHelper.promptUserAndGetString(s);
+
+        printMoviesPageByPage(token -> moviesDAO.findMovieInDatabaseByDirector(director, PAGE_SIZE, token),
+                "No movies by this director could be found in the database");
+    }
+
+    private void searchOmdb() {
+        String s = "Type a word in the title: ";
+        String text = inputHelper.promptUserAndGetString(s);
 
-        if (movieListByActor.isEmpty()) {
-            System.out.println("No movies by this director could be found in the database");
-        } else {
-            for (Movie movie : movieListByActor) {
+        // Nästa sida hämtas i bakgrunden medan användaren läser den här
+        try (Stream<SearchHit> hits = apiService.search(text)) {
+            Iterator<SearchHit> iterator = hits.iterator();
+            if (!iterator.hasNext()) {
+                System.out.println("No titles matching the search could be found in OMDB");
+                return;
+            }
+            int printed = 0;
+            while (iterator.hasNext()) {
+                System.out.println(iterator.next());
+                if (++printed % PAGE_SIZE == 0 && iterator.hasNext()) {
+                    String answer = inputHelper.promptUserAndGetString("Show more titles? (y/n): ");
+                    if (!answer.trim().equalsIgnoreCase("y")) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    private static void printMoviesPageByPage(Function<String, Page<Movie>> fetchPage, String notFoundMessage) {
+        // Hämtar första sidan
+        Page<Movie> page = fetchPage.apply(null);
+        if (page.getItems().isEmpty()) {
+            System.out.println(notFoundMessage);
+            return;
+        }
+
+        // Skriver ut en sida i taget så länge användaren vill se fler
+        while (true) {
+            for (Movie movie : page.getItems()) {
                 movie.printMovie();
             }
+            if (!page.hasNextPage()) {
+                return;
+            }
+            String answer = inputHelper.promptUserAndGetString("Show more movies? (y/n): ");
+            if (!answer.trim().equalsIgnoreCase("y")) {
+                return;
+            }
+            page = fetchPage.apply(page.getNextPageToken());
         }
     }
 }
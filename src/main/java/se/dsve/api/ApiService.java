@@ -1,106 +1,426 @@
 package se.dsve.api;
 
-import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import se.dsve.AppConfig;
 import se.dsve.classes.Movie;
-import se.dsve.classes.MovieBuilder;
+import se.dsve.helpers.Deadline;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
+import java.net.URI;
 import java.net.URL;
+import java.net.URLEncoder;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class ApiService {
-    private final String API_KEY = AppConfig.getOmdbApiKey();
+    private static final Logger logger = LoggerFactory.getLogger(ApiService.class);
+    // Svaret läses från en blockerande ström, det görs på en virtuell tråd i stället för i HTTP-klientens trådar
+    private static final Executor PARSE_EXECUTOR = Thread::startVirtualThread;
+    private final String API_KEY;
+    private final String baseUrl;
+    private final HttpTransport transport;
+    private final RateLimiter rateLimiter;
+    private final int maxConcurrency;
+
+    /**
+     * Constructs a new ApiService that uses the shared HTTP transport and the OMDB settings from the .env file.
+     *
+     * <p>The shared transport retries failed requests and fails fast while its circuit breaker is open, see
+     * {@link ResilientHttpTransport}.
+     */
+    public ApiService() {
+        this(ResilientHttpTransport.getDefault(), AppConfig.getOmdbBaseUrl(), AppConfig.getOmdbApiKey());
+    }
+
+    /**
+     * Constructs a new ApiService with the specified transport, base URL and API key.
+     *
+     * @param transport the HTTP transport used to send requests.
+     * @param baseUrl the base URL of the OMDB API, for example "http://www.omdbapi.com".
+     * @param apiKey the OMDB API key.
+     */
+    public ApiService(HttpTransport transport, String baseUrl, String apiKey) {
+        this(transport, baseUrl, apiKey, RateLimiter.getDefault(), AppConfig.getOmdbMaxConcurrency());
+    }
+
+    /**
+     * Constructs a new ApiService with the specified transport, base URL, API key and limits for bulk lookups.
+     *
+     * @param transport the HTTP transport used to send requests.
+     * @param baseUrl the base URL of the OMDB API, for example "http://www.omdbapi.com".
+     * @param apiKey the OMDB API key.
+     * @param rateLimiter the limiter every request of {@link #getDataByTitles(Collection)} must pass.
+     * @param maxConcurrency the maximum number of requests of a bulk lookup that are in flight at once.
+     */
+    public ApiService(HttpTransport transport, String baseUrl, String apiKey, RateLimiter rateLimiter, int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1");
+        }
+        this.transport = transport;
+        this.baseUrl = baseUrl;
+        this.API_KEY = apiKey;
+        this.rateLimiter = rateLimiter;
+        this.maxConcurrency = maxConcurrency;
+    }
 
     /**
      * Fetches movie data from the OMDB API based on the provided movie title.
      *
      * @param movieTitle The title of the movie to retrieve information for.
      * @return A Movie object containing details retrieved from the OMDB API, or null if an error occurs.
-     * @throws MalformedURLException If there is an issue with the construction of the URL.
      *
-     * This method queries the OMDB API for movie details using the provided title.
-     * It fetches data from the OMDB API using the HTTPHelper class.
-     * The obtained JSON response is parsed to create a Movie object, and the object is returned.
+     * This method waits for {@link #getDataByTitleAsync(String)}. If the request fails, times out or the
+     * OMDB API answers with an error status, the error is logged and null is returned.
      */
     public Movie getDataByTitle(String movieTitle) {
         try {
-            // Skapar URL-sträng med API-nyckeln och den formaterade titeln
-            String formattedTitle = formatToApiStandard(movieTitle);
-            URL url = urlToFetch(formattedTitle);
-
-            // Hämtar data från URL:en via HTTP Helper-metod
-            String response = HttpHelper.fetchDataFromUrl(url);
-
-            // Konverterar data till JSON objekt
-            JSONObject json = convertDataToJSONObject(response);
-
-            // Returnerar Movie med data från OMDB API
-            return buildMovieFromJSON(json);
-        } catch (MalformedURLException e) {
+            return getDataByTitleAsync(movieTitle).join();
+        } catch (CompletionException e) {
+            // Loggar undantag
+            logger.error("Error fetching movie '{}' from the OMDB API: {}", movieTitle, e.getCause().getMessage(), e.getCause());
+            System.out.println("The OMDB API could not be reached, try again later.");
+        } catch (IllegalArgumentException e) {
             System.out.println("MalformedURLException: The provided URL is invalid.");
             System.out.println("Double-check the URL for any typos or missing components.");
         }
         return null;
     }
 
-    private JSONObject convertDataToJSONObject(String data) {
-        return new JSONObject(data);
+    /**
+     * Fetches movie data from the OMDB API based on the provided movie title without blocking the caller.
+     *
+     * @param movieTitle The title of the movie to retrieve information for.
+     * @return A CompletableFuture with a Movie object containing details retrieved from the OMDB API.
+     * @throws IllegalArgumentException If the base URL cannot be combined with the title into a valid URI.
+     *
+     * This method sends the request through the HTTP transport, which reuses connections and applies the
+     * configured connect and request timeouts. The JSON response is parsed straight from the response stream
+     * by {@link OmdbJsonStreamParser} into a Movie object, or null if the OMDB API does not know the title. The future completes exceptionally if the request fails, times out or
+     * the OMDB API answers with an error, for example when the request limit is reached.
+     */
+    public CompletableFuture<Movie> getDataByTitleAsync(String movieTitle) {
+        return getDataByTitleAsync(movieTitle, Deadline.none());
+    }
+
+    /**
+     * Fetches movie data from the OMDB API based on the provided movie title within a time budget.
+     *
+     * @param movieTitle The title of the movie to retrieve information for.
+     * @param deadline The deadline of the whole lookup the request is part of.
+     * @return A CompletableFuture with a Movie object containing details retrieved from the OMDB API.
+     * @throws IllegalArgumentException If the base URL cannot be combined with the title into a valid URI.
+     *
+     * Works like {@link #getDataByTitleAsync(String)}, but the HTTP request timeout is derived from the time left
+     * until the deadline. The future completes exceptionally with an {@link java.net.http.HttpTimeoutException}
+     * if the deadline passes before the OMDB API answers.
+     */
+    public CompletableFuture<Movie> getDataByTitleAsync(String movieTitle, Deadline deadline) {
+        // Skapar URI med API-nyckeln och den formaterade titeln
+        String formattedTitle = formatToApiStandard(movieTitle);
+        URI uri = uriToFetch(formattedTitle);
+
+        // Hämtar data från URI:n och konverterar svaret till Movie
+        return fetchAsync(uri, Map.of(), deadline, ApiService::parseMovie);
+    }
+
+    /**
+     * Fetches a stored movie from the OMDB API again, unless it has not changed since it was fetched.
+     *
+     * <p>The movie is asked for by its imdbID when it is known, otherwise by its title and year, so a title shared
+     * by several movies does not return another of them.
+     *
+     * <p>If the stored movie has an ETag or Last-Modified date from its last fetch, the request is sent with
+     * If-None-Match and If-Modified-Since. When the OMDB API answers 304 Not Modified, nothing is downloaded or
+     * parsed and the result is NOT_MODIFIED with the stored movie.
+     *
+     * @param stored the movie as it is stored.
+     * @return a CompletableFuture with a FOUND result with the fresh movie, a NOT_MODIFIED result, or a NOT_FOUND result.
+     * @throws IllegalArgumentException If the base URL cannot be combined with the title into a valid URI.
+     */
+    public CompletableFuture<TitleResult> revalidateAsync(Movie stored) {
+        String title = stored.getTitle();
+
+        // Skickar med validerarna från förra hämtningen, om det finns några
+        Map<String, String> validators = new LinkedHashMap<>();
+        if (stored.getEtag() != null) {
+            validators.put("If-None-Match", stored.getEtag());
+        }
+        if (stored.getLastModified() != null) {
+            validators.put("If-Modified-Since", stored.getLastModified());
+        }
+        return fetchAsync(uriToFetch(formatIdentity(stored)), validators, Deadline.none(), (response, body) -> {
+            if (response.statusCode() == 304) {
+                return TitleResult.notModified(title, stored);
+            }
+            Movie movie = parseMovie(response, body);
+            return movie == null ? TitleResult.notFound(title) : TitleResult.found(title, movie);
+        });
+    }
+
+    /**
+     * Searches the OMDB API for titles matching a text.
+     *
+     * @param text the text to search for.
+     * @return a lazy Stream of the hits, see {@link #search(SearchQuery)}.
+     */
+    public Stream<SearchHit> search(String text) {
+        return search(new SearchQuery(text));
     }
 
     /**
-     * Obtain information about a movie from a JSON object generated using data from OMDB API.
-     * A Movie object is then created from title, year, actors, director and genre.
+     * Searches the OMDB API for titles matching a query and returns the hits as a lazy Stream.
+     *
+     * <p>The OMDB search endpoint returns ten hits per page. Pages are only fetched as the stream is consumed:
+     * while the caller works through one page, the next {@link SearchQuery#getPrefetchPages()} pages are
+     * fetched in the background. If the query asks for hydration, the full Movie of every hit on a page is
+     * fetched in parallel before the page is handed out. Those lookups pass the rate limiter, and at most
+     * maxConcurrency of them are in flight at once.
+     *
+     * <p>The stream should be closed, for example with try-with-resources, so pages that are still being
+     * fetched are dropped. If a page cannot be fetched, the error is logged and the stream ends.
      *
-     * @param json the JSONObject file taken as argument
-     * @return Movie object with information obtained from OMDB API.
+     * @param query the text to search for and the optional type and year filters.
+     * @return a lazy Stream of the hits in the order OMDB returns them.
+     * @throws IllegalArgumentException If the base URL cannot be combined with the query into a valid URI.
      */
-    private Movie buildMovieFromJSON(JSONObject json) {
-        // Hämtar data från json-fil erhållen från OMDB API
-        String title = json.optString("Title", null);
-        int year = json.optInt("Year", -1);
-        String actors = json.optString("Actors", null);
-        String director = json.optString("Director", null);
-        String genre = json.optString("Genre", null);
+    public Stream<SearchHit> search(SearchQuery query) {
+        Semaphore hydrations = new Semaphore(maxConcurrency);
+        SearchSpliterator spliterator = new SearchSpliterator(pageNumber -> {
+            CompletableFuture<SearchPage> page = fetchAsync(uriToFetch(formatSearchParameters(query, pageNumber)),
+                    Map.of(), Deadline.none(), (response, body) -> OmdbJsonStreamParser.parseSearchPage(body));
+            return query.isHydrate() ? page.thenCompose(p -> hydrate(p, hydrations)) : page;
+        }, query.getPrefetchPages(), "'" + query.getText() + "'");
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+    }
+
+    private CompletableFuture<SearchPage> hydrate(SearchPage page, Semaphore hydrations) {
+        // Hämtar hela filmen för varje träff på sidan parallellt
+        List<CompletableFuture<SearchHit>> hits = page.getHits().stream()
+                .map(hit -> CompletableFuture.supplyAsync(() -> hydrate(hit, hydrations), PARSE_EXECUTOR))
+                .toList();
+        return CompletableFuture.allOf(hits.toArray(CompletableFuture[]::new))
+                .thenApply(done -> page.withHits(hits.stream().map(CompletableFuture::join).toList()));
+    }
 
-        // Instansierar ett movieBuilder objekt och bygger ett Movie objekt
-        MovieBuilder movieBuilder = new MovieBuilder(title, year, actors, director, genre);
-        return movieBuilder.build();
+    private SearchHit hydrate(SearchHit hit, Semaphore hydrations) {
+        // Utan imdbID finns inget att slå upp, träffen lämnas som den är
+        if (!isKnownImdbId(hit.getImdbId())) {
+            logger.warn("Search hit '{}' has no imdbID and is not hydrated", hit.getTitle());
+            return hit;
+        }
+        try {
+            if (!rateLimiter.acquire()) {
+                logger.warn("Daily OMDB API quota is used up, '{}' is not hydrated", hit.getImdbId());
+                return hit;
+            }
+            hydrations.acquire();
+            try {
+                String formattedId = "&i=" + URLEncoder.encode(hit.getImdbId().trim(), StandardCharsets.UTF_8);
+                return hit.withMovie(fetchAsync(uriToFetch(formattedId), Map.of(), Deadline.none(), ApiService::parseMovie).join());
+            } finally {
+                hydrations.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return hit;
+        } catch (CompletionException e) {
+            logger.error("Error fetching movie '{}' from the OMDB API: {}", hit.getImdbId(), e.getCause().getMessage());
+            return hit;
+        }
+    }
+
+    private <T> CompletableFuture<T> fetchAsync(URI uri, Map<String, String> headers, Deadline deadline,
+                                                ResponseParser<T> parser) {
+        CompletableFuture<HttpResponse<InputStream>> request = transport.getStreamAsync(uri, headers, deadline);
+        CompletableFuture<T> result = request.thenApplyAsync(response -> {
+            try (InputStream body = response.body()) {
+                // 304 kommer bara som svar på villkorliga anrop
+                if (response.statusCode() != 200 && response.statusCode() != 304) {
+                    throw new IOException("OMDB API returned HTTP status " + response.statusCode());
+                }
+                return parser.parse(response, body);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, PARSE_EXECUTOR);
+        // Ett avbrutet resultat avbryter anropet, ett svar som redan kommit men inte tolkas stängs
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled() && !request.cancel(true)) {
+                request.thenAccept(ApiService::closeBody);
+            }
+        });
+        return result;
+    }
+
+    private static void closeBody(HttpResponse<InputStream> response) {
+        try {
+            response.body().close();
+        } catch (IOException e) {
+            logger.debug("Error closing unread OMDB response: {}", e.getMessage());
+        }
+    }
+
+    private static Movie parseMovie(HttpResponse<InputStream> response, InputStream body) throws IOException {
+        if (response.statusCode() != 200) {
+            throw new IOException("OMDB API returned HTTP status " + response.statusCode());
+        }
+        Movie movie = OmdbJsonStreamParser.parse(body);
+        if (movie != null) {
+            // Sparar validerarna så att nästa uppdatering kan fråga om filmen har ändrats
+            movie.setEtag(response.headers().firstValue("ETag").orElse(null));
+            movie.setLastModified(response.headers().firstValue("Last-Modified").orElse(null));
+        }
+        return movie;
+    }
+
+    /**
+     * Fetches movie data for many titles from the OMDB API in parallel.
+     *
+     * @param movieTitles The titles to retrieve information for, duplicates are looked up once.
+     * @return One TitleResult per distinct title, in the order the lookups completed.
+     *
+     * See {@link #getDataByTitles(Collection, Consumer)}.
+     */
+    public List<TitleResult> getDataByTitles(Collection<String> movieTitles) {
+        return getDataByTitles(movieTitles, result -> { });
     }
 
     /**
-     * Constructs a URL for fetching movie data from the OMDB API based on the formatted movie title.
+     * Fetches movie data for many titles from the OMDB API in parallel and reports each result as it completes.
      *
-     * @param formattedTitle The formatted title of the movie to be included in the API request.
-     * @return A URL object representing the complete API request URL.
-     * @throws MalformedURLException If there is an issue with the construction of the URL.
+     * @param movieTitles The titles to retrieve information for, duplicates are looked up once.
+     * @param onResult Called on the calling thread with each TitleResult as soon as it is available.
+     * @return One TitleResult per distinct title, in the order the lookups completed.
      *
-     * This method takes the formatted movie title and constructs a URL for making a request
-     * to the OMDB API. It concatenates the base OMDB API URL with the API key and the provided formatted title.
-     * The resulting URL is returned as a URL object.
+     * Each title is looked up on its own virtual thread. At most maxConcurrency requests are in flight at once,
+     * and every request first takes a permit from the token bucket rate limiter, so the OMDB request rate and
+     * daily quota are respected. A title that could not be found gives a NOT_FOUND result, and a failed request
+     * or an exhausted daily quota gives an ERROR result; neither stops the other lookups.
      */
-    private URL urlToFetch(String formattedTitle) throws MalformedURLException {
-        // Sparar URL:en i en variabel omdbApiUrl utan nyckel
-        String omdbApiUrl = "http://www.omdbapi.com";
+    public List<TitleResult> getDataByTitles(Collection<String> movieTitles, Consumer<TitleResult> onResult) {
+        Set<String> titles = new LinkedHashSet<>(movieTitles);
+        List<TitleResult> results = new ArrayList<>(titles.size());
+        BlockingQueue<TitleResult> completed = new LinkedBlockingQueue<>();
+        Semaphore inFlight = new Semaphore(maxConcurrency);
 
-        // Konkatenerar omdbApiUrl med API-nyckeln och den formaterade titeln
-        String urlDataRequest = omdbApiUrl + "/?apikey=" + API_KEY + formattedTitle;
+        // Startar en virtuell tråd per titel och tar emot resultaten i den ordning de blir klara
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String title : titles) {
+                executor.execute(() -> completed.add(resolveTitle(title, inFlight)));
+            }
+            while (results.size() < titles.size()) {
+                TitleResult result = completed.take();
+                results.add(result);
+                onResult.accept(result);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Bulk title lookup interrupted after {} of {} title(s)", results.size(), titles.size());
+        }
+        return results;
+    }
 
-        // Skapar en URL-instans med den kompletta strängen
-        return new URL(urlDataRequest);
+    private TitleResult resolveTitle(String title, Semaphore inFlight) {
+        try {
+            // Väntar på ett tillstånd från hastighetsbegränsaren innan en plats bland pågående anrop tas
+            if (!rateLimiter.acquire()) {
+                return TitleResult.error(title, new IOException("Daily OMDB API quota is used up"));
+            }
+            inFlight.acquire();
+            try {
+                Movie movie = getDataByTitleAsync(title).join();
+                return movie == null ? TitleResult.notFound(title) : TitleResult.found(title, movie);
+            } finally {
+                inFlight.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return TitleResult.error(title, e);
+        } catch (CompletionException e) {
+            logger.error("Error fetching movie '{}' from the OMDB API: {}", title, e.getCause().getMessage());
+            return TitleResult.error(title, e.getCause());
+        } catch (RuntimeException e) {
+            logger.error("Error fetching movie '{}' from the OMDB API: {}", title, e.getMessage());
+            return TitleResult.error(title, e);
+        }
+    }
+
+    /**
+     * Constructs a URI for fetching data from the OMDB API based on the formatted request parameters.
+     *
+     * @param formattedParameters The formatted parameters, such as the movie title, to be included in the API request.
+     * @return A URI representing the complete API request URL.
+     *
+     * This method takes the formatted parameters and constructs a URI for making a request to the OMDB API.
+     * It concatenates the base OMDB API URL with the API key and the provided formatted parameters.
+     */
+    private URI uriToFetch(String formattedParameters) {
+        // Konkatenerar bas-URL:en med API-nyckeln och de formaterade parametrarna
+        String urlDataRequest = baseUrl + "/?apikey=" + URLEncoder.encode(API_KEY, StandardCharsets.UTF_8) + formattedParameters;
+
+        // Skapar en URI-instans med den kompletta strängen
+        return URI.create(urlDataRequest);
     }
 
     /**
      * Formats the movie title to comply with OMDB API standards in the API request.
      *
      * @param movieTitle The original title of the movie to be formatted.
-     * @return A formatted string containing the movie title according to OMDB API standards.
+     * @return A formatted string containing the URL encoded movie title according to OMDB API standards.
      *
      * This method takes the original movie title and formats it to comply with the requirements
-     * of the OMDB API.
+     * of the OMDB API. Spaces and special characters are URL encoded.
      */
     private static String formatToApiStandard(String movieTitle) {
         // Returnerar formaterad sträng med filmtitel
-        return "&t=" + movieTitle;
+        return "&t=" + URLEncoder.encode(movieTitle, StandardCharsets.UTF_8);
+    }
+
+    private static String formatIdentity(Movie stored) {
+        // imdbID pekar ut exakt en film, titel och år är näst bäst
+        String imdbId = stored.getImdbId();
+        if (isKnownImdbId(imdbId)) {
+            return "&i=" + URLEncoder.encode(imdbId.trim(), StandardCharsets.UTF_8);
+        }
+        String parameters = formatToApiStandard(stored.getTitle());
+        return stored.getYear() > 0 ? parameters + "&y=" + stored.getYear() : parameters;
+    }
+
+    private static boolean isKnownImdbId(String imdbId) {
+        return imdbId != null && !imdbId.isBlank() && !imdbId.equalsIgnoreCase("N/A");
+    }
+
+    private static String formatSearchParameters(SearchQuery query, int pageNumber) {
+        // Lägger bara till filter som är satta
+        StringBuilder parameters = new StringBuilder("&s=").append(URLEncoder.encode(query.getText(), StandardCharsets.UTF_8));
+        if (query.getType() != null) {
+            parameters.append("&type=").append(query.getType().parameter());
+        }
+        if (query.getYear() != null) {
+            parameters.append("&y=").append(query.getYear());
+        }
+        return parameters.append("&page=").append(pageNumber).toString();
     }
 
     /**
@@ -119,4 +439,8 @@ public class ApiService {
         return new URL(urlString);
     }
 
+    private interface ResponseParser<T> {
+        // body är samma ström som response.body(), fetchAsync stänger den
+        T parse(HttpResponse<InputStream> response, InputStream body) throws IOException;
+    }
 }
@@ -0,0 +1,132 @@
+package se.dsve.api;
+
+import se.dsve.AppConfig;
+import se.dsve.cache.CacheStats;
+import se.dsve.cache.TinyLfuCache;
+import se.dsve.classes.Movie;
+import se.dsve.helpers.Deadline;
+import se.dsve.helpers.TitleNormalizer;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+public class CachingApiService extends ApiService {
+    private final TinyLfuCache<String, CachedLookup> cache;
+    private final Duration ttl;
+    private final Duration negativeTtl;
+
+    /**
+     * Constructs a new CachingApiService with the OMDB and cache settings from the .env file.
+     */
+    public CachingApiService() {
+        super();
+        this.cache = new TinyLfuCache<>(AppConfig.getOmdbCacheMaxSize());
+        this.ttl = Duration.ofMinutes(AppConfig.getOmdbCacheTtlMinutes());
+        this.negativeTtl = Duration.ofSeconds(AppConfig.getOmdbCacheNegativeTtlSeconds());
+    }
+
+    /**
+     * Constructs a new CachingApiService with the specified transport, base URL, API key and cache settings.
+     *
+     * @param transport the HTTP transport used to send requests.
+     * @param baseUrl the base URL of the OMDB API.
+     * @param apiKey the OMDB API key.
+     * @param maximumSize the maximum number of titles kept in the cache.
+     * @param ttl how long a found movie is served from the cache.
+     * @param negativeTtl how long a "Movie not found!" answer is served from the cache.
+     */
+    public CachingApiService(HttpTransport transport, String baseUrl, String apiKey,
+                             int maximumSize, Duration ttl, Duration negativeTtl) {
+        super(transport, baseUrl, apiKey);
+        this.cache = new TinyLfuCache<>(maximumSize);
+        this.ttl = ttl;
+        this.negativeTtl = negativeTtl;
+    }
+
+    /**
+     * Fetches movie data by title from the cache, or from the OMDB API within the time budget when the title is
+     * not cached.
+     *
+     * <p>The cache is keyed by the {@link TitleNormalizer#titleKey(String) title key}, so lookups that only differ
+     * in case, punctuation or a leading or trailing article share an entry. Titles that the OMDB API does not know
+     * are cached too, with the shorter negative TTL. A negative entry only answers lookups of the same title apart
+     * from case and whitespace, since the OMDB API may know "The Matrix" but not "Matrix". Failed requests are
+     * never cached. Bulk lookups through {@link #getDataByTitles(java.util.Collection)} use
+     * the cache as well.
+     *
+     * @param movieTitle The title of the movie to retrieve information for.
+     * @param deadline The deadline of the whole lookup the request is part of.
+     * @return A CompletableFuture with the Movie, or with null if the title is not known by the OMDB API.
+     */
+    @Override
+    public CompletableFuture<Movie> getDataByTitleAsync(String movieTitle, Deadline deadline) {
+        String key = TitleNormalizer.titleKey(movieTitle);
+        String searched = TitleNormalizer.normalize(movieTitle);
+        CachedLookup cached = cache.get(key);
+        if (cached != null && cached.answers(searched)) {
+            return CompletableFuture.completedFuture(cached.movie);
+        }
+
+        // Hämtar från OMDB API och sparar svaret, även när filmen saknas
+        CompletableFuture<Movie> fetch = super.getDataByTitleAsync(movieTitle, deadline);
+        return Futures.cancelling(fetch.thenApply(movie -> {
+            if (movie != null) {
+                cache.put(key, new CachedLookup(movie, null), ttl);
+            } else if (cached == null || cached.movie == null) {
+                // Ett svar om att filmen saknas får inte ersätta en film som hittats under en annan stavning
+                cache.put(key, new CachedLookup(null, searched), negativeTtl);
+            }
+            return movie;
+        }), fetch);
+    }
+
+    /**
+     * Revalidates a stored movie like {@link ApiService#revalidateAsync(Movie)} and caches a changed movie,
+     * so lookups through the cache do not keep serving the old data.
+     *
+     * @param stored the movie as it is stored, matched on its title.
+     * @return a CompletableFuture with the TitleResult of the revalidation.
+     */
+    @Override
+    public CompletableFuture<TitleResult> revalidateAsync(Movie stored) {
+        return super.revalidateAsync(stored).thenApply(result -> {
+            if (result.getStatus() == TitleResult.Status.FOUND) {
+                cache.put(TitleNormalizer.titleKey(stored.getTitle()), new CachedLookup(result.getMovie(), null), ttl);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Removes a title from the cache, so the next lookup goes to the OMDB API.
+     *
+     * @param movieTitle the title to remove.
+     */
+    public void invalidate(String movieTitle) {
+        cache.invalidate(TitleNormalizer.titleKey(movieTitle));
+    }
+
+    /**
+     * Returns the hit, miss and eviction statistics of the cache.
+     *
+     * @return the current CacheStats.
+     */
+    public CacheStats getCacheStats() {
+        return cache.stats();
+    }
+
+    // Kapslar in svaret så att även "hittades inte" kan cachas, tillsammans med titeln som saknades
+    private static final class CachedLookup {
+        private final Movie movie;
+        private final String missingTitle;
+
+        private CachedLookup(Movie movie, String missingTitle) {
+            this.movie = movie;
+            this.missingTitle = missingTitle;
+        }
+
+        private boolean answers(String searched) {
+            return movie != null || missingTitle.equals(searched);
+        }
+    }
+}
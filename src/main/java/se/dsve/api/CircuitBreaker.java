@@ -0,0 +1,146 @@
+package se.dsve.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class CircuitBreaker {
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    /**
+     * The states of a circuit breaker.
+     */
+    public enum State {
+        // Anrop släpps igenom
+        CLOSED,
+        // Anrop avvisas direkt
+        OPEN,
+        // Ett provanrop släpps igenom för att se om tjänsten är frisk igen
+        HALF_OPEN
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtNanos;
+    private boolean trialInFlight;
+    private long openCount;
+
+    /**
+     * Constructs a new CircuitBreaker in the closed state.
+     *
+     * <p>After {@code failureThreshold} failures in a row the breaker opens and rejects calls. Once
+     * {@code openDurationMillis} has passed, one trial call is let through. If it succeeds the breaker closes,
+     * otherwise it opens again for another period.
+     *
+     * @param failureThreshold the number of failures in a row that opens the breaker.
+     * @param openDurationMillis how long the breaker rejects calls before a trial call is let through.
+     */
+    public CircuitBreaker(int failureThreshold, long openDurationMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMillis);
+    }
+
+    /**
+     * Asks whether a call may be made. Every call that is allowed must be followed by exactly one of
+     * {@link #onSuccess()}, {@link #onFailure()} or {@link #onIgnored()}.
+     *
+     * @return true if the call may be made, false if the breaker is open.
+     */
+    public boolean tryAcquirePermission() {
+        lock.lock();
+        try {
+            if (state == State.OPEN && System.nanoTime() - openedAtNanos >= openDurationNanos) {
+                transitionTo(State.HALF_OPEN);
+            }
+            if (state == State.HALF_OPEN) {
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+                return true;
+            }
+            return state == State.CLOSED;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records a successful call, which closes a half-open breaker.
+     */
+    public void onSuccess() {
+        lock.lock();
+        try {
+            consecutiveFailures = 0;
+            trialInFlight = false;
+            if (state == State.HALF_OPEN) {
+                transitionTo(State.CLOSED);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records a failed call, which may open the breaker.
+     */
+    public void onFailure() {
+        lock.lock();
+        try {
+            consecutiveFailures++;
+            trialInFlight = false;
+            if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+                openedAtNanos = System.nanoTime();
+                openCount++;
+                transitionTo(State.OPEN);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records a call that says nothing about the health of the service, for example an invalid request.
+     */
+    public void onIgnored() {
+        lock.lock();
+        try {
+            trialInFlight = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public State getState() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns how many times the breaker has opened.
+     *
+     * @return the number of transitions to OPEN.
+     */
+    public long getOpenCount() {
+        lock.lock();
+        try {
+            return openCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void transitionTo(State newState) {
+        logger.warn("OMDB API circuit breaker changed from {} to {}", state, newState);
+        state = newState;
+    }
+}
@@ -0,0 +1,14 @@
+package se.dsve.api;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a request is rejected because the circuit breaker is open.
+ */
+public class CircuitOpenException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    public CircuitOpenException(String message) {
+        super(message);
+    }
+}
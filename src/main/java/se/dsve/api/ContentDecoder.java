@@ -0,0 +1,148 @@
+package se.dsve.api;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+final class ContentDecoder {
+    /**
+     * The content codings the transport can decode, sent as the Accept-Encoding header of every request.
+     */
+    static final String ACCEPT_ENCODING = "gzip, deflate";
+    private static final int BUFFER_SIZE = 1024;
+
+    // Privat constructor för att förhindra instansiering
+    private ContentDecoder() {
+        throw new AssertionError("Instantiating utility class");
+    }
+
+    /**
+     * Wraps a response body so that it is decoded according to its Content-Encoding while it is read.
+     *
+     * <p>The decompressor is only created on the first read, because creating it reads the gzip header, and
+     * the body is wrapped on a thread of the HTTP client that must not block. An unsupported coding fails on
+     * the first read with an IOException.
+     *
+     * @param body the body as it arrives over the network.
+     * @param contentEncoding the Content-Encoding header of the response, or null if there is none.
+     * @param wireBytes counts the bytes read from the network.
+     * @param decodedBytes counts the bytes handed out after decoding.
+     * @return the decoded body.
+     */
+    static InputStream decode(InputStream body, String contentEncoding, LongAdder wireBytes, LongAdder decodedBytes) {
+        return new CountingInputStream(new DecodingInputStream(new CountingInputStream(body, wireBytes),
+                normalize(contentEncoding)), decodedBytes);
+    }
+
+    /**
+     * Returns whether a Content-Encoding header means that the body is compressed.
+     *
+     * @param contentEncoding the Content-Encoding header of the response, or null if there is none.
+     * @return true for any coding other than identity.
+     */
+    static boolean isCompressed(String contentEncoding) {
+        return !normalize(contentEncoding).equals("identity");
+    }
+
+    private static String normalize(String contentEncoding) {
+        if (contentEncoding == null || contentEncoding.isBlank()) {
+            return "identity";
+        }
+        return contentEncoding.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class DecodingInputStream extends InputStream {
+        private final InputStream wire;
+        private final String contentEncoding;
+        private InputStream decoded;
+        private Inflater inflater;
+
+        DecodingInputStream(InputStream wire, String contentEncoding) {
+            this.wire = wire;
+            this.contentEncoding = contentEncoding;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return decoded().read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            return decoded().read(buffer, offset, length);
+        }
+
+        private InputStream decoded() throws IOException {
+            if (decoded == null) {
+                decoded = switch (contentEncoding) {
+                    case "identity" -> wire;
+                    case "gzip", "x-gzip" -> new GZIPInputStream(wire, BUFFER_SIZE);
+                    case "deflate" -> inflate(wire);
+                    default -> throw new IOException("Unsupported Content-Encoding: " + contentEncoding);
+                };
+            }
+            return decoded;
+        }
+
+        private InputStream inflate(InputStream in) throws IOException {
+            // HTTP deflate ska ha zlib-huvud, men en del servrar skickar rå deflate utan huvud
+            PushbackInputStream pushback = new PushbackInputStream(in, 2);
+            int cmf = pushback.read();
+            int flg = cmf < 0 ? -1 : pushback.read();
+            if (flg >= 0) {
+                pushback.unread(flg);
+            }
+            if (cmf >= 0) {
+                pushback.unread(cmf);
+            }
+            boolean zlib = (cmf & 0x0f) == 8 && flg >= 0 && ((cmf << 8) | flg) % 31 == 0;
+            inflater = new Inflater(!zlib);
+            return new InflaterInputStream(pushback, inflater, BUFFER_SIZE);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                (decoded != null ? decoded : wire).close();
+            } finally {
+                // Inflater som skickas in till InflaterInputStream avslutas inte av den
+                if (inflater != null) {
+                    inflater.end();
+                }
+            }
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private final LongAdder count;
+
+        CountingInputStream(InputStream in, LongAdder count) {
+            super(in);
+            this.count = count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value >= 0) {
+                count.increment();
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count.add(read);
+            }
+            return read;
+        }
+    }
+}
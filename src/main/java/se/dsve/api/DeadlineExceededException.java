@@ -0,0 +1,15 @@
+package se.dsve.api;
+
+import java.net.http.HttpTimeoutException;
+
+/**
+ * Thrown when a request timed out because the caller's deadline ran out, not because the request took longer
+ * than the transport's own timeout. It says nothing about how the OMDB API is doing.
+ */
+public class DeadlineExceededException extends HttpTimeoutException {
+    private static final long serialVersionUID = 1L;
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
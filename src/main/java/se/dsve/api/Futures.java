@@ -0,0 +1,31 @@
+package se.dsve.api;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+final class Futures {
+    // Privat constructor för att förhindra instansiering
+    private Futures() {
+        throw new AssertionError("Instantiating utility class");
+    }
+
+    /**
+     * Makes cancelling a derived future also cancel the future it was derived from.
+     *
+     * <p>A CompletableFuture returned by {@code thenApply} and the like does not pass a cancel on to the stage it
+     * depends on. Without this, cancelling the future a caller holds would leave the HTTP request at the start of
+     * the chain running.
+     *
+     * @param derived the future handed to the caller.
+     * @param source the future the derived one depends on.
+     * @return the derived future.
+     */
+    static <T> CompletableFuture<T> cancelling(CompletableFuture<T> derived, Future<?> source) {
+        derived.whenComplete((value, error) -> {
+            if (derived.isCancelled()) {
+                source.cancel(true);
+            }
+        });
+        return derived;
+    }
+}
@@ -1,10 +1,9 @@
 package se.dsve.api;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletionException;
 
 public class HttpHelper {
     // Privat constructor för att förhindra instansiering
@@ -13,47 +12,32 @@ public class HttpHelper {
     }
 
     /**
-     * Creates an HTTP connection to the specified URL and retrieves the response as a string using a GET request.
+     * Retrieves the response from the specified URL as a string using a GET request.
      *
      * @param url The URL to fetch data from.
      * @return A string containing the response from the URL.
      *
-     * This method establishes a connection to the given URL, defines it as a GET request,
-     * and reads the response from the connection's input stream using a BufferedReader.
-     * The method then appends each line of the response to a StringBuilder and returns the entire response as a string.
+     * This method sends the request through the shared {@link ResilientHttpTransport}, which reuses connections,
+     * applies the configured timeouts and retries failed requests, and waits for the whole response body.
      *
-     * In case of an IOException during the process, the stack trace is printed, and an empty string is returned.
+     * In case the request fails or times out, the stack trace is printed, and an empty string is returned.
      * It is recommended to handle exceptions appropriately when using this method.
      */
     public static String fetchDataFromUrl(URL url) {
-        // Skapar en StringBuilder för att lagra svaret
-        StringBuilder response = new StringBuilder();
+        String response = "";
         try {
-           // Öppnar anslutning till URL
-           HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-           // definierar det som en GET-förfrågan
-           connection.setRequestMethod("GET");
-           // Skapar en BufferedReader och läser svaret från anslutningens input-ström
-           BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
+            // Skickar GET-förfrågan via den delade transporten och väntar på svaret
+            HttpResponse<String> httpResponse = ResilientHttpTransport.getDefault().getAsync(url.toURI()).join();
+            response = httpResponse.body();
 
-           // Loopar igenom alla rader och lägger till dem i StringBuilder
-           String line = "";
-           while ((line = reader.readLine()) != null) {
-               response.append(line);
-           }
-
-           // Stänger BufferedReader
-           reader.close();
-
-           // Hanterar situation om ingen data returneras från URL
-            if (response.length() == 0) {
+            // Hanterar situation om ingen data returneras från URL
+            if (response == null || response.isEmpty()) {
                 throw new RuntimeException("No data was returned from the specified URL");
             }
-       }
-       catch (IOException e) {
-           e.printStackTrace();
-       }
-        // Omvandlar StringBuilder till String och returnerar responsen
-        return String.valueOf(response);
+        }
+        catch (URISyntaxException | CompletionException e) {
+            e.printStackTrace();
+        }
+        return response;
     }
-}
\ No newline at end of file
+}
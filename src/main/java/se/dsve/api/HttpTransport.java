@@ -0,0 +1,64 @@
+package se.dsve.api;
+
+import se.dsve.helpers.Deadline;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+public interface HttpTransport {
+    /**
+     * Sends a GET request to the specified URI without blocking the caller.
+     *
+     * <p>The returned future completes with the response for every HTTP status, and completes exceptionally
+     * if the request could not be sent or timed out.
+     *
+     * @param uri the URI to fetch.
+     * @return a CompletableFuture with the response and its body as a string.
+     */
+    CompletableFuture<HttpResponse<String>> getAsync(URI uri);
+
+    /**
+     * Sends a GET request to the specified URI and gives access to the body as a stream.
+     *
+     * <p>The future completes as soon as the status and headers are received. Reading the stream blocks until
+     * the body arrives, and the caller must close it.
+     *
+     * @param uri the URI to fetch.
+     * @return a CompletableFuture with the response and its body as an InputStream.
+     */
+    default CompletableFuture<HttpResponse<InputStream>> getStreamAsync(URI uri) {
+        return getStreamAsync(uri, Deadline.none());
+    }
+
+    /**
+     * Sends a GET request to the specified URI within a time budget and gives access to the body as a stream.
+     *
+     * <p>The request timeout is the shorter of the transport's own timeout and the time left until the deadline.
+     * If the deadline has already passed, the future completes exceptionally with a
+     * {@link DeadlineExceededException} without sending anything. A request that times out because the deadline
+     * set its timeout also fails with a DeadlineExceededException.
+     *
+     * @param uri the URI to fetch.
+     * @param deadline the deadline of the whole operation the request is part of.
+     * @return a CompletableFuture with the response and its body as an InputStream.
+     */
+    default CompletableFuture<HttpResponse<InputStream>> getStreamAsync(URI uri, Deadline deadline) {
+        return getStreamAsync(uri, Map.of(), deadline);
+    }
+
+    /**
+     * Sends a GET request with extra headers within a time budget and gives access to the body as a stream.
+     *
+     * <p>Works like {@link #getStreamAsync(URI, Deadline)}. The headers are typically validators such as
+     * If-None-Match, in which case the future can complete with a 304 Not Modified response and an empty body.
+     *
+     * @param uri the URI to fetch.
+     * @param headers the extra request headers, by name.
+     * @param deadline the deadline of the whole operation the request is part of.
+     * @return a CompletableFuture with the response and its body as an InputStream.
+     */
+    CompletableFuture<HttpResponse<InputStream>> getStreamAsync(URI uri, Map<String, String> headers, Deadline deadline);
+}
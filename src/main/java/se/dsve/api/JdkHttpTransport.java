@@ -0,0 +1,192 @@
+package se.dsve.api;
+
+import se.dsve.AppConfig;
+import se.dsve.helpers.Deadline;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+
+public class JdkHttpTransport implements HttpTransport, AutoCloseable {
+    private final HttpClient client;
+    private final Duration requestTimeout;
+    private final LongAdder responseCount = new LongAdder();
+    private final LongAdder compressedResponseCount = new LongAdder();
+    private final LongAdder wireBytes = new LongAdder();
+    private final LongAdder decodedBytes = new LongAdder();
+    private final LongAdder conditionalRequestCount = new LongAdder();
+    private final LongAdder notModifiedCount = new LongAdder();
+
+    /**
+     * Constructs a new JdkHttpTransport with the specified timeouts.
+     *
+     * <p>The transport owns one {@link HttpClient}, which keeps connections to the server alive and reuses them
+     * between requests, so it should be shared rather than created per request.
+     *
+     * <p>Every request accepts gzip and deflate compressed responses, and compressed bodies are decoded while
+     * they are read, so callers always see the plain body.
+     *
+     * @param connectTimeout the longest time to wait for a connection to be established.
+     * @param requestTimeout the longest time to wait for a response once the request is sent.
+     */
+    public JdkHttpTransport(Duration connectTimeout, Duration requestTimeout) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * Returns the transport shared by the whole application, with the timeouts from the .env file.
+     *
+     * @return the shared JdkHttpTransport.
+     */
+    public static JdkHttpTransport getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse<String>> getAsync(URI uri) {
+        return client.sendAsync(newRequest(uri, Map.of(), requestTimeout), this::decodedString);
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse<InputStream>> getStreamAsync(URI uri, Map<String, String> headers,
+                                                                      Deadline deadline) {
+        if (deadline.isExpired()) {
+            return CompletableFuture.failedFuture(new DeadlineExceededException("Deadline passed before the request was sent"));
+        }
+        if (headers.containsKey("If-None-Match") || headers.containsKey("If-Modified-Since")) {
+            conditionalRequestCount.increment();
+        }
+        Duration timeout = deadline.cap(requestTimeout);
+        CompletableFuture<HttpResponse<InputStream>> sent = client.sendAsync(newRequest(uri, headers, timeout),
+                this::decodedStream);
+        if (timeout.compareTo(requestTimeout) >= 0) {
+            return sent;
+        }
+
+        // Det var anroparens deadline som satte tidsgränsen, en timeout säger då inget om hur OMDB mår
+        CompletableFuture<HttpResponse<InputStream>> result = new CompletableFuture<>();
+        sent.whenComplete((response, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof HttpTimeoutException && !(cause instanceof HttpConnectTimeoutException)) {
+                DeadlineExceededException exceeded = new DeadlineExceededException(
+                        "Deadline passed after " + timeout.toMillis() + " ms while waiting for " + uri.getHost());
+                exceeded.initCause(cause);
+                result.completeExceptionally(exceeded);
+            } else if (error != null) {
+                result.completeExceptionally(cause);
+            } else if (!result.complete(response)) {
+                closeBody(response);
+            }
+        });
+        return Futures.cancelling(result, sent);
+    }
+
+    /**
+     * Returns a snapshot of how many responses were compressed, how many bytes that saved and how many
+     * conditional requests were answered with 304 Not Modified.
+     *
+     * @return the current TransferStats.
+     */
+    public TransferStats stats() {
+        return new TransferStats(responseCount.sum(), compressedResponseCount.sum(), wireBytes.sum(),
+                decodedBytes.sum(), conditionalRequestCount.sum(), notModifiedCount.sum());
+    }
+
+    private HttpResponse.BodySubscriber<InputStream> decodedStream(HttpResponse.ResponseInfo responseInfo) {
+        String contentEncoding = countResponse(responseInfo);
+        return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofInputStream(),
+                body -> ContentDecoder.decode(body, contentEncoding, wireBytes, decodedBytes));
+    }
+
+    private HttpResponse.BodySubscriber<String> decodedString(HttpResponse.ResponseInfo responseInfo) {
+        String contentEncoding = countResponse(responseInfo);
+        Charset charset = charsetOf(responseInfo);
+        // Hela kroppen finns redan i minnet, så den kan avkodas direkt
+        return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofByteArray(), bytes -> {
+            try (InputStream body = ContentDecoder.decode(new ByteArrayInputStream(bytes), contentEncoding,
+                    wireBytes, decodedBytes)) {
+                return new String(body.readAllBytes(), charset);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private String countResponse(HttpResponse.ResponseInfo responseInfo) {
+        responseCount.increment();
+        if (responseInfo.statusCode() == 304) {
+            notModifiedCount.increment();
+        }
+        String contentEncoding = responseInfo.headers().firstValue("Content-Encoding").orElse(null);
+        if (ContentDecoder.isCompressed(contentEncoding)) {
+            compressedResponseCount.increment();
+        }
+        return contentEncoding;
+    }
+
+    private static Charset charsetOf(HttpResponse.ResponseInfo responseInfo) {
+        // Samma standard som BodyHandlers.ofString, UTF-8 när Content-Type saknar charset
+        String contentType = responseInfo.headers().firstValue("Content-Type").orElse("");
+        int index = contentType.toLowerCase(Locale.ROOT).indexOf("charset=");
+        if (index < 0) {
+            return StandardCharsets.UTF_8;
+        }
+        try {
+            return Charset.forName(contentType.substring(index + 8).split(";")[0].trim().replace("\"", ""));
+        } catch (IllegalArgumentException e) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+
+    private static void closeBody(HttpResponse<InputStream> response) {
+        // Anroparen har redan avbrutit, strömmen stängs så att anslutningen släpps
+        try {
+            response.body().close();
+        } catch (IOException e) {
+            // Svaret kastas ändå
+        }
+    }
+
+    private static HttpRequest newRequest(URI uri, Map<String, String> headers, Duration timeout) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .header("Accept-Encoding", ContentDecoder.ACCEPT_ENCODING);
+        headers.forEach(builder::header);
+        return builder.GET().build();
+    }
+
+    /**
+     * Closes the HTTP client and its connections, waiting for requests that are in flight.
+     */
+    @Override
+    public void close() {
+        client.close();
+    }
+
+    // Skapas först när den delade transporten används
+    private static final class DefaultHolder {
+        private static final JdkHttpTransport INSTANCE = new JdkHttpTransport(
+                Duration.ofMillis(AppConfig.getOmdbConnectTimeoutMillis()),
+                Duration.ofMillis(AppConfig.getOmdbRequestTimeoutMillis()));
+    }
+}
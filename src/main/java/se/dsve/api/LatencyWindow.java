@@ -0,0 +1,60 @@
+package se.dsve.api;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the latencies of the most recent responses and answers percentile queries over them.
+ */
+final class LatencyWindow {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final long[] samples;
+    private int next;
+    private int count;
+
+    LatencyWindow(int capacity) {
+        this.samples = new long[capacity];
+    }
+
+    void record(long latencyNanos) {
+        lock.lock();
+        try {
+            samples[next] = latencyNanos;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the latency that the given share of the recorded responses were faster than or equal to.
+     *
+     * @param percentile the percentile between 0 and 1, for example 0.95.
+     * @return the latency in nanoseconds, or -1 if nothing has been recorded.
+     */
+    long percentile(double percentile) {
+        long[] sorted;
+        lock.lock();
+        try {
+            if (count == 0) {
+                return -1;
+            }
+            sorted = Arrays.copyOf(samples, count);
+        } finally {
+            lock.unlock();
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
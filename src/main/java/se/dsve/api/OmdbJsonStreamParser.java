@@ -0,0 +1,195 @@
+package se.dsve.api;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import se.dsve.classes.Movie;
+import se.dsve.classes.MovieBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public final class OmdbJsonStreamParser {
+    // Ett OMDB-svar är några kilobyte, en liten buffert räcker och sparar allokering per svar
+    private static final int BYTE_BUFFER_SIZE = 1024;
+
+    // Privat constructor för att förhindra instansiering
+    private OmdbJsonStreamParser() {
+        throw new AssertionError("Instantiating utility class");
+    }
+
+    /**
+     * Parses an OMDB response read from a UTF-8 encoded stream.
+     *
+     * @param in the response body, it is read to the end of the JSON object but not closed.
+     * @return the Movie, or null if the OMDB API does not know the title.
+     * @throws IOException if the stream cannot be read, is not valid JSON or the OMDB API answered with an error.
+     *
+     * See {@link #parse(Reader)}.
+     */
+    public static Movie parse(InputStream in) throws IOException {
+        return parse(newReader(in));
+    }
+
+    /**
+     * Parses an OMDB response and builds a Movie from title, year, actors, director, genre and IMDb id.
+     *
+     * <p>The JSON is read token by token. Only the fields a Movie needs, plus Response and Error, are read as
+     * strings. All other fields, such as Plot and the Ratings array, are skipped without being materialized.
+     *
+     * @param reader the response body, it is read to the end of the JSON object but not closed.
+     * @return the Movie, or null if the OMDB API does not know the title.
+     * @throws IOException if the reader fails, the body is not valid JSON or the OMDB API answered with an error.
+     */
+    public static Movie parse(Reader reader) throws IOException {
+        String title = null;
+        String year = null;
+        String actors = null;
+        String director = null;
+        String genre = null;
+        String imdbId = null;
+        String response = null;
+        String error = null;
+
+        try {
+            JsonReader json = new JsonReader(reader);
+            json.beginObject();
+            while (json.hasNext()) {
+                // Läser bara de fält som behövs och hoppar över resten
+                switch (json.nextName()) {
+                    case "Title" -> title = nextString(json);
+                    case "Year" -> year = nextString(json);
+                    case "Actors" -> actors = nextString(json);
+                    case "Director" -> director = nextString(json);
+                    case "Genre" -> genre = nextString(json);
+                    case "imdbID" -> imdbId = nextString(json);
+                    case "Response" -> response = nextString(json);
+                    case "Error" -> error = nextString(json);
+                    default -> json.skipValue();
+                }
+            }
+            json.endObject();
+        } catch (IllegalStateException | JsonParseException e) {
+            throw new IOException("Invalid OMDB response: " + e.getMessage(), e);
+        }
+
+        // OMDB svarar med Response=False både när filmen saknas och vid fel
+        if ("False".equalsIgnoreCase(response)) {
+            String message = error != null ? error : "Unknown error";
+            if (message.toLowerCase(Locale.ROOT).contains("not found")) {
+                return null;
+            }
+            throw new IOException("OMDB API error: " + message);
+        }
+
+        Movie movie = new MovieBuilder(title, parseYear(year), actors, director, genre).build();
+        movie.setImdbId(imdbId);
+        return movie;
+    }
+
+    /**
+     * Parses a page of an OMDB search response.
+     *
+     * <p>Only Title, Year, imdbID and Type of each hit are read. The Poster field and all other fields are
+     * skipped. A search without hits, which OMDB answers with "Movie not found!", gives an empty page.
+     *
+     * @param in the response body, it is read to the end of the JSON object but not closed.
+     * @return the hits on the page and the total number of results.
+     * @throws IOException if the stream cannot be read, is not valid JSON or the OMDB API answered with an error.
+     */
+    static SearchPage parseSearchPage(InputStream in) throws IOException {
+        List<SearchHit> hits = new ArrayList<>(SearchPage.PAGE_SIZE);
+        String totalResults = null;
+        String response = null;
+        String error = null;
+
+        try {
+            JsonReader json = new JsonReader(newReader(in));
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "Search" -> {
+                        json.beginArray();
+                        while (json.hasNext()) {
+                            hits.add(nextSearchHit(json));
+                        }
+                        json.endArray();
+                    }
+                    case "totalResults" -> totalResults = nextString(json);
+                    case "Response" -> response = nextString(json);
+                    case "Error" -> error = nextString(json);
+                    default -> json.skipValue();
+                }
+            }
+            json.endObject();
+        } catch (IllegalStateException | JsonParseException e) {
+            throw new IOException("Invalid OMDB response: " + e.getMessage(), e);
+        }
+
+        if ("False".equalsIgnoreCase(response)) {
+            String message = error != null ? error : "Unknown error";
+            if (message.toLowerCase(Locale.ROOT).contains("not found")) {
+                return new SearchPage(List.of(), 0);
+            }
+            throw new IOException("OMDB API error: " + message);
+        }
+        return new SearchPage(hits, parseInt(totalResults, hits.size()));
+    }
+
+    private static SearchHit nextSearchHit(JsonReader json) throws IOException {
+        String title = null;
+        String year = null;
+        String imdbId = null;
+        String type = null;
+
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "Title" -> title = nextString(json);
+                case "Year" -> year = nextString(json);
+                case "imdbID" -> imdbId = nextString(json);
+                case "Type" -> type = nextString(json);
+                default -> json.skipValue();
+            }
+        }
+        json.endObject();
+        return new SearchHit(title, year, imdbId, type, null);
+    }
+
+    private static Reader newReader(InputStream in) {
+        return Channels.newReader(Channels.newChannel(in), StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE), BYTE_BUFFER_SIZE);
+    }
+
+    private static String nextString(JsonReader json) throws IOException {
+        if (json.peek() == JsonToken.NULL) {
+            json.nextNull();
+            return null;
+        }
+        return json.nextString();
+    }
+
+    // Serier har år som "2008–2013", de ger -1 precis som tidigare
+    private static int parseYear(String year) {
+        return parseInt(year, -1);
+    }
+
+    private static int parseInt(String value, int defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package se.dsve.api;
+
+import se.dsve.AppConfig;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class RateLimiter {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final double nanosPerPermit;
+    private final double burst;
+    private final long dailyQuota;
+    private final Clock clock;
+
+    // Kan bli negativt, då har väntande anropare reserverat tillstånd som ännu inte fyllts på
+    private double availablePermits;
+    private long lastRefillNanos;
+    private LocalDate quotaDay;
+    private long usedToday;
+
+    /**
+     * Constructs a new token bucket RateLimiter.
+     *
+     * <p>The bucket starts full with {@code burst} permits and is refilled with {@code permitsPerSecond}
+     * permits per second, up to {@code burst}. In addition at most {@code dailyQuota} permits are handed
+     * out per UTC day.
+     *
+     * @param permitsPerSecond the sustained rate, must be positive.
+     * @param burst the number of permits that can be taken at once after an idle period, must be at least 1.
+     * @param dailyQuota the number of permits per UTC day, or 0 for no daily limit.
+     */
+    public RateLimiter(double permitsPerSecond, int burst, long dailyQuota) {
+        this(permitsPerSecond, burst, dailyQuota, Clock.systemUTC());
+    }
+
+    RateLimiter(double permitsPerSecond, int burst, long dailyQuota, Clock clock) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive");
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("burst must be at least 1");
+        }
+        if (dailyQuota < 0) {
+            throw new IllegalArgumentException("dailyQuota must not be negative");
+        }
+        this.nanosPerPermit = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+        this.burst = burst;
+        this.dailyQuota = dailyQuota;
+        this.clock = clock;
+        this.availablePermits = burst;
+        this.lastRefillNanos = System.nanoTime();
+        this.quotaDay = LocalDate.now(clock.withZone(ZoneOffset.UTC));
+    }
+
+    /**
+     * Returns the limiter shared by the whole application, with the rate and daily quota from the .env file.
+     *
+     * @return the shared RateLimiter.
+     */
+    public static RateLimiter getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    /**
+     * Takes one permit, waiting until the bucket has been refilled if needed.
+     *
+     * <p>Waiting callers are served in the order they called, since each caller reserves its permit
+     * before it starts to wait.
+     *
+     * @return true if a permit was taken, or false if the daily quota is used up.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public boolean acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos < 0) {
+            return false;
+        }
+
+        // Väntar utanför låset så att andra anropare kan reservera sina tillstånd
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+        return true;
+    }
+
+    /**
+     * Takes one permit without waiting, for callers that cannot block a thread and schedule the request instead.
+     *
+     * @return the number of nanoseconds until the permit may be used, or -1 if the daily quota is used up.
+     */
+    long reserve() {
+        lock.lock();
+        try {
+            if (!takeFromDailyQuota()) {
+                return -1;
+            }
+            refill();
+            availablePermits -= 1;
+            return availablePermits >= 0 ? 0 : (long) (-availablePermits * nanosPerPermit);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes one permit if one is available right now.
+     *
+     * @return true if a permit was taken, false if the caller would have to wait or the daily quota is used up.
+     */
+    boolean tryAcquire() {
+        lock.lock();
+        try {
+            refill();
+            if (availablePermits < 1 || !takeFromDailyQuota()) {
+                return false;
+            }
+            availablePermits -= 1;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refill() {
+        // Fyller på hinken med tiden som gått sedan förra anropet
+        long now = System.nanoTime();
+        availablePermits = Math.min(burst, availablePermits + (now - lastRefillNanos) / nanosPerPermit);
+        lastRefillNanos = now;
+    }
+
+    private boolean takeFromDailyQuota() {
+        if (dailyQuota == 0) {
+            return true;
+        }
+        LocalDate today = LocalDate.now(clock.withZone(ZoneOffset.UTC));
+        if (!today.equals(quotaDay)) {
+            quotaDay = today;
+            usedToday = 0;
+        }
+        if (usedToday >= dailyQuota) {
+            return false;
+        }
+        usedToday++;
+        return true;
+    }
+
+    /**
+     * Returns how many permits are left of the daily quota.
+     *
+     * @return the remaining permits today, or Long.MAX_VALUE if there is no daily limit.
+     */
+    public long getRemainingDailyQuota() {
+        if (dailyQuota == 0) {
+            return Long.MAX_VALUE;
+        }
+        lock.lock();
+        try {
+            boolean sameDay = LocalDate.now(clock.withZone(ZoneOffset.UTC)).equals(quotaDay);
+            return sameDay ? dailyQuota - usedToday : dailyQuota;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Alla som pratar med OMDB delar samma gräns
+    private static final class DefaultHolder {
+        private static final RateLimiter INSTANCE = new RateLimiter(AppConfig.getOmdbRequestsPerSecond(),
+                AppConfig.getOmdbRequestsPerSecond(), AppConfig.getOmdbDailyQuota());
+    }
+}
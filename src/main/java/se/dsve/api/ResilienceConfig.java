@@ -0,0 +1,171 @@
+package se.dsve.api;
+
+import se.dsve.AppConfig;
+
+public class ResilienceConfig {
+    private int maxAttempts = 3;
+    private long initialBackoffMillis = 100;
+    private long maxBackoffMillis = 2_000;
+    private int failureThreshold = 5;
+    private long openDurationMillis = 30_000;
+    private boolean hedgingEnabled = false;
+    private long hedgeMinDelayMillis = 50;
+
+    /**
+     * Creates a resilience configuration from the values in the .env file.
+     *
+     * <p>Every setting is optional, values that are missing fall back to the defaults of this class.
+     *
+     * @return a ResilienceConfig populated from {@link AppConfig}.
+     */
+    public static ResilienceConfig fromAppConfig() {
+        ResilienceConfig config = new ResilienceConfig();
+        config.setMaxAttempts(AppConfig.getOmdbRetryMaxAttempts());
+        config.setInitialBackoffMillis(AppConfig.getOmdbRetryInitialBackoffMillis());
+        config.setMaxBackoffMillis(AppConfig.getOmdbRetryMaxBackoffMillis());
+        config.setFailureThreshold(AppConfig.getOmdbBreakerFailureThreshold());
+        config.setOpenDurationMillis(AppConfig.getOmdbBreakerOpenMillis());
+        config.setHedgingEnabled(AppConfig.isOmdbHedgingEnabled());
+        config.setHedgeMinDelayMillis(AppConfig.getOmdbHedgeMinDelayMillis());
+        return config;
+    }
+
+    /**
+     * Returns how many times a request is sent at most, the first attempt included.
+     *
+     * @return the maximum number of attempts.
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Sets how many times a request is sent at most, the first attempt included.
+     *
+     * @param maxAttempts the maximum number of attempts, must be at least 1.
+     */
+    public void setMaxAttempts(int maxAttempts) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Returns the upper bound of the wait before the first retry. The bound doubles for every further retry.
+     *
+     * @return the initial backoff in milliseconds.
+     */
+    public long getInitialBackoffMillis() {
+        return initialBackoffMillis;
+    }
+
+    /**
+     * Sets the upper bound of the wait before the first retry.
+     *
+     * @param initialBackoffMillis the initial backoff in milliseconds, must not be negative.
+     */
+    public void setInitialBackoffMillis(long initialBackoffMillis) {
+        if (initialBackoffMillis < 0) {
+            throw new IllegalArgumentException("initialBackoffMillis must not be negative");
+        }
+        this.initialBackoffMillis = initialBackoffMillis;
+    }
+
+    /**
+     * Returns the cap of the wait between two attempts.
+     *
+     * @return the maximum backoff in milliseconds.
+     */
+    public long getMaxBackoffMillis() {
+        return maxBackoffMillis;
+    }
+
+    /**
+     * Sets the cap of the wait between two attempts.
+     *
+     * @param maxBackoffMillis the maximum backoff in milliseconds, must not be negative.
+     */
+    public void setMaxBackoffMillis(long maxBackoffMillis) {
+        if (maxBackoffMillis < 0) {
+            throw new IllegalArgumentException("maxBackoffMillis must not be negative");
+        }
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * Returns the number of failed attempts in a row that opens the circuit breaker.
+     *
+     * @return the failure threshold.
+     */
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    /**
+     * Sets the number of failed attempts in a row that opens the circuit breaker.
+     *
+     * @param failureThreshold the failure threshold, must be at least 1.
+     */
+    public void setFailureThreshold(int failureThreshold) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("failureThreshold must be at least 1");
+        }
+        this.failureThreshold = failureThreshold;
+    }
+
+    /**
+     * Returns how long the circuit breaker stays open before a trial request is let through.
+     *
+     * @return the open duration in milliseconds.
+     */
+    public long getOpenDurationMillis() {
+        return openDurationMillis;
+    }
+
+    /**
+     * Sets how long the circuit breaker stays open before a trial request is let through.
+     *
+     * @param openDurationMillis the open duration in milliseconds, must not be negative.
+     */
+    public void setOpenDurationMillis(long openDurationMillis) {
+        if (openDurationMillis < 0) {
+            throw new IllegalArgumentException("openDurationMillis must not be negative");
+        }
+        this.openDurationMillis = openDurationMillis;
+    }
+
+    public boolean isHedgingEnabled() {
+        return hedgingEnabled;
+    }
+
+    /**
+     * Sets whether a second, hedged request is sent when the first one is slower than the recent p95 latency.
+     *
+     * @param hedgingEnabled true to enable hedged requests.
+     */
+    public void setHedgingEnabled(boolean hedgingEnabled) {
+        this.hedgingEnabled = hedgingEnabled;
+    }
+
+    /**
+     * Returns the shortest wait before a hedged request is sent, even if the p95 latency is lower.
+     *
+     * @return the minimum hedge delay in milliseconds.
+     */
+    public long getHedgeMinDelayMillis() {
+        return hedgeMinDelayMillis;
+    }
+
+    /**
+     * Sets the shortest wait before a hedged request is sent.
+     *
+     * @param hedgeMinDelayMillis the minimum hedge delay in milliseconds, must not be negative.
+     */
+    public void setHedgeMinDelayMillis(long hedgeMinDelayMillis) {
+        if (hedgeMinDelayMillis < 0) {
+            throw new IllegalArgumentException("hedgeMinDelayMillis must not be negative");
+        }
+        this.hedgeMinDelayMillis = hedgeMinDelayMillis;
+    }
+}
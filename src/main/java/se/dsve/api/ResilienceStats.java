@@ -0,0 +1,86 @@
+package se.dsve.api;
+
+public class ResilienceStats {
+    private final CircuitBreaker.State circuitState;
+    private final long circuitOpenCount;
+    private final long failureCount;
+    private final long retryCount;
+    private final long hedgeCount;
+    private final long rejectedCount;
+    private final long rateLimitedCount;
+    private final long p95LatencyMillis;
+
+    /**
+     * Constructs a snapshot of the state and counters of a ResilientHttpTransport.
+     *
+     * @param circuitState the current state of the circuit breaker.
+     * @param circuitOpenCount the number of times the circuit breaker has opened.
+     * @param failureCount the number of attempts that failed or got a 429 or 5xx status.
+     * @param retryCount the number of attempts that were retries.
+     * @param hedgeCount the number of hedged requests sent.
+     * @param rejectedCount the number of requests rejected because the circuit breaker was open.
+     * @param rateLimitedCount the number of retries and hedged requests not sent for lack of a rate limiter permit.
+     * @param p95LatencyMillis the p95 latency of recent responses, or -1 if too few have been seen.
+     */
+    public ResilienceStats(CircuitBreaker.State circuitState, long circuitOpenCount, long failureCount, long retryCount,
+                           long hedgeCount, long rejectedCount, long rateLimitedCount, long p95LatencyMillis) {
+        this.circuitState = circuitState;
+        this.circuitOpenCount = circuitOpenCount;
+        this.failureCount = failureCount;
+        this.retryCount = retryCount;
+        this.hedgeCount = hedgeCount;
+        this.rejectedCount = rejectedCount;
+        this.rateLimitedCount = rateLimitedCount;
+        this.p95LatencyMillis = p95LatencyMillis;
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitState;
+    }
+
+    public long getCircuitOpenCount() {
+        return circuitOpenCount;
+    }
+
+    public long getFailureCount() {
+        return failureCount;
+    }
+
+    public long getRetryCount() {
+        return retryCount;
+    }
+
+    public long getHedgeCount() {
+        return hedgeCount;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * Returns the number of retries that were given up because the daily quota was used up, and hedged requests
+     * that were not sent because no rate limiter permit was free.
+     *
+     * @return the number of attempts held back by the rate limiter.
+     */
+    public long getRateLimitedCount() {
+        return rateLimitedCount;
+    }
+
+    /**
+     * Returns the p95 latency of recent responses, which is used as the hedge delay.
+     *
+     * @return the latency in milliseconds, or -1 if too few responses have been seen.
+     */
+    public long getP95LatencyMillis() {
+        return p95LatencyMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ResilienceStats{" + "circuitState=" + circuitState + ", circuitOpenCount=" + circuitOpenCount +
+                ", failures=" + failureCount + ", retries=" + retryCount + ", hedges=" + hedgeCount +
+                ", rejected=" + rejectedCount + ", rateLimited=" + rateLimitedCount + ", p95LatencyMillis=" + p95LatencyMillis + '}';
+    }
+}
@@ -0,0 +1,312 @@
+package se.dsve.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se.dsve.helpers.Deadline;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+public class ResilientHttpTransport implements HttpTransport {
+    private static final Logger logger = LoggerFactory.getLogger(ResilientHttpTransport.class);
+    // Antal svarstider som p95 räknas på, och hur många som krävs innan hedging används
+    private static final int LATENCY_WINDOW_SIZE = 128;
+    private static final int MIN_LATENCY_SAMPLES = 20;
+
+    private final HttpTransport delegate;
+    private final ResilienceConfig config;
+    private final CircuitBreaker circuitBreaker;
+    private final RateLimiter rateLimiter;
+    private final LatencyWindow latencies = new LatencyWindow(LATENCY_WINDOW_SIZE);
+    private final LongAdder failureCount = new LongAdder();
+    private final LongAdder retryCount = new LongAdder();
+    private final LongAdder hedgeCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder rateLimitedCount = new LongAdder();
+
+    /**
+     * Constructs a new ResilientHttpTransport that sends requests through another transport.
+     *
+     * <p>A request that fails, times out or gets a 429 or 5xx status is retried up to the configured number of
+     * attempts. Before each retry the transport waits a random time between zero and a bound that starts at the
+     * initial backoff and doubles per retry up to the maximum backoff (capped exponential backoff with full
+     * jitter), so clients that failed together do not retry together.
+     *
+     * <p>Every attempt is reported to a circuit breaker. While the breaker is open, requests fail at once with a
+     * {@link CircuitOpenException} instead of waiting for an unhealthy OMDB API, so callers only serve what they
+     * have in the database or cache.
+     *
+     * <p>If hedging is enabled, an attempt that has not answered within the p95 latency of recent responses gets
+     * a second, identical request. The first response wins and the other is discarded.
+     *
+     * <p>Requests with a {@link Deadline} are not retried when the backoff would not end before the deadline.
+     * A request that fails with a {@link DeadlineExceededException} because the deadline ran out is neither
+     * retried nor counted as a failure by the circuit breaker.
+     *
+     * <p>Cancelling the returned future cancels the attempts that are in flight, hedges included, and no further
+     * retries are sent.
+     *
+     * <p>Retries and hedged requests are not limited by any {@link RateLimiter}, see
+     * {@link #ResilientHttpTransport(HttpTransport, ResilienceConfig, RateLimiter)}.
+     *
+     * @param delegate the transport that sends the requests.
+     * @param config the retry, circuit breaker and hedging settings.
+     */
+    public ResilientHttpTransport(HttpTransport delegate, ResilienceConfig config) {
+        this(delegate, config, null);
+    }
+
+    /**
+     * Constructs a new ResilientHttpTransport whose retries and hedged requests also pass a rate limiter.
+     *
+     * <p>The first attempt of a request is sent as it is, the caller has already passed the limiter for it. Every
+     * retry takes a permit of its own and is sent after the backoff or when the permit is due, whichever is later.
+     * A retry is given up when the daily quota is used up. A hedged request is only sent if a permit is free
+     * right away, since waiting for one would defeat the hedge. Attempts held back this way are counted in
+     * {@link ResilienceStats#getRateLimitedCount()}.
+     *
+     * @param delegate the transport that sends the requests.
+     * @param config the retry, circuit breaker and hedging settings.
+     * @param rateLimiter the limiter every retry and hedged request must pass, or null for no limit.
+     */
+    public ResilientHttpTransport(HttpTransport delegate, ResilienceConfig config, RateLimiter rateLimiter) {
+        this.delegate = delegate;
+        this.config = config;
+        this.rateLimiter = rateLimiter;
+        this.circuitBreaker = new CircuitBreaker(config.getFailureThreshold(), config.getOpenDurationMillis());
+    }
+
+    /**
+     * Returns the transport shared by the whole application. It wraps {@link JdkHttpTransport#getDefault()}
+     * with the resilience settings from the .env file, and its retries and hedged requests pass
+     * {@link RateLimiter#getDefault()}.
+     *
+     * @return the shared ResilientHttpTransport.
+     */
+    public static ResilientHttpTransport getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse<String>> getAsync(URI uri) {
+        return execute(() -> delegate.getAsync(uri), Deadline.none());
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse<InputStream>> getStreamAsync(URI uri, Map<String, String> headers,
+                                                                      Deadline deadline) {
+        return execute(() -> delegate.getStreamAsync(uri, headers, deadline), deadline);
+    }
+
+    /**
+     * Returns a snapshot of the circuit breaker state and the retry, hedge, rejection and rate limit counters.
+     *
+     * @return the current ResilienceStats.
+     */
+    public ResilienceStats stats() {
+        long p95 = latencies.size() < MIN_LATENCY_SAMPLES ? -1
+                : TimeUnit.NANOSECONDS.toMillis(latencies.percentile(0.95));
+        return new ResilienceStats(circuitBreaker.getState(), circuitBreaker.getOpenCount(), failureCount.sum(),
+                retryCount.sum(), hedgeCount.sum(), rejectedCount.sum(), rateLimitedCount.sum(), p95);
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> execute(Supplier<CompletableFuture<HttpResponse<T>>> request,
+                                                           Deadline deadline) {
+        CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        attempt(request, deadline, 1, result);
+        return result;
+    }
+
+    private <T> void attempt(Supplier<CompletableFuture<HttpResponse<T>>> request, Deadline deadline, int attempt,
+                             CompletableFuture<HttpResponse<T>> result) {
+        // Anroparen har avbrutit under väntan på omförsöket
+        if (result.isDone()) {
+            return;
+        }
+        // Misslyckas direkt när OMDB inte mår bra
+        if (!circuitBreaker.tryAcquirePermission()) {
+            rejectedCount.increment();
+            result.completeExceptionally(new CircuitOpenException("The OMDB API circuit breaker is open"));
+            return;
+        }
+
+        CompletableFuture<HttpResponse<T>> response;
+        try {
+            response = sendWithHedge(request);
+        } catch (RuntimeException e) {
+            // Felaktiga anrop säger inget om hur OMDB mår, första försöket kastar vidare precis som transporten
+            circuitBreaker.onIgnored();
+            if (attempt == 1) {
+                throw e;
+            }
+            result.completeExceptionally(e);
+            return;
+        }
+        Futures.cancelling(result, response);
+
+        response.whenComplete((httpResponse, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            // Att anroparens deadline tog slut säger inget om hur OMDB mår, och ett omförsök hinner inte klart
+            if (cause != null && (!(cause instanceof IOException) || cause instanceof DeadlineExceededException)) {
+                circuitBreaker.onIgnored();
+                result.completeExceptionally(cause);
+                return;
+            }
+            if (cause == null && !isRetryableStatus(httpResponse.statusCode())) {
+                circuitBreaker.onSuccess();
+                if (!result.complete(httpResponse)) {
+                    discard(httpResponse);
+                }
+                return;
+            }
+            if (result.isDone()) {
+                circuitBreaker.onIgnored();
+                if (httpResponse != null) {
+                    discard(httpResponse);
+                }
+                return;
+            }
+
+            circuitBreaker.onFailure();
+            failureCount.increment();
+            long delayMillis = backoffMillis(attempt);
+            if (attempt >= config.getMaxAttempts() || deadline.remaining().toMillis() <= delayMillis) {
+                giveUp(result, httpResponse, cause);
+                return;
+            }
+            if (rateLimiter != null) {
+                // Omförsöket skickas när både backoff och tillståndet är klara
+                long permitNanos = rateLimiter.reserve();
+                if (permitNanos < 0) {
+                    rateLimitedCount.increment();
+                    logger.warn("Daily OMDB API quota is used up, attempt {} is not retried", attempt);
+                    giveUp(result, httpResponse, cause);
+                    return;
+                }
+                delayMillis = Math.max(delayMillis, TimeUnit.NANOSECONDS.toMillis(permitNanos));
+            }
+            if (httpResponse != null) {
+                discard(httpResponse);
+            }
+
+            logger.warn("OMDB API attempt {} of {} failed ({}), retrying in {} ms", attempt, config.getMaxAttempts(),
+                    cause != null ? cause.getMessage() : "HTTP status " + httpResponse.statusCode(), delayMillis);
+            retryCount.increment();
+            CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS)
+                    .execute(() -> attempt(request, deadline, attempt + 1, result));
+        });
+    }
+
+    private static <T> void giveUp(CompletableFuture<HttpResponse<T>> result, HttpResponse<T> httpResponse,
+                                   Throwable cause) {
+        // Sista försöket, anroparen får felet eller svaret med felstatus
+        if (cause != null) {
+            result.completeExceptionally(cause);
+        } else if (!result.complete(httpResponse)) {
+            discard(httpResponse);
+        }
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> sendWithHedge(Supplier<CompletableFuture<HttpResponse<T>>> request) {
+        long hedgeDelayMillis = hedgeDelayMillis();
+        if (hedgeDelayMillis < 0) {
+            return timed(request);
+        }
+
+        // Det första lyckade svaret vinner, förloraren kastas
+        CompletableFuture<HttpResponse<T>> winner = new CompletableFuture<>();
+        AtomicInteger outstanding = new AtomicInteger(1);
+        CompletableFuture<HttpResponse<T>> first = timed(request);
+        Futures.cancelling(winner, first);
+        first.whenComplete((response, error) -> settle(winner, outstanding, response, error));
+        CompletableFuture.delayedExecutor(hedgeDelayMillis, TimeUnit.MILLISECONDS).execute(() -> {
+            if (winner.isDone()) {
+                return;
+            }
+            // Att vänta på ett tillstånd vore att inte hedga alls
+            if (rateLimiter != null && !rateLimiter.tryAcquire()) {
+                rateLimitedCount.increment();
+                return;
+            }
+            outstanding.incrementAndGet();
+            hedgeCount.increment();
+            try {
+                CompletableFuture<HttpResponse<T>> hedge = timed(request);
+                Futures.cancelling(winner, hedge);
+                hedge.whenComplete((response, error) -> settle(winner, outstanding, response, error));
+            } catch (RuntimeException e) {
+                settle(winner, outstanding, null, e);
+            }
+        });
+        return winner;
+    }
+
+    private <T> void settle(CompletableFuture<HttpResponse<T>> winner, AtomicInteger outstanding,
+                            HttpResponse<T> response, Throwable error) {
+        boolean last = outstanding.decrementAndGet() == 0;
+        if (error == null) {
+            if (!winner.complete(response)) {
+                discard(response);
+            }
+        } else if (last) {
+            winner.completeExceptionally(error);
+        }
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> timed(Supplier<CompletableFuture<HttpResponse<T>>> request) {
+        long start = System.nanoTime();
+        CompletableFuture<HttpResponse<T>> sent = request.get();
+        return Futures.cancelling(sent.whenComplete((response, error) -> {
+            if (error == null) {
+                latencies.record(System.nanoTime() - start);
+            }
+        }), sent);
+    }
+
+    private long hedgeDelayMillis() {
+        if (!config.isHedgingEnabled() || latencies.size() < MIN_LATENCY_SAMPLES) {
+            return -1;
+        }
+        long p95Millis = TimeUnit.NANOSECONDS.toMillis(latencies.percentile(0.95));
+        return Math.max(config.getHedgeMinDelayMillis(), p95Millis);
+    }
+
+    private long backoffMillis(int attempt) {
+        // Gränsen fördubblas per försök upp till taket, väntetiden slumpas mellan noll och gränsen
+        long bound = config.getInitialBackoffMillis() << Math.min(attempt - 1, 20);
+        bound = Math.min(config.getMaxBackoffMillis(), bound);
+        return bound <= 0 ? 0 : ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+
+    private static boolean isRetryableStatus(int statusCode) {
+        return statusCode == 429 || statusCode >= 500;
+    }
+
+    private static void discard(HttpResponse<?> response) {
+        // Stänger strömmen så att anslutningen släpps
+        if (response.body() instanceof Closeable body) {
+            try {
+                body.close();
+            } catch (IOException e) {
+                logger.debug("Error closing discarded OMDB response: {}", e.getMessage());
+            }
+        }
+    }
+
+    // Skapas först när den delade transporten används
+    private static final class DefaultHolder {
+        private static final ResilientHttpTransport INSTANCE = new ResilientHttpTransport(
+                JdkHttpTransport.getDefault(), ResilienceConfig.fromAppConfig(), RateLimiter.getDefault());
+    }
+}
@@ -0,0 +1,63 @@
+package se.dsve.api;
+
+import se.dsve.classes.Movie;
+
+public class SearchHit {
+    private final String title;
+    private final String year;
+    private final String imdbId;
+    private final String type;
+    private final Movie movie;
+
+    SearchHit(String title, String year, String imdbId, String type, Movie movie) {
+        this.title = title;
+        this.year = year;
+        this.imdbId = imdbId;
+        this.type = type;
+        this.movie = movie;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Returns the year as OMDB reports it, which for series can be a range such as "2008–2013".
+     *
+     * @return the year of the title.
+     */
+    public String getYear() {
+        return year;
+    }
+
+    public String getImdbId() {
+        return imdbId;
+    }
+
+    /**
+     * Returns the kind of title, for example "movie" or "series".
+     *
+     * @return the OMDB type of the title.
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Returns the full movie fetched for this hit.
+     *
+     * @return the Movie, or null if the search was not hydrated or the lookup failed.
+     */
+    public Movie getMovie() {
+        return movie;
+    }
+
+    SearchHit withMovie(Movie movie) {
+        return new SearchHit(title, year, imdbId, type, movie);
+    }
+
+    @Override
+    public String toString() {
+        return title + " (" + year + ", " + type + ") " + imdbId;
+    }
+}
@@ -0,0 +1,35 @@
+package se.dsve.api;
+
+import java.util.List;
+
+/**
+ * One page of OMDB search results.
+ */
+final class SearchPage {
+    // OMDB svarar med tio träffar per sida
+    static final int PAGE_SIZE = 10;
+
+    private final List<SearchHit> hits;
+    private final int totalResults;
+
+    SearchPage(List<SearchHit> hits, int totalResults) {
+        this.hits = hits;
+        this.totalResults = totalResults;
+    }
+
+    List<SearchHit> getHits() {
+        return hits;
+    }
+
+    int getTotalResults() {
+        return totalResults;
+    }
+
+    int getLastPage() {
+        return (totalResults + PAGE_SIZE - 1) / PAGE_SIZE;
+    }
+
+    SearchPage withHits(List<SearchHit> hits) {
+        return new SearchPage(hits, totalResults);
+    }
+}
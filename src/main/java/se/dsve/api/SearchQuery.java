@@ -0,0 +1,86 @@
+package se.dsve.api;
+
+import se.dsve.AppConfig;
+
+public class SearchQuery {
+    private final String text;
+    private SearchType type;
+    private Integer year;
+    private boolean hydrate;
+    private int prefetchPages = AppConfig.getOmdbSearchPrefetchPages();
+
+    /**
+     * Constructs a new SearchQuery for titles matching the specified text, without filters.
+     *
+     * <p>By default the search is not limited by type or year, hits are not hydrated and the number of pages
+     * fetched ahead is taken from the .env file.
+     *
+     * @param text the text to search for, sent as the OMDB {@code s} parameter.
+     */
+    public SearchQuery(String text) {
+        this.text = text;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public SearchType getType() {
+        return type;
+    }
+
+    /**
+     * Limits the search to one kind of title.
+     *
+     * @param type the kind of title, or null for all kinds.
+     */
+    public void setType(SearchType type) {
+        this.type = type;
+    }
+
+    public Integer getYear() {
+        return year;
+    }
+
+    /**
+     * Limits the search to titles released in a year.
+     *
+     * @param year the release year, or null for all years.
+     */
+    public void setYear(Integer year) {
+        this.year = year;
+    }
+
+    public boolean isHydrate() {
+        return hydrate;
+    }
+
+    /**
+     * Sets whether each hit is completed with a full lookup of the movie.
+     *
+     * <p>The search endpoint only returns title, year, type and IMDb id. With hydration on, the full Movie of
+     * every hit on a page is fetched in parallel before the page is handed out, which costs one extra request
+     * per hit.
+     *
+     * @param hydrate true to fetch the full Movie of each hit.
+     */
+    public void setHydrate(boolean hydrate) {
+        this.hydrate = hydrate;
+    }
+
+    public int getPrefetchPages() {
+        return prefetchPages;
+    }
+
+    /**
+     * Sets how many pages are fetched ahead of the page that is being consumed.
+     *
+     * @param prefetchPages the number of pages to fetch ahead, at least 1.
+     */
+    public void setPrefetchPages(int prefetchPages) {
+        if (prefetchPages < 1) {
+            throw new IllegalArgumentException("prefetchPages must be at least 1");
+        }
+        this.prefetchPages = prefetchPages;
+    }
+}
@@ -0,0 +1,82 @@
+package se.dsve.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Hands out the hits of a paged OMDB search one at a time, fetching the following pages in the background.
+ *
+ * <p>Page 1 is requested first. Once it has arrived and the total number of results is known, up to
+ * {@code prefetchPages} following pages are requested while the caller works through the hits. Each time a
+ * page is taken, the next one is requested, so at most {@code prefetchPages} pages are ever in flight.
+ */
+final class SearchSpliterator extends Spliterators.AbstractSpliterator<SearchHit> {
+    private static final Logger logger = LoggerFactory.getLogger(SearchSpliterator.class);
+    // OMDB lämnar inte ut fler sidor än så här
+    private static final int MAX_PAGE = 100;
+
+    private final IntFunction<CompletableFuture<SearchPage>> pageLoader;
+    private final int prefetchPages;
+    private final String description;
+    private final Deque<CompletableFuture<SearchPage>> pending = new ArrayDeque<>();
+    private Iterator<SearchHit> hits = Collections.emptyIterator();
+    private int nextPage = 1;
+    private int lastPage = 1;
+
+    SearchSpliterator(IntFunction<CompletableFuture<SearchPage>> pageLoader, int prefetchPages, String description) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+        this.pageLoader = pageLoader;
+        this.prefetchPages = prefetchPages;
+        this.description = description;
+        requestPages();
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super SearchHit> action) {
+        while (!hits.hasNext()) {
+            CompletableFuture<SearchPage> next = pending.poll();
+            if (next == null) {
+                return false;
+            }
+            try {
+                SearchPage page = next.join();
+                lastPage = Math.min(page.getLastPage(), MAX_PAGE);
+                hits = page.getHits().iterator();
+            } catch (CompletionException e) {
+                // Loggar undantag och avslutar strömmen
+                logger.error("Error searching the OMDB API for {}: {}", description, e.getCause().getMessage(), e.getCause());
+                close();
+                return false;
+            }
+            requestPages();
+        }
+        action.accept(hits.next());
+        return true;
+    }
+
+    /**
+     * Stops fetching pages and drops the pages that are still in flight.
+     */
+    void close() {
+        pending.forEach(page -> page.cancel(false));
+        pending.clear();
+        lastPage = 0;
+    }
+
+    private void requestPages() {
+        while (pending.size() < prefetchPages && nextPage <= lastPage) {
+            pending.add(pageLoader.apply(nextPage++));
+        }
+    }
+}
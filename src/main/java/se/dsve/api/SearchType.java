@@ -0,0 +1,21 @@
+package se.dsve.api;
+
+import java.util.Locale;
+
+/**
+ * The kinds of titles the OMDB search can be limited to.
+ */
+public enum SearchType {
+    MOVIE,
+    SERIES,
+    EPISODE;
+
+    /**
+     * Returns the value of the OMDB {@code type} parameter for this kind of title.
+     *
+     * @return the type in lower case, for example "movie".
+     */
+    String parameter() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
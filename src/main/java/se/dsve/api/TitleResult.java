@@ -0,0 +1,81 @@
+package se.dsve.api;
+
+import se.dsve.classes.Movie;
+
+public class TitleResult {
+    /**
+     * The outcome of looking up one title in the OMDB API.
+     */
+    public enum Status {
+        FOUND,
+        // Filmen har inte ändrats sedan den hämtades
+        NOT_MODIFIED,
+        NOT_FOUND,
+        ERROR
+    }
+
+    private final String title;
+    private final Status status;
+    private final Movie movie;
+    private final Throwable error;
+
+    private TitleResult(String title, Status status, Movie movie, Throwable error) {
+        this.title = title;
+        this.status = status;
+        this.movie = movie;
+        this.error = error;
+    }
+
+    static TitleResult found(String title, Movie movie) {
+        return new TitleResult(title, Status.FOUND, movie, null);
+    }
+
+    static TitleResult notModified(String title, Movie movie) {
+        return new TitleResult(title, Status.NOT_MODIFIED, movie, null);
+    }
+
+    static TitleResult notFound(String title) {
+        return new TitleResult(title, Status.NOT_FOUND, null, null);
+    }
+
+    static TitleResult error(String title, Throwable error) {
+        return new TitleResult(title, Status.ERROR, null, error);
+    }
+
+    /**
+     * Returns the title that was looked up, as it was passed in.
+     *
+     * @return the requested title.
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the movie that was found.
+     *
+     * @return the Movie, or null unless the status is FOUND or NOT_MODIFIED.
+     */
+    public Movie getMovie() {
+        return movie;
+    }
+
+    /**
+     * Returns why the lookup failed.
+     *
+     * @return the error, or null unless the status is ERROR.
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return "TitleResult{" + "title='" + title + '\'' + ", status=" + status +
+                (error != null ? ", error='" + error.getMessage() + '\'' : "") + '}';
+    }
+}
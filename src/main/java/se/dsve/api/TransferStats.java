@@ -0,0 +1,80 @@
+package se.dsve.api;
+
+public class TransferStats {
+    private final long responseCount;
+    private final long compressedResponseCount;
+    private final long wireBytes;
+    private final long decodedBytes;
+    private final long conditionalRequestCount;
+    private final long notModifiedCount;
+
+    /**
+     * Constructs a snapshot of the transfer counters of a JdkHttpTransport.
+     *
+     * @param responseCount the number of responses received.
+     * @param compressedResponseCount the number of responses with a compressed body.
+     * @param wireBytes the number of body bytes read from the network.
+     * @param decodedBytes the number of body bytes after decompression.
+     * @param conditionalRequestCount the number of requests sent with If-None-Match or If-Modified-Since.
+     * @param notModifiedCount the number of 304 Not Modified responses.
+     */
+    public TransferStats(long responseCount, long compressedResponseCount, long wireBytes, long decodedBytes,
+                         long conditionalRequestCount, long notModifiedCount) {
+        this.responseCount = responseCount;
+        this.compressedResponseCount = compressedResponseCount;
+        this.wireBytes = wireBytes;
+        this.decodedBytes = decodedBytes;
+        this.conditionalRequestCount = conditionalRequestCount;
+        this.notModifiedCount = notModifiedCount;
+    }
+
+    public long getResponseCount() {
+        return responseCount;
+    }
+
+    public long getCompressedResponseCount() {
+        return compressedResponseCount;
+    }
+
+    public long getWireBytes() {
+        return wireBytes;
+    }
+
+    public long getDecodedBytes() {
+        return decodedBytes;
+    }
+
+    /**
+     * Returns how many bytes compression kept off the network, for the bodies that have been read.
+     *
+     * @return the decoded bytes minus the bytes read from the network.
+     */
+    public long getBytesSaved() {
+        return decodedBytes - wireBytes;
+    }
+
+    public long getConditionalRequestCount() {
+        return conditionalRequestCount;
+    }
+
+    public long getNotModifiedCount() {
+        return notModifiedCount;
+    }
+
+    /**
+     * Returns the share of conditional requests that were answered with 304 Not Modified, so no body was sent.
+     *
+     * @return the 304 rate between 0 and 1, or 0 if no conditional requests have been sent.
+     */
+    public double getNotModifiedRate() {
+        return conditionalRequestCount == 0 ? 0 : (double) notModifiedCount / conditionalRequestCount;
+    }
+
+    @Override
+    public String toString() {
+        return "TransferStats{" + "responses=" + responseCount + ", compressed=" + compressedResponseCount +
+                ", wireBytes=" + wireBytes + ", decodedBytes=" + decodedBytes + ", conditionalRequests=" +
+                conditionalRequestCount + ", notModified=" + notModifiedCount + ", notModifiedRate=" +
+                String.format("%.2f", getNotModifiedRate()) + '}';
+    }
+}
@@ -0,0 +1,80 @@
+package se.dsve.cache;
+
+public class CacheStats {
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long rejectionCount;
+    private final long expirationCount;
+
+    /**
+     * Constructs a snapshot of cache statistics.
+     *
+     * @param hitCount the number of lookups that found a live entry.
+     * @param missCount the number of lookups that found no entry or an expired one.
+     * @param evictionCount the number of live entries dropped to make room for a new entry.
+     * @param rejectionCount the number of new entries that were not admitted to a full cache.
+     * @param expirationCount the number of entries removed because their time to live had passed.
+     */
+    public CacheStats(long hitCount, long missCount, long evictionCount, long rejectionCount, long expirationCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.rejectionCount = rejectionCount;
+        this.expirationCount = expirationCount;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the number of live entries dropped to make room for a more popular new entry.
+     *
+     * @return the number of evictions.
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the number of new entries that were not admitted because they were less popular than the entry
+     * they would have replaced.
+     *
+     * @return the number of rejected entries.
+     */
+    public long getRejectionCount() {
+        return rejectionCount;
+    }
+
+    /**
+     * Returns the number of entries removed because their time to live had passed, either when they were looked
+     * up or when room was needed for a new entry.
+     *
+     * @return the number of expired entries.
+     */
+    public long getExpirationCount() {
+        return expirationCount;
+    }
+
+    /**
+     * Returns the share of lookups that were hits.
+     *
+     * @return the hit rate between 0 and 1, or 0 if there have been no lookups.
+     */
+    public double getHitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 0 : (double) hitCount / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" + "hits=" + hitCount + ", misses=" + missCount + ", evictions=" + evictionCount +
+                ", rejections=" + rejectionCount + ", expirations=" + expirationCount +
+                ", hitRate=" + String.format("%.2f", getHitRate()) + '}';
+    }
+}
@@ -0,0 +1,232 @@
+package se.dsve.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class TinyLfuCache<K, V> {
+    private static final int MAX_SEGMENTS = 16;
+    // Minsta antal poster per segment innan cachen delas upp
+    private static final int MIN_SEGMENT_SIZE = 16;
+    // Antal av de äldsta posterna som kontrolleras efter utgångna poster innan en post trängs undan
+    private static final int EXPIRY_SCAN_LIMIT = 8;
+
+    private final Segment<K, V>[] segments;
+    private final int segmentMask;
+    private final FrequencySketch sketch;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder rejectionCount = new LongAdder();
+    private final LongAdder expirationCount = new LongAdder();
+
+    /**
+     * Constructs a new TinyLfuCache that holds at most {@code maximumSize} entries.
+     *
+     * <p>The entries are spread over up to sixteen segments with one lock each, so there is no global lock.
+     * Each segment keeps its entries in least recently used order. When a segment is full, a new entry is only
+     * admitted if the frequency sketch estimates that its key has been used more often than the least recently
+     * used entry it would replace (TinyLFU admission). This keeps popular keys in the cache when many keys are
+     * only seen once.
+     *
+     * @param maximumSize the maximum number of entries, must be at least 1.
+     */
+    @SuppressWarnings("unchecked")
+    public TinyLfuCache(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("maximumSize must be at least 1");
+        }
+        int segmentCount = Integer.highestOneBit(Math.min(MAX_SEGMENTS, Math.max(1, maximumSize / MIN_SEGMENT_SIZE)));
+        int segmentSize = (maximumSize + segmentCount - 1) / segmentCount;
+        this.segments = (Segment<K, V>[]) new Segment<?, ?>[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(segmentSize, expirationCount);
+        }
+        this.segmentMask = segmentCount - 1;
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    /**
+     * Returns the value cached for a key, if it has not expired.
+     *
+     * @param key the key to look up.
+     * @return the cached value, or null if there is no live entry.
+     */
+    public V get(K key) {
+        sketch.increment(key);
+        V value = segmentFor(key).get(key, System.nanoTime());
+        if (value == null) {
+            missCount.increment();
+        } else {
+            hitCount.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Caches a value for a key for the given time to live.
+     *
+     * <p>If the cache is full the value may be rejected, see {@link #TinyLfuCache(int)}.
+     *
+     * @param key the key to cache the value for.
+     * @param value the value to cache, must not be null.
+     * @param ttl how long the entry is served before it expires.
+     */
+    public void put(K key, V value, Duration ttl) {
+        if (value == null) {
+            throw new IllegalArgumentException("value must not be null");
+        }
+        long now = System.nanoTime();
+        long expiresAt = now + ttl.toNanos();
+        Admission admission = segmentFor(key).put(key, value, expiresAt, now, sketch);
+        if (admission == Admission.ADMITTED_AFTER_EVICTION) {
+            evictionCount.increment();
+        } else if (admission == Admission.REJECTED) {
+            rejectionCount.increment();
+        }
+    }
+
+    /**
+     * Removes the entry for a key.
+     *
+     * @param key the key to remove.
+     */
+    public void invalidate(K key) {
+        segmentFor(key).remove(key);
+    }
+
+    /**
+     * Returns the number of entries in the cache, including entries that have expired but not been removed yet.
+     *
+     * @return the number of entries.
+     */
+    public long size() {
+        long size = 0;
+        for (Segment<K, V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * Returns a snapshot of the hit, miss, eviction, rejection and expiration counters.
+     *
+     * @return the current CacheStats.
+     */
+    public CacheStats stats() {
+        return new CacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum(), rejectionCount.sum(),
+                expirationCount.sum());
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & segmentMask];
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long expiresAtNanos;
+
+        Entry(V value, long expiresAtNanos) {
+            this.value = value;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+
+    private enum Admission {
+        ADMITTED,
+        ADMITTED_AFTER_EVICTION,
+        REJECTED
+    }
+
+    private static final class Segment<K, V> {
+        private final ReentrantLock lock = new ReentrantLock();
+        // Åtkomstordning, den äldsta posten ligger först
+        private final LinkedHashMap<K, Entry<V>> entries;
+        private final int capacity;
+        // Delas av alla segment i cachen
+        private final LongAdder expirationCount;
+
+        Segment(int capacity, LongAdder expirationCount) {
+            this.capacity = capacity;
+            this.expirationCount = expirationCount;
+            this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        }
+
+        V get(K key, long now) {
+            lock.lock();
+            try {
+                Entry<V> entry = entries.get(key);
+                if (entry == null) {
+                    return null;
+                }
+                if (entry.isExpired(now)) {
+                    entries.remove(key);
+                    expirationCount.increment();
+                    return null;
+                }
+                return entry.value;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        Admission put(K key, V value, long expiresAt, long now, FrequencySketch sketch) {
+            lock.lock();
+            try {
+                if (entries.containsKey(key) || entries.size() < capacity || removeExpired(now)) {
+                    entries.put(key, new Entry<>(value, expiresAt));
+                    return Admission.ADMITTED;
+                }
+
+                // Segmentet är fullt, den nya posten släpps bara in om den används oftare än den äldsta
+                K victim = entries.keySet().iterator().next();
+                if (sketch.frequency(key) <= sketch.frequency(victim)) {
+                    return Admission.REJECTED;
+                }
+                entries.remove(victim);
+                entries.put(key, new Entry<>(value, expiresAt));
+                return Admission.ADMITTED_AFTER_EVICTION;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean removeExpired(long now) {
+            boolean removed = false;
+            Iterator<Entry<V>> iterator = entries.values().iterator();
+            for (int i = 0; i < EXPIRY_SCAN_LIMIT && iterator.hasNext(); i++) {
+                if (iterator.next().isExpired(now)) {
+                    iterator.remove();
+                    expirationCount.increment();
+                    removed = true;
+                }
+            }
+            return removed;
+        }
+
+        void remove(K key) {
+            lock.lock();
+            try {
+                entries.remove(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return entries.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
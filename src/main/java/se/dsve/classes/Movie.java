@@ -1,12 +1,19 @@
 package se.dsve.classes;
 
+import java.time.Instant;
+
 public class Movie {
     // Antag att dessa är dina instansvariabler
+    private Integer id;
     private String title;
     private int year;
     private String actors;
     private String director;
     private String genre;
+    private Instant fetchedAt;
+    private String imdbId;
+    private String etag;
+    private String lastModified;
 
     // Antag att detta är din konstruktor
     /**
@@ -136,6 +143,96 @@ public class Movie {
         this.genre = genre;
     }
 
+    /**
+     * Returns the id of the database row the movie was read from.
+     *
+     * @return the row id, or null if the movie was not read from the database.
+     */
+    public Integer getId() {
+        return id;
+    }
+
+    /**
+     * Sets the id of the database row the movie was read from.
+     *
+     * @param id the row id.
+     */
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    /**
+     * Returns when the movie data was fetched from the OMDB API.
+     *
+     * @return the time the movie was fetched, or null if unknown.
+     */
+    public Instant getFetchedAt() {
+        return fetchedAt;
+    }
+
+    /**
+     * Sets when the movie data was fetched from the OMDB API.
+     *
+     * @param fetchedAt the time the movie was fetched.
+     */
+    public void setFetchedAt(Instant fetchedAt) {
+        this.fetchedAt = fetchedAt;
+    }
+
+    /**
+     * Returns the IMDb id of the movie, as reported by the OMDB API.
+     *
+     * @return the IMDb id of the movie, or null if unknown.
+     */
+    public String getImdbId() {
+        return imdbId;
+    }
+
+    /**
+     * Sets the IMDb id of the movie.
+     *
+     * @param imdbId the IMDb id of the movie to set.
+     */
+    public void setImdbId(String imdbId) {
+        this.imdbId = imdbId;
+    }
+
+    /**
+     * Returns the ETag header the OMDB API sent with the movie, used to ask whether it has changed.
+     *
+     * @return the ETag of the movie data, or null if none was sent.
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * Sets the ETag header the OMDB API sent with the movie.
+     *
+     * @param etag the ETag of the movie data.
+     */
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+    /**
+     * Returns the Last-Modified header the OMDB API sent with the movie, used to ask whether it has changed.
+     *
+     * @return the Last-Modified date of the movie data as sent, or null if none was sent.
+     */
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Sets the Last-Modified header the OMDB API sent with the movie.
+     *
+     * @param lastModified the Last-Modified date of the movie data as sent.
+     */
+    public void setLastModified(String lastModified) {
+        this.lastModified = lastModified;
+    }
+
     /**
      * Returns a string representation of the Movie object.
      *
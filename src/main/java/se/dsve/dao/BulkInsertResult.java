@@ -0,0 +1,121 @@
+package se.dsve.dao;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class BulkInsertResult {
+    private int rowsInserted;
+    private int rowsFailed;
+    private long elapsedNanos;
+    private final List<ChunkFailure> chunkFailures = new ArrayList<>();
+
+    void recordInsertedChunk(int rowCount) {
+        rowsInserted += rowCount;
+    }
+
+    void recordFailedChunk(ChunkFailure failure) {
+        rowsFailed += failure.getRowCount();
+        chunkFailures.add(failure);
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Returns the number of rows that were committed to the database.
+     *
+     * @return the number of inserted rows.
+     */
+    public int getRowsInserted() {
+        return rowsInserted;
+    }
+
+    /**
+     * Returns the number of rows in chunks that were rolled back.
+     *
+     * @return the number of failed rows.
+     */
+    public int getRowsFailed() {
+        return rowsFailed;
+    }
+
+    /**
+     * Returns the chunks that could not be committed, in the order they were attempted.
+     *
+     * @return an unmodifiable list of chunk failures.
+     */
+    public List<ChunkFailure> getChunkFailures() {
+        return Collections.unmodifiableList(chunkFailures);
+    }
+
+    /**
+     * Returns the wall clock time spent on the whole load.
+     *
+     * @return the elapsed time in milliseconds.
+     */
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    /**
+     * Returns the insert throughput of the load, counting committed rows only.
+     *
+     * @return the number of inserted rows per second.
+     */
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rowsInserted * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    /**
+     * Returns a string representation of the BulkInsertResult object.
+     *
+     * @return a string representation of the BulkInsertResult object.
+     */
+    public String toString() {
+        return "BulkInsertResult{" + "rowsInserted=" + rowsInserted + ", rowsFailed=" + rowsFailed
+                + ", failedChunks=" + chunkFailures.size() + ", elapsedMillis=" + getElapsedMillis()
+                + ", rowsPerSecond=" + String.format("%.1f", getRowsPerSecond()) + '}';
+    }
+
+    public static class ChunkFailure {
+        private final int chunkIndex;
+        private final int firstRowIndex;
+        private final int rowCount;
+        private final SQLException cause;
+
+        /**
+         * Constructs a new ChunkFailure describing a chunk that was rolled back.
+         *
+         * @param chunkIndex the zero based index of the chunk.
+         * @param firstRowIndex the zero based index of the first row of the chunk in the whole load.
+         * @param rowCount the number of rows in the chunk.
+         * @param cause the SQLException that made the chunk fail.
+         */
+        ChunkFailure(int chunkIndex, int firstRowIndex, int rowCount, SQLException cause) {
+            this.chunkIndex = chunkIndex;
+            this.firstRowIndex = firstRowIndex;
+            this.rowCount = rowCount;
+            this.cause = cause;
+        }
+
+        public int getChunkIndex() {
+            return chunkIndex;
+        }
+
+        public int getFirstRowIndex() {
+            return firstRowIndex;
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        public SQLException getCause() {
+            return cause;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package se.dsve.dao;
+
+import se.dsve.AppConfig;
+
+public enum CatalogMode {
+    /** Movies are kept between restarts and refreshed when they become stale. */
+    PERSISTENT,
+    /** Every movie is deleted when the DAO starts, the behaviour of earlier versions. */
+    WIPE_ON_START;
+
+    /**
+     * Returns the catalog mode configured with DB_CATALOG_MODE in the .env file.
+     *
+     * <p>The value {@code wipe} selects {@link #WIPE_ON_START}, anything else, including a missing value,
+     * selects {@link #PERSISTENT}.
+     *
+     * @return the configured CatalogMode.
+     */
+    public static CatalogMode fromAppConfig() {
+        return "wipe".equalsIgnoreCase(AppConfig.getDbCatalogMode()) ? WIPE_ON_START : PERSISTENT;
+    }
+}
@@ -0,0 +1,58 @@
+package se.dsve.dao;
+
+import se.dsve.AppConfig;
+
+public class IndexConfig {
+    private boolean invertedIndexEnabled;
+    private boolean titleIndexEnabled;
+
+    /**
+     * Creates an in-memory index configuration from the values in the .env file.
+     *
+     * <p>Every setting is optional, values that are missing fall back to the defaults of this class.
+     *
+     * @return an IndexConfig populated from {@link AppConfig}.
+     */
+    public static IndexConfig fromAppConfig() {
+        IndexConfig config = new IndexConfig();
+        config.setInvertedIndexEnabled(AppConfig.isDbInvertedIndexEnabled());
+        config.setTitleIndexEnabled(AppConfig.isDbTitleIndexEnabled());
+        return config;
+    }
+
+    /**
+     * Returns whether actor, director and genre searches use an in-memory inverted index.
+     *
+     * @return true if the inverted index is enabled, false by default.
+     */
+    public boolean isInvertedIndexEnabled() {
+        return invertedIndexEnabled;
+    }
+
+    /**
+     * Sets whether actor, director and genre searches use an in-memory inverted index.
+     *
+     * @param invertedIndexEnabled true to build and use the inverted index.
+     */
+    public void setInvertedIndexEnabled(boolean invertedIndexEnabled) {
+        this.invertedIndexEnabled = invertedIndexEnabled;
+    }
+
+    /**
+     * Returns whether stored titles are kept in an in-memory trigram index for finding similar titles.
+     *
+     * @return true if the title index is enabled, false by default.
+     */
+    public boolean isTitleIndexEnabled() {
+        return titleIndexEnabled;
+    }
+
+    /**
+     * Sets whether stored titles are kept in an in-memory trigram index for finding similar titles.
+     *
+     * @param titleIndexEnabled true to build and use the title index.
+     */
+    public void setTitleIndexEnabled(boolean titleIndexEnabled) {
+        this.titleIndexEnabled = titleIndexEnabled;
+    }
+}
@@ -0,0 +1,59 @@
+package se.dsve.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+public abstract class Migration {
+    private final int version;
+    private final String description;
+
+    /**
+     * Constructs a new Migration with the specified version and description.
+     *
+     * @param version the schema version the migration brings the database to, must be unique and increasing.
+     * @param description a short description stored in the schema_version table.
+     */
+    protected Migration(int version, String description) {
+        this.version = version;
+        this.description = description;
+    }
+
+    /**
+     * Creates a migration that executes the given SQL statements in order.
+     *
+     * @param version the schema version the migration brings the database to.
+     * @param description a short description stored in the schema_version table.
+     * @param statements the SQL statements to execute, they must be valid on both MySQL and H2.
+     * @return a Migration executing the statements.
+     */
+    public static Migration sql(int version, String description, String... statements) {
+        return new Migration(version, description) {
+            @Override
+            public void apply(Connection connection, SqlDialect dialect) throws SQLException {
+                try (Statement statement = connection.createStatement()) {
+                    for (String sql : statements) {
+                        statement.executeUpdate(sql);
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Applies the migration on the provided connection. The caller commits the transaction.
+     *
+     * @param connection the connection to apply the migration on, with autocommit disabled.
+     * @param dialect the SQL dialect of the database.
+     * @throws SQLException if the migration could not be applied.
+     */
+    public abstract void apply(Connection connection, SqlDialect dialect) throws SQLException;
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
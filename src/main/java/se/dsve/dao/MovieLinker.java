@@ -0,0 +1,224 @@
+package se.dsve.dao;
+
+import se.dsve.helpers.Deadline;
+
+import java.sql.*;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+final class MovieLinker {
+    private static final String SELECT_PERSON_SQL = "SELECT id FROM person WHERE name_key = ?";
+    private static final String INSERT_PERSON_SQL = "INSERT INTO person (name, name_key) VALUES (?, ?)";
+    private static final String SELECT_GENRE_SQL = "SELECT id FROM genre WHERE name_key = ?";
+    private static final String INSERT_GENRE_SQL = "INSERT INTO genre (name, name_key) VALUES (?, ?)";
+    private static final String INSERT_MOVIE_PERSON_SQL = "INSERT INTO movie_person (movie_id, person_id) VALUES (?, ?)";
+    private static final String INSERT_MOVIE_GENRE_SQL = "INSERT INTO movie_genre (movie_id, genre_id) VALUES (?, ?)";
+    private static final String DELETE_MOVIE_PERSON_SQL = "DELETE FROM movie_person WHERE movie_id = ?";
+    private static final String DELETE_MOVIE_GENRE_SQL = "DELETE FROM movie_genre WHERE movie_id = ?";
+
+    private final Connection connection;
+    private final Deadline deadline;
+    // Id:n som redan slagits upp under denna operation, nyckel är normaliserat namn
+    private final Map<String, Integer> personIds = new HashMap<>();
+    private final Map<String, Integer> genreIds = new HashMap<>();
+    private PreparedStatement moviePersonBatch;
+    private PreparedStatement movieGenreBatch;
+
+    /**
+     * Constructs a MovieLinker that writes actor and genre links on the given connection.
+     *
+     * <p>Links are added to JDBC batches and sent when {@link #flush()} is called, so the caller controls
+     * the transaction the links are part of.
+     *
+     * @param connection the connection to write on.
+     */
+    MovieLinker(Connection connection) {
+        this(connection, Deadline.none());
+    }
+
+    /**
+     * Constructs a MovieLinker whose statements give up when a deadline passes.
+     *
+     * <p>Every statement gets the time left until the deadline as its JDBC query timeout when it is executed,
+     * so the links of a movie share the budget with the rest of the write instead of each getting all of it.
+     *
+     * @param connection the connection to write on.
+     * @param deadline the deadline of the write the links are part of.
+     */
+    MovieLinker(Connection connection, Deadline deadline) {
+        this.connection = connection;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Returns the key used to look up people and genres: the trimmed name in lower case.
+     *
+     * @param name the name of a person or genre.
+     * @return the lookup key of the name.
+     */
+    static String nameKey(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Queues links between a movie and each actor and genre in its comma separated lists.
+     *
+     * @param movieId the id of the movie row.
+     * @param actors the comma separated actors of the movie, may be null.
+     * @param genres the comma separated genres of the movie, may be null.
+     * @throws SQLException if a person or genre could not be looked up or created.
+     */
+    void link(int movieId, String actors, String genres) throws SQLException {
+        for (Map.Entry<String, String> actor : splitNames(actors).entrySet()) {
+            int personId = findOrCreate(personIds, SELECT_PERSON_SQL, INSERT_PERSON_SQL, actor.getKey(), actor.getValue());
+            if (moviePersonBatch == null) {
+                moviePersonBatch = prepare(INSERT_MOVIE_PERSON_SQL);
+            }
+            moviePersonBatch.setInt(1, movieId);
+            moviePersonBatch.setInt(2, personId);
+            moviePersonBatch.addBatch();
+        }
+        for (Map.Entry<String, String> genre : splitNames(genres).entrySet()) {
+            int genreId = findOrCreate(genreIds, SELECT_GENRE_SQL, INSERT_GENRE_SQL, genre.getKey(), genre.getValue());
+            if (movieGenreBatch == null) {
+                movieGenreBatch = prepare(INSERT_MOVIE_GENRE_SQL);
+            }
+            movieGenreBatch.setInt(1, movieId);
+            movieGenreBatch.setInt(2, genreId);
+            movieGenreBatch.addBatch();
+        }
+    }
+
+    /**
+     * Removes every actor and genre link of a movie, for example before it is linked again.
+     *
+     * @param movieId the id of the movie row.
+     * @throws SQLException if the links could not be deleted.
+     */
+    void unlink(int movieId) throws SQLException {
+        unlink(List.of(movieId));
+    }
+
+    /**
+     * Removes every actor and genre link of several movies with one batch per link table.
+     *
+     * @param movieIds the ids of the movie rows.
+     * @throws SQLException if the links could not be deleted.
+     */
+    void unlink(Collection<Integer> movieIds) throws SQLException {
+        if (movieIds.isEmpty()) {
+            return;
+        }
+        for (String sql : new String[]{DELETE_MOVIE_PERSON_SQL, DELETE_MOVIE_GENRE_SQL}) {
+            try (PreparedStatement prepStat = prepare(sql)) {
+                for (int movieId : movieIds) {
+                    prepStat.setInt(1, movieId);
+                    prepStat.addBatch();
+                }
+                prepStat.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * Sends the queued links to the database and closes the batch statements.
+     *
+     * @throws SQLException if the links could not be inserted.
+     */
+    void flush() throws SQLException {
+        try {
+            // Batcharna förbereddes under link(), tiden som är kvar räknas när de skickas
+            if (moviePersonBatch != null) {
+                moviePersonBatch.setQueryTimeout(deadline.queryTimeoutSeconds());
+                moviePersonBatch.executeBatch();
+            }
+            if (movieGenreBatch != null) {
+                movieGenreBatch.setQueryTimeout(deadline.queryTimeoutSeconds());
+                movieGenreBatch.executeBatch();
+            }
+        } finally {
+            closeBatches();
+        }
+    }
+
+    private void closeBatches() throws SQLException {
+        if (moviePersonBatch != null) {
+            moviePersonBatch.close();
+            moviePersonBatch = null;
+        }
+        if (movieGenreBatch != null) {
+            movieGenreBatch.close();
+            movieGenreBatch = null;
+        }
+    }
+
+    private int findOrCreate(Map<String, Integer> knownIds, String selectSql, String insertSql,
+                             String key, String name) throws SQLException {
+        Integer known = knownIds.get(key);
+        if (known != null) {
+            return known;
+        }
+
+        // Letar först efter en befintlig rad
+        Integer id = selectId(selectSql, key);
+        if (id == null) {
+            try (PreparedStatement prepStat = prepare(insertSql, Statement.RETURN_GENERATED_KEYS)) {
+                prepStat.setString(1, name);
+                prepStat.setString(2, key);
+                prepStat.executeUpdate();
+                try (ResultSet keys = prepStat.getGeneratedKeys()) {
+                    keys.next();
+                    id = keys.getInt(1);
+                }
+            } catch (SQLIntegrityConstraintViolationException e) {
+                // En annan tråd hann skapa raden, den hämtas istället
+                id = selectId(selectSql, key);
+                if (id == null) {
+                    throw e;
+                }
+            }
+        }
+        knownIds.put(key, id);
+        return id;
+    }
+
+    private Integer selectId(String selectSql, String key) throws SQLException {
+        try (PreparedStatement prepStat = prepare(selectSql)) {
+            prepStat.setString(1, key);
+            try (ResultSet rs = prepStat.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : null;
+            }
+        }
+    }
+
+    private PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement prepStat = connection.prepareStatement(sql);
+        prepStat.setQueryTimeout(deadline.queryTimeoutSeconds());
+        return prepStat;
+    }
+
+    private PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        PreparedStatement prepStat = connection.prepareStatement(sql, autoGeneratedKeys);
+        prepStat.setQueryTimeout(deadline.queryTimeoutSeconds());
+        return prepStat;
+    }
+
+    private static Map<String, String> splitNames(String names) {
+        // Nyckel är normaliserat namn så att dubbletter i samma lista bara länkas en gång
+        Map<String, String> result = new LinkedHashMap<>();
+        if (names == null) {
+            return result;
+        }
+        for (String name : names.split(",")) {
+            String trimmed = name.trim();
+            if (!trimmed.isEmpty() && !trimmed.equalsIgnoreCase("N/A")) {
+                result.putIfAbsent(nameKey(trimmed), trimmed);
+            }
+        }
+        return result;
+    }
+}
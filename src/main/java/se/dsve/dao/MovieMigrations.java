@@ -0,0 +1,185 @@
+package se.dsve.dao;
+
+import se.dsve.helpers.TitleNormalizer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+final class MovieMigrations {
+    private MovieMigrations() {
+        throw new AssertionError("Instantiating utility class");
+    }
+
+    /**
+     * Returns every schema migration of the movies table, in version order.
+     *
+     * <p>New migrations are appended to the end of the list with the next free version number.
+     * Migrations that have been released must never be changed, since they are only run once.
+     *
+     * @return the list of movie schema migrations.
+     */
+    static List<Migration> all() {
+        return List.of(
+                Migration.sql(1, "Index movies by title",
+                        "CREATE INDEX idx_movies_title ON movies (title)"),
+                Migration.sql(2, "Index movies by year",
+                        "CREATE INDEX idx_movies_year ON movies (`year`)"),
+                Migration.sql(3, "Index movies by director",
+                        "CREATE INDEX idx_movies_director ON movies (director)"),
+                Migration.sql(4, "Index movies by year and genre",
+                        "CREATE INDEX idx_movies_year_genre ON movies (`year`, genre)"),
+                Migration.sql(5, "Create person and genre tables linked to movies",
+                        "CREATE TABLE person (id INT NOT NULL AUTO_INCREMENT, name VARCHAR(255) NOT NULL, " +
+                                "name_key VARCHAR(255) NOT NULL, PRIMARY KEY(id), CONSTRAINT uq_person_name_key UNIQUE (name_key))",
+                        "CREATE TABLE movie_person (movie_id INT NOT NULL, person_id INT NOT NULL, " +
+                                "PRIMARY KEY(person_id, movie_id), " +
+                                "CONSTRAINT fk_movie_person_movie FOREIGN KEY (movie_id) REFERENCES movies (id) ON DELETE CASCADE, " +
+                                "CONSTRAINT fk_movie_person_person FOREIGN KEY (person_id) REFERENCES person (id))",
+                        "CREATE INDEX idx_movie_person_movie ON movie_person (movie_id)",
+                        "CREATE TABLE genre (id INT NOT NULL AUTO_INCREMENT, name VARCHAR(255) NOT NULL, " +
+                                "name_key VARCHAR(255) NOT NULL, PRIMARY KEY(id), CONSTRAINT uq_genre_name_key UNIQUE (name_key))",
+                        "CREATE TABLE movie_genre (movie_id INT NOT NULL, genre_id INT NOT NULL, " +
+                                "PRIMARY KEY(genre_id, movie_id), " +
+                                "CONSTRAINT fk_movie_genre_movie FOREIGN KEY (movie_id) REFERENCES movies (id) ON DELETE CASCADE, " +
+                                "CONSTRAINT fk_movie_genre_genre FOREIGN KEY (genre_id) REFERENCES genre (id))",
+                        "CREATE INDEX idx_movie_genre_movie ON movie_genre (movie_id)"),
+                new Migration(6, "Link existing movies to their actors and genres") {
+                    @Override
+                    public void apply(Connection connection, SqlDialect dialect) throws SQLException {
+                        linkExistingMovies(connection);
+                    }
+                },
+                Migration.sql(7, "Track when each movie was fetched from OMDB",
+                        "ALTER TABLE movies ADD COLUMN fetched_at TIMESTAMP NULL"),
+                new Migration(8, "Index movies by year and director with id for keyset pagination") {
+                    @Override
+                    public void apply(Connection connection, SqlDialect dialect) throws SQLException {
+                        // De nya indexen täcker även sökningar på bara år eller regissör
+                        try (Statement statement = connection.createStatement()) {
+                            statement.executeUpdate("CREATE INDEX idx_movies_year_id ON movies (`year`, id)");
+                            statement.executeUpdate("CREATE INDEX idx_movies_director_id ON movies (director, id)");
+                            statement.executeUpdate(dropIndex(dialect, "idx_movies_year"));
+                            statement.executeUpdate(dropIndex(dialect, "idx_movies_director"));
+                        }
+                    }
+                },
+                new Migration(9, "Add a unique natural key to movies and remove duplicates") {
+                    @Override
+                    public void apply(Connection connection, SqlDialect dialect) throws SQLException {
+                        addNaturalKey(connection, dialect);
+                    }
+                },
+                Migration.sql(10, "Store the HTTP validators OMDB sent with each movie",
+                        "ALTER TABLE movies ADD COLUMN etag VARCHAR(255) NULL",
+                        "ALTER TABLE movies ADD COLUMN last_modified VARCHAR(64) NULL"),
+                new Migration(11, "Add an indexed hash of the normalized title to movies") {
+                    @Override
+                    public void apply(Connection connection, SqlDialect dialect) throws SQLException {
+                        addTitleKey(connection);
+                    }
+                },
+                new Migration(12, "Recompute title keys that stripped a trailing article without a comma") {
+                    @Override
+                    public void apply(Connection connection, SqlDialect dialect) throws SQLException {
+                        computeTitleKeys(connection);
+                    }
+                }
+        );
+    }
+
+    private static String dropIndex(SqlDialect dialect, String indexName) {
+        return dialect == SqlDialect.MYSQL ? "DROP INDEX " + indexName + " ON movies" : "DROP INDEX " + indexName;
+    }
+
+    private static void addNaturalKey(Connection connection, SqlDialect dialect) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("ALTER TABLE movies ADD COLUMN imdb_id VARCHAR(16) NULL");
+            statement.executeUpdate("ALTER TABLE movies ADD COLUMN natural_key VARCHAR(320) NULL");
+        }
+
+        // Beräknar nyckeln för varje befintlig rad, vid dubbletter behålls den senast tillagda raden
+        Map<String, Integer> keptIds = new HashMap<>();
+        List<Integer> duplicateIds = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT id, title, `year` FROM movies ORDER BY id DESC")) {
+            while (rs.next()) {
+                String key = NaturalKey.of(null, rs.getString(2), rs.getInt(3));
+                if (keptIds.putIfAbsent(key, rs.getInt(1)) != null) {
+                    duplicateIds.add(rs.getInt(1));
+                }
+            }
+        }
+
+        // Länkar till skådespelare och genrer tas bort med raderna via ON DELETE CASCADE
+        try (PreparedStatement deleteStat = connection.prepareStatement("DELETE FROM movies WHERE id = ?");
+             PreparedStatement updateStat = connection.prepareStatement("UPDATE movies SET natural_key = ? WHERE id = ?")) {
+            for (int id : duplicateIds) {
+                deleteStat.setInt(1, id);
+                deleteStat.addBatch();
+            }
+            deleteStat.executeBatch();
+            for (Map.Entry<String, Integer> kept : keptIds.entrySet()) {
+                updateStat.setString(1, kept.getKey());
+                updateStat.setInt(2, kept.getValue());
+                updateStat.addBatch();
+            }
+            updateStat.executeBatch();
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(dialect == SqlDialect.MYSQL
+                    ? "ALTER TABLE movies MODIFY natural_key VARCHAR(320) NOT NULL"
+                    : "ALTER TABLE movies ALTER COLUMN natural_key SET NOT NULL");
+            statement.executeUpdate("CREATE UNIQUE INDEX uq_movies_natural_key ON movies (natural_key)");
+        }
+    }
+
+    private static void addTitleKey(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("ALTER TABLE movies ADD COLUMN title_key VARCHAR(255) NULL");
+            statement.executeUpdate("ALTER TABLE movies ADD COLUMN title_hash BIGINT NULL");
+        }
+
+        computeTitleKeys(connection);
+
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE INDEX idx_movies_title_hash ON movies (title_hash)");
+        }
+    }
+
+    private static void computeTitleKeys(Connection connection) throws SQLException {
+        // Beräknar nyckel och hash för varje befintlig rad
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT id, title FROM movies");
+             PreparedStatement updateStat = connection.prepareStatement(
+                     "UPDATE movies SET title_key = ?, title_hash = ? WHERE id = ?")) {
+            while (rs.next()) {
+                String key = TitleNormalizer.titleKey(rs.getString(2));
+                updateStat.setString(1, key);
+                updateStat.setLong(2, TitleNormalizer.titleHash(key));
+                updateStat.setInt(3, rs.getInt(1));
+                updateStat.addBatch();
+            }
+            updateStat.executeBatch();
+        }
+    }
+
+    private static void linkExistingMovies(Connection connection) throws SQLException {
+        // Delar upp de kommaseparerade kolumnerna för varje befintlig film
+        MovieLinker linker = new MovieLinker(connection);
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT id, actors, genre FROM movies")) {
+            while (rs.next()) {
+                linker.link(rs.getInt(1), rs.getString(2), rs.getString(3));
+            }
+        }
+        linker.flush();
+    }
+}
@@ -0,0 +1,113 @@
+package se.dsve.dao;
+
+import se.dsve.classes.Movie;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class MovieRowMapper {
+    private static final String[] COLUMN_NAMES = {"id", "title", "`year`", "actors", "director", "genre", "fetched_at", "imdb_id", "etag", "last_modified"};
+
+    /**
+     * The columns of the movies table that are read into a Movie, for use in a SELECT list.
+     */
+    public static final String COLUMNS = columns(null);
+
+    // En mappare per frågeform, kolumnindex slås bara upp första gången frågan körs
+    private static final Map<String, MovieRowMapper> MAPPERS_BY_QUERY = new ConcurrentHashMap<>();
+
+    private final int idIndex;
+    private final int titleIndex;
+    private final int yearIndex;
+    private final int actorsIndex;
+    private final int directorIndex;
+    private final int genreIndex;
+    private final int fetchedAtIndex;
+    private final int imdbIdIndex;
+    private final int etagIndex;
+    private final int lastModifiedIndex;
+
+    private MovieRowMapper(ResultSet rs) throws SQLException {
+        idIndex = rs.findColumn("id");
+        titleIndex = rs.findColumn("title");
+        yearIndex = rs.findColumn("year");
+        actorsIndex = rs.findColumn("actors");
+        directorIndex = rs.findColumn("director");
+        genreIndex = rs.findColumn("genre");
+        fetchedAtIndex = rs.findColumn("fetched_at");
+        imdbIdIndex = rs.findColumn("imdb_id");
+        etagIndex = rs.findColumn("etag");
+        lastModifiedIndex = rs.findColumn("last_modified");
+    }
+
+    /**
+     * Returns the movie columns qualified with a table alias, for queries that join the movies table.
+     *
+     * @param alias the alias of the movies table, or null for unqualified column names.
+     * @return a comma separated list of the movie columns.
+     */
+    public static String columns(String alias) {
+        StringBuilder columns = new StringBuilder();
+        for (String name : COLUMN_NAMES) {
+            if (columns.length() > 0) {
+                columns.append(", ");
+            }
+            columns.append(alias == null ? name : alias + "." + name);
+        }
+        return columns.toString();
+    }
+
+    /**
+     * Returns the mapper for a query, resolving the column indexes from the result set the first time the query is seen.
+     *
+     * <p>The query text is the cache key, so it must be one of a fixed set of query shapes and not contain values.
+     *
+     * @param sql the SQL text of the query that produced the result set.
+     * @param rs the result set of the query, its metadata is read only on the first call for the query.
+     * @return a MovieRowMapper for the query.
+     * @throws SQLException if a movie column is missing from the result set.
+     */
+    public static MovieRowMapper forQuery(String sql, ResultSet rs) throws SQLException {
+        MovieRowMapper mapper = MAPPERS_BY_QUERY.get(sql);
+        if (mapper == null) {
+            mapper = new MovieRowMapper(rs);
+            MAPPERS_BY_QUERY.putIfAbsent(sql, mapper);
+        }
+        return mapper;
+    }
+
+    /**
+     * Builds a Movie from the current row of the result set.
+     *
+     * @param rs a result set positioned on a row.
+     * @return the Movie of the row.
+     * @throws SQLException if a column could not be read.
+     */
+    public Movie map(ResultSet rs) throws SQLException {
+        Movie movie = new Movie(rs.getString(titleIndex), rs.getInt(yearIndex), rs.getString(actorsIndex),
+                rs.getString(directorIndex), rs.getString(genreIndex));
+        movie.setId(rs.getInt(idIndex));
+        Timestamp fetchedAt = rs.getTimestamp(fetchedAtIndex);
+        if (fetchedAt != null) {
+            movie.setFetchedAt(fetchedAt.toInstant());
+        }
+        movie.setImdbId(rs.getString(imdbIdIndex));
+        movie.setEtag(rs.getString(etagIndex));
+        movie.setLastModified(rs.getString(lastModifiedIndex));
+        return movie;
+    }
+
+    /**
+     * Returns the id of the current row of the result set.
+     *
+     * @param rs a result set positioned on a row.
+     * @return the id of the movie row.
+     * @throws SQLException if the column could not be read.
+     */
+    public int id(ResultSet rs) throws SQLException {
+        return rs.getInt(idIndex);
+    }
+}
@@ -2,27 +2,54 @@ package se.dsve.dao;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import se.dsve.AppConfig;
 import se.dsve.Database;
 import se.dsve.classes.Movie;
-import se.dsve.classes.MovieBuilder;
+import se.dsve.helpers.Deadline;
+import se.dsve.helpers.TitleNormalizer;
+import se.dsve.index.InvertedIndex;
+import se.dsve.index.TitleMatch;
+import se.dsve.index.TrigramIndex;
 
 import java.sql.*;
+import java.time.Instant;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class MoviesDAO {
     private static final String TABLE_NAME = "movies";
     private static final String CREATE_TABLE_SQL = "CREATE TABLE IF NOT EXISTS "+ TABLE_NAME + " (id INT NOT NULL AUTO_INCREMENT, " +
-            "title VARCHAR(255), year INT, actors VARCHAR(255), director VARCHAR(255), genre VARCHAR(255), PRIMARY KEY(id))";
+            "title VARCHAR(255), `year` INT, actors VARCHAR(255), director VARCHAR(255), genre VARCHAR(255), PRIMARY KEY(id))";
+    // Antal rader per hämtning när H2 strömmar resultat, MySQL strömmar rad för rad
+    private static final int STREAM_FETCH_SIZE = 100;
     private final Database database;
+    // Index över skådespelare, regissörer och genrer, null när det är avstängt
+    private final InvertedIndex index;
+    // Trigramindex över titlar, null när det är avstängt
+    private final TrigramIndex titleIndex;
     private static final Logger logger = LoggerFactory.getLogger(MoviesDAO.class);
 
     /**
-     * Constructs a new MoviesDAO object with the specified database.
+     * Constructs a new MoviesDAO object with the specified database and the catalog mode from the .env file.
      *
      * <p>When instantiated, a MoviesDAO object establishes a connection to the provided database
-     * and performs initialization tasks including creating the "movies" table if it does not exist
-     * and clearing all existing movie records from the table.
+     * and performs initialization tasks including creating the "movies" table if it does not exist.
+     * Existing movie records are kept unless DB_CATALOG_MODE is set to {@code wipe}.
      *
      * <p>The initialization process ensures that the MoviesDAO object is ready to perform operations
      * on the "movies" table in the database.
@@ -30,13 +57,54 @@ public class MoviesDAO {
      * @param database the Database object representing the database connection to be used.
      */
     public MoviesDAO(Database database) {
+        this(database, CatalogMode.fromAppConfig());
+    }
+
+    /**
+     * Constructs a new MoviesDAO object with the specified database and catalog mode.
+     *
+     * <p>In {@link CatalogMode#PERSISTENT} mode the movies stored by earlier runs are kept. In
+     * {@link CatalogMode#WIPE_ON_START} mode all existing movie records are cleared from the table.
+     *
+     * @param database the Database object representing the database connection to be used.
+     * @param catalogMode whether existing movies are kept or cleared at startup.
+     */
+    public MoviesDAO(Database database, CatalogMode catalogMode) {
+        this(database, catalogMode, IndexConfig.fromAppConfig());
+    }
+
+    /**
+     * Constructs a new MoviesDAO object with the specified database and catalog mode, with or without in-memory
+     * indexes.
+     *
+     * <p>Enabled indexes are built from the movies table at startup and updated by every method that stores
+     * movies. With the inverted index, actor and director searches read the matching ids from the index and only
+     * fetch those rows from the database, see
+     * {@link #findMovieInDatabaseByTerms(InvertedIndex.Field, Collection, boolean)}. With the title index,
+     * {@link #findSimilarTitles(String, int, int)} finds stored titles close to a misspelled one. The indexes only
+     * see writes made through this MoviesDAO.
+     *
+     * @param database the Database object representing the database connection to be used.
+     * @param catalogMode whether existing movies are kept or cleared at startup.
+     * @param indexConfig which in-memory indexes are used.
+     */
+    public MoviesDAO(Database database, CatalogMode catalogMode, IndexConfig indexConfig) {
         this.database = database;
+        this.index = indexConfig.isInvertedIndexEnabled() ? new InvertedIndex() : null;
+        this.titleIndex = indexConfig.isTitleIndexEnabled() ? new TrigramIndex() : null;
         initializeTable();
-        clearMoviesTable();
+        if (catalogMode == CatalogMode.WIPE_ON_START) {
+            clearMoviesTable();
+        }
+        if (index != null || titleIndex != null) {
+            buildIndexes();
+        }
     }
 
     public MoviesDAO(Database database, String dbUrl, String user, String password) {
         this.database = database;
+        this.index = null;
+        this.titleIndex = null;
         initializeTable(dbUrl, user, password);
         clearMoviesTable(dbUrl, user, password);
     }
@@ -48,6 +116,9 @@ public class MoviesDAO {
      * the movies table if it does not already exist. After the operation, the method logs a message
      * indicating the success of the table creation or the existence of the table.
      *
+     * <p>Once the table exists, pending schema migrations such as secondary indexes are applied
+     * through a {@link SchemaMigrator}.
+     *
      * <p>If any SQL exception occurs during the initialization, the method logs an error
      * message indicating the failure and prints the SQL exception details using the {@code database.printSQLException(e)} method.
      */
@@ -64,12 +135,15 @@ public class MoviesDAO {
             // Skriver ut felmeddelande till användare
             database.printSQLException(e);
         }
+
+        // Kör schemamigreringar som inte har körts tidigare
+        new SchemaMigrator(database, MovieMigrations.all()).migrate();
     }
 
     private void initializeTable(String dbUrl, String user, String password) {
         try (Connection connection = database.getConnection(dbUrl, user, password);
              Statement prepStat = connection.createStatement()) {
-            prepStat.executeUpdate(CREATE_TABLE_SQL.replace("year","`year`"));
+            prepStat.executeUpdate(CREATE_TABLE_SQL);
 
             // Loggar skapad tabell
             logger.info("Table '{}' created successfully or already exists", TABLE_NAME);
@@ -79,17 +153,65 @@ public class MoviesDAO {
             // Skriver ut felmeddelande till användare
             database.printSQLException(e);
         }
+
+        // Kör schemamigreringar som inte har körts tidigare
+        new SchemaMigrator(database, MovieMigrations.all()).migrate();
     }
 
     // Skapa prepared Statements
     private static final String DELETE_ALL_MOVIES_SQL = "DELETE FROM " + TABLE_NAME;
-    private static final String INSERT_MOVIE_SQL = "INSERT INTO " + TABLE_NAME + " (title, year, actors, director, genre) " +
-            "VALUES (?, ?, ?, ?, ?)";
-    private static final String SELECT_ALL_FROM = "SELECT * FROM ";
-    private static final String SELECT_MOVIE_BY_TITLE_SQL = SELECT_ALL_FROM + TABLE_NAME + " WHERE title = ?";
-    private static final String SELECT_MOVIE_BY_ACTOR_SQL = SELECT_ALL_FROM + TABLE_NAME + " WHERE actors LIKE ?";
-    private static final String SELECT_MOVIE_BY_YEAR_SQL = SELECT_ALL_FROM + TABLE_NAME + " WHERE year = ?";
-    private static final String SELECT_MOVIE_BY_DIRECTOR_SQL = SELECT_ALL_FROM + TABLE_NAME + " WHERE director = ?";
+    private static final String MOVIE_COLUMNS = "(title, `year`, actors, director, genre, fetched_at, imdb_id, natural_key, " +
+            "etag, last_modified, title_key, title_hash)";
+    private static final String UPSERT_MOVIE_MYSQL_SQL = "INSERT INTO " + TABLE_NAME + " " + MOVIE_COLUMNS + " " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE title = VALUES(title), `year` = VALUES(`year`), " +
+            "actors = VALUES(actors), director = VALUES(director), genre = VALUES(genre), fetched_at = VALUES(fetched_at), " +
+            "imdb_id = VALUES(imdb_id), etag = VALUES(etag), last_modified = VALUES(last_modified), " +
+            "title_key = VALUES(title_key), title_hash = VALUES(title_hash), id = LAST_INSERT_ID(id)";
+    private static final String UPSERT_MOVIE_H2_SQL = "MERGE INTO " + TABLE_NAME + " " + MOVIE_COLUMNS + " " +
+            "KEY (natural_key) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    // H2 returnerar id för både nya och uppdaterade rader i samma anrop
+    private static final String UPSERT_MOVIE_RETURNING_ID_H2_SQL = "SELECT id FROM FINAL TABLE (" + UPSERT_MOVIE_H2_SQL + ")";
+    private static final String SELECT_ID_BY_NATURAL_KEY_SQL = "SELECT id FROM " + TABLE_NAME + " WHERE natural_key = ?";
+    // Antal försök när samtidiga upserts krockar på den unika nyckeln
+    private static final int UPSERT_ATTEMPTS = 3;
+    // Samma parameterordning som MOVIE_COLUMNS, följt av id
+    private static final String UPDATE_MOVIE_BY_ID_SQL = "UPDATE " + TABLE_NAME + " SET title = ?, `year` = ?, actors = ?, " +
+            "director = ?, genre = ?, fetched_at = ?, imdb_id = ?, natural_key = ?, etag = ?, last_modified = ?, " +
+            "title_key = ?, title_hash = ? WHERE id = ?";
+    private static final String SELECT_TITLE_BY_ID_SQL = "SELECT title FROM " + TABLE_NAME + " WHERE id = ?";
+    private static final String SELECT_OTHER_TITLES_BY_TITLE_KEY_SQL = "SELECT title FROM " + TABLE_NAME +
+            " WHERE title_hash = ? AND title_key = ? AND id <> ?";
+    private static final String UPDATE_FETCHED_AT_BY_ID_SQL = "UPDATE " + TABLE_NAME + " SET fetched_at = ? WHERE id = ?";
+    // Frågorna namnger bara de kolumner som MovieRowMapper läser
+    private static final String SELECT_MOVIES_FROM = "SELECT " + MovieRowMapper.COLUMNS + " FROM " + TABLE_NAME;
+    // Hashen hittar raderna via index, nyckeln sorterar bort kollisioner
+    private static final String SELECT_MOVIE_BY_TITLE_SQL = SELECT_MOVIES_FROM + " WHERE title_hash = ? AND title_key = ?";
+    private static final String SELECT_MOVIE_BY_ACTOR_PATTERN_SQL = SELECT_MOVIES_FROM + " WHERE actors LIKE ?";
+    private static final String SELECT_MOVIE_BY_ACTOR_SQL = "SELECT " + MovieRowMapper.columns("m") + " FROM " + TABLE_NAME + " m " +
+            "JOIN movie_person mp ON mp.movie_id = m.id JOIN person p ON p.id = mp.person_id WHERE p.name_key = ?";
+    private static final String SELECT_MOVIE_BY_YEAR_SQL = SELECT_MOVIES_FROM + " WHERE `year` = ?";
+    private static final String SELECT_MOVIE_BY_DIRECTOR_SQL = SELECT_MOVIES_FROM + " WHERE director = ?";
+    private static final String SELECT_INDEXED_COLUMNS_SQL = "SELECT id, title, actors, director, genre FROM " + TABLE_NAME;
+    // Id:n hämtas i grupper av fast storlek så att frågan alltid har samma form
+    private static final int ID_BATCH_SIZE = 64;
+    private static final String SELECT_MOVIES_BY_ID_SQL = SELECT_MOVIES_FROM + " WHERE id IN (" +
+            String.join(", ", Collections.nCopies(ID_BATCH_SIZE, "?")) + ") ORDER BY id";
+    private static final String SELECT_IDS_BY_NATURAL_KEY_SQL = "SELECT id, natural_key FROM " + TABLE_NAME +
+            " WHERE natural_key IN (" + String.join(", ", Collections.nCopies(ID_BATCH_SIZE, "?")) + ")";
+    private static final String SELECT_IDS_BY_ACTOR_SQL = "SELECT mp.movie_id FROM movie_person mp " +
+            "JOIN person p ON p.id = mp.person_id WHERE p.name_key = ? ORDER BY mp.movie_id";
+    private static final String SELECT_IDS_BY_GENRE_SQL = "SELECT mg.movie_id FROM movie_genre mg " +
+            "JOIN genre g ON g.id = mg.genre_id WHERE g.name_key = ? ORDER BY mg.movie_id";
+    private static final String SELECT_IDS_BY_DIRECTOR_SQL = "SELECT id FROM " + TABLE_NAME + " WHERE director = ? ORDER BY id";
+
+    // Sidor hämtas med keyset-paginering på id, aldrig med OFFSET
+    private static final String NEXT_PAGE_BY_ID = " AND id > ? ORDER BY id LIMIT ?";
+    private static final String SELECT_MOVIE_PAGE_BY_ACTOR_PATTERN_SQL = SELECT_MOVIE_BY_ACTOR_PATTERN_SQL + NEXT_PAGE_BY_ID;
+    private static final String SELECT_MOVIE_PAGE_BY_ACTOR_SQL = SELECT_MOVIE_BY_ACTOR_SQL +
+            " AND mp.movie_id > ? ORDER BY mp.movie_id LIMIT ?";
+    private static final String SELECT_MOVIE_PAGE_BY_YEAR_SQL = SELECT_MOVIE_BY_YEAR_SQL + NEXT_PAGE_BY_ID;
+    private static final String SELECT_MOVIE_PAGE_BY_DIRECTOR_SQL = SELECT_MOVIE_BY_DIRECTOR_SQL + NEXT_PAGE_BY_ID;
+    private static final String PAGE_TOKEN_PREFIX = "id:";
 
     // Metoder för att hantera databasoperationer
 
@@ -111,6 +233,12 @@ public class MoviesDAO {
 
             // Exekverar SQL anrop som tar bort alla filmer i tabellen
             int rowsDeleted = prepStat.executeUpdate(DELETE_ALL_MOVIES_SQL);
+            if (index != null) {
+                index.clear();
+            }
+            if (titleIndex != null) {
+                titleIndex.clear();
+            }
 
             // Loggar antalet filmer som togs bort
             logger.info("Deleted {} movie(s) from the database", rowsDeleted);
@@ -145,8 +273,14 @@ public class MoviesDAO {
     /**
      * Adds a movie to the "movies" table in the database.
      *
-     * <p>This method establishes a connection to the database and inserts the provided movie information into the "movies" table.
+     * <p>This method establishes a connection to the database and upserts the provided movie information into the "movies" table.
      * Movie details such as title, year, actors, director, and genre are set as parameters and stored in the database.
+     * The movie is identified by its natural key, the imdbID when known and otherwise the normalized title and year,
+     * so adding the same movie again updates the existing row instead of creating a duplicate. The upsert is a single
+     * statement: {@code INSERT ... ON DUPLICATE KEY UPDATE} on MySQL and {@code MERGE} on H2. If two upserts of a new
+     * movie race on the unique key, the losing one is retried.
+     *
+     * <p>Each actor and genre is also linked to the movie through the person and genre tables, in the same transaction.
      * After executing the operation, the method logs a message indicating
      * the successful addition of the movie to the database.
      *
@@ -157,29 +291,462 @@ public class MoviesDAO {
      * @param movie the Movie object to be added to the database.
      */
     public void addMovieToDatabase(Movie movie) {
+        addMovieToDatabase(movie, Deadline.none());
+    }
+
+    /**
+     * Adds a movie to the "movies" table in the database within a time budget.
+     *
+     * <p>Works like {@link #addMovieToDatabase(Movie)}, but every statement gets the time left until the deadline as
+     * its JDBC query timeout, counted when the statement is executed, and a racing upsert is only retried while there is time left. If the deadline passes
+     * the transaction is rolled back and the movie is not stored.
+     *
+     * @param movie the Movie object to be added to the database.
+     * @param deadline the deadline of the whole lookup the write is part of.
+     * @return true if the movie was stored, false if an SQL exception occurred or the deadline passed.
+     */
+    public boolean addMovieToDatabase(Movie movie, Deadline deadline) {
+        for (int attempt = 1; ; attempt++) {
+            // Försöker skapa anslutning till databas
+            try (Connection connection = database.getConnection()) {
+                connection.setAutoCommit(false);
+
+                // Sätter in eller uppdaterar filmen och får tillbaka radens id
+                int id = upsertMovie(connection, movie, deadline);
+
+                // Byter ut filmens länkar till skådespelare och genrer
+                MovieLinker linker = new MovieLinker(connection, deadline);
+                linker.unlink(id);
+                linker.link(id, movie.getActors(), movie.getGenre());
+                linker.flush();
+                connection.commit();
+                indexMovie(id, movie);
+
+                // Använder logger för att lagra lyckad insättning i tabell
+                logger.info("Movie '{}' added to the database", movie.getTitle());
+                return true;
+            }
+            catch (SQLIntegrityConstraintViolationException e) {
+                // En annan tråd hann lägga till samma film, försöker igen så att raden uppdateras istället
+                if (attempt < UPSERT_ATTEMPTS && !deadline.isExpired()) {
+                    logger.debug("Retrying upsert of movie '{}' after a duplicate key: {}", movie.getTitle(), e.getMessage());
+                    continue;
+                }
+                logger.error("Error adding movie '{}' to the database: {}", movie.getTitle(), e.getMessage(), e);
+                database.printSQLException(e);
+                return false;
+            }
+            catch (SQLTimeoutException e) {
+                // Tidsbudgeten tog slut, transaktionen rullas tillbaka när anslutningen stängs
+                logger.warn("Adding movie '{}' to the database timed out: {}", movie.getTitle(), e.getMessage());
+                return false;
+            }
+            catch (SQLException e) {
+                // Loggar undantag
+                logger.error("Error adding movie '{}' to the database: {}", movie.getTitle(), e.getMessage(), e);
+                // Skriver ut felmeddelande till användare
+                database.printSQLException(e);
+                return false;
+            }
+        }
+    }
+
+    private static int upsertMovie(Connection connection, Movie movie, Deadline deadline) throws SQLException {
+        // Varje sats får tiden som är kvar när den körs, inte det som var kvar när skrivningen började
+        if (SqlDialect.of(connection) == SqlDialect.H2) {
+            try (PreparedStatement prepStat = connection.prepareStatement(UPSERT_MOVIE_RETURNING_ID_H2_SQL)) {
+                prepStat.setQueryTimeout(deadline.queryTimeoutSeconds());
+                setMovieParameters(prepStat, movie);
+                try (ResultSet rs = prepStat.executeQuery()) {
+                    rs.next();
+                    return rs.getInt(1);
+                }
+            }
+        }
+
+        // LAST_INSERT_ID(id) gör att MySQL returnerar id även när en befintlig rad uppdateras
+        try (PreparedStatement prepStat = connection.prepareStatement(UPSERT_MOVIE_MYSQL_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            prepStat.setQueryTimeout(deadline.queryTimeoutSeconds());
+            setMovieParameters(prepStat, movie);
+            prepStat.executeUpdate();
+            try (ResultSet keys = prepStat.getGeneratedKeys()) {
+                if (keys.next()) {
+                    return keys.getInt(1);
+                }
+            }
+        }
+
+        // Oförändrade rader räknas inte som påverkade och ger ingen nyckel, id hämtas då istället
+        try (PreparedStatement prepStat = connection.prepareStatement(SELECT_ID_BY_NATURAL_KEY_SQL)) {
+            prepStat.setQueryTimeout(deadline.queryTimeoutSeconds());
+            prepStat.setString(1, NaturalKey.of(movie));
+            try (ResultSet rs = prepStat.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    /**
+     * Adds a collection of movies to the "movies" table using JDBC batching.
+     *
+     * <p>The movies are inserted in chunks of DB_BATCH_CHUNK_SIZE rows, see
+     * {@link #addMoviesToDatabase(Iterator, int)} for details.
+     *
+     * @param movies the Movie objects to be added to the database.
+     * @return a BulkInsertResult with the number of inserted rows, failed chunks and throughput.
+     */
+    public BulkInsertResult addMoviesToDatabase(Collection<Movie> movies) {
+        return addMoviesToDatabase(movies.iterator(), AppConfig.getDbBatchChunkSize());
+    }
+
+    /**
+     * Adds a collection of movies to the "movies" table using JDBC batching with the given chunk size.
+     *
+     * @param movies the Movie objects to be added to the database.
+     * @param chunkSize the number of rows sent and committed together.
+     * @return a BulkInsertResult with the number of inserted rows, failed chunks and throughput.
+     */
+    public BulkInsertResult addMoviesToDatabase(Collection<Movie> movies, int chunkSize) {
+        return addMoviesToDatabase(movies.iterator(), chunkSize);
+    }
+
+    /**
+     * Adds a stream of movies to the "movies" table using JDBC batching.
+     *
+     * <p>The stream is consumed lazily one chunk at a time, so it can be larger than the available heap.
+     * The stream is closed when the load is done.
+     *
+     * @param movies the Movie objects to be added to the database.
+     * @return a BulkInsertResult with the number of inserted rows, failed chunks and throughput.
+     */
+    public BulkInsertResult addMoviesToDatabase(Stream<Movie> movies) {
+        return addMoviesToDatabase(movies, AppConfig.getDbBatchChunkSize());
+    }
+
+    /**
+     * Adds a stream of movies to the "movies" table using JDBC batching with the given chunk size.
+     *
+     * @param movies the Movie objects to be added to the database.
+     * @param chunkSize the number of rows sent and committed together.
+     * @return a BulkInsertResult with the number of inserted rows, failed chunks and throughput.
+     */
+    public BulkInsertResult addMoviesToDatabase(Stream<Movie> movies, int chunkSize) {
+        try (movies) {
+            return addMoviesToDatabase(movies.iterator(), chunkSize);
+        }
+    }
+
+    /**
+     * Adds movies from an iterator to the "movies" table using JDBC batching.
+     *
+     * <p>This method borrows a single connection and reads the iterator in chunks of {@code chunkSize}
+     * movies. Each chunk is sent with {@code addBatch}/{@code executeBatch} and committed in its own
+     * transaction, together with the actor and genre links of its movies. Rows are upserted on their natural
+     * key like in {@link #addMovieToDatabase(Movie)}, so loading the same movies twice does not create
+     * duplicates. On MySQL the driver rewrites the batch into multi-row INSERT statements.
+     *
+     * <p>If a chunk fails, it is rolled back, logged and recorded in the returned result, and the load
+     * continues with the next chunk. Chunks that were committed before the failure are kept.
+     *
+     * @param movies the Movie objects to be added to the database.
+     * @param chunkSize the number of rows sent and committed together.
+     * @return a BulkInsertResult with the number of inserted rows, failed chunks and throughput.
+     */
+    public BulkInsertResult addMoviesToDatabase(Iterator<Movie> movies, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be at least 1");
+        }
+        BulkInsertResult result = new BulkInsertResult();
+        long start = System.nanoTime();
+
+        // Försöker skapa anslutning till databas och förbereder statement
+        try (Connection connection = database.getConnection();
+             PreparedStatement prepStat = connection.prepareStatement(
+                     SqlDialect.of(connection) == SqlDialect.H2 ? UPSERT_MOVIE_H2_SQL : UPSERT_MOVIE_MYSQL_SQL)) {
+            connection.setAutoCommit(false);
+
+            List<Movie> chunk = new ArrayList<>(chunkSize);
+            int chunkIndex = 0;
+            int firstRowIndex = 0;
+            while (movies.hasNext()) {
+                // Läser nästa chunk från iteratorn
+                chunk.clear();
+                while (chunk.size() < chunkSize && movies.hasNext()) {
+                    chunk.add(movies.next());
+                }
+
+                try {
+                    for (Movie movie : chunk) {
+                        setMovieParameters(prepStat, movie);
+                        prepStat.addBatch();
+                    }
+                    prepStat.executeBatch();
+
+                    // Uppdaterade rader ger inga genererade nycklar, id:n slås därför upp med den naturliga nyckeln.
+                    // Förekommer samma film flera gånger i chunken är det den sista som gäller
+                    Map<String, Movie> moviesByKey = new LinkedHashMap<>();
+                    for (Movie movie : chunk) {
+                        moviesByKey.put(NaturalKey.of(movie), movie);
+                    }
+                    Map<String, Integer> idsByKey = selectIdsByNaturalKey(connection, moviesByKey.keySet());
+
+                    // Byter ut länkarna för alla filmer i chunken
+                    MovieLinker linker = new MovieLinker(connection);
+                    linker.unlink(idsByKey.values());
+                    for (Map.Entry<String, Movie> entry : moviesByKey.entrySet()) {
+                        Movie movie = entry.getValue();
+                        linker.link(idsByKey.get(entry.getKey()), movie.getActors(), movie.getGenre());
+                    }
+                    linker.flush();
+                    connection.commit();
+                    for (Map.Entry<String, Movie> entry : moviesByKey.entrySet()) {
+                        indexMovie(idsByKey.get(entry.getKey()), entry.getValue());
+                    }
+                    result.recordInsertedChunk(chunk.size());
+                } catch (SQLException e) {
+                    // Rullar tillbaka chunken och fortsätter med nästa
+                    connection.rollback();
+                    prepStat.clearBatch();
+                    result.recordFailedChunk(new BulkInsertResult.ChunkFailure(chunkIndex, firstRowIndex, chunk.size(), e));
+                    logger.error("Error adding chunk {} ({} movie(s)) to the database: {}", chunkIndex, chunk.size(), e.getMessage(), e);
+                }
+                chunkIndex++;
+                firstRowIndex += chunk.size();
+            }
+        }
+        catch (SQLException e) {
+            // Loggar undantag
+            logger.error("Error adding movies to the database: {}", e.getMessage(), e);
+            // Skriver ut felmeddelande till användare
+            database.printSQLException(e);
+        }
+
+        result.setElapsedNanos(System.nanoTime() - start);
+        logger.info("Bulk insert finished: {}", result);
+        return result;
+    }
+
+    private static Map<String, Integer> selectIdsByNaturalKey(Connection connection, Collection<String> keys) throws SQLException {
+        List<String> keyList = new ArrayList<>(keys);
+        Map<String, Integer> idsByKey = new HashMap<>();
+        try (PreparedStatement prepStat = connection.prepareStatement(SELECT_IDS_BY_NATURAL_KEY_SQL)) {
+            for (int from = 0; from < keyList.size(); from += ID_BATCH_SIZE) {
+                // Lediga platser i sista gruppen fylls med gruppens sista nyckel, som i selectMoviesById
+                int to = Math.min(from + ID_BATCH_SIZE, keyList.size());
+                for (int i = 0; i < ID_BATCH_SIZE; i++) {
+                    prepStat.setString(i + 1, keyList.get(Math.min(from + i, to - 1)));
+                }
+                try (ResultSet rs = prepStat.executeQuery()) {
+                    while (rs.next()) {
+                        idsByKey.put(rs.getString(2), rs.getInt(1));
+                    }
+                }
+            }
+        }
+
+        // En sortering som t.ex. bortser från accenter kan matcha en annan lagrad nyckel än den som söktes
+        for (String key : keyList) {
+            if (!idsByKey.containsKey(key)) {
+                throw new SQLException("No stored movie has the natural key '" + key + "'");
+            }
+        }
+        return idsByKey;
+    }
+
+    private static void setMovieParameters(PreparedStatement prepStat, Movie movie) throws SQLException {
+        prepStat.setString(1, movie.getTitle());
+        prepStat.setInt(2, movie.getYear());
+        prepStat.setString(3, movie.getActors());
+        prepStat.setString(4, movie.getDirector());
+        prepStat.setString(5, movie.getGenre());
+        prepStat.setTimestamp(6, fetchedAtTimestamp(movie));
+        prepStat.setString(7, movie.getImdbId());
+        prepStat.setString(8, NaturalKey.of(movie));
+        prepStat.setString(9, movie.getEtag());
+        prepStat.setString(10, movie.getLastModified());
+        String titleKey = TitleNormalizer.titleKey(movie.getTitle());
+        prepStat.setString(11, titleKey);
+        prepStat.setLong(12, TitleNormalizer.titleHash(titleKey));
+    }
+
+    private static Timestamp fetchedAtTimestamp(Movie movie) {
+        // Filmer utan tidsstämpel räknas som nyss hämtade
+        return Timestamp.from(movie.getFetchedAt() != null ? movie.getFetchedAt() : Instant.now());
+    }
+
+    private void indexMovie(Integer id, Movie movie) {
+        if (index != null && id != null) {
+            index.put(id, movie);
+        }
+        if (titleIndex != null) {
+            titleIndex.add(movie.getTitle());
+        }
+    }
+
+    /**
+     * Builds the enabled in-memory indexes from the titles, actors, directors and genres of every row in the
+     * "movies" table.
+     *
+     * <p>The rows are read from a forward-only cursor, so only the indexes themselves are kept in memory. If an
+     * SQL exception occurs the error is logged and the indexes are left incomplete, so searches find fewer movies
+     * until the next restart rather than failing.
+     */
+    private void buildIndexes() {
+        long start = System.nanoTime();
+
+        // Skapar anslutning till databas och förbereder statement
+        try (Connection connection = database.getConnection();
+             PreparedStatement prepStat = connection.prepareStatement(SELECT_INDEXED_COLUMNS_SQL,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            prepStat.setFetchSize(SqlDialect.of(connection) == SqlDialect.MYSQL ? Integer.MIN_VALUE : STREAM_FETCH_SIZE);
+            try (ResultSet rs = prepStat.executeQuery()) {
+                int rows = 0;
+                while (rs.next()) {
+                    indexMovie(rs.getInt(1), new Movie(rs.getString(2), 0, rs.getString(3), rs.getString(4), rs.getString(5)));
+                    rows++;
+                }
+                logger.info("Indexed {} movie(s) in {} ms", rows, (System.nanoTime() - start) / 1_000_000);
+            }
+        }
+        catch (SQLException e) {
+            // Loggar undantag
+            logger.error("Error building the in-memory indexes of table 'movies': {}", e.getMessage(), e);
+            // Skriver ut felmeddelande till användare
+            database.printSQLException(e);
+        }
+    }
+
+    /**
+     * Updates a stored movie with freshly fetched data from the OMDB API.
+     *
+     * <p>This method updates the one row with the given id: title, year, actors, director, genre, imdbID, the
+     * fetched-at timestamp and the HTTP validators. The natural key and the title key and hash are computed again
+     * from the fresh data, and the actor and genre links of the row are replaced in the same transaction. It is
+     * used to refresh stale rows in the persistent catalog.
+     *
+     * <p>If the title changes, the previous title is removed from the in-memory title index unless another row
+     * still has it, so fuzzy title searches no longer find it.
+     *
+     * <p>If any SQL exception occurs during the operation, for example when the fresh data belongs to a movie
+     * that is already stored in another row, the method logs an error message indicating the failure and prints
+     * the SQL exception details using the {@code database.printSQLException(e)} method.
+     *
+     * @param id the id of the row to refresh, see {@link Movie#getId()}.
+     * @param movie the Movie object with fresh data.
+     * @return the number of rows that were updated, 1 or 0.
+     */
+    public int refreshMovie(int id, Movie movie) {
+        int rowsUpdated = 0;
+
         // Försöker skapa anslutning till databas och förbereder statement
         try (Connection connection = database.getConnection();
-             PreparedStatement prepStat = connection.prepareStatement(INSERT_MOVIE_SQL)) {
+             PreparedStatement updateStat = connection.prepareStatement(UPDATE_MOVIE_BY_ID_SQL)) {
+            connection.setAutoCommit(false);
+            String previousTitle = titleIndex != null ? selectTitle(connection, id) : null;
+
+            // Uppdaterar raden och byter ut dess länkar till skådespelare och genrer,
+            // vid fel rullas transaktionen tillbaka när anslutningen stängs
+            setMovieParameters(updateStat, movie);
+            updateStat.setInt(13, id);
+            int updated = updateStat.executeUpdate();
+            if (updated > 0) {
+                MovieLinker linker = new MovieLinker(connection);
+                linker.unlink(id);
+                linker.link(id, movie.getActors(), movie.getGenre());
+                linker.flush();
+            }
+            boolean titleReplaced = updated > 0 && previousTitle != null
+                    && isTitleReplaced(connection, id, previousTitle, movie.getTitle());
+            connection.commit();
+            rowsUpdated = updated;
+            if (rowsUpdated > 0) {
+                indexMovie(id, movie);
+            }
+            if (titleReplaced) {
+                titleIndex.remove(previousTitle);
+            }
+
+            logger.info("Refreshed {} row(s) for movie '{}'", rowsUpdated, movie.getTitle());
+        }
+        catch (SQLException e) {
+            // Loggar undantag
+            logger.error("Error refreshing movie '{}' in the database: {}", movie.getTitle(), e.getMessage(), e);
+            // Skriver ut felmeddelande till användare
+            database.printSQLException(e);
+        }
+        return rowsUpdated;
+    }
+
+    private static String selectTitle(Connection connection, int id) throws SQLException {
+        try (PreparedStatement prepStat = connection.prepareStatement(SELECT_TITLE_BY_ID_SQL)) {
+            prepStat.setInt(1, id);
+            try (ResultSet rs = prepStat.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+
+    /**
+     * Returns true if a refresh changed the indexed form of a row's title and no other row has the previous
+     * title, so the previous title can be removed from the title index.
+     */
+    private static boolean isTitleReplaced(Connection connection, int id, String previousTitle, String title) throws SQLException {
+        String previousKey = TrigramIndex.normalize(previousTitle);
+        if (previousKey.equals(TrigramIndex.normalize(title))) {
+            return false;
+        }
 
-            // Parametrar till Movie-objekt som ska sättas in i tabell
-            prepStat.setString(1, movie.getTitle());
-            prepStat.setInt(2, movie.getYear());
-            prepStat.setString(3, movie.getActors());
-            prepStat.setString(4, movie.getDirector());
-            prepStat.setString(5, movie.getGenre());
+        // En annan rad med samma titel, t.ex. en nyinspelning, behåller titeln i indexet
+        String titleKey = TitleNormalizer.titleKey(previousTitle);
+        try (PreparedStatement prepStat = connection.prepareStatement(SELECT_OTHER_TITLES_BY_TITLE_KEY_SQL)) {
+            prepStat.setLong(1, TitleNormalizer.titleHash(titleKey));
+            prepStat.setString(2, titleKey);
+            prepStat.setInt(3, id);
+            try (ResultSet rs = prepStat.executeQuery()) {
+                while (rs.next()) {
+                    if (previousKey.equals(TrigramIndex.normalize(rs.getString(1)))) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
 
-            // Exekverar SQL sträng
-            prepStat.execute();
+    /**
+     * Marks a stored movie as fresh without changing its data, after the OMDB API answered that it has not
+     * been modified.
+     *
+     * <p>Only the fetched-at timestamp of the row with the id is set, so the movie is not refreshed again
+     * until the TTL has passed. The actor and genre links are left as they are.
+     *
+     * <p>If any SQL exception occurs during the operation, the method logs an error message
+     * indicating the failure and prints the SQL exception details using the {@code database.printSQLException(e)}
+     * method.
+     *
+     * @param id the id of the row, see {@link Movie#getId()}.
+     * @param fetchedAt the time the OMDB API confirmed the movie.
+     * @return the number of rows that were updated, 1 or 0.
+     */
+    public int markMovieFresh(int id, Instant fetchedAt) {
+        int rowsUpdated = 0;
 
-            // Använder logger för att lagra lyckad insättning i tabell
-            logger.info("Movie '{}' added to the database", movie.getTitle());
+        // Försöker skapa anslutning till databas och förbereder statement
+        try (Connection connection = database.getConnection();
+             PreparedStatement prepStat = connection.prepareStatement(UPDATE_FETCHED_AT_BY_ID_SQL)) {
+            prepStat.setTimestamp(1, Timestamp.from(fetchedAt));
+            prepStat.setInt(2, id);
+            rowsUpdated = prepStat.executeUpdate();
+            logger.info("Movie row {} is unchanged in the OMDB API, marked {} row(s) as fresh", id, rowsUpdated);
         }
         catch (SQLException e) {
             // Loggar undantag
-            logger.error("Error adding movie '{}' to the database: {}", movie.getTitle(), e.getMessage(), e);
+            logger.error("Error marking movie row {} as fresh in the database: {}", id, e.getMessage(), e);
             // Skriver ut felmeddelande till användare
             database.printSQLException(e);
         }
+        return rowsUpdated;
     }
 
     /**
@@ -189,6 +756,10 @@ public class MoviesDAO {
      * provided title. If movies with matching titles are found, they are retrieved from the result set and added to
      * a list of Movie objects. The method logs the number of movies found with the provided title.
      *
+     * <p>Titles are matched on their {@link TitleNormalizer#titleKey(String) title key}, so case, punctuation and
+     * a leading or trailing article do not matter. The query looks up the indexed 64-bit hash of the key and then
+     * compares the key itself, so two keys with the same hash are never mixed up.
+     *
      * <p>If am SQL exception occurs, the method logs an error message
      * about the failure and prints the SQL exception details using the {@code database.printSQLException(e)}
      * method.
@@ -197,6 +768,20 @@ public class MoviesDAO {
      * @return a list of Movie objects containing movies with titles matching the search criteria.
      */
     public List<Movie> findMovieInDatabaseByTitle(String search) {
+        return findMovieInDatabaseByTitle(search, Deadline.none());
+    }
+
+    /**
+     * Finds movies in the "movies" table in the database by their title within a time budget.
+     *
+     * <p>Works like {@link #findMovieInDatabaseByTitle(String)}, but the query gets the time left until the deadline
+     * as its JDBC query timeout. A query that times out is logged and gives an empty list.
+     *
+     * @param search the title of the movie to search for.
+     * @param deadline the deadline of the whole lookup the query is part of.
+     * @return a list of Movie objects containing movies with titles matching the search criteria.
+     */
+    public List<Movie> findMovieInDatabaseByTitle(String search, Deadline deadline) {
         // Skapar en tom List för att lagra Movie-objekt
         List<Movie> movieList = new ArrayList<>();
 
@@ -205,15 +790,22 @@ public class MoviesDAO {
              PreparedStatement prepStat = connection.prepareStatement(SELECT_MOVIE_BY_TITLE_SQL)) {
 
             // Färdigställer och exekverar SQL sträng, samt returnerar resultat
-            prepStat.setString(1, search);
+            prepStat.setQueryTimeout(deadline.queryTimeoutSeconds());
+            String titleKey = TitleNormalizer.titleKey(search);
+            prepStat.setLong(1, TitleNormalizer.titleHash(titleKey));
+            prepStat.setString(2, titleKey);
             ResultSet rs = prepStat.executeQuery();
 
             // Skapar Movie objekt från ResultSet och om filmer finns lagras de i en List
-            movieList = generateListOfMoviesFromResultSet(rs);
+            movieList = generateListOfMoviesFromResultSet(SELECT_MOVIE_BY_TITLE_SQL, rs);
 
                 // Loggar antalet filmer som hittades
                 logger.info("Found {} movie(s) in the database with title '{}'", movieList.size(), search);
         }
+        catch (SQLTimeoutException e) {
+            // Tidsbudgeten tog slut innan frågan blev klar
+            logger.warn("Finding movie in the database by title '{}' timed out: {}", search, e.getMessage());
+        }
         catch (SQLException e) {
             // Loggar undantag
             logger.error("Error finding movie in the database by title '{}': {}", search, e.getMessage(),e);
@@ -223,23 +815,33 @@ public class MoviesDAO {
         return movieList;
     }
 
-    private List<Movie> generateListOfMoviesFromResultSet(ResultSet rs) throws SQLException {
+    /**
+     * Finds stored titles that are close to a title, for example because the title was misspelled.
+     *
+     * <p>The titles are looked up in the in-memory trigram index without a database query. Case, accents,
+     * punctuation and whitespace are ignored, and the remaining difference must be at most {@code maxDistance}
+     * inserted, deleted or replaced characters.
+     *
+     * @param search the title to find similar titles for.
+     * @param maxDistance the largest edit distance of a match.
+     * @param limit the maximum number of matches.
+     * @return the matches, closest first, or an empty list if the title index is not enabled.
+     */
+    public List<TitleMatch> findSimilarTitles(String search, int maxDistance, int limit) {
+        if (titleIndex == null) {
+            return List.of();
+        }
+        return titleIndex.search(search, maxDistance, limit);
+    }
+
+    private List<Movie> generateListOfMoviesFromResultSet(String sql, ResultSet rs) throws SQLException {
         // Skapar en lista med Movie objekt
         List<Movie> listOfMovies = new ArrayList<>();
+        MovieRowMapper mapper = MovieRowMapper.forQuery(sql, rs);
 
         // Loopar igenom ResultSet och bygger ett Movie objekt
         while (rs.next()) {
-            String title = rs.getString(2);
-            int year = rs.getInt(3);
-            String actors = rs.getString(4);
-            String director = rs.getString(5);
-            String genre = rs.getString(6);
-
-            // Skapar ett MovieBuilder objekt
-            MovieBuilder movieBuilder = new MovieBuilder(title, year, actors, director, genre);
-
-            // Bygger Movie och lägger till List
-            listOfMovies.add(movieBuilder.build());
+            listOfMovies.add(mapper.map(rs));
         }
 
         // Returnerar Lista med Movie objekt
@@ -253,6 +855,13 @@ public class MoviesDAO {
      * actor. If movies with matching titles are found, they are retrieved from the result set and added to
      * a list of Movie objects. The method logs the number of movies found with the actor.
      *
+     * <p>The actor's full name is matched case-insensitively through the indexed person and movie_person tables.
+     * For backward compatibility, a search containing the SQL wildcard {@code %} is matched with LIKE against the
+     * comma separated actors column instead, which cannot use an index.
+     *
+     * <p>When the inverted index is enabled, a full name is looked up in the index instead and also ignores
+     * accents, and only the matching rows are read by their primary key.
+     *
      * <p>If an SQL exception occurs, the method logs an error message
      * about the failure and prints the SQL exception details using the {@code database.printSQLException(e)}
      * method.
@@ -261,19 +870,27 @@ public class MoviesDAO {
      * @return a list of Movie objects containing movies that the actor was in.
      */
     public List<Movie> findMovieInDatabaseByActor(String search) {
+        // Indexet svarar på hela namn, mönster med jokertecken söks alltid i databasen
+        if (index != null && !search.contains("%")) {
+            return findMovieInDatabaseByTerms(InvertedIndex.Field.ACTOR, List.of(search), true);
+        }
+
         // Skapar en tom List för att lagra Movie-objekt
         List<Movie> movieList = new ArrayList<>();
 
+        // Mönster med jokertecken söks som tidigare, annars används den indexerade kopplingstabellen
+        String sql = actorQuery(search);
+
         // Skapar anslutning till databas och förbereder statement
         try (Connection connection = database.getConnection();
-             PreparedStatement prepStat = connection.prepareStatement(SELECT_MOVIE_BY_ACTOR_SQL)) {
+             PreparedStatement prepStat = connection.prepareStatement(sql)) {
 
             // Färdigställer och exekverar SQL sträng, samt returnerar resultat
-            prepStat.setString(1, search);
+            prepStat.setString(1, actorParameter(search));
             ResultSet rs = prepStat.executeQuery();
 
             // Skapar Movie objekt från ResultSet och om filmer finns lagras de i en List
-            movieList = generateListOfMoviesFromResultSet(rs);
+            movieList = generateListOfMoviesFromResultSet(sql, rs);
 
             // Loggar antalet filmer som hittades
             logger.info("Found {} movie(s) in the database with actor '{}'", movieList.size(), search);
@@ -314,7 +931,7 @@ public class MoviesDAO {
             ResultSet rs = prepStat.executeQuery();
 
             // Skapar Movie objekt från ResultSet och om filmer finns lagras de i en List
-            movieList = generateListOfMoviesFromResultSet(rs);
+            movieList = generateListOfMoviesFromResultSet(SELECT_MOVIE_BY_YEAR_SQL, rs);
 
                 // Loggar antalet filmer som hittades
                 logger.info("Found {} movie(s) in the database with year '{}'", movieList.size(), search);
@@ -335,6 +952,10 @@ public class MoviesDAO {
      * director. If movies with matching titles are found, they are retrieved from the result set and added to
      * a list of Movie objects. The method logs the number of movies for that director.
      *
+     * <p>When the inverted index is enabled, the director is looked up in the index instead. The search then
+     * ignores case and accents and also finds movies with several directors, and only the matching rows are read
+     * by their primary key.
+     *
      * <p>If an SQL exception occurs, the method logs an error message
      * about the failure and prints the SQL exception details using the {@code database.printSQLException(e)}
      * method.
@@ -343,6 +964,10 @@ public class MoviesDAO {
      * @return a list of Movie objects containing movies by that director.
      */
     public List<Movie> findMovieInDatabaseByDirector(String search) {
+        if (index != null) {
+            return findMovieInDatabaseByTerms(InvertedIndex.Field.DIRECTOR, List.of(search), true);
+        }
+
         // Skapar en tom List för att lagra Movie-objekt
         List<Movie> movieList = new ArrayList<>();
 
@@ -355,7 +980,7 @@ public class MoviesDAO {
             ResultSet rs = prepStat.executeQuery();
 
             // Skapar Movie objekt från ResultSet och om filmer finns lagras de i en List
-            movieList = generateListOfMoviesFromResultSet(rs);
+            movieList = generateListOfMoviesFromResultSet(SELECT_MOVIE_BY_DIRECTOR_SQL, rs);
 
             // Loggar antalet filmer som hittades
             logger.info("Found {} movie(s) in the database with director '{}'", movieList.size(), search);
@@ -369,6 +994,110 @@ public class MoviesDAO {
         return movieList;
     }
 
+    /**
+     * Finds movies that have all, or at least one, of the given actors, directors or genres.
+     *
+     * <p>With the inverted index enabled the ids come from the index: the posting lists of the names are
+     * intersected for an AND query and merged for an OR query, and no database index is needed. Without it the
+     * ids of each name are read from the database, from the person and genre link tables or the director column,
+     * and combined the same way. Either way only the matching rows are then read by their primary key, in id
+     * order.
+     *
+     * <p>If an SQL exception occurs, the method logs an error message
+     * about the failure and prints the SQL exception details using the {@code database.printSQLException(e)}
+     * method.
+     *
+     * @param field whether the names are actors, directors or genres.
+     * @param names the full names to search for.
+     * @param matchAll true to find movies with every name, false to find movies with any of them.
+     * @return a list of Movie objects containing the matching movies.
+     */
+    public List<Movie> findMovieInDatabaseByTerms(InvertedIndex.Field field, Collection<String> names, boolean matchAll) {
+        String description = field.name().toLowerCase(Locale.ROOT) + " " + (matchAll ? "all of " : "any of ") + names;
+
+        // Skapar anslutning till databas
+        try (Connection connection = database.getConnection()) {
+            int[] ids;
+            if (index != null) {
+                ids = matchAll ? index.matchAll(field, names) : index.matchAny(field, names);
+            } else {
+                ids = selectIdsByTerms(connection, field, names, matchAll);
+            }
+
+            // Läser bara de rader som matchade
+            List<Movie> movieList = selectMoviesById(connection, ids);
+
+            // Loggar antalet filmer som hittades
+            logger.info("Found {} movie(s) in the database with {}", movieList.size(), description);
+            return movieList;
+        }
+        catch (SQLException e) {
+            // Loggar undantag
+            logger.error("Error finding movie in the database by {}: {}", description, e.getMessage(), e);
+            // Skriver ut felmeddelande till användare
+            database.printSQLException(e);
+            return new ArrayList<>();
+        }
+    }
+
+    private static int[] selectIdsByTerms(Connection connection, InvertedIndex.Field field, Collection<String> names,
+                                          boolean matchAll) throws SQLException {
+        String sql = switch (field) {
+            case ACTOR -> SELECT_IDS_BY_ACTOR_SQL;
+            case DIRECTOR -> SELECT_IDS_BY_DIRECTOR_SQL;
+            case GENRE -> SELECT_IDS_BY_GENRE_SQL;
+        };
+        int[] result = null;
+        try (PreparedStatement prepStat = connection.prepareStatement(sql)) {
+            for (String name : names) {
+                prepStat.setString(1, field == InvertedIndex.Field.DIRECTOR ? name : MovieLinker.nameKey(name));
+                int[] ids = new int[16];
+                int count = 0;
+                try (ResultSet rs = prepStat.executeQuery()) {
+                    while (rs.next()) {
+                        if (count == ids.length) {
+                            ids = Arrays.copyOf(ids, count * 2);
+                        }
+                        ids[count++] = rs.getInt(1);
+                    }
+                }
+                ids = Arrays.copyOf(ids, count);
+                if (result == null) {
+                    result = ids;
+                } else {
+                    result = matchAll ? InvertedIndex.and(result, ids) : InvertedIndex.or(result, ids);
+                }
+                if (matchAll && result.length == 0) {
+                    break;
+                }
+            }
+        }
+        return result == null ? new int[0] : result;
+    }
+
+    private static List<Movie> selectMoviesById(Connection connection, int[] ids) throws SQLException {
+        List<Movie> movieList = new ArrayList<>(ids.length);
+        if (ids.length == 0) {
+            return movieList;
+        }
+        try (PreparedStatement prepStat = connection.prepareStatement(SELECT_MOVIES_BY_ID_SQL)) {
+            for (int from = 0; from < ids.length; from += ID_BATCH_SIZE) {
+                // Lediga platser i sista gruppen fylls med gruppens sista id, dubbletter i IN påverkar inte svaret
+                int to = Math.min(from + ID_BATCH_SIZE, ids.length);
+                for (int i = 0; i < ID_BATCH_SIZE; i++) {
+                    prepStat.setInt(i + 1, ids[Math.min(from + i, to - 1)]);
+                }
+                try (ResultSet rs = prepStat.executeQuery()) {
+                    MovieRowMapper mapper = MovieRowMapper.forQuery(SELECT_MOVIES_BY_ID_SQL, rs);
+                    while (rs.next()) {
+                        movieList.add(mapper.map(rs));
+                    }
+                }
+            }
+        }
+        return movieList;
+    }
+
     /**
      * Finds movies in the "movies" table in the database.
      *
@@ -397,7 +1126,7 @@ public class MoviesDAO {
             ResultSet rs = prepStat.executeQuery();
 
             // Skapar Movie objekt från ResultSet och om filmer finns lagras de i en List
-            movieList = generateListOfMoviesFromResultSet(rs);
+            movieList = generateListOfMoviesFromResultSet(sqlQuery, rs);
 
             // Loggar antalet filmer som hittades
             logger.info(String.format("Found %d movie(s) in the database for '%s'", movieList.size(), search));
@@ -410,4 +1139,286 @@ public class MoviesDAO {
         }
         return movieList;
     }
+
+    /**
+     * Finds one page of movies released a particular year in the "movies" table.
+     *
+     * <p>Pages are read with keyset pagination: the token remembers the id of the last movie on the previous page
+     * and the next page starts right after it using the (year, id) index, so a late page is as fast as the first one.
+     *
+     * <p>If an SQL exception occurs, the method logs an error message, prints the SQL exception details using the
+     * {@code database.printSQLException(e)} method and returns an empty page.
+     *
+     * @param search the year to search for in database.
+     * @param pageSize the maximum number of movies on the page.
+     * @param pageToken the token returned with the previous page, or null for the first page.
+     * @return a Page of movies and the token of the next page.
+     * @throws IllegalArgumentException if the page size is not positive or the token is not valid.
+     */
+    public Page<Movie> findMovieInDatabaseByYear(int search, int pageSize, String pageToken) {
+        return findPageInDatabase(SELECT_MOVIE_PAGE_BY_YEAR_SQL, prepStat -> prepStat.setInt(1, search),
+                pageSize, pageToken, "year '" + search + "'");
+    }
+
+    /**
+     * Finds one page of movies with a particular actor in the "movies" table.
+     *
+     * <p>The actor is matched the same way as in {@link #findMovieInDatabaseByActor(String)} and the pages are read
+     * with keyset pagination on the movie id.
+     *
+     * <p>When the inverted index is enabled, a full name is looked up in the index. The page is then cut from the
+     * sorted ids of the actor's posting list, starting after the id in the token, and only the rows of the page
+     * are read by their primary key.
+     *
+     * @param search the actor to search for in database.
+     * @param pageSize the maximum number of movies on the page.
+     * @param pageToken the token returned with the previous page, or null for the first page.
+     * @return a Page of movies and the token of the next page.
+     * @throws IllegalArgumentException if the page size is not positive or the token is not valid.
+     */
+    public Page<Movie> findMovieInDatabaseByActor(String search, int pageSize, String pageToken) {
+        // Indexet svarar på hela namn, mönster med jokertecken söks alltid i databasen
+        if (index != null && !search.contains("%")) {
+            return findPageInIndex(InvertedIndex.Field.ACTOR, search, pageSize, pageToken, "actor '" + search + "'");
+        }
+        String sql = search.contains("%") ? SELECT_MOVIE_PAGE_BY_ACTOR_PATTERN_SQL : SELECT_MOVIE_PAGE_BY_ACTOR_SQL;
+        return findPageInDatabase(sql, prepStat -> prepStat.setString(1, actorParameter(search)),
+                pageSize, pageToken, "actor '" + search + "'");
+    }
+
+    /**
+     * Finds one page of movies by a particular director in the "movies" table.
+     *
+     * <p>The pages are read with keyset pagination using the (director, id) index.
+     *
+     * <p>When the inverted index is enabled, the director is looked up in the index instead, like in
+     * {@link #findMovieInDatabaseByDirector(String)}, and the page is cut from the sorted ids of the director's
+     * posting list.
+     *
+     * @param search the director to search for in database.
+     * @param pageSize the maximum number of movies on the page.
+     * @param pageToken the token returned with the previous page, or null for the first page.
+     * @return a Page of movies and the token of the next page.
+     * @throws IllegalArgumentException if the page size is not positive or the token is not valid.
+     */
+    public Page<Movie> findMovieInDatabaseByDirector(String search, int pageSize, String pageToken) {
+        if (index != null) {
+            return findPageInIndex(InvertedIndex.Field.DIRECTOR, search, pageSize, pageToken,
+                    "director '" + search + "'");
+        }
+        return findPageInDatabase(SELECT_MOVIE_PAGE_BY_DIRECTOR_SQL, prepStat -> prepStat.setString(1, search),
+                pageSize, pageToken, "director '" + search + "'");
+    }
+
+    private Page<Movie> findPageInDatabase(String sql, ParameterBinder binder, int pageSize, String pageToken,
+                                           String description) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        int afterId = decodePageToken(pageToken);
+
+        // Skapar anslutning till databas och förbereder statement
+        try (Connection connection = database.getConnection();
+             PreparedStatement prepStat = connection.prepareStatement(sql)) {
+
+            // Hämtar en rad extra för att veta om det finns en nästa sida
+            binder.bind(prepStat);
+            prepStat.setInt(2, afterId);
+            prepStat.setInt(3, pageSize + 1);
+
+            List<Movie> movieList = new ArrayList<>(pageSize);
+            int lastId = afterId;
+            boolean morePages = false;
+            try (ResultSet rs = prepStat.executeQuery()) {
+                MovieRowMapper mapper = MovieRowMapper.forQuery(sql, rs);
+                while (rs.next()) {
+                    if (movieList.size() == pageSize) {
+                        morePages = true;
+                        break;
+                    }
+                    lastId = mapper.id(rs);
+                    movieList.add(mapper.map(rs));
+                }
+            }
+
+            // Loggar antalet filmer som hittades
+            logger.info("Found {} movie(s) on a page in the database for {}", movieList.size(), description);
+            return new Page<>(movieList, morePages ? encodePageToken(lastId) : null);
+        }
+        catch (SQLException e) {
+            // Loggar undantag
+            logger.error("Error finding a page of movies in the database for {}: {}", description, e.getMessage(), e);
+            // Skriver ut felmeddelande till användare
+            database.printSQLException(e);
+        }
+        return new Page<>(new ArrayList<>(), null);
+    }
+
+    private Page<Movie> findPageInIndex(InvertedIndex.Field field, String search, int pageSize, String pageToken,
+                                        String description) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        int afterId = decodePageToken(pageToken);
+
+        // Sidan börjar vid första id:t efter förra sidans sista, id:n i indexet är sorterade
+        int[] ids = index.matchAll(field, List.of(search));
+        int from = Arrays.binarySearch(ids, afterId + 1);
+        if (from < 0) {
+            from = -from - 1;
+        }
+        int to = (int) Math.min(ids.length, (long) from + pageSize);
+
+        // Skapar anslutning till databas
+        try (Connection connection = database.getConnection()) {
+            List<Movie> movieList = selectMoviesById(connection, Arrays.copyOfRange(ids, from, to));
+
+            // Loggar antalet filmer som hittades
+            logger.info("Found {} movie(s) on a page in the inverted index for {}", movieList.size(), description);
+            return new Page<>(movieList, to < ids.length ? encodePageToken(ids[to - 1]) : null);
+        }
+        catch (SQLException e) {
+            // Loggar undantag
+            logger.error("Error finding a page of movies in the database for {}: {}", description, e.getMessage(), e);
+            // Skriver ut felmeddelande till användare
+            database.printSQLException(e);
+        }
+        return new Page<>(new ArrayList<>(), null);
+    }
+
+    private static String encodePageToken(int lastId) {
+        byte[] token = (PAGE_TOKEN_PREFIX + lastId).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+    }
+
+    private static int decodePageToken(String pageToken) {
+        // Första sidan börjar före det minsta id:t
+        if (pageToken == null) {
+            return 0;
+        }
+        try {
+            String token = new String(Base64.getUrlDecoder().decode(pageToken), StandardCharsets.UTF_8);
+            if (token.startsWith(PAGE_TOKEN_PREFIX)) {
+                return Integer.parseInt(token.substring(PAGE_TOKEN_PREFIX.length()));
+            }
+        } catch (IllegalArgumentException e) {
+            // Faller igenom till felet nedan, NumberFormatException är också en IllegalArgumentException
+        }
+        throw new IllegalArgumentException("Invalid page token: " + pageToken);
+    }
+
+    private static String actorQuery(String search) {
+        return search.contains("%") ? SELECT_MOVIE_BY_ACTOR_PATTERN_SQL : SELECT_MOVIE_BY_ACTOR_SQL;
+    }
+
+    private static String actorParameter(String search) {
+        return search.contains("%") ? search : MovieLinker.nameKey(search);
+    }
+
+    /**
+     * Streams movies released a particular year from the "movies" table.
+     *
+     * <p>Unlike {@link #findMovieInDatabaseByYear(int)} the rows are read from a forward-only, read-only cursor
+     * while the stream is consumed, so memory use stays the same no matter how many movies match. The stream
+     * holds a database connection until it is closed and must be used in a try-with-resources block.
+     *
+     * @param year the year to search for in database.
+     * @return a Stream of movies released that year.
+     */
+    public Stream<Movie> streamMoviesByYear(int year) {
+        return streamMovies(SELECT_MOVIE_BY_YEAR_SQL, prepStat -> prepStat.setInt(1, year), "year '" + year + "'");
+    }
+
+    /**
+     * Streams movies with a particular actor from the "movies" table.
+     *
+     * <p>The actor is matched the same way as in {@link #findMovieInDatabaseByActor(String)}. The stream holds a
+     * database connection until it is closed and must be used in a try-with-resources block.
+     *
+     * @param actor the actor to search for in database.
+     * @return a Stream of movies that the actor was in.
+     */
+    public Stream<Movie> streamMoviesByActor(String actor) {
+        return streamMovies(actorQuery(actor), prepStat -> prepStat.setString(1, actorParameter(actor)), "actor '" + actor + "'");
+    }
+
+    /**
+     * Streams movies by a particular director from the "movies" table.
+     *
+     * <p>The stream holds a database connection until it is closed and must be used in a try-with-resources block.
+     *
+     * @param director the director to search for in database.
+     * @return a Stream of movies by that director.
+     */
+    public Stream<Movie> streamMoviesByDirector(String director) {
+        return streamMovies(SELECT_MOVIE_BY_DIRECTOR_SQL, prepStat -> prepStat.setString(1, director), "director '" + director + "'");
+    }
+
+    /**
+     * Opens a forward-only, read-only cursor for a query and exposes its rows as a lazy Stream.
+     *
+     * <p>On MySQL the fetch size is set to {@code Integer.MIN_VALUE}, which makes the driver stream one row at a time
+     * instead of buffering the whole result. Closing the stream closes the ResultSet and the statement and returns
+     * the connection to the pool.
+     *
+     * <p>If an SQL exception occurs, the method logs an error message, prints the SQL exception details using the
+     * {@code database.printSQLException(e)} method and ends the stream.
+     */
+    private Stream<Movie> streamMovies(String sql, ParameterBinder binder, String description) {
+        Connection connection = null;
+        PreparedStatement prepStat = null;
+        try {
+            // Lånar en anslutning som hålls tills strömmen stängs
+            connection = database.getConnection();
+            prepStat = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            prepStat.setFetchSize(SqlDialect.of(connection) == SqlDialect.MYSQL ? Integer.MIN_VALUE : STREAM_FETCH_SIZE);
+            binder.bind(prepStat);
+            ResultSet rs = prepStat.executeQuery();
+            MovieRowMapper mapper = MovieRowMapper.forQuery(sql, rs);
+
+            AutoCloseable[] resources = {rs, prepStat, connection};
+            Spliterator<Movie> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                    Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super Movie> action) {
+                    try {
+                        if (!rs.next()) {
+                            return false;
+                        }
+                        action.accept(mapper.map(rs));
+                        return true;
+                    } catch (SQLException e) {
+                        logger.error("Error streaming movies from the database for {}: {}", description, e.getMessage(), e);
+                        database.printSQLException(e);
+                        return false;
+                    }
+                }
+            };
+            return StreamSupport.stream(spliterator, false).onClose(() -> closeQuietly(resources));
+        } catch (SQLException e) {
+            // Loggar undantag
+            logger.error("Error streaming movies from the database for {}: {}", description, e.getMessage(), e);
+            // Skriver ut felmeddelande till användare
+            database.printSQLException(e);
+            closeQuietly(prepStat, connection);
+            return Stream.empty();
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable... resources) {
+        for (AutoCloseable resource : resources) {
+            if (resource == null) {
+                continue;
+            }
+            try {
+                resource.close();
+            } catch (Exception e) {
+                logger.warn("Error closing database resource: {}", e.getMessage());
+            }
+        }
+    }
+
+    private interface ParameterBinder {
+        void bind(PreparedStatement prepStat) throws SQLException;
+    }
 }
@@ -0,0 +1,40 @@
+package se.dsve.dao;
+
+import se.dsve.classes.Movie;
+import se.dsve.helpers.TitleNormalizer;
+
+import java.util.Locale;
+
+final class NaturalKey {
+    private static final String IMDB_PREFIX = "imdb:";
+    private static final String TITLE_PREFIX = "title:";
+
+    private NaturalKey() {
+        throw new AssertionError("Instantiating utility class");
+    }
+
+    /**
+     * Returns the natural key of a movie, which identifies the same movie no matter how many times it is stored.
+     *
+     * @param movie the movie to build the key for.
+     * @return the natural key of the movie.
+     */
+    static String of(Movie movie) {
+        return of(movie.getImdbId(), movie.getTitle(), movie.getYear());
+    }
+
+    /**
+     * Returns the natural key of a movie: its imdbID when known, otherwise its normalized title and year.
+     *
+     * @param imdbId the imdbID of the movie, may be null or "N/A".
+     * @param title the title of the movie, may be null.
+     * @param year the release year of the movie.
+     * @return the natural key of the movie.
+     */
+    static String of(String imdbId, String title, int year) {
+        if (imdbId != null && !imdbId.isBlank() && !imdbId.equalsIgnoreCase("N/A")) {
+            return IMDB_PREFIX + imdbId.trim().toLowerCase(Locale.ROOT);
+        }
+        return TITLE_PREFIX + TitleNormalizer.normalize(title) + "|" + year;
+    }
+}
@@ -0,0 +1,42 @@
+package se.dsve.dao;
+
+import java.util.Collections;
+import java.util.List;
+
+public class Page<T> {
+    private final List<T> items;
+    private final String nextPageToken;
+
+    /**
+     * Constructs a new Page with the items of one page and the token of the next page.
+     *
+     * @param items the items on this page.
+     * @param nextPageToken the token of the next page, or null if this is the last page.
+     */
+    Page(List<T> items, String nextPageToken) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextPageToken = nextPageToken;
+    }
+
+    /**
+     * Returns the items on this page, in the order they were found.
+     *
+     * @return an unmodifiable list of items.
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Returns the opaque token that is passed to the same query to fetch the next page.
+     *
+     * @return the next page token, or null if there are no more pages.
+     */
+    public String getNextPageToken() {
+        return nextPageToken;
+    }
+
+    public boolean hasNextPage() {
+        return nextPageToken != null;
+    }
+}
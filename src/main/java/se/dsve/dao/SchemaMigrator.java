@@ -0,0 +1,126 @@
+package se.dsve.dao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se.dsve.Database;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+public class SchemaMigrator {
+    private static final String VERSION_TABLE_NAME = "schema_version";
+    private static final String CREATE_VERSION_TABLE_SQL = "CREATE TABLE IF NOT EXISTS " + VERSION_TABLE_NAME +
+            " (version INT NOT NULL, description VARCHAR(255), applied_at TIMESTAMP, PRIMARY KEY(version))";
+    private static final String SELECT_CURRENT_VERSION_SQL = "SELECT MAX(version) FROM " + VERSION_TABLE_NAME;
+    private static final String INSERT_VERSION_SQL = "INSERT INTO " + VERSION_TABLE_NAME +
+            " (version, description, applied_at) VALUES (?, ?, ?)";
+
+    private final Database database;
+    private final List<Migration> migrations;
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    /**
+     * Constructs a new SchemaMigrator for the specified database and migrations.
+     *
+     * @param database the Database object representing the database connection to be used.
+     * @param migrations the migrations to run, every version must be unique.
+     */
+    public SchemaMigrator(Database database, List<Migration> migrations) {
+        this.database = database;
+        this.migrations = new ArrayList<>(migrations);
+        this.migrations.sort(Comparator.comparingInt(Migration::getVersion));
+
+        // Kontrollerar att varje version bara förekommer en gång
+        for (int i = 1; i < this.migrations.size(); i++) {
+            if (this.migrations.get(i).getVersion() == this.migrations.get(i - 1).getVersion()) {
+                throw new IllegalArgumentException("Duplicate migration version " + this.migrations.get(i).getVersion());
+            }
+        }
+    }
+
+    /**
+     * Brings the database schema up to date by running every migration that has not been applied yet.
+     *
+     * <p>This method creates the schema_version table if it does not exist, reads the highest applied
+     * version and runs the remaining migrations in version order. Each migration is applied and recorded
+     * in schema_version in one transaction. Note that MySQL commits DDL statements implicitly, so a
+     * failing DDL migration on MySQL may be partially applied.
+     *
+     * <p>If a migration fails, the error is logged, the SQL exception details are printed using the
+     * {@code database.printSQLException(e)} method and no later migrations are run.
+     *
+     * @return the number of migrations that were applied.
+     */
+    public int migrate() {
+        int applied = 0;
+
+        // Försöker skapa anslutning till databas
+        try (Connection connection = database.getConnection()) {
+            SqlDialect dialect = SqlDialect.of(connection);
+            int currentVersion = readCurrentVersion(connection);
+
+            for (Migration migration : migrations) {
+                if (migration.getVersion() <= currentVersion) {
+                    continue;
+                }
+
+                // Kör migreringen och registrerar versionen i samma transaktion
+                connection.setAutoCommit(false);
+                try {
+                    migration.apply(connection, dialect);
+                    recordVersion(connection, migration);
+                    connection.commit();
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+
+                applied++;
+                logger.info("Applied schema migration {}: {}", migration.getVersion(), migration.getDescription());
+            }
+        } catch (SQLException e) {
+            // Loggar undantag
+            logger.error("Error migrating database schema: {}", e.getMessage(), e);
+            // Skriver ut felmeddelande till användare
+            database.printSQLException(e);
+        }
+        return applied;
+    }
+
+    /**
+     * Returns the highest schema version recorded in the schema_version table.
+     *
+     * @return the current schema version, or 0 if no migration has been applied.
+     */
+    public int getCurrentVersion() {
+        try (Connection connection = database.getConnection()) {
+            return readCurrentVersion(connection);
+        } catch (SQLException e) {
+            logger.error("Error reading schema version: {}", e.getMessage(), e);
+            database.printSQLException(e);
+        }
+        return 0;
+    }
+
+    private static int readCurrentVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(CREATE_VERSION_TABLE_SQL);
+            try (ResultSet rs = statement.executeQuery(SELECT_CURRENT_VERSION_SQL)) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    private static void recordVersion(Connection connection, Migration migration) throws SQLException {
+        try (PreparedStatement prepStat = connection.prepareStatement(INSERT_VERSION_SQL)) {
+            prepStat.setInt(1, migration.getVersion());
+            prepStat.setString(2, migration.getDescription());
+            prepStat.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+            prepStat.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package se.dsve.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+public enum SqlDialect {
+    MYSQL,
+    H2;
+
+    /**
+     * Determines the SQL dialect of the database behind a connection.
+     *
+     * <p>Anything that is not H2 is treated as MySQL, which is the database the application is built for.
+     *
+     * @param connection an open connection to the database.
+     * @return the SqlDialect of the database.
+     * @throws SQLException if the database metadata could not be read.
+     */
+    public static SqlDialect of(Connection connection) throws SQLException {
+        String productName = connection.getMetaData().getDatabaseProductName();
+        return "H2".equalsIgnoreCase(productName) ? H2 : MYSQL;
+    }
+}
@@ -0,0 +1,87 @@
+package se.dsve.dao;
+
+import se.dsve.AppConfig;
+
+public class WriteBehindConfig {
+    private int queueCapacity = 1_000;
+    private int batchSize = 100;
+    private long flushIntervalMillis = 200;
+
+    /**
+     * Creates a write-behind configuration from the values in the .env file.
+     *
+     * <p>Every setting is optional, values that are missing fall back to the defaults of this class.
+     *
+     * @return a WriteBehindConfig populated from {@link AppConfig}.
+     */
+    public static WriteBehindConfig fromAppConfig() {
+        WriteBehindConfig config = new WriteBehindConfig();
+        config.setQueueCapacity(AppConfig.getDbWriteBehindQueueCapacity());
+        config.setBatchSize(AppConfig.getDbWriteBehindBatchSize());
+        config.setFlushIntervalMillis(AppConfig.getDbWriteBehindFlushMillis());
+        return config;
+    }
+
+    /**
+     * Returns how many movies can wait to be written before adding a movie blocks.
+     *
+     * @return the capacity of the write queue.
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Sets how many movies can wait to be written before adding a movie blocks.
+     *
+     * @param queueCapacity the capacity of the write queue, must be at least 1.
+     */
+    public void setQueueCapacity(int queueCapacity) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity must be at least 1");
+        }
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Returns how many movies are written and committed together at most.
+     *
+     * @return the maximum batch size.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets how many movies are written and committed together at most.
+     *
+     * @param batchSize the maximum batch size, must be at least 1.
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be at least 1");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Returns how long the writer waits for a batch to fill up after its first movie arrived.
+     *
+     * @return the flush interval in milliseconds.
+     */
+    public long getFlushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+
+    /**
+     * Sets how long the writer waits for a batch to fill up after its first movie arrived.
+     *
+     * @param flushIntervalMillis the flush interval in milliseconds, 0 writes whatever is queued at once.
+     */
+    public void setFlushIntervalMillis(long flushIntervalMillis) {
+        if (flushIntervalMillis < 0) {
+            throw new IllegalArgumentException("flushIntervalMillis must not be negative");
+        }
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+}
@@ -0,0 +1,414 @@
+package se.dsve.dao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se.dsve.Database;
+import se.dsve.classes.Movie;
+import se.dsve.helpers.Deadline;
+import se.dsve.helpers.TitleNormalizer;
+import se.dsve.index.InvertedIndex;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+public class WriteBehindMoviesDAO extends MoviesDAO implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindMoviesDAO.class);
+
+    private final WriteBehindConfig config;
+    private final BlockingQueue<Movie> queue;
+    // Köade filmer per titelnyckel och naturlig nyckel, så att uppslag ser dem innan de har skrivits.
+    // De inre maparna ändras aldrig, de byts ut, så att uppslag kan läsa dem utan lås
+    private final ConcurrentMap<String, Map<String, Movie>> pending = new ConcurrentHashMap<>();
+    private final Thread writer;
+    private final Thread shutdownHook;
+    private final Object flushMonitor = new Object();
+    private volatile boolean closed;
+
+    private final AtomicLong enqueuedCount = new AtomicLong();
+    private final AtomicLong processedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong backpressureCount = new AtomicLong();
+
+    /**
+     * Constructs a new WriteBehindMoviesDAO that stores single movies in the background.
+     *
+     * <p>{@link #addMovieToDatabase(Movie, Deadline)} only puts the movie on a bounded queue and returns, so the
+     * caller does not wait for the database. A background writer takes the movies off the queue and writes them
+     * with the bulk insert of {@link MoviesDAO}, committing up to batchSize movies in one transaction (group
+     * commit). A batch is written when it is full or when the flush interval has passed since its first movie
+     * arrived. If a batch fails, its movies are written one by one, so one bad movie does not drop the others.
+     *
+     * <p>When the queue is full, adding a movie blocks until the writer has made room or the caller's deadline
+     * passes (backpressure). A title lookup sees a queued movie before it is written. Other queries wait until
+     * the queued movies are written, so they see them too.
+     *
+     * <p>{@link #close()} stops taking new movies into the queue and returns when every queued movie is written.
+     * It is also run by a shutdown hook, so movies that are still queued when the JVM exits are written first.
+     *
+     * @param database the Database object representing the database connection to be used.
+     * @param catalogMode whether existing movies are kept or cleared at startup.
+     * @param config the queue capacity, batch size and flush interval.
+     */
+    public WriteBehindMoviesDAO(Database database, CatalogMode catalogMode, WriteBehindConfig config) {
+        super(database, catalogMode);
+        this.config = config;
+        this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+        this.writer = Thread.ofPlatform().name("movies-write-behind").daemon(true).start(this::drainQueue);
+        this.shutdownHook = new Thread(this::close, "movies-write-behind-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Queues a movie to be written to the database in the background.
+     *
+     * <p>If the DAO has been closed, the movie is written right away like in {@link MoviesDAO}.
+     *
+     * @param movie the Movie object to be added to the database.
+     * @param deadline how long to wait for room in the queue when it is full.
+     * @return true if the movie was queued or written, false if the queue stayed full until the deadline.
+     */
+    @Override
+    public boolean addMovieToDatabase(Movie movie, Deadline deadline) {
+        if (closed) {
+            return super.addMovieToDatabase(movie, deadline);
+        }
+
+        addPending(movie);
+        try {
+            if (!queue.offer(movie)) {
+                // Kön är full, anroparen får vänta tills skrivaren har gjort plats
+                backpressureCount.incrementAndGet();
+                if (!queue.offer(movie, deadline.remaining().toNanos(), TimeUnit.NANOSECONDS)) {
+                    removePending(movie);
+                    logger.warn("Write-behind queue stayed full, movie '{}' was not stored", movie.getTitle());
+                    return false;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            removePending(movie);
+            return false;
+        }
+        enqueuedCount.incrementAndGet();
+
+        // Stängdes DAO:n medan filmen köades kan skrivaren redan ha slutat, filmen skrivs då direkt
+        if (closed && queue.remove(movie)) {
+            write(List.of(movie));
+        }
+        return true;
+    }
+
+    /**
+     * Finds movies by title in the database and among the movies that are queued but not yet written.
+     *
+     * <p>A queued movie replaces the stored row of the same movie, since it is newer, and other stored movies
+     * with the same title, such as remakes, are still returned. Queued movies come first.
+     *
+     * @param search the title to search for.
+     * @param deadline the deadline of the lookup the query is part of.
+     * @return the queued and stored movies with the title.
+     */
+    @Override
+    public List<Movie> findMovieInDatabaseByTitle(String search, Deadline deadline) {
+        Map<String, Movie> queued = pending.get(TitleNormalizer.titleKey(search));
+        List<Movie> stored = super.findMovieInDatabaseByTitle(search, deadline);
+        if (queued == null) {
+            return stored;
+        }
+        List<Movie> movies = new ArrayList<>(queued.values());
+        for (Movie movie : stored) {
+            if (!queued.containsKey(NaturalKey.of(movie))) {
+                movies.add(movie);
+            }
+        }
+        return movies;
+    }
+
+    @Override
+    public int refreshMovie(int id, Movie movie) {
+        // En köad skrivning av samma film får inte skriva över uppdateringen efteråt
+        flush();
+        return super.refreshMovie(id, movie);
+    }
+
+    @Override
+    public int markMovieFresh(int id, Instant fetchedAt) {
+        flush();
+        return super.markMovieFresh(id, fetchedAt);
+    }
+
+    @Override
+    public List<Movie> findMovieInDatabaseByActor(String search) {
+        flush();
+        return super.findMovieInDatabaseByActor(search);
+    }
+
+    @Override
+    public List<Movie> findMovieInDatabaseByYear(int search) {
+        flush();
+        return super.findMovieInDatabaseByYear(search);
+    }
+
+    @Override
+    public List<Movie> findMovieInDatabaseByDirector(String search) {
+        flush();
+        return super.findMovieInDatabaseByDirector(search);
+    }
+
+    @Override
+    public List<Movie> findMovieInDatabaseByTerms(InvertedIndex.Field field, Collection<String> names, boolean matchAll) {
+        flush();
+        return super.findMovieInDatabaseByTerms(field, names, matchAll);
+    }
+
+    @Override
+    public Page<Movie> findMovieInDatabaseByYear(int search, int pageSize, String pageToken) {
+        flush();
+        return super.findMovieInDatabaseByYear(search, pageSize, pageToken);
+    }
+
+    @Override
+    public Page<Movie> findMovieInDatabaseByActor(String search, int pageSize, String pageToken) {
+        flush();
+        return super.findMovieInDatabaseByActor(search, pageSize, pageToken);
+    }
+
+    @Override
+    public Page<Movie> findMovieInDatabaseByDirector(String search, int pageSize, String pageToken) {
+        flush();
+        return super.findMovieInDatabaseByDirector(search, pageSize, pageToken);
+    }
+
+    @Override
+    public Stream<Movie> streamMoviesByYear(int year) {
+        flush();
+        return super.streamMoviesByYear(year);
+    }
+
+    @Override
+    public Stream<Movie> streamMoviesByActor(String actor) {
+        flush();
+        return super.streamMoviesByActor(actor);
+    }
+
+    @Override
+    public Stream<Movie> streamMoviesByDirector(String director) {
+        flush();
+        return super.streamMoviesByDirector(director);
+    }
+
+    @Override
+    public void clearMoviesTable() {
+        flush();
+        super.clearMoviesTable();
+    }
+
+    /**
+     * Waits until every movie that was queued before the call has been written or has failed.
+     */
+    public void flush() {
+        // MoviesDAO:s konstruktor kan tömma tabellen innan skrivaren har startats
+        if (writer == null) {
+            return;
+        }
+        long target = enqueuedCount.get();
+        synchronized (flushMonitor) {
+            while (processedCount.get() < target && writer.isAlive()) {
+                try {
+                    flushMonitor.wait(Math.max(1, config.getFlushIntervalMillis()));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns how many movies are waiting in the queue.
+     *
+     * @return the number of queued movies.
+     */
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    /**
+     * Returns how many queued movies have been written to the database.
+     *
+     * @return the number of written movies.
+     */
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    /**
+     * Returns how many queued movies could not be written, not even one by one.
+     *
+     * @return the number of failed movies.
+     */
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * Returns how many batches the writer has committed.
+     *
+     * @return the number of batches.
+     */
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * Returns how many times adding a movie had to wait because the queue was full.
+     *
+     * @return the number of waits for room in the queue.
+     */
+    public long getBackpressureCount() {
+        return backpressureCount.get();
+    }
+
+    /**
+     * Stops queueing new movies and waits until every queued movie has been written.
+     *
+     * <p>Movies added after this call are written right away. The database is not closed.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // JVM:en håller redan på att stängas, kroken körs ändå
+            }
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Skriver filmer som köades precis när skrivaren slutade
+        List<Movie> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            write(rest);
+        }
+    }
+
+    private void drainQueue() {
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(config.getFlushIntervalMillis());
+        List<Movie> batch = new ArrayList<>(config.getBatchSize());
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Movie first = queue.poll(Math.max(1, config.getFlushIntervalMillis()), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Väntar på fler filmer tills batchen är full eller intervallet har gått
+                long flushAt = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < config.getBatchSize()) {
+                    queue.drainTo(batch, config.getBatchSize() - batch.size());
+                    long waitNanos = flushAt - System.nanoTime();
+                    if (batch.size() >= config.getBatchSize() || waitNanos <= 0 || closed) {
+                        break;
+                    }
+                    Movie next = queue.poll(waitNanos, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("Write-behind writer interrupted with {} movie(s) queued", queue.size());
+                return;
+            }
+
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void addPending(Movie movie) {
+        pending.compute(TitleNormalizer.titleKey(movie.getTitle()), (key, movies) -> {
+            Map<String, Movie> updated = movies == null ? new LinkedHashMap<>() : new LinkedHashMap<>(movies);
+            updated.put(NaturalKey.of(movie), movie);
+            return updated;
+        });
+    }
+
+    private void removePending(Movie movie) {
+        pending.computeIfPresent(TitleNormalizer.titleKey(movie.getTitle()), (key, movies) -> {
+            String naturalKey = NaturalKey.of(movie);
+            if (movies.get(naturalKey) != movie) {
+                return movies;
+            }
+            Map<String, Movie> updated = new LinkedHashMap<>(movies);
+            updated.remove(naturalKey);
+            return updated.isEmpty() ? null : updated;
+        });
+    }
+
+    private void write(List<Movie> batch) {
+        // Ett undantag får inte avsluta skrivaren, då skulle resten av kön aldrig skrivas
+        try {
+            BulkInsertResult result = addMoviesToDatabase(batch, batch.size());
+            if (result.getRowsInserted() == batch.size()) {
+                writtenCount.addAndGet(batch.size());
+            } else {
+                writeOneByOne(batch);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Write-behind batch of {} movie(s) failed", batch.size(), e);
+            writeOneByOne(batch);
+        } finally {
+            batchCount.incrementAndGet();
+
+            // Nyare versioner av samma film ligger kvar tills de själva har skrivits
+            for (Movie movie : batch) {
+                removePending(movie);
+            }
+            processedCount.addAndGet(batch.size());
+            synchronized (flushMonitor) {
+                flushMonitor.notifyAll();
+            }
+        }
+    }
+
+    private void writeOneByOne(List<Movie> batch) {
+        // Skriver filmerna en och en så att en felaktig film inte stoppar de andra
+        for (Movie movie : batch) {
+            boolean stored;
+            try {
+                stored = super.addMovieToDatabase(movie, Deadline.none());
+            } catch (RuntimeException e) {
+                logger.error("Queued movie '{}' failed", movie.getTitle(), e);
+                stored = false;
+            }
+            if (stored) {
+                writtenCount.incrementAndGet();
+            } else {
+                failedCount.incrementAndGet();
+                logger.error("Queued movie '{}' could not be stored", movie.getTitle());
+            }
+        }
+    }
+}
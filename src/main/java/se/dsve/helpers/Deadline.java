@@ -0,0 +1,83 @@
+package se.dsve.helpers;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+public final class Deadline {
+    private static final Deadline NONE = new Deadline(0, false);
+
+    private final long deadlineNanos;
+    private final boolean bounded;
+
+    private Deadline(long deadlineNanos, boolean bounded) {
+        this.deadlineNanos = deadlineNanos;
+        this.bounded = bounded;
+    }
+
+    /**
+     * Creates a deadline that expires when the specified budget has passed from now.
+     *
+     * <p>One deadline is meant to be passed through every stage of an operation, so each stage gets what is
+     * left of the budget rather than a fixed timeout of its own.
+     *
+     * @param budget the time the whole operation may take.
+     * @return a Deadline that expires after the budget.
+     */
+    public static Deadline after(Duration budget) {
+        return new Deadline(System.nanoTime() + budget.toNanos(), true);
+    }
+
+    /**
+     * Returns a deadline that never expires, for callers without a time budget.
+     *
+     * @return the unbounded Deadline.
+     */
+    public static Deadline none() {
+        return NONE;
+    }
+
+    public boolean isBounded() {
+        return bounded;
+    }
+
+    public boolean isExpired() {
+        return bounded && System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    /**
+     * Returns the time left until the deadline.
+     *
+     * @return the remaining time, zero if the deadline has passed, or the longest possible Duration if it is unbounded.
+     */
+    public Duration remaining() {
+        if (!bounded) {
+            return Duration.ofNanos(Long.MAX_VALUE);
+        }
+        return Duration.ofNanos(Math.max(0, deadlineNanos - System.nanoTime()));
+    }
+
+    /**
+     * Returns the shorter of a stage's own timeout and the time left until the deadline.
+     *
+     * @param timeout the timeout the stage would use without a deadline.
+     * @return the timeout to use for the stage.
+     */
+    public Duration cap(Duration timeout) {
+        Duration remaining = remaining();
+        return remaining.compareTo(timeout) < 0 ? remaining : timeout;
+    }
+
+    /**
+     * Returns the time left as a JDBC query timeout, which is counted in whole seconds.
+     *
+     * @return 0, meaning no limit, if the deadline is unbounded, otherwise the remaining seconds rounded up and at least 1.
+     */
+    public int queryTimeoutSeconds() {
+        if (!bounded) {
+            return 0;
+        }
+        long remainingNanos = remaining().toNanos();
+        long seconds = (remainingNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, seconds));
+    }
+}
@@ -0,0 +1,60 @@
+package se.dsve.helpers;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+public class TermNormalizer {
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    // Privat constructor för att förhindra instansiering
+    private TermNormalizer() {
+        throw new AssertionError("Instantiating utility class");
+    }
+
+    /**
+     * Normalizes a person or genre name so that differences in case, diacritics and whitespace do not count.
+     *
+     * <p>The name is decomposed (NFKD), its combining marks are removed and the rest is put in lower case, so
+     * "Penélope Cruz", "PENELOPE CRUZ" and "Penelope  Cruz" all give the term "penelope cruz".
+     *
+     * @param name the name to normalize, may be null.
+     * @return the normalized term, or an empty string if the name is null or blank.
+     */
+    public static String normalize(String name) {
+        if (name == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(name, Normalizer.Form.NFKD);
+        String stripped = COMBINING_MARKS.matcher(decomposed).replaceAll("");
+        return WHITESPACE.matcher(stripped.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Splits a comma separated list of names, as the OMDB API returns actors, directors and genres, into
+     * normalized terms.
+     *
+     * <p>Empty names and the OMDB placeholder "N/A" are skipped and every term is returned once.
+     *
+     * @param names the comma separated names, may be null.
+     * @return the distinct normalized terms in the order they appear.
+     */
+    public static List<String> tokenize(String names) {
+        if (names == null) {
+            return List.of();
+        }
+        Set<String> terms = new LinkedHashSet<>();
+        for (String name : names.split(",")) {
+            String term = normalize(name);
+            if (!term.isEmpty() && !term.equals("n/a")) {
+                terms.add(term);
+            }
+        }
+        return new ArrayList<>(terms);
+    }
+}
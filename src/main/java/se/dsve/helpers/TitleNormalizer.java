@@ -0,0 +1,88 @@
+package se.dsve.helpers;
+
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+public class TitleNormalizer {
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern APOSTROPHES = Pattern.compile("['’]");
+    private static final Pattern NOT_LETTER_OR_DIGIT = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern LEADING_ARTICLE = Pattern.compile("^(the|a|an) ");
+    private static final Pattern INVERTED_ARTICLE = Pattern.compile(",\\s*(the|a|an)$");
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    // Privat constructor för att förhindra instansiering
+    private TitleNormalizer() {
+        throw new AssertionError("Instantiating utility class");
+    }
+
+    /**
+     * Normalizes a title so that differences in case and whitespace do not count as different titles.
+     *
+     * <p>This is the normalization of the natural key of stored movies. It is kept as it is, since changing it
+     * would change the unique key of rows that are already stored. Lookups by title use {@link #titleKey(String)}.
+     *
+     * @param title the title to normalize, may be null.
+     * @return the trimmed title in lower case with runs of whitespace collapsed to one space.
+     */
+    public static String normalize(String title) {
+        if (title == null) {
+            return "";
+        }
+        return WHITESPACE.matcher(title.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the key that titles are looked up by, so that "The Matrix", "the matrix" and "Matrix, The" are
+     * the same title.
+     *
+     * <p>The title is normalized to Unicode NFKC and case-folded, apostrophes are removed, every other run of
+     * characters that are not letters or digits becomes one space, and a leading English article ("the", "a",
+     * "an") is removed. A trailing article is only removed after a comma, as in "Matrix, The", so "Plan A" and
+     * "Plan" stay different titles. The same key is stored with every movie and used by the OMDB lookup cache,
+     * so a title that matches in one place matches in the other.
+     *
+     * @param title the title to normalize, may be null.
+     * @return the title key, or an empty string if the title has no letters or digits.
+     */
+    public static String titleKey(String title) {
+        if (title == null) {
+            return "";
+        }
+        // Versaler och sedan gemener viker även t.ex. ß till ss
+        String folded = Normalizer.normalize(title, Normalizer.Form.NFKC)
+                .toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+        // Den omvända formen känns bara igen på kommat, så den tas bort innan skiljetecknen slås ihop
+        String uninverted = INVERTED_ARTICLE.matcher(folded.trim()).replaceFirst("");
+        String key = collapse(folded);
+        String stripped = LEADING_ARTICLE.matcher(collapse(uninverted)).replaceFirst("");
+        // En titel som bara är en artikel behåller den
+        return stripped.isEmpty() ? key : stripped;
+    }
+
+    private static String collapse(String folded) {
+        return NOT_LETTER_OR_DIGIT.matcher(APOSTROPHES.matcher(folded).replaceAll("")).replaceAll(" ").trim();
+    }
+
+    /**
+     * Returns a 64-bit hash of a title key, stored in a fixed-width indexed column so a title lookup compares
+     * one BIGINT instead of a string.
+     *
+     * <p>The hash is 64-bit FNV-1a over the UTF-8 bytes of the key. It is persisted, so it must never change.
+     * Different keys can have the same hash, so a match must be verified against the key.
+     *
+     * @param titleKey a key returned by {@link #titleKey(String)}.
+     * @return the hash of the key.
+     */
+    public static long titleHash(String titleKey) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : titleKey.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,242 @@
+package se.dsve.index;
+
+import se.dsve.classes.Movie;
+import se.dsve.helpers.TermNormalizer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class InvertedIndex {
+    private static final int[] NO_IDS = new int[0];
+
+    private final Map<Field, Map<String, PostingList>> postings = new EnumMap<>(Field.class);
+    // Termerna som varje film är indexerad med, per fält, så att en film kan indexeras om
+    private final Map<Integer, String[][]> termsById = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * The comma separated movie columns that are indexed.
+     */
+    public enum Field {
+        ACTOR,
+        DIRECTOR,
+        GENRE;
+
+        private String valueOf(Movie movie) {
+            return switch (this) {
+                case ACTOR -> movie.getActors();
+                case DIRECTOR -> movie.getDirector();
+                case GENRE -> movie.getGenre();
+            };
+        }
+    }
+
+    /**
+     * Constructs a new, empty InvertedIndex.
+     *
+     * <p>The index maps every actor, director and genre term to a sorted array of the ids of the movies that have
+     * it. Terms are normalized with {@link TermNormalizer}, so lookups ignore case, diacritics and extra
+     * whitespace. Reads share a lock and do not block each other, updates take it exclusively.
+     */
+    public InvertedIndex() {
+        for (Field field : Field.values()) {
+            postings.put(field, new HashMap<>());
+        }
+    }
+
+    /**
+     * Indexes a movie under its id, replacing the terms it was indexed with before.
+     *
+     * @param id the id of the movie row.
+     * @param movie the movie whose actors, directors and genres are indexed.
+     */
+    public void put(int id, Movie movie) {
+        String[][] terms = new String[Field.values().length][];
+        for (Field field : Field.values()) {
+            terms[field.ordinal()] = TermNormalizer.tokenize(field.valueOf(movie)).toArray(new String[0]);
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            for (Field field : Field.values()) {
+                Map<String, PostingList> fieldPostings = postings.get(field);
+                for (String term : terms[field.ordinal()]) {
+                    fieldPostings.computeIfAbsent(term, key -> new PostingList()).add(id);
+                }
+            }
+            termsById.put(id, terms);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a movie from the index.
+     *
+     * @param id the id of the movie row.
+     */
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes every movie from the index.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            termsById.clear();
+            for (Map<String, PostingList> fieldPostings : postings.values()) {
+                fieldPostings.clear();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of the movies that have every one of the given names in a field.
+     *
+     * <p>The posting lists are intersected from the shortest to the longest, so the work follows the rarest
+     * name. If any name is unknown the result is empty without reading the other lists.
+     *
+     * @param field the field to search.
+     * @param names the names to match, normalized like the indexed terms.
+     * @return the matching movie ids in increasing order, empty if no names are given.
+     */
+    public int[] matchAll(Field field, Collection<String> names) {
+        lock.readLock().lock();
+        try {
+            List<PostingList> lists = postingListsOf(field, names, true);
+            if (lists == null || lists.isEmpty()) {
+                return NO_IDS;
+            }
+            lists.sort(Comparator.comparingInt(PostingList::size));
+            int[] result = lists.get(0).toArray();
+            for (int i = 1; i < lists.size() && result.length > 0; i++) {
+                result = lists.get(i).intersect(result);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of the movies that have at least one of the given names in a field.
+     *
+     * @param field the field to search.
+     * @param names the names to match, normalized like the indexed terms.
+     * @return the matching movie ids in increasing order without duplicates.
+     */
+    public int[] matchAny(Field field, Collection<String> names) {
+        lock.readLock().lock();
+        try {
+            int[] result = NO_IDS;
+            for (PostingList list : postingListsOf(field, names, false)) {
+                result = PostingList.union(result, list.toArray());
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids that are in both sorted id arrays, for example to combine matches from different fields.
+     *
+     * @param a sorted movie ids, as returned by the match methods.
+     * @param b sorted movie ids, as returned by the match methods.
+     * @return the ids in both arrays in increasing order.
+     */
+    public static int[] and(int[] a, int[] b) {
+        return PostingList.intersect(a, b);
+    }
+
+    /**
+     * Returns the ids that are in either sorted id array.
+     *
+     * @param a sorted movie ids, as returned by the match methods.
+     * @param b sorted movie ids, as returned by the match methods.
+     * @return the ids in either array in increasing order without duplicates.
+     */
+    public static int[] or(int[] a, int[] b) {
+        return PostingList.union(a, b);
+    }
+
+    /**
+     * Returns the number of indexed movies.
+     *
+     * @return the number of movies.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return termsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of distinct terms in a field.
+     *
+     * @param field the field to count.
+     * @return the number of terms.
+     */
+    public int termCount(Field field) {
+        lock.readLock().lock();
+        try {
+            return postings.get(field).size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<PostingList> postingListsOf(Field field, Collection<String> names, boolean requireAll) {
+        Map<String, PostingList> fieldPostings = postings.get(field);
+        List<PostingList> lists = new ArrayList<>();
+        for (String name : names) {
+            PostingList list = fieldPostings.get(TermNormalizer.normalize(name));
+            if (list != null) {
+                lists.add(list);
+            } else if (requireAll) {
+                // Ett okänt namn betyder att ingen film har alla namnen
+                return null;
+            }
+        }
+        return lists;
+    }
+
+    private void removeLocked(int id) {
+        String[][] terms = termsById.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (Field field : Field.values()) {
+            Map<String, PostingList> fieldPostings = postings.get(field);
+            for (String term : terms[field.ordinal()]) {
+                PostingList list = fieldPostings.get(term);
+                if (list != null) {
+                    list.remove(id);
+                    if (list.isEmpty()) {
+                        fieldPostings.remove(term);
+                    }
+                }
+            }
+        }
+    }
+}
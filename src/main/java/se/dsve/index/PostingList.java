@@ -0,0 +1,184 @@
+package se.dsve.index;
+
+import java.util.Arrays;
+
+/**
+ * Sorted list of movie ids stored in a plain int array.
+ *
+ * <p>New movies get increasing ids, so adding one is usually an append. Ids that are not larger than the last
+ * one are inserted with a binary search. The class is not thread safe, {@link InvertedIndex} guards it.
+ */
+final class PostingList {
+    private static final int[] EMPTY = new int[0];
+    // Listor som skiljer sig mer än så här i längd snittas med galopperande sökning
+    private static final int GALLOP_RATIO = 32;
+
+    private int[] ids = EMPTY;
+    private int size;
+
+    /**
+     * Adds an id to the list if it is not already there.
+     */
+    void add(int id) {
+        if (size > 0 && ids[size - 1] >= id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return;
+            }
+            insertAt(-index - 1, id);
+            return;
+        }
+        insertAt(size, id);
+    }
+
+    /**
+     * Removes an id from the list if it is there.
+     */
+    void remove(int id) {
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index < 0) {
+            return;
+        }
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        size--;
+        // Krymper arrayen när den är mindre än en fjärdedel full
+        if (size < ids.length / 4) {
+            ids = Arrays.copyOf(ids, Math.max(size, 1));
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the id at a position in the list, without copying the list.
+     */
+    int get(int index) {
+        return ids[index];
+    }
+
+    /**
+     * Returns whether an id is in the list, with a binary search.
+     */
+    boolean contains(int id) {
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+
+    /**
+     * Returns a copy of the ids in increasing order.
+     */
+    int[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    private void insertAt(int index, int id) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(4, size + (size >> 1)));
+        }
+        System.arraycopy(ids, index, ids, index + 1, size - index);
+        ids[index] = id;
+        size++;
+    }
+
+    /**
+     * Returns the ids that are both in this list and in a sorted array, without copying the list.
+     */
+    int[] intersect(int[] sortedIds) {
+        return intersect(sortedIds, sortedIds.length, ids, size);
+    }
+
+    /**
+     * Returns the ids that are in both sorted arrays.
+     */
+    static int[] intersect(int[] a, int[] b) {
+        return intersect(a, a.length, b, b.length);
+    }
+
+    /**
+     * Returns the ids that are in the first {@code aSize} ids of one sorted array and the first {@code bSize}
+     * ids of another.
+     *
+     * <p>Arrays of similar length are merged in one pass. When one array is much shorter, each of its ids is
+     * looked up in the longer one with a galloping search that starts where the previous id was found, so the
+     * cost follows the length of the shorter array.
+     */
+    private static int[] intersect(int[] a, int aSize, int[] b, int bSize) {
+        if (aSize > bSize) {
+            return intersect(b, bSize, a, aSize);
+        }
+        int[] result = new int[aSize];
+        int count = 0;
+        if ((long) aSize * GALLOP_RATIO < bSize) {
+            int from = 0;
+            for (int i = 0; i < aSize; i++) {
+                int id = a[i];
+                from = gallop(b, from, bSize, id);
+                if (from == bSize) {
+                    break;
+                }
+                if (b[from] == id) {
+                    result[count++] = id;
+                }
+            }
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < aSize && j < bSize) {
+                if (a[i] < b[j]) {
+                    i++;
+                } else if (a[i] > b[j]) {
+                    j++;
+                } else {
+                    result[count++] = a[i];
+                    i++;
+                    j++;
+                }
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Returns the ids that are in either sorted array, sorted and without duplicates.
+     */
+    static int[] union(int[] a, int[] b) {
+        int[] result = new int[a.length + b.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                result[count++] = a[i++];
+            } else if (a[i] > b[j]) {
+                result[count++] = b[j++];
+            } else {
+                result[count++] = a[i++];
+                j++;
+            }
+        }
+        while (i < a.length) {
+            result[count++] = a[i++];
+        }
+        while (j < b.length) {
+            result[count++] = b[j++];
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    private static int gallop(int[] ids, int from, int size, int id) {
+        // Dubblar steget tills id passerats, söker sedan binärt i det sista steget
+        int bound = 1;
+        while (from + bound < size && ids[from + bound] < id) {
+            bound <<= 1;
+        }
+        int low = from + (bound >> 1);
+        int high = Math.min(from + bound + 1, size);
+        int index = Arrays.binarySearch(ids, low, high, id);
+        return index >= 0 ? index : -index - 1;
+    }
+}
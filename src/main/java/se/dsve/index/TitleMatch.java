@@ -0,0 +1,36 @@
+package se.dsve.index;
+
+public class TitleMatch {
+    private final String title;
+    private final int distance;
+
+    /**
+     * Constructs a stored title that is similar to a searched title.
+     *
+     * @param title the stored title, as it was written when the movie was stored.
+     * @param distance the edit distance between the normalized titles.
+     */
+    public TitleMatch(String title, int distance) {
+        this.title = title;
+        this.distance = distance;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Returns the number of inserted, deleted or replaced characters between the normalized searched title and
+     * the normalized stored title. Differences in case, accents, punctuation and whitespace do not count.
+     *
+     * @return the edit distance, 0 if the titles only differ in such details.
+     */
+    public int getDistance() {
+        return distance;
+    }
+
+    @Override
+    public String toString() {
+        return "TitleMatch{" + "title='" + title + '\'' + ", distance=" + distance + '}';
+    }
+}
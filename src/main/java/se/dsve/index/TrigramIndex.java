@@ -0,0 +1,341 @@
+package se.dsve.index;
+
+import se.dsve.helpers.TermNormalizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+public class TrigramIndex {
+    private static final Pattern NOT_LETTER_OR_DIGIT = Pattern.compile("[^\\p{L}\\p{N}]+");
+    // Varje ändring av ett tecken påverkar högst tre trigram
+    private static final int GRAMS_PER_EDIT = 3;
+    // En räknare per titel och tråd, återanvänds mellan sökningar
+    private static final ThreadLocal<short[]> COUNTS = ThreadLocal.withInitial(() -> new short[0]);
+
+    // Titlarna och deras normaliserade nycklar, index är titelns id i posting-listorna.
+    // En borttagen titel lämnar null på sin plats, så att de andra titlarnas id:n inte ändras
+    private final List<String> titles = new ArrayList<>();
+    private final List<String> keys = new ArrayList<>();
+    private final Map<String, Integer> idsByKey = new HashMap<>();
+    // Nycklarnas längder i en egen array, så att längdfiltret inte behöver läsa strängarna
+    private int[] keyLengths = new int[16];
+    private final Map<Long, PostingList> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Constructs a new, empty TrigramIndex.
+     *
+     * <p>Titles are normalized like {@link TermNormalizer} and with punctuation turned into spaces, padded with
+     * two spaces at each end and split into overlapping three-character grams. Each gram maps to a sorted list of
+     * the titles that contain it.
+     *
+     * <p>A search for titles within edit distance k uses that one edit changes at most three grams: a title
+     * within k edits shares all but at most 3k of the searched title's grams. The posting lists of the grams are
+     * counted from the shortest, and only titles that reach that count are compared with a banded edit distance
+     * that gives up as soon as it exceeds k.
+     */
+    public TrigramIndex() {
+    }
+
+    /**
+     * Adds a title to the index. A title whose normalized form is already indexed is ignored.
+     *
+     * @param title the title to add, may be null.
+     */
+    public void add(String title) {
+        String key = normalize(title);
+        if (key.isEmpty()) {
+            return;
+        }
+        long[] grams = grams(key);
+
+        lock.writeLock().lock();
+        try {
+            if (idsByKey.containsKey(key)) {
+                return;
+            }
+            int id = titles.size();
+            titles.add(title);
+            keys.add(key);
+            idsByKey.put(key, id);
+            if (id == keyLengths.length) {
+                keyLengths = Arrays.copyOf(keyLengths, id * 2);
+            }
+            keyLengths[id] = key.length();
+            for (long gram : grams) {
+                postings.computeIfAbsent(gram, g -> new PostingList()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a title from the index, for when no stored movie has it anymore.
+     *
+     * <p>Titles with the same normalized form are one entry, so removing one removes them all. A title that is
+     * not indexed is ignored.
+     *
+     * @param title the title to remove, may be null.
+     */
+    public void remove(String title) {
+        String key = normalize(title);
+        if (key.isEmpty()) {
+            return;
+        }
+        long[] grams = grams(key);
+
+        lock.writeLock().lock();
+        try {
+            Integer id = idsByKey.remove(key);
+            if (id == null) {
+                return;
+            }
+            titles.set(id, null);
+            keys.set(id, null);
+            for (long gram : grams) {
+                PostingList list = postings.get(gram);
+                list.remove(id);
+                if (list.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes every title from the index.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            titles.clear();
+            keys.clear();
+            idsByKey.clear();
+            postings.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of indexed titles.
+     *
+     * @return the number of titles.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return idsByKey.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the stored titles within an edit distance of a searched title.
+     *
+     * <p>Short titles have too few grams to filter on, so the distance is lowered for them until at least one
+     * gram must be shared: up to 1 edit from 2 characters and up to 2 edits from 5 characters.
+     *
+     * @param title the searched title.
+     * @param maxDistance the largest edit distance between the normalized titles.
+     * @param limit the maximum number of matches.
+     * @return the matches, closest first, then the ones closest in length.
+     */
+    public List<TitleMatch> search(String title, int maxDistance, int limit) {
+        String key = normalize(title);
+        if (key.isEmpty() || limit < 1) {
+            return List.of();
+        }
+        long[] grams = grams(key);
+        int k = Math.max(0, Math.min(maxDistance, (grams.length - 1) / GRAMS_PER_EDIT));
+
+        lock.readLock().lock();
+        try {
+            // Exakt träff på den normaliserade titeln behöver ingen sökning
+            Integer exact = idsByKey.get(key);
+            if (exact != null && (k == 0 || limit == 1)) {
+                return List.of(new TitleMatch(titles.get(exact), 0));
+            }
+
+            // Saknade trigram räknas som tomma listor
+            PostingList[] lists = new PostingList[grams.length];
+            for (int i = 0; i < grams.length; i++) {
+                lists[i] = postings.get(grams[i]);
+            }
+            Arrays.sort(lists, Comparator.comparingInt(list -> list == null ? 0 : list.size()));
+            int[] candidates = countCandidates(lists, key.length(), k);
+
+            List<int[]> found = new ArrayList<>();
+            for (int id : candidates) {
+                String candidate = keys.get(id);
+                int distance = boundedDistance(key, candidate, k);
+                if (distance <= k) {
+                    found.add(new int[]{id, distance, Math.abs(candidate.length() - key.length())});
+                }
+            }
+            found.sort(Comparator.<int[]>comparingInt(match -> match[1]).thenComparingInt(match -> match[2])
+                    .thenComparingInt(match -> match[0]));
+
+            List<TitleMatch> matches = new ArrayList<>(Math.min(limit, found.size()));
+            for (int i = 0; i < found.size() && i < limit; i++) {
+                matches.add(new TitleMatch(titles.get(found.get(i)[0]), found.get(i)[1]));
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the form of a title that is indexed: normalized like {@link TermNormalizer}, with every run of
+     * characters that are not letters or digits replaced by one space.
+     *
+     * @param title the title to normalize, may be null.
+     * @return the normalized title, or an empty string if it has no letters or digits.
+     */
+    public static String normalize(String title) {
+        return NOT_LETTER_OR_DIGIT.matcher(TermNormalizer.normalize(title)).replaceAll(" ").trim();
+    }
+
+    /**
+     * Returns the number of single-character edits between two strings, or {@code maxDistance + 1} as soon as it
+     * is clear that there are more.
+     *
+     * <p>Only the cells within {@code maxDistance} of the diagonal are computed, so the cost is
+     * O(maxDistance * length) instead of O(length²).
+     */
+    static int boundedDistance(String a, String b, int maxDistance) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > maxDistance) {
+            return maxDistance + 1;
+        }
+        int outside = maxDistance + 1;
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j <= maxDistance ? j : outside;
+        }
+        for (int i = 1; i <= n; i++) {
+            int from = Math.max(1, i - maxDistance);
+            int to = Math.min(m, i + maxDistance);
+            current[0] = i <= maxDistance ? i : outside;
+            if (from > 1) {
+                current[from - 1] = outside;
+            }
+            int rowMin = current[0];
+            char ca = a.charAt(i - 1);
+            for (int j = from; j <= to; j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                current[j] = Math.min(value, outside);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (to < m) {
+                current[to + 1] = outside;
+            }
+            if (rowMin > maxDistance) {
+                return outside;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[m], outside);
+    }
+
+    /**
+     * Returns the titles that are in enough of the posting lists of the searched grams to be within k edits, and
+     * whose normalized length is within k of the searched title's.
+     *
+     * <p>A title within k edits lacks at most 3k of the searched grams, so it is in at least one of the 3k + 1
+     * shortest lists. The ids of those lists are counted in a per-thread array with one counter per title. Every
+     * longer list then only counts titles that are already candidates, and a candidate is dropped as soon as it
+     * has missed more than 3k lists. A list is scanned while that is cheaper than a binary search in it for each
+     * remaining candidate. The counters of all touched titles are cleared again before returning.
+     */
+    private int[] countCandidates(PostingList[] lists, int keyLength, int k) {
+        int allowedMisses = GRAMS_PER_EDIT * k;
+        short[] counts = COUNTS.get();
+        if (counts.length < titles.size()) {
+            counts = new short[Math.max(titles.size(), counts.length * 2)];
+            COUNTS.set(counts);
+        }
+
+        int[] candidates = new int[64];
+        int alive = 0;
+        for (int i = 0; i < lists.length; i++) {
+            PostingList list = lists[i];
+            if (i <= allowedMisses) {
+                // Nya kandidater kan bara komma från de 3k + 1 kortaste listorna
+                for (int j = 0; list != null && j < list.size(); j++) {
+                    int id = list.get(j);
+                    if (counts[id]++ == 0) {
+                        if (alive == candidates.length) {
+                            candidates = Arrays.copyOf(candidates, alive * 2);
+                        }
+                        candidates[alive++] = id;
+                    }
+                }
+                if (i < allowedMisses && i < lists.length - 1) {
+                    continue;
+                }
+            } else if (list != null) {
+                if ((long) alive * (32 - Integer.numberOfLeadingZeros(list.size())) < list.size()) {
+                    for (int c = 0; c < alive; c++) {
+                        if (list.contains(candidates[c])) {
+                            counts[candidates[c]]++;
+                        }
+                    }
+                } else {
+                    for (int j = 0; j < list.size(); j++) {
+                        int id = list.get(j);
+                        if (counts[id] != 0) {
+                            counts[id]++;
+                        }
+                    }
+                }
+            }
+
+            // Släpper kandidater med fel längd eller fler missade listor än 3k
+            int kept = 0;
+            for (int c = 0; c < alive; c++) {
+                int id = candidates[c];
+                if (i + 1 - counts[id] <= allowedMisses && Math.abs(keyLengths[id] - keyLength) <= k) {
+                    candidates[kept++] = id;
+                } else {
+                    counts[id] = 0;
+                }
+            }
+            alive = kept;
+        }
+
+        for (int c = 0; c < alive; c++) {
+            counts[candidates[c]] = 0;
+        }
+        int[] result = Arrays.copyOf(candidates, alive);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private static long[] grams(String key) {
+        // Två blanksteg i varje ände så att början och slutet av titeln får egna trigram
+        String padded = "  " + key + "  ";
+        long[] grams = new long[padded.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+        }
+        return Arrays.stream(grams).distinct().toArray();
+    }
+}
@@ -0,0 +1,316 @@
+package se.dsve.pool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ConnectionPool implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
+
+    private final String jdbcUrl;
+    private final String jdbcUsername;
+    private final String jdbcPassword;
+    private final ConnectionPoolConfig config;
+
+    // En permit per utlånad anslutning, lediga anslutningar håller ingen
+    private final Semaphore permits;
+    // Lediga anslutningar, senast återlämnad först
+    private final LinkedBlockingDeque<IdleConnection> idleConnections = new LinkedBlockingDeque<>();
+    private final ScheduledExecutorService evictor;
+
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final AtomicInteger waitingCount = new AtomicInteger();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong destroyedCount = new AtomicLong();
+    private final AtomicLong borrowTimeoutCount = new AtomicLong();
+    private final AtomicLong statementCacheHitCount = new AtomicLong();
+    private final AtomicLong statementCacheMissCount = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * Constructs a new bounded connection pool for the specified database.
+     *
+     * <p>The pool opens up to {@code minSize} connections right away and starts a background task
+     * that closes connections which have been idle longer than the idle timeout, while never going
+     * below the minimum size. Failing to open the initial connections is logged but not fatal, the
+     * pool will try again the next time a connection is borrowed.
+     *
+     * @param jdbcUrl the JDBC URL of the database.
+     * @param jdbcUsername the username used for authentication.
+     * @param jdbcPassword the password used for authentication.
+     * @param config the sizing and timeout settings of the pool.
+     */
+    public ConnectionPool(String jdbcUrl, String jdbcUsername, String jdbcPassword, ConnectionPoolConfig config) {
+        if (config.getMinSize() > config.getMaxSize()) {
+            throw new IllegalArgumentException("minSize must not be larger than maxSize");
+        }
+        this.jdbcUrl = jdbcUrl;
+        this.jdbcUsername = jdbcUsername;
+        this.jdbcPassword = jdbcPassword;
+        this.config = config;
+        this.permits = new Semaphore(config.getMaxSize(), true);
+
+        // Startar bakgrundstråd som stänger anslutningar som varit lediga för länge
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1_000, config.getIdleTimeoutMillis() / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdleConnections, period, period, TimeUnit.MILLISECONDS);
+
+        fillToMinimum();
+    }
+
+    /**
+     * Borrows a connection from the pool.
+     *
+     * <p>An idle connection is reused if one is available and passes validation, otherwise a new
+     * physical connection is opened as long as the pool is below its maximum size. When the pool is
+     * exhausted the caller waits up to the borrow timeout for another caller to return a connection.
+     *
+     * <p>Closing the returned connection hands it back to the pool instead of closing the physical
+     * connection, so existing {@code try (Connection c = ...)} blocks work unchanged.
+     *
+     * @return a pooled Connection.
+     * @throws SQLTimeoutException if no connection became available within the borrow timeout.
+     * @throws SQLException if the pool is closed or a new connection could not be opened.
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        // Väntar på en ledig plats i poolen
+        boolean acquired;
+        waitingCount.incrementAndGet();
+        try {
+            acquired = permits.tryAcquire(config.getBorrowTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        } finally {
+            waitingCount.decrementAndGet();
+        }
+
+        if (!acquired) {
+            borrowTimeoutCount.incrementAndGet();
+            throw new SQLTimeoutException("Timed out after " + config.getBorrowTimeoutMillis()
+                    + " ms waiting for a database connection");
+        }
+
+        try {
+            // Återanvänder en ledig anslutning om det finns någon, annars skapas en ny
+            PhysicalConnection physical = pollValidIdleConnection();
+            if (physical == null) {
+                physical = openConnection();
+            }
+            activeCount.incrementAndGet();
+            return PooledConnectionHandler.wrap(physical, this);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a physical connection to the pool. Called when a pooled connection is closed.
+     *
+     * @param physical the physical connection being returned.
+     * @param broken true if the connection should be discarded instead of reused.
+     */
+    void release(PhysicalConnection physical, boolean broken) {
+        activeCount.decrementAndGet();
+        try {
+            if (broken || closed) {
+                destroy(physical);
+            } else {
+                idleConnections.offerFirst(new IdleConnection(physical, System.nanoTime()));
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private PhysicalConnection pollValidIdleConnection() {
+        IdleConnection idle;
+        while ((idle = idleConnections.pollFirst()) != null) {
+            try {
+                if (idle.connection.getConnection().isValid(config.getValidationTimeoutSeconds())) {
+                    return idle.connection;
+                }
+            } catch (SQLException e) {
+                logger.warn("Validation of pooled connection failed: {}", e.getMessage());
+            }
+            // Anslutningen är trasig och kastas
+            destroy(idle.connection);
+        }
+        return null;
+    }
+
+    private PhysicalConnection openConnection() throws SQLException {
+        Connection connection = DriverManager.getConnection(jdbcUrl, jdbcUsername, jdbcPassword);
+        createdCount.incrementAndGet();
+        StatementCache statementCache = new StatementCache(connection, config.getStatementCacheSize(),
+                statementCacheHitCount, statementCacheMissCount);
+        return new PhysicalConnection(connection, statementCache);
+    }
+
+    private void destroy(PhysicalConnection physical) {
+        destroyedCount.incrementAndGet();
+        try {
+            // Stänger även alla cachade satser på anslutningen
+            physical.getConnection().close();
+        } catch (SQLException e) {
+            logger.warn("Error closing pooled connection: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Closes connections that have been idle longer than the idle timeout and then tops the pool up
+     * to its minimum size again.
+     */
+    void evictIdleConnections() {
+        long now = System.nanoTime();
+        long idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(config.getIdleTimeoutMillis());
+
+        // De äldsta anslutningarna ligger sist i kön
+        Iterator<IdleConnection> iterator = idleConnections.descendingIterator();
+        while (iterator.hasNext() && getTotalCount() > config.getMinSize()) {
+            IdleConnection idle = iterator.next();
+            if (now - idle.idleSince >= idleTimeoutNanos && idleConnections.remove(idle)) {
+                destroy(idle.connection);
+            }
+        }
+        fillToMinimum();
+    }
+
+    private void fillToMinimum() {
+        while (!closed && getTotalCount() < config.getMinSize() && permits.tryAcquire()) {
+            try {
+                idleConnections.offerLast(new IdleConnection(openConnection(), System.nanoTime()));
+            } catch (SQLException e) {
+                logger.warn("Could not open connection to keep the pool at its minimum size: {}", e.getMessage());
+                return;
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Closes the pool and every idle connection. Borrowed connections are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        IdleConnection idle;
+        while ((idle = idleConnections.pollFirst()) != null) {
+            destroy(idle.connection);
+        }
+    }
+
+    /**
+     * Returns the number of connections currently borrowed from the pool.
+     *
+     * @return the number of active connections.
+     */
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    /**
+     * Returns the number of open connections waiting in the pool to be borrowed.
+     *
+     * @return the number of idle connections.
+     */
+    public int getIdleCount() {
+        return idleConnections.size();
+    }
+
+    /**
+     * Returns the number of callers currently blocked waiting for a connection.
+     *
+     * @return the number of waiting callers.
+     */
+    public int getWaitingCount() {
+        return waitingCount.get();
+    }
+
+    /**
+     * Returns the number of open physical connections, active and idle together.
+     *
+     * @return the total number of connections.
+     */
+    public int getTotalCount() {
+        return getActiveCount() + getIdleCount();
+    }
+
+    /**
+     * Returns how many physical connections the pool has opened since it was created.
+     *
+     * @return the number of created connections.
+     */
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    /**
+     * Returns how many physical connections the pool has closed since it was created.
+     *
+     * @return the number of destroyed connections.
+     */
+    public long getDestroyedCount() {
+        return destroyedCount.get();
+    }
+
+    /**
+     * Returns how many times a caller gave up waiting for a connection.
+     *
+     * @return the number of borrow timeouts.
+     */
+    public long getBorrowTimeoutCount() {
+        return borrowTimeoutCount.get();
+    }
+
+    /**
+     * Returns how many prepared statements were served from a connection's statement cache.
+     *
+     * @return the number of statement cache hits.
+     */
+    public long getStatementCacheHitCount() {
+        return statementCacheHitCount.get();
+    }
+
+    /**
+     * Returns how many prepared statements had to be prepared because they were not cached.
+     *
+     * @return the number of statement cache misses.
+     */
+    public long getStatementCacheMissCount() {
+        return statementCacheMissCount.get();
+    }
+
+    private static final class IdleConnection {
+        private final PhysicalConnection connection;
+        private final long idleSince;
+
+        private IdleConnection(PhysicalConnection connection, long idleSince) {
+            this.connection = connection;
+            this.idleSince = idleSince;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package se.dsve.pool;
+
+import se.dsve.AppConfig;
+
+public class ConnectionPoolConfig {
+    private int minSize = 2;
+    private int maxSize = 10;
+    private long idleTimeoutMillis = 300_000;
+    private long borrowTimeoutMillis = 5_000;
+    private int validationTimeoutSeconds = 2;
+    private int statementCacheSize = 32;
+
+    /**
+     * Creates a pool configuration from the values in the .env file.
+     *
+     * <p>Every setting is optional, values that are missing fall back to the defaults of this class.
+     *
+     * @return a ConnectionPoolConfig populated from {@link AppConfig}.
+     */
+    public static ConnectionPoolConfig fromAppConfig() {
+        ConnectionPoolConfig config = new ConnectionPoolConfig();
+        config.setMinSize(AppConfig.getDbPoolMinSize());
+        config.setMaxSize(AppConfig.getDbPoolMaxSize());
+        config.setIdleTimeoutMillis(AppConfig.getDbPoolIdleTimeoutMillis());
+        config.setBorrowTimeoutMillis(AppConfig.getDbPoolBorrowTimeoutMillis());
+        config.setStatementCacheSize(AppConfig.getDbStatementCacheSize());
+        return config;
+    }
+
+    /**
+     * Returns the number of connections the pool tries to keep open at all times.
+     *
+     * @return the minimum pool size.
+     */
+    public int getMinSize() {
+        return minSize;
+    }
+
+    /**
+     * Sets the number of connections the pool tries to keep open at all times.
+     *
+     * @param minSize the minimum pool size, must not be negative.
+     */
+    public void setMinSize(int minSize) {
+        if (minSize < 0) {
+            throw new IllegalArgumentException("minSize must not be negative");
+        }
+        this.minSize = minSize;
+    }
+
+    /**
+     * Returns the maximum number of connections, borrowed and idle together.
+     *
+     * @return the maximum pool size.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Sets the maximum number of connections, borrowed and idle together.
+     *
+     * @param maxSize the maximum pool size, must be at least 1.
+     */
+    public void setMaxSize(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be at least 1");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns how long a connection may stay idle before it is closed, as long as the pool stays above its minimum.
+     *
+     * @return the idle timeout in milliseconds.
+     */
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    /**
+     * Sets how long a connection may stay idle before it is closed.
+     *
+     * @param idleTimeoutMillis the idle timeout in milliseconds.
+     */
+    public void setIdleTimeoutMillis(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    /**
+     * Returns how long a caller waits for a free connection before giving up.
+     *
+     * @return the borrow timeout in milliseconds.
+     */
+    public long getBorrowTimeoutMillis() {
+        return borrowTimeoutMillis;
+    }
+
+    /**
+     * Sets how long a caller waits for a free connection before giving up.
+     *
+     * @param borrowTimeoutMillis the borrow timeout in milliseconds.
+     */
+    public void setBorrowTimeoutMillis(long borrowTimeoutMillis) {
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+    }
+
+    /**
+     * Returns the timeout used by {@code Connection.isValid} when an idle connection is validated on borrow.
+     *
+     * @return the validation timeout in seconds.
+     */
+    public int getValidationTimeoutSeconds() {
+        return validationTimeoutSeconds;
+    }
+
+    /**
+     * Sets the timeout used when an idle connection is validated on borrow.
+     *
+     * @param validationTimeoutSeconds the validation timeout in seconds.
+     */
+    public void setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+    }
+
+    /**
+     * Returns how many prepared statements each connection keeps cached, keyed by SQL text.
+     *
+     * @return the statement cache size per connection.
+     */
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    /**
+     * Sets how many prepared statements each connection keeps cached. The least recently used
+     * statement is closed when the limit is exceeded, and 0 disables the cache.
+     *
+     * @param statementCacheSize the statement cache size per connection, must not be negative.
+     */
+    public void setStatementCacheSize(int statementCacheSize) {
+        if (statementCacheSize < 0) {
+            throw new IllegalArgumentException("statementCacheSize must not be negative");
+        }
+        this.statementCacheSize = statementCacheSize;
+    }
+}
@@ -0,0 +1,27 @@
+package se.dsve.pool;
+
+import java.sql.Connection;
+
+final class PhysicalConnection {
+    private final Connection connection;
+    private final StatementCache statementCache;
+
+    /**
+     * Pairs a physical connection with the statement cache that lives as long as it does.
+     *
+     * @param connection the physical JDBC connection.
+     * @param statementCache the prepared statement cache bound to the connection.
+     */
+    PhysicalConnection(Connection connection, StatementCache statementCache) {
+        this.connection = connection;
+        this.statementCache = statementCache;
+    }
+
+    Connection getConnection() {
+        return connection;
+    }
+
+    StatementCache getStatementCache() {
+        return statementCache;
+    }
+}
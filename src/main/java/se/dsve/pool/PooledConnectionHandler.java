@@ -0,0 +1,119 @@
+package se.dsve.pool;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+final class PooledConnectionHandler implements InvocationHandler {
+    private final PhysicalConnection pooled;
+    private final Connection physical;
+    private final ConnectionPool pool;
+    private boolean closed;
+    private boolean broken;
+
+    private PooledConnectionHandler(PhysicalConnection pooled, ConnectionPool pool) {
+        this.pooled = pooled;
+        this.physical = pooled.getConnection();
+        this.pool = pool;
+    }
+
+    /**
+     * Wraps a physical connection in a proxy that returns it to the pool when closed.
+     *
+     * @param pooled the physical connection borrowed from the pool.
+     * @param pool the pool the connection belongs to.
+     * @return a Connection proxy handed out to callers.
+     */
+    static Connection wrap(PhysicalConnection pooled, ConnectionPool pool) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new PooledConnectionHandler(pooled, pool));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "close":
+                returnToPool();
+                return null;
+            case "isClosed":
+                return closed || physical.isClosed();
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "PooledConnection[" + physical + "]";
+            default:
+                break;
+        }
+
+        if (closed) {
+            throw new SQLException("Connection has already been returned to the pool");
+        }
+
+        try {
+            // Satser som bara har SQL-text och eventuellt nyckelflagga som argument hämtas från anslutningens cache
+            if (method.getName().equals("prepareStatement") && args.length == 1) {
+                return prepareCached((String) args[0], Statement.NO_GENERATED_KEYS);
+            }
+            if (method.getName().equals("prepareStatement") && args.length == 2 && args[1] instanceof Integer flag) {
+                return prepareCached((String) args[0], flag);
+            }
+            return method.invoke(physical, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            // SQLState-klass 08 betyder att själva anslutningen har gått förlorad
+            if (cause instanceof SQLException sqlException && isConnectionError(sqlException)) {
+                broken = true;
+            }
+            throw cause;
+        }
+    }
+
+    private PreparedStatement prepareCached(String sql, int autoGeneratedKeys) throws SQLException {
+        try {
+            return pooled.getStatementCache().prepare(sql, autoGeneratedKeys);
+        } catch (SQLException e) {
+            if (isConnectionError(e)) {
+                broken = true;
+            }
+            throw e;
+        }
+    }
+
+    private void returnToPool() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        // Återställer anslutningen så att nästa lånare får samma utgångsläge
+        if (!broken) {
+            try {
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                if (physical.isReadOnly()) {
+                    physical.setReadOnly(false);
+                }
+                physical.clearWarnings();
+            } catch (SQLException e) {
+                broken = true;
+            }
+        }
+        pool.release(pooled, broken);
+    }
+
+    private static boolean isConnectionError(SQLException e) {
+        String state = e.getSQLState();
+        return state != null && state.startsWith("08");
+    }
+}
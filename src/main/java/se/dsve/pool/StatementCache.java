@@ -0,0 +1,195 @@
+package se.dsve.pool;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+final class StatementCache {
+    private final Connection physical;
+    private final int maxSize;
+    private final AtomicLong hitCount;
+    private final AtomicLong missCount;
+
+    // Sorterad i åtkomstordning, den minst nyligen använda satsen ligger först
+    private final LinkedHashMap<String, CachedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Constructs a statement cache bound to a single physical connection.
+     *
+     * @param physical the physical connection the statements are prepared on.
+     * @param maxSize the maximum number of cached statements, 0 disables caching.
+     * @param hitCount the pool wide counter incremented when a cached statement is reused.
+     * @param missCount the pool wide counter incremented when a statement has to be prepared.
+     */
+    StatementCache(Connection physical, int maxSize, AtomicLong hitCount, AtomicLong missCount) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+    }
+
+    /**
+     * Returns a prepared statement for the specified SQL text, reusing a cached one when possible.
+     *
+     * <p>Closing the returned statement clears its parameters, pending batch, query timeout, fetch size and
+     * maximum row count and puts it back in the cache instead of closing it on the server, so the next caller
+     * gets it in the state of a newly prepared statement. If the same SQL text is already in use on this connection, or caching
+     * is disabled, a regular uncached statement is returned.
+     *
+     * @param sql the SQL text to prepare.
+     * @param autoGeneratedKeys {@code Statement.RETURN_GENERATED_KEYS} or {@code Statement.NO_GENERATED_KEYS}.
+     * @return a PreparedStatement for the SQL text.
+     * @throws SQLException if the statement could not be prepared.
+     */
+    PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        // Samma SQL med och utan genererade nycklar är två olika satser
+        String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? sql + "\u0000keys" : sql;
+        CachedStatement cached = statements.get(key);
+        if (cached != null && cached.evicted) {
+            // Satsen kunde inte återställas och har stängts
+            statements.remove(key);
+            cached = null;
+        }
+        if (cached != null && !cached.inUse) {
+            hitCount.incrementAndGet();
+            cached.inUse = true;
+            return cached.newHandle();
+        }
+
+        missCount.incrementAndGet();
+        PreparedStatement statement = physical.prepareStatement(sql, autoGeneratedKeys);
+        if (maxSize == 0 || cached != null) {
+            return statement;
+        }
+
+        // Lägger till satsen i cachen och tar bort de minst nyligen använda vid behov
+        cached = new CachedStatement(statement, statement.getFetchSize());
+        cached.inUse = true;
+        statements.put(key, cached);
+        evictOverflow();
+        return cached.newHandle();
+    }
+
+    /**
+     * Returns the number of statements currently held by the cache.
+     *
+     * @return the number of cached statements.
+     */
+    int size() {
+        return statements.size();
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, CachedStatement>> iterator = statements.entrySet().iterator();
+        while (statements.size() > maxSize && iterator.hasNext()) {
+            CachedStatement eldest = iterator.next().getValue();
+            iterator.remove();
+            eldest.evicted = true;
+            // En sats som används just nu stängs först när den lämnas tillbaka
+            if (!eldest.inUse) {
+                eldest.closeQuietly();
+            }
+        }
+    }
+
+    private static final class CachedStatement {
+        private final PreparedStatement delegate;
+        // Drivrutinens förvalda fetch size, som inte alltid är 0
+        private final int defaultFetchSize;
+        private boolean inUse;
+        private boolean evicted;
+
+        private CachedStatement(PreparedStatement delegate, int defaultFetchSize) {
+            this.delegate = delegate;
+            this.defaultFetchSize = defaultFetchSize;
+        }
+
+        private PreparedStatement newHandle() {
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    new Handle(this));
+        }
+
+        private void release() {
+            try {
+                // Stänger eventuellt öppet ResultSet och nollställer satsen inför nästa användning
+                ResultSet resultSet = delegate.getResultSet();
+                if (resultSet != null) {
+                    resultSet.close();
+                }
+                delegate.clearParameters();
+                delegate.clearBatch();
+                delegate.setQueryTimeout(0);
+                // Radgränsen först, vissa drivrutiner vägrar en fetch size större än den
+                delegate.setMaxRows(0);
+                delegate.setFetchSize(defaultFetchSize);
+            } catch (SQLException e) {
+                evicted = true;
+            }
+            inUse = false;
+            if (evicted) {
+                closeQuietly();
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                delegate.close();
+            } catch (SQLException ignored) {
+                // Satsen ska ändå kastas
+            }
+        }
+    }
+
+    private static final class Handle implements InvocationHandler {
+        private final CachedStatement cached;
+        private boolean closed;
+
+        private Handle(CachedStatement cached) {
+            this.cached = cached;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        cached.release();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + cached.delegate + "]";
+                default:
+                    break;
+            }
+
+            if (closed) {
+                throw new SQLException("Statement has already been closed");
+            }
+
+            try {
+                return method.invoke(cached.delegate, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
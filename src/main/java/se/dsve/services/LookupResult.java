@@ -0,0 +1,84 @@
+package se.dsve.services;
+
+import se.dsve.classes.Movie;
+
+public class LookupResult {
+    /**
+     * The outcome of looking up one title in the database and the OMDB API.
+     */
+    public enum Status {
+        FOUND,
+        // Filmen hämtades från OMDB men hann inte sparas i databas
+        PARTIAL,
+        NOT_FOUND,
+        ERROR,
+        TIMED_OUT
+    }
+
+    /**
+     * The stages of a lookup, in the order they run.
+     */
+    public enum Stage {
+        DB_READ,
+        OMDB_FETCH,
+        DB_WRITE
+    }
+
+    private final Status status;
+    private final Movie movie;
+    private final Stage timedOutStage;
+
+    private LookupResult(Status status, Movie movie, Stage timedOutStage) {
+        this.status = status;
+        this.movie = movie;
+        this.timedOutStage = timedOutStage;
+    }
+
+    static LookupResult found(Movie movie) {
+        return new LookupResult(Status.FOUND, movie, null);
+    }
+
+    static LookupResult partial(Movie movie, Stage timedOutStage) {
+        return new LookupResult(Status.PARTIAL, movie, timedOutStage);
+    }
+
+    static LookupResult notFound() {
+        return new LookupResult(Status.NOT_FOUND, null, null);
+    }
+
+    static LookupResult error() {
+        return new LookupResult(Status.ERROR, null, null);
+    }
+
+    static LookupResult timedOut(Stage timedOutStage) {
+        return new LookupResult(Status.TIMED_OUT, null, timedOutStage);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the movie that was found.
+     *
+     * @return the Movie, or null unless the status is FOUND or PARTIAL.
+     */
+    public Movie getMovie() {
+        return movie;
+    }
+
+    /**
+     * Returns the stage that was running when the time budget ran out.
+     *
+     * @return the Stage, or null unless the status is PARTIAL or TIMED_OUT.
+     */
+    public Stage getTimedOutStage() {
+        return timedOutStage;
+    }
+
+    @Override
+    public String toString() {
+        return "LookupResult{" + "status=" + status + (movie != null ? ", title='" + movie.getTitle() + '\'' : "") +
+                (timedOutStage != null ? ", timedOutStage=" + timedOutStage : "") + '}';
+    }
+}
@@ -0,0 +1,22 @@
+package se.dsve.services;
+
+import se.dsve.AppConfig;
+
+public enum LookupStrategy {
+    /** The database is queried first and the OMDB API only when the movie is not stored. */
+    SEQUENTIAL,
+    /** The OMDB API is queried in parallel when the database has not answered within a short delay. */
+    SPECULATIVE;
+
+    /**
+     * Returns the lookup strategy configured with LOOKUP_STRATEGY in the .env file.
+     *
+     * <p>The value {@code speculative} selects {@link #SPECULATIVE}, anything else, including a missing value,
+     * selects {@link #SEQUENTIAL}.
+     *
+     * @return the configured LookupStrategy.
+     */
+    public static LookupStrategy fromAppConfig() {
+        return "speculative".equalsIgnoreCase(AppConfig.getLookupStrategy()) ? SPECULATIVE : SEQUENTIAL;
+    }
+}
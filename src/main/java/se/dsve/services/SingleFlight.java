@@ -0,0 +1,70 @@
+package se.dsve.services;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+public class SingleFlight<K, V> {
+    // Pågående anrop per nyckel
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong sharedCount = new AtomicLong();
+
+    /**
+     * Runs a loader for a key, unless a call for the same key is already running.
+     *
+     * <p>The first caller for a key runs the loader on its own thread. Callers that arrive while it runs wait
+     * for the same result instead of running the loader again. When the loader is done the key is released,
+     * so the next call after that runs the loader again. Results are not cached.
+     *
+     * @param key the key that identifies the call.
+     * @param loader the code to run, may return null.
+     * @return the result of the loader.
+     * @throws RuntimeException the exception thrown by the loader, to every waiting caller.
+     */
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            sharedCount.incrementAndGet();
+            return await(existing);
+        }
+
+        try {
+            V value = loader.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Returns how many callers got the result of a call that was already running.
+     *
+     * @return the number of shared results.
+     */
+    public long getSharedCount() {
+        return sharedCount.get();
+    }
+
+    private static <V> V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            // Kastar samma undantag som laddaren kastade
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
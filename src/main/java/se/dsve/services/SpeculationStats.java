@@ -0,0 +1,57 @@
+package se.dsve.services;
+
+public class SpeculationStats {
+    private final long speculationCount;
+    private final long missCount;
+    private final long extraFetchCount;
+    private final long timeSavedMillis;
+
+    /**
+     * Constructs a snapshot of the speculative lookup counters of a TitleLookupService.
+     *
+     * @param speculationCount the number of OMDB fetches started before the database had answered.
+     * @param missCount the number of those where the database did not have the movie.
+     * @param extraFetchCount the number of those where the database had the movie, so the OMDB call was not needed.
+     * @param timeSavedMillis the total time the misses got their OMDB fetch earlier than a sequential lookup would.
+     */
+    public SpeculationStats(long speculationCount, long missCount, long extraFetchCount, long timeSavedMillis) {
+        this.speculationCount = speculationCount;
+        this.missCount = missCount;
+        this.extraFetchCount = extraFetchCount;
+        this.timeSavedMillis = timeSavedMillis;
+    }
+
+    public long getSpeculationCount() {
+        return speculationCount;
+    }
+
+    /**
+     * Returns the number of speculative fetches that were needed, because the database did not have the movie.
+     * These lookups finished earlier than a sequential lookup would have.
+     *
+     * @return the number of speculative fetches that saved time.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the number of speculative fetches that used OMDB API quota without need, because the database
+     * had the movie after all.
+     *
+     * @return the number of extra OMDB calls.
+     */
+    public long getExtraFetchCount() {
+        return extraFetchCount;
+    }
+
+    public long getTimeSavedMillis() {
+        return timeSavedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "SpeculationStats{" + "speculations=" + speculationCount + ", misses=" + missCount +
+                ", extraFetches=" + extraFetchCount + ", timeSavedMillis=" + timeSavedMillis + '}';
+    }
+}
@@ -0,0 +1,464 @@
+package se.dsve.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se.dsve.AppConfig;
+import se.dsve.api.ApiService;
+import se.dsve.api.TitleResult;
+import se.dsve.classes.Movie;
+import se.dsve.dao.MoviesDAO;
+import se.dsve.helpers.Deadline;
+import se.dsve.helpers.TitleNormalizer;
+import se.dsve.index.TitleMatch;
+import se.dsve.index.TrigramIndex;
+
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public class TitleLookupService implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(TitleLookupService.class);
+    private static final int SUGGESTION_LIMIT = 5;
+    // Antal tecken i titeln per tillåten rättning när ett stavfel löses utan OMDB API
+    private static final int CHARACTERS_PER_CORRECTION = 4;
+
+    private final MoviesDAO moviesDAO;
+    private final ApiService apiService;
+    private final Duration ttl;
+    private final Duration lookupBudget;
+    private final LookupStrategy strategy;
+    private final Duration speculationDelay;
+    private final int fuzzyMaxDistance;
+    private final ExecutorService refreshExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    // Databasfrågor som körs parallellt med OMDB API vid spekulativa uppslag
+    private final ExecutorService raceExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Titlar som håller på att uppdateras i bakgrunden
+    private final Set<Integer> refreshesInFlight = ConcurrentHashMap.newKeySet();
+    private final AtomicLong staleHitCount = new AtomicLong();
+    private final AtomicLong refreshCount = new AtomicLong();
+    private final AtomicLong notModifiedCount = new AtomicLong();
+    // Samtidiga uppslag av samma titel delar på ett anrop till OMDB API och en skrivning till databas
+    private final SingleFlight<String, LookupResult> fetches = new SingleFlight<>();
+    private final Map<LookupResult.Stage, LongAdder> timeoutCounts = new EnumMap<>(LookupResult.Stage.class);
+    private final LongAdder speculationCount = new LongAdder();
+    private final LongAdder speculationMissCount = new LongAdder();
+    private final LongAdder extraFetchCount = new LongAdder();
+    private final LongAdder timeSavedNanos = new LongAdder();
+    private final LongAdder fuzzyResolvedCount = new LongAdder();
+
+    /**
+     * Constructs a new TitleLookupService using the catalog TTL from the .env file.
+     *
+     * @param moviesDAO the DAO used to read and store movies.
+     * @param apiService the service used to fetch movies from the OMDB API.
+     */
+    public TitleLookupService(MoviesDAO moviesDAO, ApiService apiService) {
+        this(moviesDAO, apiService, Duration.ofHours(AppConfig.getDbCatalogTtlHours()));
+    }
+
+    /**
+     * Constructs a new TitleLookupService with the specified time to live for stored movies.
+     *
+     * @param moviesDAO the DAO used to read and store movies.
+     * @param apiService the service used to fetch movies from the OMDB API.
+     * @param ttl how long a stored movie is considered fresh after it was fetched.
+     */
+    public TitleLookupService(MoviesDAO moviesDAO, ApiService apiService, Duration ttl) {
+        this(moviesDAO, apiService, ttl, LookupStrategy.fromAppConfig(),
+                Duration.ofMillis(AppConfig.getLookupSpeculationDelayMillis()));
+    }
+
+    /**
+     * Constructs a new TitleLookupService with the specified time to live and lookup strategy.
+     *
+     * <p>With {@link LookupStrategy#SPECULATIVE}, a lookup whose database query has not answered within
+     * {@code speculationDelay} starts the OMDB fetch in parallel, so a title that is not stored does not pay the
+     * whole database latency before the OMDB call starts. See {@link #lookup(String, Deadline)}.
+     *
+     * @param moviesDAO the DAO used to read and store movies.
+     * @param apiService the service used to fetch movies from the OMDB API.
+     * @param ttl how long a stored movie is considered fresh after it was fetched.
+     * @param strategy whether the database and the OMDB API are queried one after the other or raced.
+     * @param speculationDelay how long the database gets to answer before the OMDB fetch is started.
+     */
+    public TitleLookupService(MoviesDAO moviesDAO, ApiService apiService, Duration ttl, LookupStrategy strategy,
+                              Duration speculationDelay) {
+        this.moviesDAO = moviesDAO;
+        this.apiService = apiService;
+        this.ttl = ttl;
+        this.strategy = strategy;
+        this.speculationDelay = speculationDelay;
+        this.lookupBudget = Duration.ofMillis(AppConfig.getLookupBudgetMillis());
+        this.fuzzyMaxDistance = AppConfig.getLookupFuzzyMaxDistance();
+        for (LookupResult.Stage stage : LookupResult.Stage.values()) {
+            timeoutCounts.put(stage, new LongAdder());
+        }
+    }
+
+    /**
+     * Finds a movie by title, first in the database and then in the OMDB API.
+     *
+     * <p>A movie found in the database is returned right away. If it was fetched longer ago than the TTL,
+     * or its fetch time is unknown, a refresh from the OMDB API is started in the background
+     * (stale-while-revalidate), so the next lookup gets fresh data without anyone waiting for OMDB.
+     *
+     * <p>A movie that is not in the database is fetched from the OMDB API and stored before it is returned.
+     * Concurrent lookups of the same title key share one fetch and one database write.
+     *
+     * <p>The lookup runs within the time budget LOOKUP_BUDGET_MS, see {@link #lookup(String, Deadline)}.
+     *
+     * @param title the title of the movie to search for.
+     * @return the Movie, or null if it could not be found in the database or the OMDB API in time.
+     */
+    public Movie findByTitle(String title) {
+        return lookup(title, Deadline.after(lookupBudget)).getMovie();
+    }
+
+    /**
+     * Finds a movie by title within a deadline, first in the database and then in the OMDB API.
+     *
+     * <p>Works like {@link #findByTitle(String)}, but every stage only gets what is left of the budget: the
+     * database queries get it as their JDBC query timeout and the OMDB request as its HTTP request timeout. When the
+     * budget runs out the running stage is abandoned and the result tells which stage timed out. A movie that was
+     * fetched from the OMDB API but could not be stored in time is still returned, as a PARTIAL result.
+     *
+     * <p>Concurrent lookups of the same title share one fetch, which runs within the deadline of the first caller.
+     *
+     * <p>If the title is not stored but the title index of the DAO has exactly one closest stored title, that
+     * movie is returned without calling the OMDB API. This only happens when the titles differ in case, accents
+     * and punctuation, or in at most one character per four characters of the title and up to
+     * LOOKUP_FUZZY_MAX_DISTANCE characters, and never when their numbers differ, so "Alien 3" is not resolved to
+     * "Alien".
+     *
+     * <p>With the speculative strategy the database query runs on its own virtual thread. If it has not answered
+     * within the speculation delay, the OMDB fetch is started as well and the lookup takes whichever answer
+     * settles it first. A stored movie cancels the OMDB request together with its pending retries and hedges.
+     * A request that was already sent still counts against the OMDB quota and is shown as an extra fetch in
+     * {@link #getSpeculationStats()}. A fetched movie is stored without waiting for the database query, which is
+     * then left to finish within its query timeout and ignored.
+     *
+     * @param title the title of the movie to search for.
+     * @param deadline the deadline of the whole lookup.
+     * @return the LookupResult with the movie, or why there is none.
+     */
+    public LookupResult lookup(String title, Deadline deadline) {
+        if (strategy == LookupStrategy.SPECULATIVE) {
+            return fetches.execute(TitleNormalizer.titleKey(title), () -> speculativeLookup(title, deadline));
+        }
+
+        // Försöker hämta filmen från databas
+        List<Movie> movies = moviesDAO.findMovieInDatabaseByTitle(title, deadline);
+        if (!movies.isEmpty()) {
+            return fromDatabase(movies.get(0));
+        }
+        if (deadline.isExpired()) {
+            return timedOut(title, LookupResult.Stage.DB_READ);
+        }
+
+        // Ett stavfel löses mot en lagrad titel innan OMDB API anropas
+        LookupResult resolved = resolveSimilarTitle(title, deadline);
+        if (resolved != null) {
+            return resolved;
+        }
+
+        // Om filmen inte finns hämtas den från OMDB API och läggs till i databas
+        return fetches.execute(TitleNormalizer.titleKey(title), () -> fetchAndStore(title, deadline));
+    }
+
+    private LookupResult speculativeLookup(String title, Deadline deadline) {
+        CompletableFuture<List<Movie>> dbRead = CompletableFuture.supplyAsync(
+                () -> moviesDAO.findMovieInDatabaseByTitle(title, deadline), raceExecutor);
+
+        // Databasen får en kort stund att svara innan OMDB API startas
+        awaitFirst(deadline.cap(speculationDelay), dbRead);
+        if (dbRead.isDone()) {
+            List<Movie> movies = dbRead.join();
+            if (!movies.isEmpty()) {
+                return fromDatabase(movies.get(0));
+            }
+            if (deadline.isExpired()) {
+                return timedOut(title, LookupResult.Stage.DB_READ);
+            }
+            LookupResult resolved = resolveSimilarTitle(title, deadline);
+            if (resolved != null) {
+                return resolved;
+            }
+            return awaitAndStore(title, startFetch(title, deadline), deadline);
+        }
+
+        speculationCount.increment();
+        long speculationStart = System.nanoTime();
+        CompletableFuture<Movie> omdbFetch = startFetch(title, deadline);
+        dbRead.thenAccept(movies -> {
+            if (movies.isEmpty()) {
+                speculationMissCount.increment();
+                timeSavedNanos.add(System.nanoTime() - speculationStart);
+            } else {
+                extraFetchCount.increment();
+            }
+        });
+
+        // Det svar som först avgör uppslaget vinner, förloraren avbryts
+        awaitFirst(deadline.remaining(), dbRead, omdbFetch);
+        if (!dbRead.isDone() && !hasMovie(omdbFetch)) {
+            // OMDB hittade inget, databasen får sista ordet
+            awaitFirst(deadline.remaining(), dbRead);
+        }
+        if (dbRead.isDone() && !dbRead.join().isEmpty()) {
+            // Avbrottet når ända ner till HTTP-anropet i transporten
+            omdbFetch.cancel(true);
+            return fromDatabase(dbRead.join().get(0));
+        }
+        return awaitAndStore(title, omdbFetch, deadline);
+    }
+
+    private LookupResult fromDatabase(Movie movie) {
+        if (isStale(movie)) {
+            staleHitCount.incrementAndGet();
+            scheduleRefresh(movie);
+        }
+        return LookupResult.found(movie);
+    }
+
+    private LookupResult resolveSimilarTitle(String title, Deadline deadline) {
+        List<TitleMatch> matches = moviesDAO.findSimilarTitles(title, fuzzyMaxDistance, 2);
+        if (matches.isEmpty()) {
+            return null;
+        }
+
+        // Lika nära titlar gör rättningen osäker, då får OMDB API avgöra
+        TitleMatch best = matches.get(0);
+        if (matches.size() > 1 && matches.get(1).getDistance() == best.getDistance()) {
+            return null;
+        }
+        if (!isSafeCorrection(title, best)) {
+            return null;
+        }
+        List<Movie> movies = moviesDAO.findMovieInDatabaseByTitle(best.getTitle(), deadline);
+        if (movies.isEmpty()) {
+            return null;
+        }
+        fuzzyResolvedCount.increment();
+        logger.info("Resolved title '{}' to the stored title '{}' ({} edit(s))", title, best.getTitle(), best.getDistance());
+        return fromDatabase(movies.get(0));
+    }
+
+    private static boolean isSafeCorrection(String title, TitleMatch match) {
+        String key = TrigramIndex.normalize(title);
+        return match.getDistance() <= key.length() / CHARACTERS_PER_CORRECTION
+                && digitsOf(key).equals(digitsOf(TrigramIndex.normalize(match.getTitle())));
+    }
+
+    private static String digitsOf(String text) {
+        StringBuilder digits = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isDigit(text.charAt(i))) {
+                digits.append(text.charAt(i));
+            }
+        }
+        return digits.toString();
+    }
+
+    private LookupResult fetchAndStore(String title, Deadline deadline) {
+        // Kontrollerar databas igen, ett nyss avslutat anrop kan redan ha lagt till filmen
+        List<Movie> movies = moviesDAO.findMovieInDatabaseByTitle(title, deadline);
+        if (!movies.isEmpty()) {
+            return LookupResult.found(movies.get(0));
+        }
+        return awaitAndStore(title, startFetch(title, deadline), deadline);
+    }
+
+    private CompletableFuture<Movie> startFetch(String title, Deadline deadline) {
+        try {
+            return apiService.getDataByTitleAsync(title, deadline);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private LookupResult awaitAndStore(String title, CompletableFuture<Movie> omdbFetch, Deadline deadline) {
+        Movie movie;
+        try {
+            movie = omdbFetch.orTimeout(deadline.remaining().toMillis(), TimeUnit.MILLISECONDS).join();
+        } catch (CompletionException e) {
+            if (deadline.isExpired() || e.getCause() instanceof TimeoutException || e.getCause() instanceof HttpTimeoutException) {
+                return timedOut(title, LookupResult.Stage.OMDB_FETCH);
+            }
+            // Loggar undantag
+            logger.error("Error fetching movie '{}' from the OMDB API: {}", title, e.getCause().getMessage(), e.getCause());
+            return LookupResult.error();
+        }
+        if (movie == null) {
+            return LookupResult.notFound();
+        }
+
+        // Filmen lämnas ut även om den inte hinner sparas
+        if (deadline.isExpired() || (!moviesDAO.addMovieToDatabase(movie, deadline) && deadline.isExpired())) {
+            timedOut(title, LookupResult.Stage.DB_WRITE);
+            return LookupResult.partial(movie, LookupResult.Stage.DB_WRITE);
+        }
+        return LookupResult.found(movie);
+    }
+
+    private LookupResult timedOut(String title, LookupResult.Stage stage) {
+        timeoutCounts.get(stage).increment();
+        logger.warn("Lookup of '{}' ran out of its time budget during {}", title, stage);
+        return LookupResult.timedOut(stage);
+    }
+
+    private static void awaitFirst(Duration timeout, CompletableFuture<?>... futures) {
+        try {
+            CompletableFuture.anyOf(futures).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // Anroparen läser av resultatet själv
+        }
+    }
+
+    private static boolean hasMovie(CompletableFuture<Movie> omdbFetch) {
+        return omdbFetch.isDone() && !omdbFetch.isCompletedExceptionally() && omdbFetch.join() != null;
+    }
+
+    private boolean isStale(Movie movie) {
+        Instant fetchedAt = movie.getFetchedAt();
+        return fetchedAt == null || fetchedAt.plus(ttl).isBefore(Instant.now());
+    }
+
+    private void scheduleRefresh(Movie stored) {
+        Integer id = stored.getId();
+        // Filmer som inte har skrivits till databasen än har ingen rad att uppdatera,
+        // och bara en uppdatering per rad startas åt gången
+        if (id == null || !refreshesInFlight.add(id)) {
+            return;
+        }
+        String title = stored.getTitle();
+        refreshExecutor.execute(() -> {
+            try {
+                // Frågar OMDB API om filmen har ändrats, oförändrade filmer kostar bara ett 304-svar
+                TitleResult result = apiService.revalidateAsync(stored).join();
+                if (result.getStatus() == TitleResult.Status.FOUND && moviesDAO.refreshMovie(id, result.getMovie()) > 0) {
+                    refreshCount.incrementAndGet();
+                } else {
+                    // Oförändrad, okänd eller ej uppdaterbar film, vänta en hel TTL innan nästa försök
+                    moviesDAO.markMovieFresh(id, Instant.now());
+                    if (result.getStatus() == TitleResult.Status.NOT_MODIFIED) {
+                        notModifiedCount.incrementAndGet();
+                    }
+                }
+            } catch (RuntimeException e) {
+                logger.error("Error refreshing movie '{}' from the OMDB API: {}", title, e.getMessage(), e);
+            } finally {
+                refreshesInFlight.remove(id);
+            }
+        });
+    }
+
+    /**
+     * Returns how many lookups were served a stale movie from the database.
+     *
+     * @return the number of stale hits.
+     */
+    public long getStaleHitCount() {
+        return staleHitCount.get();
+    }
+
+    /**
+     * Returns how many lookups shared the result of a fetch that another lookup had already started.
+     *
+     * @return the number of coalesced lookups.
+     */
+    public long getCoalescedCount() {
+        return fetches.getSharedCount();
+    }
+
+    /**
+     * Returns how many lookups ran out of their time budget during a stage.
+     *
+     * @param stage the stage to count timeouts for.
+     * @return the number of timeouts in the stage.
+     */
+    public long getTimeoutCount(LookupResult.Stage stage) {
+        return timeoutCounts.get(stage).sum();
+    }
+
+    /**
+     * Returns a snapshot of how often speculative lookups started an OMDB fetch early, how much time that saved
+     * and how many OMDB calls it spent on movies that were stored after all.
+     *
+     * @return the current SpeculationStats.
+     */
+    public SpeculationStats getSpeculationStats() {
+        return new SpeculationStats(speculationCount.sum(), speculationMissCount.sum(), extraFetchCount.sum(),
+                TimeUnit.NANOSECONDS.toMillis(timeSavedNanos.sum()));
+    }
+
+    /**
+     * Returns stored titles that are close to a title, to suggest when the title could not be found.
+     *
+     * <p>The suggestions come from the in-memory title index of the DAO and cost no database query or OMDB call.
+     *
+     * @param title the title that was searched for.
+     * @return up to five stored titles within LOOKUP_FUZZY_MAX_DISTANCE edits, closest first.
+     */
+    public List<String> suggestTitles(String title) {
+        List<String> suggestions = new ArrayList<>();
+        for (TitleMatch match : moviesDAO.findSimilarTitles(title, fuzzyMaxDistance, SUGGESTION_LIMIT)) {
+            suggestions.add(match.getTitle());
+        }
+        return suggestions;
+    }
+
+    /**
+     * Returns how many lookups of a title that was not stored were resolved to a similar stored title without
+     * calling the OMDB API.
+     *
+     * @return the number of resolved misspellings.
+     */
+    public long getFuzzyResolvedCount() {
+        return fuzzyResolvedCount.sum();
+    }
+
+    /**
+     * Returns how many background refreshes updated the database.
+     *
+     * @return the number of completed refreshes.
+     */
+    public long getRefreshCount() {
+        return refreshCount.get();
+    }
+
+    /**
+     * Returns how many background refreshes found the movie unchanged in the OMDB API and only marked it fresh.
+     *
+     * @return the number of refreshes answered with 304 Not Modified.
+     */
+    public long getNotModifiedCount() {
+        return notModifiedCount.get();
+    }
+
+    /**
+     * Waits for running background refreshes and database queries and stops their executors.
+     */
+    @Override
+    public void close() {
+        refreshExecutor.close();
+        raceExecutor.close();
+    }
+}
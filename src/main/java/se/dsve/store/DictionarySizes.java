@@ -0,0 +1,38 @@
+package se.dsve.store;
+
+public class DictionarySizes {
+    private final int directorCount;
+    private final int genreCount;
+    private final int actorCount;
+
+    /**
+     * Constructs a snapshot of the dictionary sizes of a {@link MovieColumnStore}.
+     *
+     * @param directorCount the number of distinct directors.
+     * @param genreCount the number of distinct genres.
+     * @param actorCount the number of distinct actors.
+     */
+    public DictionarySizes(int directorCount, int genreCount, int actorCount) {
+        this.directorCount = directorCount;
+        this.genreCount = genreCount;
+        this.actorCount = actorCount;
+    }
+
+    public int getDirectorCount() {
+        return directorCount;
+    }
+
+    public int getGenreCount() {
+        return genreCount;
+    }
+
+    public int getActorCount() {
+        return actorCount;
+    }
+
+    @Override
+    public String toString() {
+        return "DictionarySizes{" + "directors=" + directorCount + ", genres=" + genreCount +
+                ", actors=" + actorCount + '}';
+    }
+}
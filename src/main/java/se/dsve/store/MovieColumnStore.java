@@ -0,0 +1,372 @@
+package se.dsve.store;
+
+import se.dsve.classes.Movie;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+public class MovieColumnStore implements Iterable<Movie> {
+    private static final int NULL_CODE = -1;
+    private static final String ACTOR_SEPARATOR = ", ";
+
+    private final Utf8Column titles = new Utf8Column();
+    private final Utf8Column imdbIds = new Utf8Column();
+    private final StringDictionary directorDictionary = new StringDictionary();
+    private final StringDictionary genreDictionary = new StringDictionary();
+    private final StringDictionary actorDictionary = new StringDictionary();
+    private int[] years;
+    private int[] directors;
+    private int[] genres;
+    // Skådespelarna för rad i ligger i actorCodes mellan actorEnds[i - 1] och actorEnds[i]
+    private int[] actorEnds;
+    private int[] actorCodes = new int[64];
+    private int actorCount;
+    private int size;
+
+    /**
+     * Constructs a new, empty MovieColumnStore.
+     */
+    public MovieColumnStore() {
+        this(16);
+    }
+
+    /**
+     * Constructs a new, empty MovieColumnStore with room for a number of movies before its columns grow.
+     *
+     * <p>The store keeps movies column by column instead of as one {@link Movie} object each. Years are held in
+     * an int array. Directors, genres and individual actors are dictionary-encoded: every distinct string is held
+     * once and the rows hold int codes, so a director of a hundred movies costs one string and a hundred ints.
+     * Titles and imdbIDs, which rarely repeat, are packed as UTF-8 into one byte array per column.
+     *
+     * <p>{@code Movie} objects are only created when a row is read through {@link #getMovie(int)}, the
+     * {@link #iterator()} or {@link Cursor#toMovie()}. The HTTP validators and fetch time of a movie are not kept,
+     * since the store only serves catalog data.
+     *
+     * <p>Rows are added by one thread. Once the store is filled and handed over safely, for example through a
+     * final field or a concurrent collection, any number of threads can read it.
+     *
+     * @param initialCapacity the number of movies the columns have room for at first.
+     */
+    public MovieColumnStore(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        this.years = new int[capacity];
+        this.directors = new int[capacity];
+        this.genres = new int[capacity];
+        this.actorEnds = new int[capacity];
+    }
+
+    /**
+     * Adds a movie as the next row.
+     *
+     * <p>The actors are split on commas and stored one by one, so they are read back joined with ", " whatever
+     * spacing they had. A movie without actors is read back with null actors.
+     *
+     * @param movie the movie to add.
+     * @return the row number of the movie.
+     */
+    public int add(Movie movie) {
+        if (size == years.length) {
+            int capacity = size * 2;
+            years = Arrays.copyOf(years, capacity);
+            directors = Arrays.copyOf(directors, capacity);
+            genres = Arrays.copyOf(genres, capacity);
+            actorEnds = Arrays.copyOf(actorEnds, capacity);
+        }
+
+        titles.add(movie.getTitle());
+        imdbIds.add(movie.getImdbId());
+        years[size] = movie.getYear();
+        directors[size] = encode(directorDictionary, movie.getDirector());
+        genres[size] = encode(genreDictionary, movie.getGenre());
+        if (movie.getActors() != null) {
+            for (String actor : movie.getActors().split(",")) {
+                String name = actor.trim();
+                if (!name.isEmpty()) {
+                    addActor(actorDictionary.encode(name));
+                }
+            }
+        }
+        actorEnds[size] = actorCount;
+        return size++;
+    }
+
+    /**
+     * Adds every movie of a collection, in order.
+     *
+     * @param movies the movies to add.
+     */
+    public void addAll(Iterable<Movie> movies) {
+        for (Movie movie : movies) {
+            add(movie);
+        }
+    }
+
+    /**
+     * Releases the unused capacity of the columns. Call it when no more movies will be added, it is safe to add
+     * more afterwards.
+     */
+    public void trimToSize() {
+        int capacity = Math.max(1, size);
+        years = Arrays.copyOf(years, capacity);
+        directors = Arrays.copyOf(directors, capacity);
+        genres = Arrays.copyOf(genres, capacity);
+        actorEnds = Arrays.copyOf(actorEnds, capacity);
+        actorCodes = Arrays.copyOf(actorCodes, Math.max(1, actorCount));
+        titles.trim();
+        imdbIds.trim();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Creates a Movie with the data of a row.
+     *
+     * @param row the row number, between 0 and {@link #size()}.
+     * @return a new Movie object.
+     */
+    public Movie getMovie(int row) {
+        checkRow(row);
+        Movie movie = new Movie(titles.get(row), years[row], actorsOf(row),
+                decode(directorDictionary, directors[row]), decode(genreDictionary, genres[row]));
+        movie.setImdbId(imdbIds.get(row));
+        return movie;
+    }
+
+    public String getTitle(int row) {
+        checkRow(row);
+        return titles.get(row);
+    }
+
+    public int getYear(int row) {
+        checkRow(row);
+        return years[row];
+    }
+
+    public String getDirector(int row) {
+        checkRow(row);
+        return decode(directorDictionary, directors[row]);
+    }
+
+    public String getGenre(int row) {
+        checkRow(row);
+        return decode(genreDictionary, genres[row]);
+    }
+
+    /**
+     * Returns the actors of a row one by one.
+     *
+     * @param row the row number, between 0 and {@link #size()}.
+     * @return the names of the actors, empty if the movie has none.
+     */
+    public List<String> getActors(int row) {
+        checkRow(row);
+        int start = row == 0 ? 0 : actorEnds[row - 1];
+        List<String> actors = new ArrayList<>(actorEnds[row] - start);
+        for (int i = start; i < actorEnds[row]; i++) {
+            actors.add(actorDictionary.decode(actorCodes[i]));
+        }
+        return actors;
+    }
+
+    /**
+     * Returns the number of distinct directors, genres and actors held in the dictionaries.
+     *
+     * @return a DictionarySizes snapshot.
+     */
+    public DictionarySizes getDictionarySizes() {
+        return new DictionarySizes(directorDictionary.size(), genreDictionary.size(), actorDictionary.size());
+    }
+
+    /**
+     * Returns a cursor over the rows. Reading the year, director, genre or actors through the cursor creates no
+     * objects, and a Movie is only created for the rows passed to {@link Cursor#toMovie()}.
+     *
+     * @return a new Cursor placed before the first row.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Returns an iterator that creates the Movie of each row when it is reached.
+     *
+     * @return a new iterator over all rows.
+     */
+    @Override
+    public Iterator<Movie> iterator() {
+        return new Iterator<>() {
+            private int row;
+
+            @Override
+            public boolean hasNext() {
+                return row < size;
+            }
+
+            @Override
+            public Movie next() {
+                if (row >= size) {
+                    throw new NoSuchElementException();
+                }
+                return getMovie(row++);
+            }
+        };
+    }
+
+    private void addActor(int code) {
+        if (actorCount == actorCodes.length) {
+            actorCodes = Arrays.copyOf(actorCodes, Math.max(64, actorCount * 2));
+        }
+        actorCodes[actorCount++] = code;
+    }
+
+    private String actorsOf(int row) {
+        int start = row == 0 ? 0 : actorEnds[row - 1];
+        if (start == actorEnds[row]) {
+            return null;
+        }
+        StringBuilder actors = new StringBuilder(actorDictionary.decode(actorCodes[start]));
+        for (int i = start + 1; i < actorEnds[row]; i++) {
+            actors.append(ACTOR_SEPARATOR).append(actorDictionary.decode(actorCodes[i]));
+        }
+        return actors.toString();
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " is outside the store of size " + size);
+        }
+    }
+
+    private static int encode(StringDictionary dictionary, String value) {
+        return value == null ? NULL_CODE : dictionary.encode(value);
+    }
+
+    private static String decode(StringDictionary dictionary, int code) {
+        return code == NULL_CODE ? null : dictionary.decode(code);
+    }
+
+    /**
+     * Forward-only view of one row at a time.
+     *
+     * <p>Filters that compare directors, genres or actors look the name up once with {@code directorCode},
+     * {@code genreCode} or {@code actorCode} and then compare ints per row. A cursor is used by one thread.
+     */
+    public final class Cursor {
+        private int row = -1;
+
+        private Cursor() {
+        }
+
+        /**
+         * Moves to the next row.
+         *
+         * @return true if there was a next row, false if the cursor is past the last row.
+         */
+        public boolean next() {
+            if (row < size) {
+                row++;
+            }
+            return row < size;
+        }
+
+        public int row() {
+            return row;
+        }
+
+        public int year() {
+            return years[row];
+        }
+
+        public String title() {
+            return titles.get(row);
+        }
+
+        public String director() {
+            return decode(directorDictionary, directors[row]);
+        }
+
+        public String genre() {
+            return decode(genreDictionary, genres[row]);
+        }
+
+        /**
+         * Returns true if the director of the row is the director with the given code.
+         *
+         * @param code a code from {@link #directorCode(String)}.
+         * @return whether the row has that director.
+         */
+        public boolean hasDirector(int code) {
+            return code != NULL_CODE && directors[row] == code;
+        }
+
+        /**
+         * Returns true if the genre of the row is the genre with the given code.
+         *
+         * @param code a code from {@link #genreCode(String)}.
+         * @return whether the row has that genre.
+         */
+        public boolean hasGenre(int code) {
+            return code != NULL_CODE && genres[row] == code;
+        }
+
+        /**
+         * Returns true if the actor with the given code is one of the actors of the row.
+         *
+         * @param code a code from {@link #actorCode(String)}.
+         * @return whether the actor plays in the movie of the row.
+         */
+        public boolean hasActor(int code) {
+            int start = row == 0 ? 0 : actorEnds[row - 1];
+            for (int i = start; i < actorEnds[row]; i++) {
+                if (actorCodes[i] == code) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Returns the code of a director, as exactly stored, for {@link #hasDirector(int)}.
+         *
+         * @param director the director to look up.
+         * @return the code, or -1 if no row has that director, which matches no row.
+         */
+        public int directorCode(String director) {
+            return directorDictionary.codeOf(director);
+        }
+
+        /**
+         * Returns the code of a genre, as exactly stored, for {@link #hasGenre(int)}.
+         *
+         * @param genre the genre to look up.
+         * @return the code, or -1 if no row has that genre, which matches no row.
+         */
+        public int genreCode(String genre) {
+            return genreDictionary.codeOf(genre);
+        }
+
+        /**
+         * Returns the code of an actor, as exactly stored, for {@link #hasActor(int)}.
+         *
+         * @param actor the actor to look up.
+         * @return the code, or -1 if no row has that actor, which matches no row.
+         */
+        public int actorCode(String actor) {
+            return actorDictionary.codeOf(actor.trim());
+        }
+
+        /**
+         * Creates a Movie with the data of the current row.
+         *
+         * @return a new Movie object.
+         */
+        public Movie toMovie() {
+            return getMovie(row);
+        }
+    }
+}
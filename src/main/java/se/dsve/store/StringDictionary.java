@@ -0,0 +1,85 @@
+package se.dsve.store;
+
+import java.util.Arrays;
+
+/**
+ * Assigns every distinct string a dense int code, so a column can hold codes instead of repeated strings.
+ *
+ * <p>Codes are given out from zero in the order the strings are first seen. Each distinct string is held once,
+ * however many rows use it. Strings are found through an open-addressing table of codes with linear probing,
+ * so the dictionary costs no map entries or boxed codes per string.
+ */
+final class StringDictionary {
+    private static final int EMPTY = -1;
+
+    private String[] values = new String[16];
+    // Kod per plats, tabellen hålls högst halvfull
+    private int[] table = newTable(32);
+    private int size;
+
+    /**
+     * Returns the code of a string, giving it the next free code the first time it is seen.
+     */
+    int encode(String value) {
+        int slot = slotOf(value);
+        if (table[slot] != EMPTY) {
+            return table[slot];
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size] = value;
+        table[slot] = size;
+        if (++size * 2 > table.length) {
+            rehash();
+        }
+        return size - 1;
+    }
+
+    /**
+     * Returns the code of a string, or -1 if it has never been encoded.
+     */
+    int codeOf(String value) {
+        return table[slotOf(value)];
+    }
+
+    String decode(int code) {
+        return values[code];
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int slotOf(String value) {
+        int mask = table.length - 1;
+        int slot = spread(value.hashCode()) & mask;
+        while (table[slot] != EMPTY && !values[table[slot]].equals(value)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        table = newTable(table.length * 2);
+        int mask = table.length - 1;
+        for (int code = 0; code < size; code++) {
+            int slot = spread(values[code].hashCode()) & mask;
+            while (table[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = code;
+        }
+    }
+
+    private static int[] newTable(int length) {
+        int[] table = new int[length];
+        Arrays.fill(table, EMPTY);
+        return table;
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+}
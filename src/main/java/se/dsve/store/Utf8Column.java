@@ -0,0 +1,55 @@
+package se.dsve.store;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Column of mostly distinct strings packed as UTF-8 into one growing byte array.
+ *
+ * <p>Row {@code i} is the bytes between {@code offsets[i]} and {@code offsets[i + 1]}. A null value is stored
+ * as a negative end offset, so null and the empty string stay apart. Strings are only created when a row is read.
+ */
+final class Utf8Column {
+    private byte[] bytes = new byte[1024];
+    private int[] ends = new int[16];
+    private int length;
+    private int size;
+
+    void add(String value) {
+        if (size == ends.length) {
+            ends = Arrays.copyOf(ends, Math.max(16, size * 2));
+        }
+        if (value == null) {
+            ends[size++] = ~length;
+            return;
+        }
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        if (length + encoded.length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + encoded.length));
+        }
+        System.arraycopy(encoded, 0, bytes, length, encoded.length);
+        length += encoded.length;
+        ends[size++] = length;
+    }
+
+    String get(int row) {
+        int end = ends[row];
+        if (end < 0) {
+            return null;
+        }
+        int start = row == 0 ? 0 : startOf(ends[row - 1]);
+        return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Releases the unused capacity of the arrays, for when no more rows will be added.
+     */
+    void trim() {
+        bytes = Arrays.copyOf(bytes, length);
+        ends = Arrays.copyOf(ends, size);
+    }
+
+    private static int startOf(int previousEnd) {
+        return previousEnd < 0 ? ~previousEnd : previousEnd;
+    }
+}
@@ -3,6 +3,8 @@ package se.dsve;
 import static org.junit.jupiter.api.Assertions.*;
 
 import org.junit.jupiter.api.*;
+import se.dsve.dao.MoviesDAO;
+import se.dsve.pool.ConnectionPoolConfig;
 
 import javax.xml.transform.Result;
 import java.sql.*;
@@ -54,4 +56,26 @@ class DatabaseTest {
         assertNotNull(testConnection, "Connection should not be null");
         assertTrue(testConnection.isValid(5), "Connection should be valid");
     }
+
+    @Test
+    @DisplayName("An exhausted pool throws instead of handing out a null connection")
+    void getConnection_WhenPoolExhausted_ThenThrowsAndDaoReturnsEmpty() throws SQLException {
+        // Arrange
+        ConnectionPoolConfig config = new ConnectionPoolConfig();
+        config.setMinSize(1);
+        config.setMaxSize(1);
+        config.setBorrowTimeoutMillis(100);
+        try (Database smallDatabase = new Database("jdbc:h2:mem:exhausted;DB_CLOSE_DELAY=-1", DB_NAME, USER,
+                PASSWORD, config)) {
+            MoviesDAO moviesDAO = new MoviesDAO(smallDatabase);
+
+            // Act
+            try (Connection held = smallDatabase.getConnection()) {
+                // Assert
+                assertFalse(held.isClosed());
+                assertThrows(SQLTimeoutException.class, smallDatabase::getConnection);
+                assertTrue(moviesDAO.findMovieInDatabaseByTitle("Heat").isEmpty());
+            }
+        }
+    }
 }
\ No newline at end of file
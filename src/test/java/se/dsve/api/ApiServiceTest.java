@@ -10,12 +10,21 @@ import java.io.*;
 import java.lang.reflect.Type;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -81,4 +90,285 @@ class ApiServiceTest {
         assertEquals(movie.getDirector(), result.get("Director"));
         assertEquals(movie.getGenre(), result.get("Genre"));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Get movie data asynchronously from a local OMDB stub")
+    void getDataByTitleAsync_WhenFound_ThenCompletesWithMovie() throws Exception {
+        // Arrange
+        String filePath = "src/test/resources/apiservicetest_reference_omdb_data.json";
+        Map<String, String> result = convertJsonFileToMap(filePath);
+        try (StubOmdbServer server = new StubOmdbServer();
+             JdkHttpTransport transport = new JdkHttpTransport(Duration.ofSeconds(1), Duration.ofSeconds(2))) {
+            server.addMovie("Guardians of the Galaxy Vol. 2", Files.readString(Path.of(filePath)));
+            ApiService service = new ApiService(transport, server.baseUrl(), "test");
+
+            // Act
+            Movie movie = service.getDataByTitleAsync("Guardians of the Galaxy Vol. 2").get(5, TimeUnit.SECONDS);
+
+            // Assert
+            assertEquals(result.get("Title"), movie.getTitle());
+            assertEquals(result.get("Director"), movie.getDirector());
+            assertEquals(result.get("imdbID"), movie.getImdbId());
+        }
+    }
+
+    @Test
+    @DisplayName("Compressed OMDB responses are decoded and the saved bytes are counted")
+    void getDataByTitleAsync_WhenResponseIsCompressed_ThenDecodesBody() throws Exception {
+        // Arrange
+        String filePath = "src/test/resources/apiservicetest_reference_omdb_data.json";
+        Map<String, String> result = convertJsonFileToMap(filePath);
+        try (StubOmdbServer server = new StubOmdbServer();
+             JdkHttpTransport transport = new JdkHttpTransport(Duration.ofSeconds(1), Duration.ofSeconds(2))) {
+            server.addMovie("Guardians of the Galaxy Vol. 2", Files.readString(Path.of(filePath)));
+            ApiService service = new ApiService(transport, server.baseUrl(), "test");
+
+            for (String contentEncoding : List.of("gzip", "deflate")) {
+                server.contentEncoding = contentEncoding;
+
+                // Act
+                Movie movie = service.getDataByTitleAsync("Guardians of the Galaxy Vol. 2").get(5, TimeUnit.SECONDS);
+
+                // Assert
+                assertEquals(result.get("Director"), movie.getDirector(), contentEncoding);
+            }
+            TransferStats stats = transport.stats();
+            assertEquals(2, stats.getCompressedResponseCount());
+            assertTrue(stats.getBytesSaved() > 0, "compression should save bytes: " + stats);
+        }
+    }
+
+    @Test
+    @DisplayName("An unchanged movie is revalidated with a 304 instead of a full download")
+    void revalidateAsync_WhenEtagMatches_ThenNotModified() throws Exception {
+        // Arrange
+        try (StubOmdbServer server = new StubOmdbServer();
+             JdkHttpTransport transport = new JdkHttpTransport(Duration.ofSeconds(1), Duration.ofSeconds(2))) {
+            server.addMovie("Heat", movieJson("Heat"));
+            server.setEtag("Heat", "\"v1\"");
+            ApiService service = new ApiService(transport, server.baseUrl(), "test");
+            Movie stored = service.getDataByTitleAsync("Heat").get(5, TimeUnit.SECONDS);
+
+            // Act
+            TitleResult unchanged = service.revalidateAsync(stored).get(5, TimeUnit.SECONDS);
+            server.setEtag("Heat", "\"v2\"");
+            TitleResult changed = service.revalidateAsync(stored).get(5, TimeUnit.SECONDS);
+
+            // Assert
+            assertEquals("\"v1\"", stored.getEtag());
+            assertEquals(TitleResult.Status.NOT_MODIFIED, unchanged.getStatus());
+            assertEquals(TitleResult.Status.FOUND, changed.getStatus());
+            assertEquals("\"v2\"", changed.getMovie().getEtag());
+            assertEquals(2, transport.stats().getConditionalRequestCount());
+            assertEquals(1, transport.stats().getNotModifiedCount());
+        }
+    }
+
+    @Test
+    @DisplayName("A movie with an imdbID is revalidated by its id, not by its title")
+    void revalidateAsync_WhenImdbIdKnown_ThenAsksById() throws Exception {
+        // Arrange
+        try (StubOmdbServer server = new StubOmdbServer();
+             JdkHttpTransport transport = new JdkHttpTransport(Duration.ofSeconds(1), Duration.ofSeconds(2))) {
+            server.addMovie("Dune", movieJson("Dune"));
+            server.addSearchResults("Dune", 1);
+            ApiService service = new ApiService(transport, server.baseUrl(), "test");
+            Movie stored = new Movie("Dune", 2000, "Actor", "Director", "Drama");
+            stored.setImdbId("tt1");
+
+            // Act
+            TitleResult result = service.revalidateAsync(stored).get(5, TimeUnit.SECONDS);
+
+            // Assert
+            assertEquals(TitleResult.Status.FOUND, result.getStatus());
+            assertEquals("Dune 1", result.getMovie().getTitle());
+        }
+    }
+
+    @Test
+    @DisplayName("A slow OMDB response times out instead of hanging")
+    void getDataByTitle_WhenResponseTooSlow_ThenReturnsNull() throws IOException {
+        // Arrange
+        try (StubOmdbServer server = new StubOmdbServer();
+             JdkHttpTransport transport = new JdkHttpTransport(Duration.ofSeconds(1), Duration.ofMillis(200))) {
+            server.delay = Duration.ofSeconds(3);
+            ApiService service = new ApiService(transport, server.baseUrl(), "test");
+
+            // Act
+            long start = System.nanoTime();
+            Movie movie = service.getDataByTitle("Heat");
+
+            // Assert
+            assertNull(movie);
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2), "Request should time out");
+        }
+    }
+
+    private static String movieJson(String title) {
+        return "{\"Title\":\"" + title + "\",\"Year\":\"2000\",\"Actors\":\"Actor\",\"Director\":\"Director\"," +
+                "\"Genre\":\"Drama\",\"Response\":\"True\"}";
+    }
+
+    @Test
+    @DisplayName("Bulk lookup reports found, not found and failed titles")
+    void getDataByTitles_ReturnsOneResultPerTitle() throws IOException {
+        // Arrange
+        try (StubOmdbServer server = new StubOmdbServer();
+             JdkHttpTransport transport = new JdkHttpTransport(Duration.ofSeconds(1), Duration.ofSeconds(2))) {
+            server.addMovie("Heat", movieJson("Heat"));
+            server.failTitle("Broken");
+            ApiService service = new ApiService(transport, server.baseUrl(), "test", new RateLimiter(1_000, 100, 0), 4);
+            List<TitleResult> reported = new ArrayList<>();
+
+            // Act
+            List<TitleResult> results = service.getDataByTitles(List.of("Heat", "Missing", "Broken", "Heat"), reported::add);
+
+            // Assert
+            Map<String, TitleResult.Status> statuses = results.stream()
+                    .collect(Collectors.toMap(TitleResult::getTitle, TitleResult::getStatus));
+            assertEquals(Map.of("Heat", TitleResult.Status.FOUND, "Missing", TitleResult.Status.NOT_FOUND,
+                    "Broken", TitleResult.Status.ERROR), statuses);
+            assertEquals(results, reported);
+            assertEquals(3, server.requestCount.get());
+        }
+    }
+
+    @Test
+    @DisplayName("Bulk lookup respects the concurrency cap, rate limit and daily quota")
+    void getDataByTitles_RespectsConcurrencyCapAndRateLimit() throws IOException {
+        // Arrange
+        try (StubOmdbServer server = new StubOmdbServer();
+             JdkHttpTransport transport = new JdkHttpTransport(Duration.ofSeconds(1), Duration.ofSeconds(2))) {
+            server.delay = Duration.ofMillis(50);
+            List<String> titles = IntStream.range(0, 30).mapToObj(i -> "Movie " + i).toList();
+            titles.forEach(title -> server.addMovie(title, movieJson(title)));
+            ApiService service = new ApiService(transport, server.baseUrl(), "test", new RateLimiter(100, 10, 25), 3);
+
+            // Act
+            long start = System.nanoTime();
+            List<TitleResult> results = service.getDataByTitles(titles);
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            // Assert
+            assertEquals(30, results.size());
+            assertEquals(25, results.stream().filter(result -> result.getStatus() == TitleResult.Status.FOUND).count());
+            assertEquals(5, results.stream().filter(result -> result.getStatus() == TitleResult.Status.ERROR).count());
+            assertTrue(server.maxInFlight.get() <= 3, "At most 3 requests should be in flight");
+            // 25 anrop med högst 3 samtidigt och 50 ms per svar tar minst 9 omgångar
+            assertTrue(elapsedMillis >= 400, "Requests should be throttled, took " + elapsedMillis + " ms");
+        }
+    }
+
+    @Test
+    @DisplayName("Cached lookups reuse found and not found answers")
+    void cachingApiService_WhenTitleLookedUpAgain_ThenServedFromCache() throws IOException {
+        // Arrange
+        try (StubOmdbServer server = new StubOmdbServer();
+             JdkHttpTransport transport = new JdkHttpTransport(Duration.ofSeconds(1), Duration.ofSeconds(2))) {
+            server.addMovie("Heat", movieJson("Heat"));
+            CachingApiService service = new CachingApiService(transport, server.baseUrl(), "test",
+                    100, Duration.ofMinutes(1), Duration.ofMinutes(1));
+
+            // Act
+            Movie first = service.getDataByTitle("Heat");
+            Movie second = service.getDataByTitle("  HEAT ");
+            Movie missing = service.getDataByTitle("Missing");
+            Movie missingAgain = service.getDataByTitle("missing");
+
+            // Assert
+            assertEquals("Heat", first.getTitle());
+            assertEquals("Heat", second.getTitle());
+            assertNull(missing);
+            assertNull(missingAgain);
+            assertEquals(2, server.requestCount.get());
+            assertEquals(2, service.getCacheStats().getHitCount());
+            assertEquals(2, service.getCacheStats().getMissCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Search fetches pages lazily with a bounded prefetch")
+    void search_WhenPartlyConsumed_ThenPrefetchesBoundedNumberOfPages() throws Exception {
+        // Arrange
+        try (StubOmdbServer server = new StubOmdbServer();
+             JdkHttpTransport transport = new JdkHttpTransport(Duration.ofSeconds(1), Duration.ofSeconds(2))) {
+            server.addSearchResults("Batman", 95);
+            ApiService service = new ApiService(transport, server.baseUrl(), "test");
+            SearchQuery query = new SearchQuery("Batman");
+            query.setPrefetchPages(2);
+
+            // Act
+            List<SearchHit> firstHits;
+            try (Stream<SearchHit> hits = service.search(query)) {
+                firstHits = hits.limit(5).toList();
+                Thread.sleep(200);
+            }
+            List<Integer> pagesAfterFirstHits = List.copyOf(server.requestedSearchPages);
+            List<SearchHit> allHits;
+            try (Stream<SearchHit> hits = service.search(query)) {
+                allHits = hits.toList();
+            }
+
+            // Assert
+            assertEquals("Batman 1", firstHits.get(0).getTitle());
+            assertEquals(List.of(1, 2, 3), pagesAfterFirstHits.stream().sorted().toList());
+            assertEquals(95, allHits.size());
+            assertEquals("tt95", allHits.get(94).getImdbId());
+            assertEquals(13, server.requestedSearchPages.size());
+        }
+    }
+
+    @Test
+    @DisplayName("Hydrated search completes every hit with the full movie")
+    void search_WhenHydrated_ThenEveryHitHasMovie() throws IOException {
+        // Arrange
+        try (StubOmdbServer server = new StubOmdbServer();
+             JdkHttpTransport transport = new JdkHttpTransport(Duration.ofSeconds(1), Duration.ofSeconds(2))) {
+            server.addSearchResults("Alien", 15);
+            ApiService service = new ApiService(transport, server.baseUrl(), "test", new RateLimiter(1_000, 100, 0), 4);
+            SearchQuery query = new SearchQuery("Alien");
+            query.setType(SearchType.MOVIE);
+            query.setHydrate(true);
+
+            // Act
+            List<SearchHit> hits;
+            try (Stream<SearchHit> stream = service.search(query)) {
+                hits = stream.toList();
+            }
+
+            // Assert
+            assertEquals(15, hits.size());
+            assertTrue(hits.stream().allMatch(hit -> hit.getMovie() != null && "Director".equals(hit.getMovie().getDirector())));
+            assertEquals("Alien 15", hits.get(14).getMovie().getTitle());
+            assertEquals(2 + 15, server.requestCount.get());
+            assertTrue(server.maxInFlight.get() <= 4 + 1);
+        }
+    }
+
+    @Test
+    @DisplayName("Hydrated search leaves hits without an imdbID as they are")
+    void search_WhenHitHasNoImdbId_ThenItIsNotHydrated() throws IOException {
+        // Arrange
+        try (StubOmdbServer server = new StubOmdbServer();
+             JdkHttpTransport transport = new JdkHttpTransport(Duration.ofSeconds(1), Duration.ofSeconds(2))) {
+            server.addSearchResults("Alien", 3);
+            server.omitImdbId(2);
+            ApiService service = new ApiService(transport, server.baseUrl(), "test", new RateLimiter(1_000, 100, 0), 4);
+            SearchQuery query = new SearchQuery("Alien");
+            query.setHydrate(true);
+
+            // Act
+            List<SearchHit> hits;
+            try (Stream<SearchHit> stream = service.search(query)) {
+                hits = stream.toList();
+            }
+
+            // Assert
+            assertEquals(3, hits.size());
+            assertNull(hits.get(1).getImdbId());
+            assertNull(hits.get(1).getMovie());
+            assertEquals("Alien 3", hits.get(2).getMovie().getTitle());
+            assertEquals(1 + 2, server.requestCount.get());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package se.dsve.api;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.dsve.classes.Movie;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OmdbJsonStreamParserTest {
+
+    @Test
+    @DisplayName("Reads the movie fields and skips the rest of a full OMDB response")
+    void parse_WhenFullResponse_ThenReturnsMovie() throws IOException {
+        // Arrange
+        Path path = Path.of("src/test/resources/httphelpertest_expected_response.json");
+
+        // Act
+        Movie movie;
+        try (InputStream in = Files.newInputStream(path)) {
+            movie = OmdbJsonStreamParser.parse(in);
+        }
+
+        // Assert
+        assertEquals("Guardians of the Galaxy Vol. 2", movie.getTitle());
+        assertEquals(2017, movie.getYear());
+        assertEquals("Chris Pratt, Zoe Saldana, Dave Bautista", movie.getActors());
+        assertEquals("James Gunn", movie.getDirector());
+        assertEquals("Action, Adventure, Comedy", movie.getGenre());
+        assertEquals("tt3896198", movie.getImdbId());
+    }
+
+    @Test
+    @DisplayName("Returns null for unknown titles and throws for other OMDB errors")
+    void parse_WhenResponseFalse_ThenNullOrException() throws IOException {
+        // Arrange
+        String notFound = "{\"Response\":\"False\",\"Error\":\"Movie not found!\"}";
+        String limitReached = "{\"Response\":\"False\",\"Error\":\"Request limit reached!\"}";
+
+        // Act & Assert
+        assertNull(OmdbJsonStreamParser.parse(new StringReader(notFound)));
+        IOException e = assertThrows(IOException.class, () -> OmdbJsonStreamParser.parse(new StringReader(limitReached)));
+        assertTrue(e.getMessage().contains("Request limit reached!"));
+        assertThrows(IOException.class, () -> OmdbJsonStreamParser.parse(new StringReader("[1, 2]")));
+    }
+}
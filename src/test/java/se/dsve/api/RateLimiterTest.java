@@ -0,0 +1,57 @@
+package se.dsve.api;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    @Test
+    @DisplayName("Permits beyond the burst are handed out at the configured rate")
+    void acquire_WhenBurstUsed_ThenWaitsForRefill() throws InterruptedException {
+        // Arrange
+        RateLimiter rateLimiter = new RateLimiter(20, 5, 0);
+
+        // Act
+        long start = System.nanoTime();
+        for (int i = 0; i < 15; i++) {
+            assertTrue(rateLimiter.acquire());
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Assert
+        // De första 5 är direkt tillgängliga, resterande 10 fylls på med 20 per sekund
+        assertTrue(elapsedMillis >= 450, "Expected about 500 ms, took " + elapsedMillis + " ms");
+        assertTrue(elapsedMillis < 2_000, "Expected about 500 ms, took " + elapsedMillis + " ms");
+    }
+
+    @Test
+    @DisplayName("No permits are handed out once the daily quota is used up")
+    void acquire_WhenDailyQuotaUsed_ThenReturnsFalse() throws InterruptedException {
+        // Arrange
+        RateLimiter rateLimiter = new RateLimiter(1_000, 10, 3);
+
+        // Act & Assert
+        assertTrue(rateLimiter.acquire());
+        assertTrue(rateLimiter.acquire());
+        assertTrue(rateLimiter.acquire());
+        assertFalse(rateLimiter.acquire());
+        assertEquals(0, rateLimiter.getRemainingDailyQuota());
+    }
+
+    @Test
+    @DisplayName("tryAcquire only takes a permit that is available right away")
+    void tryAcquire_WhenBucketEmpty_ThenReturnsFalse() {
+        // Arrange
+        RateLimiter rateLimiter = new RateLimiter(1, 2, 0);
+
+        // Act & Assert
+        assertTrue(rateLimiter.tryAcquire());
+        assertTrue(rateLimiter.tryAcquire());
+        assertFalse(rateLimiter.tryAcquire());
+        assertTrue(rateLimiter.reserve() > 0);
+    }
+}
@@ -0,0 +1,223 @@
+package se.dsve.api;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.dsve.classes.Movie;
+import se.dsve.helpers.Deadline;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResilientHttpTransportTest {
+    private static final String HEAT_JSON = "{\"Title\":\"Heat\",\"Year\":\"1995\",\"Director\":\"Michael Mann\",\"Response\":\"True\"}";
+
+    private static ResilienceConfig fastConfig() {
+        ResilienceConfig config = new ResilienceConfig();
+        config.setInitialBackoffMillis(10);
+        config.setMaxBackoffMillis(20);
+        config.setFailureThreshold(3);
+        config.setOpenDurationMillis(300);
+        return config;
+    }
+
+    @Test
+    @DisplayName("Failed requests are retried until one succeeds")
+    void getAsync_WhenServerFailsTwice_ThenRetriesAndSucceeds() throws IOException {
+        // Arrange
+        try (StubOmdbServer server = new StubOmdbServer();
+             JdkHttpTransport jdkTransport = new JdkHttpTransport(Duration.ofSeconds(1), Duration.ofSeconds(2))) {
+            server.addMovie("Heat", HEAT_JSON);
+            server.failuresLeft.set(2);
+            ResilientHttpTransport transport = new ResilientHttpTransport(jdkTransport, fastConfig());
+            ApiService service = new ApiService(transport, server.baseUrl(), "test");
+
+            // Act
+            Movie movie = service.getDataByTitle("Heat");
+
+            // Assert
+            assertEquals("Michael Mann", movie.getDirector());
+            assertEquals(3, server.requestCount.get());
+            assertEquals(2, transport.stats().getRetryCount());
+            assertEquals(CircuitBreaker.State.CLOSED, transport.stats().getCircuitState());
+        }
+    }
+
+    @Test
+    @DisplayName("Retries take rate limiter permits and stop when the daily quota is used up")
+    void getAsync_WhenQuotaUsedUp_ThenStopsRetrying() throws IOException {
+        // Arrange
+        try (StubOmdbServer server = new StubOmdbServer();
+             JdkHttpTransport jdkTransport = new JdkHttpTransport(Duration.ofSeconds(1), Duration.ofSeconds(2))) {
+            server.addMovie("Heat", HEAT_JSON);
+            server.failuresLeft.set(5);
+            RateLimiter rateLimiter = new RateLimiter(1_000, 10, 1);
+            ResilientHttpTransport transport = new ResilientHttpTransport(jdkTransport, fastConfig(), rateLimiter);
+
+            // Act
+            HttpResponse<String> response = transport.getAsync(URI.create(server.baseUrl() + "/?t=Heat")).join();
+
+            // Assert
+            // Första försöket är redan betalt av anroparen, bara ett omförsök ryms i kvoten
+            assertEquals(503, response.statusCode());
+            assertEquals(2, server.requestCount.get());
+            assertEquals(1, transport.stats().getRetryCount());
+            assertEquals(1, transport.stats().getRateLimitedCount());
+            assertEquals(0, rateLimiter.getRemainingDailyQuota());
+        }
+    }
+
+    @Test
+    @DisplayName("The circuit breaker fails fast while OMDB is down and closes when it recovers")
+    void getAsync_WhenServerKeepsFailing_ThenCircuitOpensAndRecovers() throws Exception {
+        // Arrange
+        try (StubOmdbServer server = new StubOmdbServer();
+             JdkHttpTransport jdkTransport = new JdkHttpTransport(Duration.ofSeconds(1), Duration.ofSeconds(2))) {
+            server.addMovie("Heat", HEAT_JSON);
+            server.statusCode = 500;
+            ResilientHttpTransport transport = new ResilientHttpTransport(jdkTransport, fastConfig());
+            URI uri = URI.create(server.baseUrl() + "/?t=Heat");
+
+            // Act
+            HttpResponse<String> failed = transport.getAsync(uri).join();
+            CompletionException rejected = assertThrows(CompletionException.class, () -> transport.getAsync(uri).join());
+            int requestsWhileOpen = server.requestCount.get();
+            server.statusCode = 200;
+            TimeUnit.MILLISECONDS.sleep(400);
+            HttpResponse<String> recovered = transport.getAsync(uri).join();
+
+            // Assert
+            assertEquals(500, failed.statusCode());
+            assertInstanceOf(CircuitOpenException.class, rejected.getCause());
+            assertEquals(3, requestsWhileOpen);
+            assertEquals(200, recovered.statusCode());
+            ResilienceStats stats = transport.stats();
+            assertEquals(CircuitBreaker.State.CLOSED, stats.getCircuitState());
+            assertEquals(1, stats.getCircuitOpenCount());
+            assertEquals(1, stats.getRejectedCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Timeouts set by the caller's deadline are not retried and do not open the circuit breaker")
+    void getStreamAsync_WhenDeadlineRunsOut_ThenCircuitStaysClosed() throws IOException {
+        // Arrange
+        try (StubOmdbServer server = new StubOmdbServer();
+             JdkHttpTransport jdkTransport = new JdkHttpTransport(Duration.ofSeconds(1), Duration.ofSeconds(2))) {
+            server.addMovie("Heat", HEAT_JSON);
+            server.delay = Duration.ofMillis(300);
+            ResilientHttpTransport transport = new ResilientHttpTransport(jdkTransport, fastConfig());
+            URI uri = URI.create(server.baseUrl() + "/?t=Heat");
+
+            // Act
+            List<Throwable> errors = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                errors.add(assertThrows(CompletionException.class, () -> transport.getStreamAsync(uri,
+                        Deadline.after(Duration.ofMillis(50))).join()).getCause());
+            }
+            server.delay = Duration.ZERO;
+            HttpResponse<InputStream> response = transport.getStreamAsync(uri, Deadline.after(Duration.ofSeconds(1))).join();
+            response.body().close();
+
+            // Assert
+            errors.forEach(error -> assertInstanceOf(DeadlineExceededException.class, error));
+            assertEquals(200, response.statusCode());
+            ResilienceStats stats = transport.stats();
+            assertEquals(CircuitBreaker.State.CLOSED, stats.getCircuitState());
+            assertEquals(0, stats.getFailureCount());
+            assertEquals(0, stats.getRetryCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Cancelling a lookup cancels the request in the transport and sends no retry")
+    void getStreamAsync_WhenLookupCancelled_ThenRequestIsCancelled() throws Exception {
+        // Arrange
+        List<CompletableFuture<HttpResponse<InputStream>>> sent = new CopyOnWriteArrayList<>();
+        HttpTransport hanging = new HttpTransport() {
+            @Override
+            public CompletableFuture<HttpResponse<String>> getAsync(URI uri) {
+                return new CompletableFuture<>();
+            }
+
+            @Override
+            public CompletableFuture<HttpResponse<InputStream>> getStreamAsync(URI uri, Map<String, String> headers,
+                                                                              Deadline deadline) {
+                CompletableFuture<HttpResponse<InputStream>> response = new CompletableFuture<>();
+                sent.add(response);
+                return response;
+            }
+        };
+        ResilientHttpTransport transport = new ResilientHttpTransport(hanging, fastConfig());
+        ApiService service = new ApiService(transport, "http://localhost", "test");
+
+        // Act
+        CompletableFuture<Movie> lookup = service.getDataByTitleAsync("Heat", Deadline.none());
+        lookup.cancel(true);
+        TimeUnit.MILLISECONDS.sleep(100);
+
+        // Assert
+        assertEquals(1, sent.size());
+        assertTrue(sent.get(0).isCancelled());
+        assertEquals(0, transport.stats().getRetryCount());
+    }
+
+    @Test
+    @DisplayName("A request slower than the p95 latency is hedged")
+    void getStreamAsync_WhenRequestIsSlow_ThenHedgedRequestWins() throws Exception {
+        // Arrange
+        try (StubOmdbServer server = new StubOmdbServer();
+             JdkHttpTransport jdkTransport = new JdkHttpTransport(Duration.ofSeconds(1), Duration.ofSeconds(5))) {
+            server.addMovie("Heat", HEAT_JSON);
+            AtomicInteger calls = new AtomicInteger();
+            int slowCall = 31;
+            HttpTransport slowOnce = new HttpTransport() {
+                @Override
+                public CompletableFuture<HttpResponse<String>> getAsync(URI uri) {
+                    return jdkTransport.getAsync(uri);
+                }
+
+                @Override
+                public CompletableFuture<HttpResponse<InputStream>> getStreamAsync(URI uri, Map<String, String> headers,
+                                                                                  Deadline deadline) {
+                    CompletableFuture<HttpResponse<InputStream>> response = jdkTransport.getStreamAsync(uri, headers, deadline);
+                    if (calls.incrementAndGet() == slowCall) {
+                        return response.thenApplyAsync(r -> r, CompletableFuture.delayedExecutor(2, TimeUnit.SECONDS));
+                    }
+                    return response;
+                }
+            };
+            ResilienceConfig config = fastConfig();
+            config.setHedgingEnabled(true);
+            config.setHedgeMinDelayMillis(50);
+            ResilientHttpTransport transport = new ResilientHttpTransport(slowOnce, config);
+            ApiService service = new ApiService(transport, server.baseUrl(), "test");
+            for (int i = 1; i < slowCall; i++) {
+                service.getDataByTitle("Heat");
+            }
+
+            // Act
+            long start = System.nanoTime();
+            Movie movie = service.getDataByTitle("Heat");
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            // Assert
+            assertEquals("Heat", movie.getTitle());
+            assertTrue(elapsedMillis < 1_000, "hedged lookup took " + elapsedMillis + " ms");
+            assertEquals(1, transport.stats().getHedgeCount());
+            assertTrue(transport.stats().getP95LatencyMillis() >= 0);
+        }
+    }
+}
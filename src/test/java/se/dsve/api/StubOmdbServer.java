@@ -0,0 +1,185 @@
+package se.dsve.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local HTTP server that answers title lookups like the OMDB API, so tests do not depend on the network.
+ */
+class StubOmdbServer implements AutoCloseable {
+    static final String NOT_FOUND_JSON = "{\"Response\":\"False\",\"Error\":\"Movie not found!\"}";
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, String> bodiesByTitle = new ConcurrentHashMap<>();
+    private final Map<String, String> bodiesByImdbId = new ConcurrentHashMap<>();
+    private final Map<String, Integer> searchResultCounts = new ConcurrentHashMap<>();
+    private final Set<String> failingTitles = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> hitsWithoutImdbId = ConcurrentHashMap.newKeySet();
+    private final Map<String, String> etagsByTitle = new ConcurrentHashMap<>();
+    final List<Integer> requestedSearchPages = new CopyOnWriteArrayList<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    final AtomicInteger requestCount = new AtomicInteger();
+    // Antal kommande anrop som besvaras med status 503 oavsett statusCode
+    final AtomicInteger failuresLeft = new AtomicInteger();
+    final AtomicInteger maxInFlight = new AtomicInteger();
+    volatile Duration delay = Duration.ZERO;
+    volatile int statusCode = 200;
+    // Komprimerar svaren när klienten accepterar kodningen, "gzip" eller "deflate"
+    volatile String contentEncoding;
+
+    StubOmdbServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    void addMovie(String title, String json) {
+        bodiesByTitle.put(title, json);
+    }
+
+    /**
+     * Makes a search for {@code text} return {@code count} hits titled "text 1", "text 2" and so on, which
+     * can also be looked up by their IMDb ids "tt1", "tt2" and so on.
+     */
+    void addSearchResults(String text, int count) {
+        searchResultCounts.put(text, count);
+        for (int i = 1; i <= count; i++) {
+            bodiesByImdbId.put("tt" + i, "{\"Title\":\"" + text + " " + i + "\",\"Year\":\"2000\",\"Director\":\"Director\"," +
+                    "\"imdbID\":\"tt" + i + "\",\"Response\":\"True\"}");
+        }
+    }
+
+    /**
+     * Leaves out the imdbID of search hit number {@code hit}, as OMDB sometimes does.
+     */
+    void omitImdbId(int hit) {
+        hitsWithoutImdbId.add(hit);
+    }
+
+    /**
+     * Sends an ETag with the movie for {@code title} and answers 304 Not Modified to requests that send it back.
+     */
+    void setEtag(String title, String etag) {
+        etagsByTitle.put(title, etag);
+    }
+
+    void failTitle(String title) {
+        failingTitles.add(title);
+    }
+
+    String baseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Svarar med filmen för titeln i parametern t, eller som OMDB när filmen saknas
+        String query = exchange.getRequestURI().getRawQuery();
+        String title = queryParameter(query, "t");
+        int status = title != null && failingTitles.contains(title) ? 500 : statusCode;
+        if (failuresLeft.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+            status = 503;
+        }
+        String json;
+        if (queryParameter(query, "s") != null) {
+            json = searchPage(queryParameter(query, "s"), Integer.parseInt(queryParameter(query, "page")));
+        } else if (queryParameter(query, "i") != null) {
+            json = bodiesByImdbId.getOrDefault(queryParameter(query, "i"), NOT_FOUND_JSON);
+        } else {
+            json = bodiesByTitle.getOrDefault(title, NOT_FOUND_JSON);
+        }
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        inFlight.decrementAndGet();
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        String etag = title != null ? etagsByTitle.get(title) : null;
+        if (etag != null) {
+            exchange.getResponseHeaders().set("ETag", etag);
+            if (status == 200 && etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+        }
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (contentEncoding != null && acceptEncoding != null && acceptEncoding.contains(contentEncoding)) {
+            body = compress(body, contentEncoding);
+            exchange.getResponseHeaders().set("Content-Encoding", contentEncoding);
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static byte[] compress(byte[] body, String contentEncoding) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = contentEncoding.equals("gzip") ? new GZIPOutputStream(compressed)
+                : new DeflaterOutputStream(compressed)) {
+            out.write(body);
+        }
+        return compressed.toByteArray();
+    }
+
+    private String searchPage(String text, int page) {
+        requestedSearchPages.add(page);
+        int count = searchResultCounts.getOrDefault(text, 0);
+        List<String> hits = new ArrayList<>();
+        for (int i = (page - 1) * 10 + 1; i <= Math.min(count, page * 10); i++) {
+            String imdbId = hitsWithoutImdbId.contains(i) ? "" : "\"imdbID\":\"tt" + i + "\",";
+            hits.add("{\"Title\":\"" + text + " " + i + "\",\"Year\":\"2000\"," + imdbId +
+                    "\"Type\":\"movie\",\"Poster\":\"N/A\"}");
+        }
+        if (hits.isEmpty()) {
+            return NOT_FOUND_JSON;
+        }
+        return "{\"Search\":[" + String.join(",", hits) + "],\"totalResults\":\"" + count + "\",\"Response\":\"True\"}";
+    }
+
+    private static String queryParameter(String query, String name) {
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0 && pair.substring(0, separator).equals(name)) {
+                return URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
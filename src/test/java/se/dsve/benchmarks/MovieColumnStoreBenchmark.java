@@ -0,0 +1,163 @@
+package se.dsve.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import se.dsve.classes.Movie;
+import se.dsve.store.MovieColumnStore;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a synthetic catalog of one million movies held as {@code List<Movie>} with the same catalog in a
+ * {@link MovieColumnStore}: the retained heap of each, and the time to scan all movies for one director, one
+ * actor and a range of years. Scan scores are per full scan.
+ *
+ * <p>The movies have 2-4 word titles, an imdbID, one of 100 000 directors, one to three of 20 genres and three or
+ * four of 300 000 actors. Every string of the list is its own copy, like movies read from JDBC or parsed from
+ * JSON.
+ *
+ * <p>Run with: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=se.dsve.benchmarks.MovieColumnStoreBenchmark}. The heap footprint is printed before the
+ * benchmarks run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class MovieColumnStoreBenchmark {
+    private static final int MOVIE_COUNT = 1_000_000;
+    private static final int DIRECTOR_COUNT = 100_000;
+    private static final int ACTOR_COUNT = 300_000;
+    private static final String[] GENRES = {"Action", "Adventure", "Animation", "Biography", "Comedy", "Crime",
+            "Documentary", "Drama", "Family", "Fantasy", "History", "Horror", "Music", "Musical", "Mystery",
+            "Romance", "Sci-Fi", "Sport", "Thriller", "War"};
+    private static final String[] FIRST_NAMES = {"James", "Mary", "Robert", "Patricia", "John", "Jennifer",
+            "Michael", "Linda", "David", "Elizabeth", "William", "Barbara", "Richard", "Susan", "Joseph", "Jessica",
+            "Thomas", "Sarah", "Charles", "Karen", "Christopher", "Lisa", "Daniel", "Nancy", "Matthew", "Betty"};
+    private static final String[] WORDS = {"Night", "Return", "Dark", "Love", "City", "Last", "Man", "Woman",
+            "Story", "Secret", "House", "War", "Blood", "King", "Queen", "Road", "Star", "Fire", "Summer", "Winter",
+            "Ghost", "Island", "Dream", "Shadow", "River", "Song", "Heart", "Garden", "Machine", "Silence"};
+    private static final String SEARCHED_DIRECTOR = "Thomas Director42";
+    private static final String SEARCHED_ACTOR = "John Actor4242";
+
+    private List<Movie> movies;
+    private MovieColumnStore store;
+
+    @Setup
+    public void setUp() {
+        movies = generateMovies();
+        store = new MovieColumnStore(MOVIE_COUNT);
+        store.addAll(movies);
+        store.trimToSize();
+    }
+
+    /**
+     * Generates the catalog, with every string its own copy.
+     */
+    static List<Movie> generateMovies() {
+        Random random = new Random(42);
+        List<Movie> movies = new ArrayList<>(MOVIE_COUNT);
+        for (int i = 0; i < MOVIE_COUNT; i++) {
+            StringBuilder title = new StringBuilder(WORDS[random.nextInt(WORDS.length)]);
+            int words = 1 + random.nextInt(3);
+            for (int w = 0; w < words; w++) {
+                title.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            title.append(' ').append(i);
+
+            StringBuilder genre = new StringBuilder(GENRES[random.nextInt(GENRES.length)]);
+            int genres = random.nextInt(3);
+            for (int g = 0; g < genres; g++) {
+                genre.append(", ").append(GENRES[random.nextInt(GENRES.length)]);
+            }
+
+            StringBuilder actors = new StringBuilder();
+            int actorCount = 3 + random.nextInt(2);
+            for (int a = 0; a < actorCount; a++) {
+                if (a > 0) {
+                    actors.append(", ");
+                }
+                actors.append(person(random.nextInt(ACTOR_COUNT), "Actor"));
+            }
+
+            Movie movie = new Movie(title.toString(), 1920 + random.nextInt(105), actors.toString(),
+                    person(random.nextInt(DIRECTOR_COUNT), "Director"), genre.toString());
+            movie.setImdbId(String.format("tt%07d", i));
+            movies.add(movie);
+        }
+        return movies;
+    }
+
+    private static String person(int id, String role) {
+        // Ett nytt String-objekt per förekomst, som när raden läses från databasen
+        return FIRST_NAMES[id % FIRST_NAMES.length] + " " + role + id;
+    }
+
+    @Benchmark
+    public int scanList() {
+        int matches = 0;
+        for (Movie movie : movies) {
+            if (movie.getYear() >= 1990 && (SEARCHED_DIRECTOR.equals(movie.getDirector())
+                    || movie.getActors().contains(SEARCHED_ACTOR))) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public int scanStore() {
+        int matches = 0;
+        MovieColumnStore.Cursor cursor = store.cursor();
+        int director = cursor.directorCode(SEARCHED_DIRECTOR);
+        int actor = cursor.actorCode(SEARCHED_ACTOR);
+        while (cursor.next()) {
+            if (cursor.year() >= 1990 && (cursor.hasDirector(director) || cursor.hasActor(actor))) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        printFootprint();
+        new Runner(new OptionsBuilder()
+                .include(MovieColumnStoreBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    private static void printFootprint() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long baseline = usedHeap(memory);
+        List<Movie> list = generateMovies();
+        long listBytes = usedHeap(memory) - baseline;
+
+        MovieColumnStore columns = new MovieColumnStore(MOVIE_COUNT);
+        columns.addAll(list);
+        columns.trimToSize();
+        list = null;
+        long storeBytes = usedHeap(memory) - baseline;
+
+        System.out.printf("List<Movie>:       %,d bytes per %,d movies (%d bytes per movie)%n",
+                listBytes, MOVIE_COUNT, listBytes / MOVIE_COUNT);
+        System.out.printf("MovieColumnStore:  %,d bytes per %,d movies (%d bytes per movie), %s%n",
+                storeBytes, MOVIE_COUNT, storeBytes / MOVIE_COUNT, columns.getDictionarySizes());
+    }
+
+    private static long usedHeap(MemoryMXBean memory) {
+        // Flera GC-varv så att bara levande objekt räknas
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,64 @@
+package se.dsve.benchmarks;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import se.dsve.api.OmdbJsonStreamParser;
+import se.dsve.classes.Movie;
+import se.dsve.classes.MovieBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the old way of reading an OMDB response, decoding the whole body to a String and building a
+ * {@link JSONObject} from it, with {@link OmdbJsonStreamParser}, which reads the bytes as a stream and skips
+ * fields a Movie does not use. The payload is a full OMDB response including the Ratings array and Plot.
+ *
+ * <p>Run with the GC profiler to see the allocation per response ({@code gc.alloc.rate.norm}):
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=se.dsve.benchmarks.OmdbJsonParserBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OmdbJsonParserBenchmark {
+    private byte[] body;
+
+    @Setup
+    public void setUp() throws IOException {
+        body = Files.readAllBytes(Path.of("src/test/resources/httphelpertest_expected_response.json"));
+    }
+
+    @Benchmark
+    public Movie stringAndJSONObject() {
+        // Samma steg som ApiService tog tidigare: String, JSONObject och MovieBuilder
+        JSONObject json = new JSONObject(new String(body, StandardCharsets.UTF_8));
+        MovieBuilder movieBuilder = new MovieBuilder(json.optString("Title", null), json.optInt("Year", -1),
+                json.optString("Actors", null), json.optString("Director", null), json.optString("Genre", null));
+        Movie movie = movieBuilder.build();
+        movie.setImdbId(json.optString("imdbID", null));
+        return movie;
+    }
+
+    @Benchmark
+    public Movie streamingParser() throws IOException {
+        return OmdbJsonStreamParser.parse(new ByteArrayInputStream(body));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OmdbJsonParserBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
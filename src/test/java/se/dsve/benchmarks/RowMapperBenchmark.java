@@ -0,0 +1,97 @@
+package se.dsve.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import se.dsve.Database;
+import se.dsve.classes.Movie;
+import se.dsve.classes.MovieBuilder;
+import se.dsve.dao.MovieRowMapper;
+import se.dsve.dao.MoviesDAO;
+
+import java.sql.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Compares the old way of reading movies, {@code SELECT *} with fixed column positions and a {@link MovieBuilder}
+ * per row, with an explicit column list read through {@link MovieRowMapper}. Scores are per row.
+ *
+ * <p>Run with the GC profiler to see the allocation per row ({@code gc.alloc.rate.norm}):
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=se.dsve.benchmarks.RowMapperBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowMapperBenchmark {
+    private static final int MOVIE_COUNT = 1_000;
+    private static final String SELECT_ALL_SQL = "SELECT * FROM movies";
+    private static final String SELECT_COLUMNS_SQL = "SELECT " + MovieRowMapper.COLUMNS + " FROM movies";
+
+    private Database database;
+    private Connection connection;
+    private PreparedStatement selectAll;
+    private PreparedStatement selectColumns;
+
+    @Setup
+    public void setUp() throws SQLException {
+        database = new Database("jdbc:h2:mem:rowmapper;DB_CLOSE_DELAY=-1", "OmdbApiKey", "sa", "");
+        MoviesDAO moviesDAO = new MoviesDAO(database);
+
+        // Fyller tabellen med testdata
+        moviesDAO.addMoviesToDatabase(IntStream.range(0, MOVIE_COUNT).mapToObj(i ->
+                new Movie("Movie " + i, 1950 + i % 70, "Actor " + i + ", Actor " + (i + 1), "Director " + i % 50, "Drama")));
+
+        connection = database.getConnection();
+        selectAll = connection.prepareStatement(SELECT_ALL_SQL);
+        selectColumns = connection.prepareStatement(SELECT_COLUMNS_SQL);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        selectAll.close();
+        selectColumns.close();
+        connection.close();
+        database.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MOVIE_COUNT)
+    public void selectAllWithMovieBuilder(Blackhole blackhole) throws SQLException {
+        try (ResultSet rs = selectAll.executeQuery()) {
+            while (rs.next()) {
+                MovieBuilder movieBuilder = new MovieBuilder(rs.getString(2), rs.getInt(3), rs.getString(4),
+                        rs.getString(5), rs.getString(6));
+                Movie movie = movieBuilder.build();
+                Timestamp fetchedAt = rs.getTimestamp("fetched_at");
+                movie.setFetchedAt(fetchedAt != null ? fetchedAt.toInstant() : null);
+                movie.setImdbId(rs.getString("imdb_id"));
+                blackhole.consume(movie);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MOVIE_COUNT)
+    public void explicitColumnsWithRowMapper(Blackhole blackhole) throws SQLException {
+        try (ResultSet rs = selectColumns.executeQuery()) {
+            MovieRowMapper mapper = MovieRowMapper.forQuery(SELECT_COLUMNS_SQL, rs);
+            while (rs.next()) {
+                blackhole.consume(mapper.map(rs));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RowMapperBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,74 @@
+package se.dsve.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import se.dsve.Database;
+import se.dsve.classes.Movie;
+import se.dsve.dao.MoviesDAO;
+import se.dsve.pool.ConnectionPoolConfig;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures title lookups through {@link MoviesDAO} against the H2 in-memory database used by
+ * {@code DatabaseTest}, with the per-connection statement cache disabled (0) and enabled (32).
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=se.dsve.benchmarks.StatementCacheBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatementCacheBenchmark {
+    private static final int MOVIE_COUNT = 1_000;
+
+    @Param({"0", "32"})
+    private int statementCacheSize;
+
+    private Database database;
+    private MoviesDAO moviesDAO;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        ConnectionPoolConfig config = new ConnectionPoolConfig();
+        config.setStatementCacheSize(statementCacheSize);
+        database = new Database("jdbc:h2:mem:statementcache" + statementCacheSize + ";DB_CLOSE_DELAY=-1",
+                "OmdbApiKey", "sa", "", config);
+        moviesDAO = new MoviesDAO(database);
+
+        // Fyller tabellen med testdata
+        for (int i = 0; i < MOVIE_COUNT; i++) {
+            moviesDAO.addMovieToDatabase(new Movie("Movie " + i, 1950 + i % 70, "Actor " + i, "Director " + i % 50, "Drama"));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<Movie> findMovieInDatabaseByTitle() {
+        next = (next + 1) % MOVIE_COUNT;
+        return moviesDAO.findMovieInDatabaseByTitle("Movie " + next);
+    }
+
+    @Benchmark
+    public List<Movie> findMovieInDatabaseByDirector() {
+        next = (next + 1) % MOVIE_COUNT;
+        return moviesDAO.findMovieInDatabaseByDirector("Director " + next % 50);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(StatementCacheBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,115 @@
+package se.dsve.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import se.dsve.index.TitleMatch;
+import se.dsve.index.TrigramIndex;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long {@link TrigramIndex} takes to find the titles within two edits of a misspelled title in a
+ * synthetic catalog of one million titles. Scores are per search.
+ *
+ * <p>The titles are two to four words drawn from a vocabulary of pronounceable made-up words built from
+ * English-like syllables, so trigrams are shared between many titles like in a real catalog. Each searched title is a stored title with one or two
+ * characters replaced, deleted or swapped.
+ *
+ * <p>Run with: {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=se.dsve.benchmarks.TrigramIndexBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class TrigramIndexBenchmark {
+    private static final int TITLE_COUNT = 1_000_000;
+    private static final int VOCABULARY_SIZE = 20_000;
+    private static final int QUERY_COUNT = 1_024;
+    private static final String[] ONSETS = {"b", "bl", "br", "c", "ch", "cr", "d", "dr", "f", "fl", "fr", "g", "gl",
+            "gr", "h", "j", "k", "l", "m", "n", "p", "pl", "pr", "qu", "r", "s", "sh", "sl", "st", "t", "th", "tr", "v",
+            "w", "wh", "y", "z"};
+    private static final String[] NUCLEI = {"a", "e", "i", "o", "u", "y", "ai", "ea", "ee", "oo", "ou"};
+    private static final String[] CODAS = {"", "", "n", "r", "s", "t", "l", "nd", "st", "ck", "m", "ng"};
+
+    private TrigramIndex index;
+    private String[] misspelled;
+    private String[] exact;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        String[] vocabulary = new String[VOCABULARY_SIZE];
+        for (int i = 0; i < vocabulary.length; i++) {
+            vocabulary[i] = word(random);
+        }
+
+        // Bygger en katalog med en miljon titlar
+        index = new TrigramIndex();
+        String[] titles = new String[TITLE_COUNT];
+        for (int i = 0; i < TITLE_COUNT; i++) {
+            StringBuilder title = new StringBuilder();
+            int words = 2 + random.nextInt(3);
+            for (int w = 0; w < words; w++) {
+                if (w > 0) {
+                    title.append(' ');
+                }
+                String word = vocabulary[random.nextInt(vocabulary.length)];
+                title.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+            }
+            titles[i] = title.toString();
+            index.add(titles[i]);
+        }
+
+        misspelled = new String[QUERY_COUNT];
+        exact = new String[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            String title = titles[random.nextInt(TITLE_COUNT)];
+            exact[i] = title.toLowerCase();
+            misspelled[i] = misspell(misspell(title, random), random);
+        }
+    }
+
+    private static String word(Random random) {
+        StringBuilder word = new StringBuilder();
+        int syllables = 1 + random.nextInt(3);
+        for (int i = 0; i < syllables; i++) {
+            word.append(ONSETS[random.nextInt(ONSETS.length)]);
+            word.append(NUCLEI[random.nextInt(NUCLEI.length)]);
+            word.append(CODAS[random.nextInt(CODAS.length)]);
+        }
+        return word.toString();
+    }
+
+    private static String misspell(String title, Random random) {
+        int at = 1 + random.nextInt(title.length() - 2);
+        return switch (random.nextInt(3)) {
+            case 0 -> title.substring(0, at) + 'x' + title.substring(at + 1);
+            case 1 -> title.substring(0, at) + title.substring(at + 1);
+            default -> title.substring(0, at) + title.charAt(at + 1) + title.charAt(at) + title.substring(at + 2);
+        };
+    }
+
+    @Benchmark
+    public List<TitleMatch> searchMisspelledTitle() {
+        return index.search(misspelled[next++ & (QUERY_COUNT - 1)], 2, 5);
+    }
+
+    @Benchmark
+    public List<TitleMatch> searchExactTitle() {
+        return index.search(exact[next++ & (QUERY_COUNT - 1)], 2, 1);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TrigramIndexBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,64 @@
+package se.dsve.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TinyLfuCacheTest {
+
+    @Test
+    @DisplayName("Entries expire after their own TTL")
+    void get_WhenTtlPassed_ThenMisses() throws InterruptedException {
+        // Arrange
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(10);
+        cache.put("short", "value", Duration.ofMillis(50));
+        cache.put("long", "value", Duration.ofMinutes(1));
+
+        // Act
+        Thread.sleep(100);
+
+        // Assert
+        assertNull(cache.get("short"));
+        assertEquals("value", cache.get("long"));
+        assertEquals(1, cache.stats().getHitCount());
+        assertEquals(1, cache.stats().getMissCount());
+        assertEquals(1, cache.stats().getExpirationCount());
+        assertEquals(0, cache.stats().getEvictionCount());
+    }
+
+    @Test
+    @DisplayName("Popular keys survive a scan of keys that are only used once")
+    void put_WhenFull_ThenKeepsFrequentlyUsedKeys() {
+        // Arrange
+        TinyLfuCache<String, Integer> cache = new TinyLfuCache<>(100);
+        for (int i = 0; i < 100; i++) {
+            cache.put("popular " + i, i, Duration.ofMinutes(1));
+            for (int j = 0; j < 5; j++) {
+                cache.get("popular " + i);
+            }
+        }
+
+        // Act
+        for (int i = 0; i < 1_000; i++) {
+            cache.get("once " + i);
+            cache.put("once " + i, i, Duration.ofMinutes(1));
+        }
+
+        // Assert
+        int survivors = 0;
+        for (int i = 0; i < 100; i++) {
+            if (cache.get("popular " + i) != null) {
+                survivors++;
+            }
+        }
+        assertTrue(survivors >= 90, "only " + survivors + " popular keys survived");
+        assertTrue(cache.size() <= 100);
+        CacheStats stats = cache.stats();
+        assertTrue(stats.getEvictionCount() + stats.getRejectionCount() >= 900);
+        assertTrue(stats.getRejectionCount() > stats.getEvictionCount());
+        assertEquals(0, stats.getExpirationCount());
+    }
+}
@@ -0,0 +1,455 @@
+package se.dsve.dao;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.dsve.Database;
+import se.dsve.classes.Movie;
+import se.dsve.helpers.TitleNormalizer;
+import se.dsve.index.InvertedIndex;
+import se.dsve.index.TitleMatch;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoviesDAOTest {
+    private static final String JDBC_URL = "jdbc:h2:mem:moviesdaotest;DB_CLOSE_DELAY=-1";
+    private static Database database;
+    private static MoviesDAO moviesDAO;
+
+    @BeforeAll
+    static void setUp() {
+        database = new Database(JDBC_URL, "OmdbApiKey", "sa", "");
+        moviesDAO = new MoviesDAO(database);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        database.close();
+    }
+
+    @BeforeEach
+    void clearTable() {
+        moviesDAO.clearMoviesTable();
+    }
+
+    private static Movie movie(int i) {
+        return new Movie("Movie " + i, 2000 + i % 3, "Actor " + i, "Director " + i % 5, "Drama");
+    }
+
+    @Test
+    @DisplayName("Bulk insert commits every chunk")
+    void addMoviesToDatabase_InsertsAllRowsInChunks() {
+        // Arrange
+        List<Movie> movies = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            movies.add(movie(i));
+        }
+
+        // Act
+        BulkInsertResult result = moviesDAO.addMoviesToDatabase(movies, 100);
+
+        // Assert
+        assertEquals(250, result.getRowsInserted());
+        assertTrue(result.getChunkFailures().isEmpty());
+        assertEquals(84, moviesDAO.findMovieInDatabaseByYear(2000).size());
+        assertEquals("Movie 42", moviesDAO.findMovieInDatabaseByTitle("Movie 42").get(0).getTitle());
+        // Id:n för en chunk slås upp i grupper om 64, även filmer efter första gruppen länkas
+        assertEquals("Movie 199", moviesDAO.findMovieInDatabaseByActor("Actor 199").get(0).getTitle());
+    }
+
+    @Test
+    @DisplayName("A failing chunk is rolled back without aborting the load")
+    void addMoviesToDatabase_WhenChunkFails_ThenOtherChunksAreCommitted() {
+        // Arrange
+        List<Movie> movies = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            movies.add(movie(i));
+        }
+        // En titel som är för lång för kolumnen får den andra chunken att misslyckas
+        movies.get(15).setTitle("x".repeat(300));
+
+        // Act
+        BulkInsertResult result = moviesDAO.addMoviesToDatabase(movies, 10);
+
+        // Assert
+        assertEquals(20, result.getRowsInserted());
+        assertEquals(10, result.getRowsFailed());
+        assertEquals(1, result.getChunkFailures().size());
+        assertEquals(1, result.getChunkFailures().get(0).getChunkIndex());
+        assertEquals(10, result.getChunkFailures().get(0).getFirstRowIndex());
+        assertTrue(moviesDAO.findMovieInDatabaseByTitle("Movie 12").isEmpty());
+        assertFalse(moviesDAO.findMovieInDatabaseByTitle("Movie 22").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Bulk insert consumes a stream lazily")
+    void addMoviesToDatabase_FromStream() {
+        // Act
+        BulkInsertResult result = moviesDAO.addMoviesToDatabase(IntStream.range(0, 50).mapToObj(MoviesDAOTest::movie), 7);
+
+        // Assert
+        assertEquals(50, result.getRowsInserted());
+        assertEquals(10, moviesDAO.findMovieInDatabaseByDirector("Director 3").size());
+    }
+
+    @Test
+    @DisplayName("Actor search matches any actor of a movie case-insensitively")
+    void findMovieInDatabaseByActor_MatchesLinkedActor() {
+        // Arrange
+        moviesDAO.addMovieToDatabase(new Movie("Guardians of the Galaxy Vol. 2", 2017,
+                "Chris Pratt, Zoe Saldana, Dave Bautista", "James Gunn", "Action, Adventure, Comedy"));
+        moviesDAO.addMovieToDatabase(new Movie("Jurassic World", 2015,
+                "Chris Pratt, Bryce Dallas Howard", "Colin Trevorrow", "Action, Adventure"));
+
+        // Act
+        List<Movie> pratt = moviesDAO.findMovieInDatabaseByActor("chris pratt");
+        List<Movie> saldana = moviesDAO.findMovieInDatabaseByActor("Zoe Saldana");
+
+        // Assert
+        assertEquals(2, pratt.size());
+        assertEquals(1, saldana.size());
+        assertEquals("Chris Pratt, Zoe Saldana, Dave Bautista", saldana.get(0).getActors());
+        assertTrue(moviesDAO.findMovieInDatabaseByActor("Chris").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Actor search with a wildcard pattern still uses LIKE")
+    void findMovieInDatabaseByActor_WhenPattern_ThenMatchesSubstring() {
+        // Arrange
+        moviesDAO.addMovieToDatabase(new Movie("Jurassic World", 2015,
+                "Chris Pratt, Bryce Dallas Howard", "Colin Trevorrow", "Action, Adventure"));
+
+        // Act & Assert
+        assertEquals(1, moviesDAO.findMovieInDatabaseByActor("%Dallas%").size());
+    }
+
+    @Test
+    @DisplayName("Bulk insert links actors of every movie")
+    void addMoviesToDatabase_LinksActors() {
+        // Act
+        moviesDAO.addMoviesToDatabase(List.of(movie(1), movie(2), movie(3)), 2);
+
+        // Assert
+        assertEquals("Movie 2", moviesDAO.findMovieInDatabaseByActor("Actor 2").get(0).getTitle());
+        assertEquals(1, moviesDAO.findMovieInDatabaseByActor("Actor 3").size());
+    }
+
+    @Test
+    @DisplayName("Streaming returns every match and releases the connection on close")
+    void streamMoviesByYear_ReturnsAllMatchesAndReleasesConnection() {
+        // Arrange
+        moviesDAO.addMoviesToDatabase(IntStream.range(0, 300).mapToObj(MoviesDAOTest::movie), 100);
+
+        // Act
+        long count;
+        try (Stream<Movie> movies = moviesDAO.streamMoviesByYear(2001)) {
+            assertEquals(1, database.getConnectionPool().getActiveCount(), "Stream should hold a connection");
+            count = movies.filter(movie -> movie.getYear() == 2001).count();
+        }
+
+        // Assert
+        assertEquals(100, count);
+        assertEquals(0, database.getConnectionPool().getActiveCount(), "Closing the stream should return the connection");
+    }
+
+    @Test
+    @DisplayName("Streaming by actor and director matches the list methods")
+    void streamMoviesByActorAndDirector_MatchListMethods() {
+        // Arrange
+        moviesDAO.addMoviesToDatabase(IntStream.range(0, 20).mapToObj(MoviesDAOTest::movie), 100);
+
+        // Act & Assert
+        try (Stream<Movie> byActor = moviesDAO.streamMoviesByActor("actor 7");
+             Stream<Movie> byDirector = moviesDAO.streamMoviesByDirector("Director 2")) {
+            assertEquals("Movie 7", byActor.findFirst().orElseThrow().getTitle());
+            assertEquals(moviesDAO.findMovieInDatabaseByDirector("Director 2").size(), byDirector.count());
+        }
+    }
+
+    @Test
+    @DisplayName("Keyset pages cover every match exactly once")
+    void findMovieInDatabaseByYear_WhenPaged_ThenReturnsEveryMatchOnce() {
+        // Arrange
+        moviesDAO.addMoviesToDatabase(IntStream.range(0, 30).mapToObj(MoviesDAOTest::movie), 100);
+        List<String> titles = new ArrayList<>();
+
+        // Act
+        String token = null;
+        int pages = 0;
+        do {
+            Page<Movie> page = moviesDAO.findMovieInDatabaseByYear(2001, 4, token);
+            page.getItems().forEach(movie -> titles.add(movie.getTitle()));
+            token = page.getNextPageToken();
+            pages++;
+        } while (token != null);
+
+        // Assert
+        assertEquals(10, titles.size());
+        assertEquals(10, titles.stream().distinct().count());
+        assertEquals(3, pages);
+    }
+
+    @Test
+    @DisplayName("Actor and director pages end with a null token")
+    void findMovieInDatabaseByActorAndDirector_WhenPaged_ThenLastPageHasNoToken() {
+        // Arrange
+        moviesDAO.addMoviesToDatabase(IntStream.range(0, 10).mapToObj(MoviesDAOTest::movie), 100);
+
+        // Act
+        Page<Movie> byActor = moviesDAO.findMovieInDatabaseByActor("Actor 3", 5, null);
+        Page<Movie> firstByDirector = moviesDAO.findMovieInDatabaseByDirector("Director 1", 1, null);
+        Page<Movie> lastByDirector = moviesDAO.findMovieInDatabaseByDirector("Director 1", 1, firstByDirector.getNextPageToken());
+
+        // Assert
+        assertEquals(1, byActor.getItems().size());
+        assertFalse(byActor.hasNextPage());
+        assertEquals("Movie 1", firstByDirector.getItems().get(0).getTitle());
+        assertEquals("Movie 6", lastByDirector.getItems().get(0).getTitle());
+        assertFalse(lastByDirector.hasNextPage());
+        assertThrows(IllegalArgumentException.class, () -> moviesDAO.findMovieInDatabaseByYear(2001, 5, "not a token"));
+    }
+
+    @Test
+    @DisplayName("Concurrent adds of the same movie end with exactly one row")
+    void addMovieToDatabase_WhenSameMovieAddedConcurrently_ThenOneRow() throws InterruptedException {
+        // Arrange
+        int threads = 16;
+        CountDownLatch start = new CountDownLatch(1);
+
+        // Act
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int i = 0; i < threads; i++) {
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    moviesDAO.addMovieToDatabase(new Movie("Heat", 1995, "Al Pacino, Robert De Niro", "Michael Mann", "Crime"));
+                });
+            }
+            start.countDown();
+        }
+
+        // Assert
+        assertEquals(1, moviesDAO.findMovieInDatabaseByTitle("Heat").size());
+        assertEquals(1, moviesDAO.findMovieInDatabaseByActor("Al Pacino").size());
+    }
+
+    @Test
+    @DisplayName("Adding a known movie again updates the existing row")
+    void addMovieToDatabase_WhenNaturalKeyExists_ThenUpdatesRow() {
+        // Arrange
+        Movie first = new Movie("Heat", 1995, "Al Pacino", "Michael Mann", "Crime");
+        first.setImdbId("tt0113277");
+        moviesDAO.addMovieToDatabase(first);
+        Movie renamed = new Movie("Heat (1995)", 1995, "Al Pacino, Robert De Niro", "Michael Mann", "Crime");
+        renamed.setImdbId("tt0113277");
+
+        // Act
+        moviesDAO.addMovieToDatabase(renamed);
+        moviesDAO.addMoviesToDatabase(List.of(movie(1), movie(1)), 10);
+
+        // Assert
+        assertTrue(moviesDAO.findMovieInDatabaseByTitle("Heat").isEmpty());
+        assertEquals("tt0113277", moviesDAO.findMovieInDatabaseByTitle("Heat (1995)").get(0).getImdbId());
+        assertEquals(1, moviesDAO.findMovieInDatabaseByActor("Robert De Niro").size());
+        assertEquals(1, moviesDAO.findMovieInDatabaseByTitle("Movie 1").size());
+    }
+
+    @Test
+    @DisplayName("Title lookups ignore case, punctuation, a leading article and an article after a comma")
+    void findMovieInDatabaseByTitle_MatchesOnTitleKey() {
+        // Arrange
+        moviesDAO.addMovieToDatabase(new Movie("The Matrix", 1999, "Keanu Reeves", "Lana Wachowski", "Action"));
+        moviesDAO.addMovieToDatabase(new Movie("Schindler's List", 1993, "Liam Neeson", "Steven Spielberg", "Drama"));
+
+        // Act
+        List<Movie> lowerCase = moviesDAO.findMovieInDatabaseByTitle("the matrix");
+        List<Movie> trailingArticle = moviesDAO.findMovieInDatabaseByTitle("Matrix, The");
+        List<Movie> apostrophe = moviesDAO.findMovieInDatabaseByTitle("SCHINDLERS  LIST");
+
+        // Assert
+        assertEquals("The Matrix", lowerCase.get(0).getTitle());
+        assertEquals("The Matrix", trailingArticle.get(0).getTitle());
+        assertEquals("Schindler's List", apostrophe.get(0).getTitle());
+        assertTrue(moviesDAO.findMovieInDatabaseByTitle("Matrix Reloaded").isEmpty());
+        assertEquals("matrix", TitleNormalizer.titleKey("  The MATRIX "));
+        assertEquals("the", TitleNormalizer.titleKey("The"));
+        assertEquals("matrix", TitleNormalizer.titleKey("Matrix,  THE"));
+        // Hashen sparas i databasen och får aldrig ändras
+        assertEquals(0xaf63dc4c8601ec8cL, TitleNormalizer.titleHash("a"));
+    }
+
+    @Test
+    @DisplayName("A trailing article without a comma is part of the title")
+    void findMovieInDatabaseByTitle_WhenTitleEndsInArticle_ThenItIsKept() {
+        // Arrange
+        moviesDAO.addMovieToDatabase(new Movie("Plan A", 2021, "August Diehl", "Doron Paz", "Drama"));
+        moviesDAO.addMovieToDatabase(new Movie("Plan", 2019, "Anna Madeley", "Kate Hewitt", "Drama"));
+
+        // Act
+        List<Movie> planA = moviesDAO.findMovieInDatabaseByTitle("Plan A");
+        List<Movie> plan = moviesDAO.findMovieInDatabaseByTitle("Plan");
+
+        // Assert
+        assertNotEquals(TitleNormalizer.titleKey("Plan"), TitleNormalizer.titleKey("Plan A"));
+        assertEquals("plan a", TitleNormalizer.titleKey("Plan A"));
+        assertEquals(List.of("Plan A"), planA.stream().map(Movie::getTitle).toList());
+        assertEquals(List.of("Plan"), plan.stream().map(Movie::getTitle).toList());
+    }
+
+    @Test
+    @DisplayName("A refresh updates only its own row and recomputes the row's keys")
+    void refreshMovie_UpdatesOnlyTheRowWithTheId() {
+        // Arrange
+        moviesDAO.addMovieToDatabase(new Movie("Dune", 1984, "Kyle MacLachlan", "David Lynch", "Sci-Fi"));
+        Movie remake = new Movie("Dune", 2021, "Timothée Chalamet", "Denis Villeneuve", "Sci-Fi");
+        remake.setImdbId("tt1160419");
+        moviesDAO.addMovieToDatabase(remake);
+        Movie original = moviesDAO.findMovieInDatabaseByYear(1984).get(0);
+        Movie fresh = new Movie("Dune", 1984, "Kyle MacLachlan, Sting", "David Lynch", "Adventure, Sci-Fi");
+        fresh.setImdbId("tt0087182");
+
+        // Act
+        int rowsUpdated = moviesDAO.refreshMovie(original.getId(), fresh);
+        moviesDAO.addMovieToDatabase(fresh);
+
+        // Assert
+        assertEquals(1, rowsUpdated);
+        assertEquals(2, moviesDAO.findMovieInDatabaseByTitle("dune").size());
+        assertEquals("Denis Villeneuve", moviesDAO.findMovieInDatabaseByYear(2021).get(0).getDirector());
+        Movie refreshed = moviesDAO.findMovieInDatabaseByYear(1984).get(0);
+        assertEquals(original.getId(), refreshed.getId());
+        assertEquals("tt0087182", refreshed.getImdbId());
+        assertEquals(1, moviesDAO.findMovieInDatabaseByActor("Sting").size());
+        assertEquals(0, moviesDAO.refreshMovie(original.getId() + 1000, fresh));
+    }
+
+    @Test
+    @DisplayName("HTTP validators are stored with the movie and kept when it is marked fresh")
+    void markMovieFresh_KeepsValidatorsAndMovesFetchTime() {
+        // Arrange
+        Movie movie = movie(1);
+        movie.setEtag("\"v1\"");
+        movie.setLastModified("Wed, 21 Oct 2015 07:28:00 GMT");
+        movie.setFetchedAt(Instant.parse("2020-01-01T00:00:00Z"));
+        moviesDAO.addMovieToDatabase(movie);
+        Instant now = Instant.parse("2024-06-01T12:00:00Z");
+
+        int id = moviesDAO.findMovieInDatabaseByTitle("Movie 1").get(0).getId();
+
+        // Act
+        int rowsUpdated = moviesDAO.markMovieFresh(id, now);
+
+        // Assert
+        Movie stored = moviesDAO.findMovieInDatabaseByTitle("Movie 1").get(0);
+        assertEquals(1, rowsUpdated);
+        assertEquals("\"v1\"", stored.getEtag());
+        assertEquals("Wed, 21 Oct 2015 07:28:00 GMT", stored.getLastModified());
+        assertEquals(now, stored.getFetchedAt());
+    }
+
+    @Test
+    @DisplayName("Actor, director and genre searches use the inverted index built at startup")
+    void findMovieInDatabaseByTerms_WithInvertedIndex_IgnoresAccentsAndCombinesNames() {
+        // Arrange
+        moviesDAO.addMovieToDatabase(new Movie("Vicky Cristina Barcelona", 2008, "Penélope Cruz, Javier Bardem",
+                "Woody Allen", "Drama, Romance"));
+        IndexConfig indexConfig = new IndexConfig();
+        indexConfig.setInvertedIndexEnabled(true);
+        MoviesDAO indexedDAO = new MoviesDAO(database, CatalogMode.PERSISTENT, indexConfig);
+        indexedDAO.addMovieToDatabase(new Movie("No Country for Old Men", 2007, "Tommy Lee Jones, Javier Bardem",
+                "Ethan Coen, Joel Coen", "Crime, Drama"));
+
+        // Act
+        List<Movie> byActor = indexedDAO.findMovieInDatabaseByActor("penelope cruz");
+        List<Movie> byDirector = indexedDAO.findMovieInDatabaseByDirector("Joel Coen");
+        List<Movie> bothActors = indexedDAO.findMovieInDatabaseByTerms(InvertedIndex.Field.ACTOR,
+                List.of("Javier Bardem", "Tommy Lee Jones"), true);
+        List<Movie> eitherGenre = indexedDAO.findMovieInDatabaseByTerms(InvertedIndex.Field.GENRE,
+                List.of("Romance", "Crime"), false);
+        List<Movie> withoutIndex = moviesDAO.findMovieInDatabaseByTerms(InvertedIndex.Field.GENRE,
+                List.of("Drama", "Romance"), true);
+
+        // Assert
+        assertEquals("Vicky Cristina Barcelona", byActor.get(0).getTitle());
+        assertEquals(1, byActor.size());
+        assertEquals("No Country for Old Men", byDirector.get(0).getTitle());
+        assertEquals(1, bothActors.size());
+        assertEquals(2, eitherGenre.size());
+        assertEquals(1, withoutIndex.size());
+        assertEquals("Vicky Cristina Barcelona", withoutIndex.get(0).getTitle());
+    }
+
+    @Test
+    @DisplayName("Actor and director pages are cut from the inverted index when it is enabled")
+    void findMovieInDatabaseByActorAndDirector_WithInvertedIndex_ThenPagesOverPostingList() {
+        // Arrange
+        IndexConfig indexConfig = new IndexConfig();
+        indexConfig.setInvertedIndexEnabled(true);
+        MoviesDAO indexedDAO = new MoviesDAO(database, CatalogMode.PERSISTENT, indexConfig);
+        for (int i = 0; i < 7; i++) {
+            indexedDAO.addMovieToDatabase(new Movie("Coen " + i, 2000 + i, "Frances McDormand, Actor " + i,
+                    i % 2 == 0 ? "Joel Coen, Ethan Coen" : "Joel Coen", "Crime"));
+        }
+        List<String> titles = new ArrayList<>();
+
+        // Act
+        String token = null;
+        int pages = 0;
+        do {
+            Page<Movie> page = indexedDAO.findMovieInDatabaseByActor("FRANCES MCDORMAND", 3, token);
+            page.getItems().forEach(movie -> titles.add(movie.getTitle()));
+            token = page.getNextPageToken();
+            pages++;
+        } while (token != null);
+        Page<Movie> firstByDirector = indexedDAO.findMovieInDatabaseByDirector("Ethan Coen", 2, null);
+        Page<Movie> lastByDirector = indexedDAO.findMovieInDatabaseByDirector("Ethan Coen", 2,
+                firstByDirector.getNextPageToken());
+
+        // Assert
+        assertEquals(List.of("Coen 0", "Coen 1", "Coen 2", "Coen 3", "Coen 4", "Coen 5", "Coen 6"), titles);
+        assertEquals(3, pages);
+        assertEquals(List.of("Coen 0", "Coen 2"), firstByDirector.getItems().stream().map(Movie::getTitle).toList());
+        assertEquals(List.of("Coen 4", "Coen 6"), lastByDirector.getItems().stream().map(Movie::getTitle).toList());
+        assertFalse(lastByDirector.hasNextPage());
+        assertTrue(indexedDAO.findMovieInDatabaseByActor("Nobody", 3, null).getItems().isEmpty());
+    }
+    @Test
+    @DisplayName("A refresh that changes a title removes the old title from the title index unless another row has it")
+    void refreshMovie_WhenTitleChanges_ThenOldTitleLeavesTitleIndex() {
+        // Arrange
+        IndexConfig indexConfig = new IndexConfig();
+        indexConfig.setTitleIndexEnabled(true);
+        MoviesDAO indexedDAO = new MoviesDAO(database, CatalogMode.PERSISTENT, indexConfig);
+        indexedDAO.addMovieToDatabase(new Movie("Alien", 1979, "Sigourney Weaver", "Ridley Scott", "Horror"));
+        indexedDAO.addMovieToDatabase(new Movie("Aliens", 1986, "Sigourney Weaver", "James Cameron", "Action"));
+        indexedDAO.addMovieToDatabase(new Movie("Solaris", 1972, "Donatas Banionis", "Andrei Tarkovsky", "Sci-Fi"));
+        indexedDAO.addMovieToDatabase(new Movie("Solaris", 2002, "George Clooney", "Steven Soderbergh", "Sci-Fi"));
+        int aliensId = indexedDAO.findMovieInDatabaseByTitle("Aliens").get(0).getId();
+        int solarisId = indexedDAO.findMovieInDatabaseByYear(2002).get(0).getId();
+
+        // Act
+        indexedDAO.refreshMovie(aliensId, new Movie("Aliens: Special Edition", 1986, "Sigourney Weaver",
+                "James Cameron", "Action"));
+        indexedDAO.refreshMovie(solarisId, new Movie("Solaris (2002)", 2002, "George Clooney",
+                "Steven Soderbergh", "Sci-Fi"));
+
+        // Assert
+        assertEquals(List.of("Alien"), indexedDAO.findSimilarTitles("Aliens", 1, 5).stream()
+                .map(TitleMatch::getTitle).toList());
+        assertEquals("Solaris", indexedDAO.findSimilarTitles("Solaris", 0, 1).get(0).getTitle());
+    }
+}
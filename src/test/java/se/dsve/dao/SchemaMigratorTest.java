@@ -0,0 +1,120 @@
+package se.dsve.dao;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.dsve.Database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaMigratorTest {
+    private Database database;
+
+    @BeforeEach
+    void setUp() {
+        // Varje test får en egen tom H2-databas
+        database = new Database("jdbc:h2:mem:migratortest" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "OmdbApiKey", "sa", "");
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.close();
+    }
+
+    private Set<String> indexNames() throws SQLException {
+        Set<String> names = new HashSet<>();
+        try (Connection connection = database.getConnection();
+             ResultSet rs = connection.getMetaData().getIndexInfo(null, null, "MOVIES", false, false)) {
+            while (rs.next()) {
+                names.add(rs.getString("INDEX_NAME").toLowerCase());
+            }
+        }
+        return names;
+    }
+
+    @Test
+    @DisplayName("MoviesDAO applies the index migrations at startup")
+    void moviesDAO_AppliesIndexMigrations() throws SQLException {
+        // Act
+        new MoviesDAO(database);
+
+        // Assert
+        assertEquals(MovieMigrations.all().size(), new SchemaMigrator(database, MovieMigrations.all()).getCurrentVersion());
+        assertTrue(indexNames().containsAll(List.of("idx_movies_title", "idx_movies_year_id",
+                "idx_movies_director_id", "idx_movies_year_genre")));
+    }
+
+    @Test
+    @DisplayName("Migrations only run once")
+    void migrate_WhenAlreadyApplied_ThenDoesNothing() {
+        // Arrange
+        new MoviesDAO(database);
+        SchemaMigrator migrator = new SchemaMigrator(database, MovieMigrations.all());
+
+        // Act
+        int applied = migrator.migrate();
+
+        // Assert
+        assertEquals(0, applied);
+    }
+
+    @Test
+    @DisplayName("A failing migration stops later migrations")
+    void migrate_WhenMigrationFails_ThenLaterMigrationsAreSkipped() throws SQLException {
+        // Arrange
+        SchemaMigrator migrator = new SchemaMigrator(database, List.of(
+                Migration.sql(1, "Create table", "CREATE TABLE migration_test (id INT)"),
+                Migration.sql(2, "Broken", "CREATE TABLE migration_test (id INT)"),
+                Migration.sql(3, "Never run", "CREATE TABLE migration_never (id INT)")));
+
+        // Act
+        int applied = migrator.migrate();
+
+        // Assert
+        assertEquals(1, applied);
+        assertEquals(1, migrator.getCurrentVersion());
+        try (Connection connection = database.getConnection();
+             Statement statement = connection.createStatement()) {
+            assertThrows(SQLException.class, () -> statement.executeQuery("SELECT * FROM migration_never"));
+        }
+    }
+
+    @Test
+    @DisplayName("Existing movies are linked to their actors and genres")
+    void migrate_LinksExistingMovies() throws SQLException {
+        // Arrange
+        try (Connection connection = database.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE TABLE movies (id INT NOT NULL AUTO_INCREMENT, title VARCHAR(255), " +
+                    "`year` INT, actors VARCHAR(255), director VARCHAR(255), genre VARCHAR(255), PRIMARY KEY(id))");
+            statement.executeUpdate("INSERT INTO movies (title, `year`, actors, director, genre) VALUES " +
+                    "('Heat', 1995, 'Al Pacino, Robert De Niro', 'Michael Mann', 'Crime, Drama'), " +
+                    "('The Irishman', 2019, 'Robert De Niro, Al Pacino, Joe Pesci', 'Martin Scorsese', 'Crime')");
+        }
+
+        // Act
+        new SchemaMigrator(database, MovieMigrations.all()).migrate();
+
+        // Assert
+        try (Connection connection = database.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT " +
+                     "(SELECT COUNT(*) FROM person), (SELECT COUNT(*) FROM movie_person), " +
+                     "(SELECT COUNT(*) FROM genre), (SELECT COUNT(*) FROM movie_genre)")) {
+            assertTrue(rs.next());
+            assertEquals(3, rs.getInt(1));
+            assertEquals(5, rs.getInt(2));
+            assertEquals(2, rs.getInt(3));
+            assertEquals(3, rs.getInt(4));
+        }
+    }
+}
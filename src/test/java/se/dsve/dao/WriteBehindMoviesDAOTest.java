@@ -0,0 +1,190 @@
+package se.dsve.dao;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.dsve.Database;
+import se.dsve.classes.Movie;
+import se.dsve.helpers.Deadline;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindMoviesDAOTest {
+    private static final String JDBC_URL = "jdbc:h2:mem:writebehindtest;DB_CLOSE_DELAY=-1";
+    private static Database database;
+    private static MoviesDAO moviesDAO;
+
+    /**
+     * WriteBehindMoviesDAO whose writer waits for a latch before each batch.
+     */
+    static class BlockedWriterDAO extends WriteBehindMoviesDAO {
+        final CountDownLatch release = new CountDownLatch(1);
+
+        BlockedWriterDAO(WriteBehindConfig config) {
+            super(database, CatalogMode.PERSISTENT, config);
+        }
+
+        @Override
+        public BulkInsertResult addMoviesToDatabase(Collection<Movie> movies, int chunkSize) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.addMoviesToDatabase(movies, chunkSize);
+        }
+    }
+
+    /**
+     * WriteBehindMoviesDAO whose first bulk insert throws.
+     */
+    static class FailingBatchDAO extends WriteBehindMoviesDAO {
+        private final AtomicBoolean failed = new AtomicBoolean();
+
+        FailingBatchDAO(WriteBehindConfig config) {
+            super(database, CatalogMode.PERSISTENT, config);
+        }
+
+        @Override
+        public BulkInsertResult addMoviesToDatabase(Collection<Movie> movies, int chunkSize) {
+            if (failed.compareAndSet(false, true)) {
+                throw new IllegalStateException("Simulated bulk insert failure");
+            }
+            return super.addMoviesToDatabase(movies, chunkSize);
+        }
+    }
+
+    @BeforeAll
+    static void setUp() {
+        database = new Database(JDBC_URL, "OmdbApiKey", "sa", "");
+        moviesDAO = new MoviesDAO(database, CatalogMode.WIPE_ON_START);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        database.close();
+    }
+
+    @BeforeEach
+    void clearTable() {
+        moviesDAO.clearMoviesTable();
+    }
+
+    private static Movie movie(int i) {
+        return new Movie("Queued " + i, 2001, "Actor " + i, "Director", "Drama");
+    }
+
+    @Test
+    @DisplayName("Queued movies are visible to title lookups at once and all written in batches on close")
+    void addMovieToDatabase_WhenQueued_ThenReadableAndWrittenOnClose() {
+        // Arrange
+        WriteBehindConfig config = new WriteBehindConfig();
+        config.setBatchSize(50);
+        config.setFlushIntervalMillis(10_000);
+        WriteBehindMoviesDAO writeBehindDAO = new WriteBehindMoviesDAO(database, CatalogMode.PERSISTENT, config);
+
+        // Act
+        for (int i = 0; i < 120; i++) {
+            assertTrue(writeBehindDAO.addMovieToDatabase(movie(i), Deadline.none()));
+        }
+        Movie queued = writeBehindDAO.findMovieInDatabaseByTitle("queued 7").get(0);
+        writeBehindDAO.close();
+
+        // Assert
+        assertEquals("Actor 7", queued.getActors());
+        assertEquals(120, moviesDAO.findMovieInDatabaseByYear(2001).size());
+        assertEquals(120, writeBehindDAO.getWrittenCount());
+        assertTrue(writeBehindDAO.getBatchCount() >= 3, "batches: " + writeBehindDAO.getBatchCount());
+        assertEquals(0, writeBehindDAO.getQueuedCount());
+    }
+
+    @Test
+    @DisplayName("A title lookup merges queued movies with stored movies of the same title")
+    void findMovieInDatabaseByTitle_WhenRemakeIsQueued_ThenBothAreFound() {
+        // Arrange
+        moviesDAO.addMovieToDatabase(new Movie("Dune", 1984, "Kyle MacLachlan", "David Lynch", "Sci-Fi"));
+        moviesDAO.addMovieToDatabase(new Movie("Dune", 2021, "Timothée Chalamet", "Old Director", "Sci-Fi"));
+        WriteBehindConfig config = new WriteBehindConfig();
+        config.setFlushIntervalMillis(10_000);
+        BlockedWriterDAO writeBehindDAO = new BlockedWriterDAO(config);
+
+        // Act
+        writeBehindDAO.addMovieToDatabase(new Movie("Dune", 2021, "Timothée Chalamet", "Denis Villeneuve", "Sci-Fi"),
+                Deadline.none());
+        writeBehindDAO.addMovieToDatabase(new Movie("Dune", 2024, "Zendaya", "Denis Villeneuve", "Sci-Fi"),
+                Deadline.none());
+        List<Movie> found = writeBehindDAO.findMovieInDatabaseByTitle("dune");
+        writeBehindDAO.release.countDown();
+        writeBehindDAO.close();
+
+        // Assert
+        assertEquals(List.of(2021, 2024, 1984), found.stream().map(Movie::getYear).toList());
+        assertEquals("Denis Villeneuve", found.get(0).getDirector());
+        assertEquals(3, moviesDAO.findMovieInDatabaseByTitle("Dune").size());
+    }
+
+    @Test
+    @DisplayName("A full queue blocks new movies until the deadline and loses nothing it accepted")
+    void addMovieToDatabase_WhenQueueIsFull_ThenAppliesBackpressure() {
+        // Arrange
+        WriteBehindConfig config = new WriteBehindConfig();
+        config.setQueueCapacity(1);
+        config.setBatchSize(1);
+        config.setFlushIntervalMillis(0);
+        BlockedWriterDAO writeBehindDAO = new BlockedWriterDAO(config);
+        assertTrue(writeBehindDAO.addMovieToDatabase(movie(1), Deadline.none()));
+        // Väntar tills skrivaren har tagit den första filmen och blockerar
+        while (writeBehindDAO.getQueuedCount() > 0) {
+            Thread.onSpinWait();
+        }
+
+        // Act
+        boolean second = writeBehindDAO.addMovieToDatabase(movie(2), Deadline.after(Duration.ofMillis(200)));
+        long start = System.nanoTime();
+        boolean third = writeBehindDAO.addMovieToDatabase(movie(3), Deadline.after(Duration.ofMillis(200)));
+        long waitedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        writeBehindDAO.release.countDown();
+        writeBehindDAO.close();
+
+        // Assert
+        assertTrue(second);
+        assertFalse(third);
+        assertTrue(waitedMillis >= 150, "waited " + waitedMillis + " ms");
+        assertEquals(1, writeBehindDAO.getBackpressureCount());
+        assertEquals(2, moviesDAO.findMovieInDatabaseByYear(2001).size());
+        assertTrue(moviesDAO.findMovieInDatabaseByTitle("Queued 3").isEmpty());
+    }
+
+    @Test
+    @DisplayName("A batch that throws is written one by one and the writer keeps writing later movies")
+    void addMovieToDatabase_WhenBatchThrows_ThenWriterKeepsRunning() {
+        // Arrange
+        WriteBehindConfig config = new WriteBehindConfig();
+        config.setBatchSize(10);
+        config.setFlushIntervalMillis(10);
+        FailingBatchDAO writeBehindDAO = new FailingBatchDAO(config);
+
+        // Act
+        writeBehindDAO.addMovieToDatabase(movie(1), Deadline.none());
+        writeBehindDAO.flush();
+        writeBehindDAO.addMovieToDatabase(movie(2), Deadline.none());
+        writeBehindDAO.flush();
+        int queued = writeBehindDAO.getQueuedCount();
+        writeBehindDAO.close();
+
+        // Assert
+        assertEquals(0, queued);
+        assertEquals(2, writeBehindDAO.getWrittenCount());
+        assertEquals(0, writeBehindDAO.getFailedCount());
+        assertEquals(2, moviesDAO.findMovieInDatabaseByYear(2001).size());
+        assertEquals(1, writeBehindDAO.findMovieInDatabaseByTitle("Queued 2").size());
+    }
+}
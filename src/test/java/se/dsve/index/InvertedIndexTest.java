@@ -0,0 +1,72 @@
+package se.dsve.index;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.dsve.classes.Movie;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvertedIndexTest {
+
+    @Test
+    @DisplayName("AND and OR queries intersect and merge the posting lists")
+    void matchAllAndMatchAny_CombinePostingLists() {
+        // Arrange
+        InvertedIndex index = new InvertedIndex();
+        index.put(1, new Movie("Heat", 1995, "Al Pacino, Robert De Niro", "Michael Mann", "Crime, Drama"));
+        index.put(2, new Movie("The Irishman", 2019, "Robert De Niro, Al Pacino, Joe Pesci", "Martin Scorsese", "Crime"));
+        index.put(3, new Movie("Goodfellas", 1990, "Robert De Niro, Ray Liotta, Joe Pesci", "Martin Scorsese", "Crime"));
+
+        // Act
+        int[] pacinoAndDeNiro = index.matchAll(InvertedIndex.Field.ACTOR, List.of("Al Pacino", "ROBERT DE NIRO"));
+        int[] pacinoOrLiotta = index.matchAny(InvertedIndex.Field.ACTOR, List.of("Al Pacino", "Ray Liotta"));
+        int[] unknown = index.matchAll(InvertedIndex.Field.ACTOR, List.of("Al Pacino", "Nobody"));
+        int[] scorseseCrime = InvertedIndex.and(index.matchAll(InvertedIndex.Field.DIRECTOR, List.of("Martin Scorsese")),
+                index.matchAll(InvertedIndex.Field.GENRE, List.of("crime")));
+
+        // Assert
+        assertArrayEquals(new int[]{1, 2}, pacinoAndDeNiro);
+        assertArrayEquals(new int[]{1, 2, 3}, pacinoOrLiotta);
+        assertArrayEquals(new int[0], unknown);
+        assertArrayEquals(new int[]{2, 3}, scorseseCrime);
+    }
+
+    @Test
+    @DisplayName("Re-indexing a movie replaces its terms and accents are ignored")
+    void put_WhenMovieIsIndexedAgain_ThenOldTermsAreRemoved() {
+        // Arrange
+        InvertedIndex index = new InvertedIndex();
+        index.put(7, new Movie("Amélie", 2001, "Audrey Tautou", "Jean-Pierre Jeunet", "Comedy, N/A"));
+
+        // Act
+        index.put(7, new Movie("Amélie", 2001, "Audrey Tautou, Mathieu Kassovitz", "Jean-Pierre Jeunet", "Romance"));
+
+        // Assert
+        assertArrayEquals(new int[0], index.matchAll(InvertedIndex.Field.GENRE, List.of("Comedy")));
+        assertArrayEquals(new int[]{7}, index.matchAll(InvertedIndex.Field.GENRE, List.of("Romance")));
+        assertArrayEquals(new int[]{7}, index.matchAll(InvertedIndex.Field.ACTOR, List.of("Mathieu Kassovitz")));
+        assertArrayEquals(new int[]{7}, index.matchAll(InvertedIndex.Field.DIRECTOR, List.of("jean-pierre jeunét")));
+        assertEquals(1, index.termCount(InvertedIndex.Field.GENRE));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    @DisplayName("Galloping intersection finds the ids of a short list in a long one")
+    void intersect_WhenListsDifferInLength_ThenGallopingSearchIsUsed() {
+        // Arrange
+        PostingList longList = new PostingList();
+        for (int id = 10_000; id > 0; id--) {
+            longList.add(id * 2);
+        }
+        int[] shortList = {3, 4, 5_000, 19_998, 20_000, 20_002};
+
+        // Act
+        int[] result = longList.intersect(shortList);
+
+        // Assert
+        assertEquals(10_000, longList.size());
+        assertArrayEquals(new int[]{4, 5_000, 19_998, 20_000}, result);
+    }
+}
@@ -0,0 +1,67 @@
+package se.dsve.index;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrigramIndexTest {
+
+    @Test
+    @DisplayName("Misspelled titles find the closest stored titles first")
+    void search_WhenTitleIsMisspelled_ThenClosestTitlesAreReturned() {
+        // Arrange
+        TrigramIndex index = new TrigramIndex();
+        index.add("The Godfather");
+        index.add("The Godfather Part II");
+        index.add("Amélie");
+        index.add("Goodfellas");
+
+        // Act
+        List<TitleMatch> godfather = index.search("the godfahter", 2, 5);
+        List<TitleMatch> amelie = index.search("AMELIE!", 2, 5);
+        List<TitleMatch> tooFar = index.search("The Goodfather Prt 2", 2, 5);
+
+        // Assert
+        assertEquals(1, godfather.size());
+        assertEquals("The Godfather", godfather.get(0).getTitle());
+        assertEquals(2, godfather.get(0).getDistance());
+        assertEquals("Amélie", amelie.get(0).getTitle());
+        assertEquals(0, amelie.get(0).getDistance());
+        assertTrue(tooFar.isEmpty());
+    }
+
+    @Test
+    @DisplayName("The banded edit distance stops at the bound")
+    void boundedDistance_CountsEditsUpToTheBound() {
+        // Assert
+        assertEquals(0, TrigramIndex.boundedDistance("heat", "heat", 2));
+        assertEquals(1, TrigramIndex.boundedDistance("alien", "aliens", 2));
+        assertEquals(2, TrigramIndex.boundedDistance("kitten", "sittin", 2));
+        assertEquals(3, TrigramIndex.boundedDistance("kitten", "sitting", 2));
+        assertEquals(3, TrigramIndex.boundedDistance("abcdef", "fedcba", 2));
+    }
+    @Test
+    @DisplayName("A removed title is no longer found and can be added again")
+    void remove_WhenTitleIsRemoved_ThenItIsNotFound() {
+        // Arrange
+        TrigramIndex index = new TrigramIndex();
+        index.add("The Godfather");
+        index.add("The Godfather Part II");
+
+        // Act
+        index.remove("THE GODFATHER");
+        index.remove("Not Indexed");
+        List<TitleMatch> afterRemove = index.search("The Godfather", 2, 5);
+        int sizeAfterRemove = index.size();
+        index.add("The Godfather");
+
+        // Assert
+        assertTrue(afterRemove.isEmpty());
+        assertEquals(1, sizeAfterRemove);
+        assertEquals("The Godfather", index.search("the godfahter", 2, 5).get(0).getTitle());
+        assertEquals(2, index.size());
+    }
+}
@@ -0,0 +1,194 @@
+package se.dsve.pool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPoolTest {
+    private static final String JDBC_URL = "jdbc:h2:mem:pooltest;DB_CLOSE_DELAY=-1";
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        ConnectionPoolConfig config = new ConnectionPoolConfig();
+        config.setMinSize(1);
+        config.setMaxSize(2);
+        config.setBorrowTimeoutMillis(200);
+        pool = new ConnectionPool(JDBC_URL, "sa", "", config);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    @DisplayName("Closing a pooled connection returns the physical connection for reuse")
+    void getConnection_WhenClosed_ThenPhysicalConnectionIsReused() throws SQLException {
+        // Arrange
+        Connection first = pool.getConnection();
+        Connection physical = first.unwrap(Connection.class);
+
+        // Act
+        first.close();
+        Connection second = pool.getConnection();
+
+        // Assert
+        assertTrue(first.isClosed(), "Returned connection should report closed");
+        assertSame(physical, second.unwrap(Connection.class), "Physical connection should be reused");
+        assertEquals(1, pool.getCreatedCount());
+        second.close();
+    }
+
+    @Test
+    @DisplayName("Counters track active and idle connections")
+    void getConnection_UpdatesActiveAndIdleCounters() throws SQLException {
+        // Act
+        Connection connection = pool.getConnection();
+
+        // Assert
+        assertEquals(1, pool.getActiveCount());
+        assertEquals(0, pool.getIdleCount());
+
+        connection.close();
+        assertEquals(0, pool.getActiveCount());
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    @DisplayName("Borrowing from an exhausted pool times out")
+    void getConnection_WhenExhausted_ThenTimesOut() throws SQLException {
+        // Arrange
+        Connection first = pool.getConnection();
+        Connection second = pool.getConnection();
+
+        // Act & Assert
+        assertThrows(SQLTimeoutException.class, () -> pool.getConnection());
+        assertEquals(1, pool.getBorrowTimeoutCount());
+
+        first.close();
+        second.close();
+    }
+
+    @Test
+    @DisplayName("Invalid idle connections are replaced on borrow")
+    void getConnection_WhenIdleConnectionInvalid_ThenOpensNewConnection() throws SQLException {
+        // Arrange
+        Connection connection = pool.getConnection();
+        Connection physical = connection.unwrap(Connection.class);
+        connection.close();
+        physical.close();
+
+        // Act
+        Connection replacement = pool.getConnection();
+
+        // Assert
+        assertNotSame(physical, replacement.unwrap(Connection.class));
+        assertTrue(replacement.isValid(1));
+        assertEquals(1, pool.getDestroyedCount());
+        replacement.close();
+    }
+
+    @Test
+    @DisplayName("Idle connections above the minimum size are evicted")
+    void evictIdleConnections_KeepsMinimumSize() throws SQLException {
+        // Arrange
+        ConnectionPoolConfig config = new ConnectionPoolConfig();
+        config.setMinSize(1);
+        config.setMaxSize(3);
+        config.setIdleTimeoutMillis(0);
+        try (ConnectionPool shortLivedPool = new ConnectionPool(JDBC_URL, "sa", "", config)) {
+            Connection first = shortLivedPool.getConnection();
+            Connection second = shortLivedPool.getConnection();
+            first.close();
+            second.close();
+
+            // Act
+            shortLivedPool.evictIdleConnections();
+
+            // Assert
+            assertEquals(1, shortLivedPool.getIdleCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Prepared statements are reused per connection")
+    void prepareStatement_WhenSameSql_ThenCachedStatementIsReused() throws SQLException {
+        // Arrange
+        String sql = "SELECT 1";
+        PreparedStatement physicalStatement;
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            physicalStatement = statement.unwrap(PreparedStatement.class);
+        }
+
+        // Act
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+
+            // Assert
+            assertSame(physicalStatement, statement.unwrap(PreparedStatement.class));
+            assertTrue(statement.executeQuery().next());
+        }
+        assertEquals(1, pool.getStatementCacheHitCount());
+        assertEquals(1, pool.getStatementCacheMissCount());
+    }
+
+    @Test
+    @DisplayName("A reused statement does not keep the timeout, limits or batch of its last user")
+    void prepareStatement_WhenReused_ThenStateIsReset() throws SQLException {
+        // Arrange
+        try (Connection connection = pool.getConnection()) {
+            PreparedStatement first = connection.prepareStatement("SELECT ?");
+            first.setQueryTimeout(5);
+            first.setFetchSize(50);
+            first.setMaxRows(1);
+            first.setInt(1, 1);
+            first.addBatch();
+            first.close();
+
+            // Act
+            PreparedStatement second = connection.prepareStatement("SELECT ?");
+
+            // Assert
+            assertEquals(0, second.getQueryTimeout());
+            assertEquals(0, second.getMaxRows());
+            assertNotEquals(50, second.getFetchSize());
+            assertEquals(0, second.executeBatch().length);
+            assertEquals(1, pool.getStatementCacheHitCount());
+            second.close();
+        }
+    }
+
+    @Test
+    @DisplayName("The least recently used statement is closed when the cache is full")
+    void prepareStatement_WhenCacheFull_ThenLeastRecentlyUsedIsEvicted() throws SQLException {
+        // Arrange
+        ConnectionPoolConfig config = new ConnectionPoolConfig();
+        config.setMinSize(1);
+        config.setMaxSize(1);
+        config.setStatementCacheSize(1);
+        try (ConnectionPool smallCachePool = new ConnectionPool(JDBC_URL, "sa", "", config);
+             Connection connection = smallCachePool.getConnection()) {
+            PreparedStatement first = connection.prepareStatement("SELECT 1");
+            PreparedStatement physicalFirst = first.unwrap(PreparedStatement.class);
+            first.close();
+
+            // Act
+            connection.prepareStatement("SELECT 2").close();
+
+            // Assert
+            assertTrue(physicalFirst.isClosed(), "Evicted statement should be closed");
+            assertEquals(0, smallCachePool.getStatementCacheHitCount());
+            assertEquals(2, smallCachePool.getStatementCacheMissCount());
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package se.dsve.services;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.dsve.Database;
+import se.dsve.api.ApiService;
+import se.dsve.api.TitleResult;
+import se.dsve.classes.Movie;
+import se.dsve.dao.CatalogMode;
+import se.dsve.dao.IndexConfig;
+import se.dsve.dao.MoviesDAO;
+import se.dsve.helpers.Deadline;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TitleLookupServiceTest {
+    private static final String JDBC_URL = "jdbc:h2:mem:titlelookuptest;DB_CLOSE_DELAY=-1";
+    private static Database database;
+    private static MoviesDAO moviesDAO;
+    private StubApiService apiService;
+
+    /**
+     * ApiService that answers from memory and counts how many times it was called.
+     */
+    static class StubApiService extends ApiService {
+        final AtomicInteger calls = new AtomicInteger();
+        volatile String director = "James Gunn";
+        volatile long delayMillis;
+        volatile CompletableFuture<Movie> lastFetch;
+
+        @Override
+        public CompletableFuture<Movie> getDataByTitleAsync(String movieTitle, Deadline deadline) {
+            calls.incrementAndGet();
+            lastFetch = CompletableFuture.supplyAsync(() -> {
+                sleep(delayMillis);
+                return new Movie(movieTitle, 2017, "Chris Pratt", director, "Action");
+            });
+            return lastFetch;
+        }
+
+        @Override
+        public CompletableFuture<TitleResult> revalidateAsync(Movie stored) {
+            // Svarar som om filmen har ändrats sedan den hämtades
+            return getDataByTitleAsync(stored.getTitle(), Deadline.none()).thenApply(movie -> {
+                TitleResult result = mock(TitleResult.class);
+                when(result.getStatus()).thenReturn(TitleResult.Status.FOUND);
+                when(result.getMovie()).thenReturn(movie);
+                return result;
+            });
+        }
+    }
+
+    /**
+     * MoviesDAO that counts how many movies are added.
+     */
+    static class CountingMoviesDAO extends MoviesDAO {
+        final AtomicInteger adds = new AtomicInteger();
+
+        CountingMoviesDAO() {
+            super(database, CatalogMode.PERSISTENT);
+        }
+
+        @Override
+        public boolean addMovieToDatabase(Movie movie, Deadline deadline) {
+            adds.incrementAndGet();
+            return super.addMovieToDatabase(movie, deadline);
+        }
+    }
+
+    /**
+     * MoviesDAO whose title lookups answer only after a delay.
+     */
+    static class SlowMoviesDAO extends MoviesDAO {
+        private final long delayMillis;
+
+        SlowMoviesDAO(long delayMillis) {
+            super(database, CatalogMode.PERSISTENT);
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public List<Movie> findMovieInDatabaseByTitle(String search, Deadline deadline) {
+            // Frågan körs först, svaret dröjer
+            List<Movie> movies = super.findMovieInDatabaseByTitle(search, deadline);
+            sleep(delayMillis);
+            return movies;
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @BeforeAll
+    static void setUp() {
+        database = new Database(JDBC_URL, "OmdbApiKey", "sa", "");
+        moviesDAO = new MoviesDAO(database, CatalogMode.WIPE_ON_START);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        database.close();
+    }
+
+    @BeforeEach
+    void clearTable() {
+        moviesDAO.clearMoviesTable();
+        apiService = new StubApiService();
+    }
+
+    @Test
+    @DisplayName("A movie missing in the database is fetched once and stored")
+    void findByTitle_WhenNotInDatabase_ThenFetchesAndStores() {
+        // Arrange
+        TitleLookupService service = new TitleLookupService(moviesDAO, apiService, Duration.ofHours(1));
+
+        // Act
+        Movie first = service.findByTitle("Guardians of the Galaxy Vol. 2");
+        Movie second = service.findByTitle("Guardians of the Galaxy Vol. 2");
+
+        // Assert
+        assertEquals("James Gunn", first.getDirector());
+        assertEquals("James Gunn", second.getDirector());
+        assertNotNull(second.getFetchedAt());
+        assertEquals(1, apiService.calls.get());
+    }
+
+    @Test
+    @DisplayName("Concurrent lookups of a missing title share one OMDB call and one database write")
+    void findByTitle_WhenConcurrentMisses_ThenFetchesOnce() throws Exception {
+        // Arrange
+        int callers = 16;
+        apiService.delayMillis = 200;
+        CountingMoviesDAO countingDAO = new CountingMoviesDAO();
+        TitleLookupService service = new TitleLookupService(countingDAO, apiService, Duration.ofHours(1));
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Movie>> results = new ArrayList<>();
+
+        // Act
+        try (ExecutorService executor = Executors.newFixedThreadPool(callers)) {
+            for (int i = 0; i < callers; i++) {
+                String title = i % 2 == 0 ? "Baby Driver" : "  baby DRIVER ";
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return service.findByTitle(title);
+                }));
+            }
+            start.countDown();
+
+            // Assert
+            for (Future<Movie> result : results) {
+                assertNotNull(result.get());
+            }
+        }
+        assertEquals(1, apiService.calls.get());
+        assertEquals(1, countingDAO.adds.get());
+        assertEquals(callers - 1, service.getCoalescedCount());
+    }
+
+    @Test
+    @DisplayName("A lookup that runs out of its time budget is cancelled during the OMDB fetch")
+    void lookup_WhenOmdbIsSlowerThanDeadline_ThenTimesOut() {
+        // Arrange
+        apiService.delayMillis = 2_000;
+        TitleLookupService service = new TitleLookupService(moviesDAO, apiService, Duration.ofHours(1));
+
+        // Act
+        long start = System.nanoTime();
+        LookupResult result = service.lookup("Dunkirk", Deadline.after(Duration.ofMillis(300)));
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        // Assert
+        assertEquals(LookupResult.Status.TIMED_OUT, result.getStatus());
+        assertEquals(LookupResult.Stage.OMDB_FETCH, result.getTimedOutStage());
+        assertNull(result.getMovie());
+        assertTrue(elapsedMillis < 1_000, "lookup took " + elapsedMillis + " ms");
+        assertEquals(1, service.getTimeoutCount(LookupResult.Stage.OMDB_FETCH));
+    }
+
+    @Test
+    @DisplayName("A speculative lookup answered by the database within the delay never calls OMDB")
+    void lookup_WhenSpeculativeAndDatabaseIsFast_ThenOmdbIsNotCalled() {
+        // Arrange
+        moviesDAO.addMovieToDatabase(new Movie("Heat", 1995, "Al Pacino", "Michael Mann", "Crime"));
+        TitleLookupService service = new TitleLookupService(moviesDAO, apiService, Duration.ofHours(1),
+                LookupStrategy.SPECULATIVE, Duration.ofMillis(500));
+
+        // Act
+        LookupResult result = service.lookup("Heat", Deadline.after(Duration.ofSeconds(5)));
+
+        // Assert
+        assertEquals("Michael Mann", result.getMovie().getDirector());
+        assertEquals(0, apiService.calls.get());
+        assertEquals(0, service.getSpeculationStats().getSpeculationCount());
+    }
+
+    @Test
+    @DisplayName("A stored movie that answers after the OMDB fetch has started wins and cancels the fetch")
+    void lookup_WhenSpeculativeAndDatabaseAnswersLate_ThenStoredMovieWins() {
+        // Arrange
+        moviesDAO.addMovieToDatabase(new Movie("Heat", 1995, "Al Pacino", "Michael Mann", "Crime"));
+        apiService.delayMillis = 2_000;
+        TitleLookupService service = new TitleLookupService(new SlowMoviesDAO(150), apiService, Duration.ofHours(1),
+                LookupStrategy.SPECULATIVE, Duration.ofMillis(20));
+
+        // Act
+        long start = System.nanoTime();
+        LookupResult result = service.lookup("Heat", Deadline.after(Duration.ofSeconds(5)));
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        // Räknarna uppdateras av databastråden, close() väntar in den
+        service.close();
+
+        // Assert
+        assertEquals("Michael Mann", result.getMovie().getDirector());
+        assertTrue(elapsedMillis < 1_000, "lookup took " + elapsedMillis + " ms");
+        assertEquals(1, apiService.calls.get());
+        assertTrue(apiService.lastFetch.isCancelled());
+        SpeculationStats stats = service.getSpeculationStats();
+        assertEquals(1, stats.getSpeculationCount());
+        assertEquals(1, stats.getExtraFetchCount());
+        assertEquals(0, stats.getMissCount());
+    }
+
+    @Test
+    @DisplayName("A movie fetched from OMDB before the database has answered is returned and stored")
+    void lookup_WhenSpeculativeAndOmdbAnswersFirst_ThenFetchedMovieWins() {
+        // Arrange
+        CountingMoviesDAO countingDAO = new CountingMoviesDAO();
+        SlowMoviesDAO slowDAO = new SlowMoviesDAO(500) {
+            @Override
+            public boolean addMovieToDatabase(Movie movie, Deadline deadline) {
+                return countingDAO.addMovieToDatabase(movie, deadline);
+            }
+        };
+        TitleLookupService service = new TitleLookupService(slowDAO, apiService, Duration.ofHours(1),
+                LookupStrategy.SPECULATIVE, Duration.ofMillis(20));
+
+        // Act
+        long start = System.nanoTime();
+        LookupResult result = service.lookup("Dunkirk", Deadline.after(Duration.ofSeconds(5)));
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        // close() väntar på databasfrågan, först då räknas den som en miss
+        service.close();
+
+        // Assert
+        assertEquals(LookupResult.Status.FOUND, result.getStatus());
+        assertEquals("James Gunn", result.getMovie().getDirector());
+        assertTrue(elapsedMillis < 500, "lookup took " + elapsedMillis + " ms");
+        assertEquals(1, countingDAO.adds.get());
+        SpeculationStats stats = service.getSpeculationStats();
+        assertEquals(1, stats.getSpeculationCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(0, stats.getExtraFetchCount());
+        assertTrue(stats.getTimeSavedMillis() > 0);
+        assertEquals(1, moviesDAO.findMovieInDatabaseByTitle("Dunkirk").size());
+    }
+
+    @Test
+    @DisplayName("A stale movie is served right away and refreshed in the background")
+    void findByTitle_WhenStale_ThenServesStaleAndRefreshes() {
+        // Arrange
+        Movie stale = new Movie("Guardians of the Galaxy Vol. 2", 2017, "Chris Pratt", "Old Director", "Action");
+        stale.setFetchedAt(Instant.now().minus(Duration.ofDays(30)));
+        moviesDAO.addMovieToDatabase(stale);
+
+        // Act
+        try (TitleLookupService service = new TitleLookupService(moviesDAO, apiService, Duration.ofDays(7))) {
+            Movie served = service.findByTitle("Guardians of the Galaxy Vol. 2");
+
+            // Assert
+            assertEquals("Old Director", served.getDirector());
+            assertEquals(1, service.getStaleHitCount());
+        }
+        // close() väntar på att bakgrundsuppdateringen blir klar
+        assertEquals(1, apiService.calls.get());
+        assertEquals("James Gunn", moviesDAO.findMovieInDatabaseByTitle("Guardians of the Galaxy Vol. 2").get(0).getDirector());
+    }
+
+    @Test
+    @DisplayName("Persistent mode keeps movies when the DAO is created again")
+    void moviesDAO_WhenPersistent_ThenKeepsMovies() {
+        // Arrange
+        moviesDAO.addMovieToDatabase(new Movie("Heat", 1995, "Al Pacino", "Michael Mann", "Crime"));
+
+        // Act
+        MoviesDAO restarted = new MoviesDAO(database, CatalogMode.PERSISTENT);
+
+        // Assert
+        assertEquals(1, restarted.findMovieInDatabaseByTitle("Heat").size());
+        new MoviesDAO(database, CatalogMode.WIPE_ON_START);
+        assertTrue(restarted.findMovieInDatabaseByTitle("Heat").isEmpty());
+    }
+
+    @Test
+    @DisplayName("A misspelled title is resolved to a stored movie without calling OMDB")
+    void lookup_WhenTitleIsMisspelled_ThenSimilarStoredTitleIsUsed() {
+        // Arrange
+        IndexConfig indexConfig = new IndexConfig();
+        indexConfig.setTitleIndexEnabled(true);
+        MoviesDAO indexedDAO = new MoviesDAO(database, CatalogMode.PERSISTENT, indexConfig);
+        indexedDAO.addMovieToDatabase(new Movie("Guardians of the Galaxy", 2014, "Chris Pratt", "James Gunn", "Action"));
+        indexedDAO.addMovieToDatabase(new Movie("Alien", 1979, "Sigourney Weaver", "Ridley Scott", "Horror"));
+        TitleLookupService service = new TitleLookupService(indexedDAO, apiService, Duration.ofHours(1));
+
+        // Act
+        LookupResult misspelled = service.lookup("GUARDIANS of the Galxy", Deadline.after(Duration.ofSeconds(5)));
+        LookupResult sequel = service.lookup("Alien 3", Deadline.after(Duration.ofSeconds(5)));
+
+        // Assert
+        assertEquals("Guardians of the Galaxy", misspelled.getMovie().getTitle());
+        assertEquals("Alien 3", sequel.getMovie().getTitle());
+        assertEquals(1, apiService.calls.get());
+        assertEquals(1, service.getFuzzyResolvedCount());
+        assertEquals(List.of("Alien 3", "Alien"), service.suggestTitles("Alien 2"));
+    }
+}
@@ -0,0 +1,90 @@
+package se.dsve.store;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import se.dsve.classes.Movie;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieColumnStoreTest {
+
+    @Test
+    @DisplayName("Rows are read back as the movies that were added, with repeated names stored once")
+    void getMovie_ReturnsAddedMovies() {
+        // Arrange
+        Movie heat = new Movie("Heat", 1995, "Al Pacino,Robert De Niro", "Michael Mann", "Crime, Drama");
+        heat.setImdbId("tt0113277");
+        Movie collateral = new Movie("Collateral", 2004, "Tom Cruise, Jamie Foxx", "Michael Mann", "Crime, Drama");
+        Movie unknown = new Movie("Amélie", 2001, null, null, null);
+        MovieColumnStore store = new MovieColumnStore(1);
+
+        // Act
+        store.add(heat);
+        store.add(collateral);
+        int row = store.add(unknown);
+        store.trimToSize();
+        store.add(new Movie("", 0, "", "Michael Mann", "Crime"));
+
+        // Assert
+        Movie first = store.getMovie(0);
+        assertEquals("Heat", first.getTitle());
+        assertEquals(1995, first.getYear());
+        assertEquals("Al Pacino, Robert De Niro", first.getActors());
+        assertEquals("Michael Mann", first.getDirector());
+        assertEquals("Crime, Drama", first.getGenre());
+        assertEquals("tt0113277", first.getImdbId());
+        assertNull(store.getMovie(1).getImdbId());
+        assertEquals(2, row);
+        assertEquals("Amélie", store.getTitle(row));
+        assertNull(store.getMovie(row).getActors());
+        assertNull(store.getDirector(row));
+        assertEquals("", store.getTitle(3));
+        assertEquals(List.of("Tom Cruise", "Jamie Foxx"), store.getActors(1));
+        assertEquals(4, store.size());
+        DictionarySizes sizes = store.getDictionarySizes();
+        assertEquals(1, sizes.getDirectorCount());
+        assertEquals(2, sizes.getGenreCount());
+        assertEquals(4, sizes.getActorCount());
+        assertThrows(IndexOutOfBoundsException.class, () -> store.getMovie(4));
+    }
+
+    @Test
+    @DisplayName("A cursor filters on codes and only creates movies for the matching rows")
+    void cursor_FiltersOnCodes() {
+        // Arrange
+        MovieColumnStore store = new MovieColumnStore();
+        for (int i = 0; i < 100; i++) {
+            store.add(new Movie("Movie " + i, 2000 + i % 10, "Actor " + i % 7 + ", Actor " + i % 3,
+                    "Director " + i % 5, "Drama"));
+        }
+
+        // Act
+        List<Movie> matches = new ArrayList<>();
+        MovieColumnStore.Cursor cursor = store.cursor();
+        int director = cursor.directorCode("Director 2");
+        int actor = cursor.actorCode("Actor 6");
+        int missing = cursor.genreCode("Western");
+        int missingRows = 0;
+        while (cursor.next()) {
+            if (cursor.hasDirector(director) && cursor.hasActor(actor) && cursor.year() >= 2005) {
+                matches.add(cursor.toMovie());
+            }
+            if (cursor.hasGenre(missing)) {
+                missingRows++;
+            }
+        }
+        int iterated = 0;
+        for (Movie movie : store) {
+            iterated++;
+        }
+
+        // Assert
+        assertEquals(List.of("Movie 27", "Movie 97"), matches.stream().map(Movie::getTitle).toList());
+        assertEquals(0, missingRows);
+        assertFalse(cursor.next());
+        assertEquals(100, iterated);
+    }
+}